@@ -1,35 +1,35 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License Version
- * 1.0 (the "License"); you may not use this file except in compliance with the
- * License. You may obtain a copy of the License at http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS" basis,
- * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
- * the specific language governing rights and limitations under the License.
- *
- * Copyright (C) OpenMRS, LLC. All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext;
-
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-import org.openmrs.module.BaseModuleActivator;
-import org.openmrs.module.ModuleActivator;
-
-/**
- * {@link ModuleActivator} for the webservices.rest19ext module
- */
-public class Activator extends BaseModuleActivator {
-	
-	private Log log = LogFactory.getLog(this.getClass());
-	
-	@Override
-	public void started() {
-		log.info("Started the REST Web Service 1.9 Extension module");
-	}
-	
-	@Override
-	public void stopped() {
-		log.info("Stopped the REST Web Service 1.9 Extension module");
-	}
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.module.BaseModuleActivator;
+import org.openmrs.module.ModuleActivator;
+
+/**
+ * {@link ModuleActivator} for the webservices.rest19ext module
+ */
+public class Activator extends BaseModuleActivator {
+	
+	private Log log = LogFactory.getLog(this.getClass());
+	
+	@Override
+	public void started() {
+		log.info("Started the REST Web Service 1.9 Extension module");
+	}
+	
+	@Override
+	public void stopped() {
+		log.info("Stopped the REST Web Service 1.9 Extension module");
+	}
+}
@@ -0,0 +1,301 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.api;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.openmrs.Auditable;
+import org.openmrs.Encounter;
+import org.openmrs.Location;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.Patient;
+import org.openmrs.Provider;
+import org.openmrs.Visit;
+import org.openmrs.VisitType;
+import org.openmrs.annotation.Authorized;
+import org.openmrs.api.APIException;
+import org.openmrs.api.OpenmrsService;
+import org.openmrs.util.PrivilegeConstants;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Queries needed by the rest19ext resources that the 1.9 core services do not offer, e.g. ones
+ * that push paging into the database
+ */
+@Transactional
+public interface Rest19ExtService extends OpenmrsService {
+	
+	/**
+	 * Gets a page of visits for the given patient ordered by start date, most recent first
+	 *
+	 * @param patient the patient whose visits to get
+	 * @param includeInactive whether to include visits that have been stopped
+	 * @param includeVoided whether to include voided visits
+	 * @param firstResult the index of the first visit to return, null means from the start
+	 * @param maxResults the maximum number of visits to return, null means all
+	 * @return the matching visits
+	 * @throws APIException
+	 * @should return the visits for the patient ordered by start date descending
+	 * @should return only the requested page
+	 */
+	@Transactional(readOnly = true)
+	@Authorized(PrivilegeConstants.VIEW_VISITS)
+	public List<Visit> getVisitsByPatient(Patient patient, boolean includeInactive, boolean includeVoided,
+	        Integer firstResult, Integer maxResults) throws APIException;
+	
+	/**
+	 * Gets a page of encounters for the given patient ordered by encounter date, most recent first
+	 * 
+	 * @param patient the patient whose encounters to get
+	 * @param includeVoided whether to include voided encounters
+	 * @param firstResult the index of the first encounter to return, null means from the start
+	 * @param maxResults the maximum number of encounters to return, null means all
+	 * @return the matching encounters
+	 * @throws APIException
+	 * @should return the encounters for the patient ordered by encounter date descending
+	 * @should return only the requested page
+	 */
+	@Transactional(readOnly = true)
+	@Authorized(PrivilegeConstants.VIEW_ENCOUNTERS)
+	public List<Encounter> getEncountersByPatient(Patient patient, boolean includeVoided, Integer firstResult,
+	        Integer maxResults) throws APIException;
+	
+	/**
+	 * Gets the visits that were created, changed or voided after the given point of a change feed,
+	 * ordered by the date they were last changed, or created if they never were, and then by id. A
+	 * point of the feed is the change date and the id of the last visit a client has seen so that
+	 * visits with the same change date are neither skipped nor repeated from one page to the next.
+	 * 
+	 * @param changedSince the change date to continue from
+	 * @param afterVisitId the id of the last visit with that change date that has already been
+	 *            fetched, null to get the visits changed strictly after the date
+	 * @param maxResults the maximum number of visits to return
+	 * @return the matching visits including voided ones
+	 * @throws APIException
+	 * @should return the visits changed after the given date ordered by change date and id
+	 * @should continue after the given visit for visits with the same change date
+	 */
+	@Transactional(readOnly = true)
+	@Authorized(PrivilegeConstants.VIEW_VISITS)
+	public List<Visit> getVisitsChangedSince(Date changedSince, Integer afterVisitId, int maxResults)
+	        throws APIException;
+	
+	/**
+	 * Gets the providers after the given position in the order of their identifiers and ids,
+	 * providers without an identifier come first. Since the position is where the previous page
+	 * ended rather than an offset, each page is fetched with a range scan of the identifier index.
+	 * 
+	 * <p>
+	 * The query is matched the way {@link org.openmrs.api.ProviderService#getProviders(String,
+	 * Integer, Integer, java.util.Map)} matches it: a provider matches if its identifier or its name
+	 * contains the query, or if every word of the query starts the given, middle or family name of
+	 * the same unvoided name of its person.
+	 * 
+	 * @param query the text to match, null to get all providers
+	 * @param includeRetired whether to include retired providers, the search of the provider
+	 *            service leaves them out while the listing of all providers includes them
+	 * @param afterIdentifier the identifier of the last provider that has already been fetched
+	 * @param afterProviderId the id of the last provider that has already been fetched, null to
+	 *            start from the first provider
+	 * @param maxResults the maximum number of providers to return
+	 * @return the matching providers
+	 * @throws APIException
+	 * @should return the providers ordered by identifier and id
+	 * @should continue after the given provider
+	 * @should continue after the given provider among providers with the same identifier
+	 * @should return the providers matching the query
+	 * @should leave out retired providers unless told to include them
+	 */
+	@Transactional(readOnly = true)
+	@Authorized(PrivilegeConstants.VIEW_PROVIDERS)
+	public List<Provider> getProviders(String query, boolean includeRetired, String afterIdentifier,
+	        Integer afterProviderId, int maxResults) throws APIException;
+	
+	/**
+	 * Gets the object of the given type with the given id, from the session or the second level
+	 * cache if it is there. This is meant for callers that keep their own index of ids, e.g.
+	 * metadata caches, which may still hold the ids of objects that have been purged since.
+	 * 
+	 * @param type the type of the object
+	 * @param id the primary key of the object
+	 * @return the object or null if none has the given id
+	 * @throws APIException
+	 * @should return the object with the given id
+	 * @should return null if no object has the given id
+	 */
+	@Transactional(readOnly = true)
+	public <T extends OpenmrsObject> T getObjectById(Class<T> type, Integer id) throws APIException;
+	
+	/**
+	 * Gets the objects of the given type with the given ids in a single query
+	 * 
+	 * @param type the type of the objects
+	 * @param ids the primary keys of the objects
+	 * @return the matching objects in no particular order
+	 * @throws APIException
+	 * @should return the objects with the given ids
+	 * @should return an empty list if no ids are given
+	 */
+	@Transactional(readOnly = true)
+	public <T extends OpenmrsObject> List<T> getObjectsByIds(Class<T> type, Collection<Integer> ids) throws APIException;
+	
+	/**
+	 * Gets the objects of the given type with the given uuids in a single query
+	 * 
+	 * @param type the type of the objects
+	 * @param uuids the uuids of the objects
+	 * @return the matching objects in no particular order
+	 * @throws APIException
+	 * @should return the objects with the given uuids
+	 * @should return an empty list if no uuids are given
+	 */
+	@Transactional(readOnly = true)
+	public <T extends OpenmrsObject> List<T> getObjectsByUuids(Class<T> type, Collection<String> uuids)
+	        throws APIException;
+	
+	/**
+	 * Saves the given visits in a single transaction, if one of them cannot be saved none is
+	 * 
+	 * @param visits the visits to save
+	 * @return the saved visits
+	 * @throws APIException
+	 * @should save all visits
+	 * @should save no visit if one of them is invalid
+	 */
+	@Authorized(PrivilegeConstants.ADD_VISITS)
+	public List<Visit> saveVisits(List<Visit> visits) throws APIException;
+	
+	/**
+	 * Loads the encounters and the attributes with their attribute types of the given visits with
+	 * a constant number of queries, so that rendering a page of visits does not load them visit by
+	 * visit
+	 * 
+	 * @param visits the visits, they must belong to the current session
+	 * @throws APIException
+	 * @should initialize the encounters and attributes of the visits
+	 */
+	@Transactional(readOnly = true)
+	public void fetchEncountersAndAttributes(Collection<Visit> visits) throws APIException;
+	
+	/**
+	 * Gets a value that changes whenever an object of the given type is created, changed or purged,
+	 * so that caches of all objects of the type can tell whether they are still current with a
+	 * single aggregate query. Changes are noticed by the audit dates the objects are saved with and
+	 * by the number of committed changes of the type. While the latest change is too recent for the
+	 * dates to tell another one apart, every call returns a different stamp.
+	 * 
+	 * @param type the type of the objects
+	 * @return the stamp of the current objects
+	 * @throws APIException
+	 * @should change when an object of the type is changed
+	 * @should not change if no object of the type is changed
+	 * @should change when an object of the type is changed twice within a second
+	 */
+	@Transactional(readOnly = true)
+	public String getChangeStamp(Class<? extends Auditable> type) throws APIException;
+	
+	/**
+	 * Gets the number of encounters and attributes of the given visit and the latest of their audit
+	 * dates with a single aggregate query, so that a client that already has the current version
+	 * of the visit can be told so without loading them
+	 * 
+	 * @param visit the visit
+	 * @return the number of encounters, the number of attributes and the latest date any of them
+	 *         was created, changed or voided, null if the visit has none
+	 * @throws APIException
+	 * @should return the counts and the latest audit date of the encounters and attributes
+	 * @should return a later date when an encounter of the visit is changed
+	 */
+	@Transactional(readOnly = true)
+	@Authorized(PrivilegeConstants.VIEW_VISITS)
+	public Object[] getLastChangeOfEncountersAndAttributes(Visit visit) throws APIException;
+	
+	/**
+	 * Gets the un voided visits of the given patient that have not been stopped, most recent first.
+	 * Only the active visits are read so the cost does not grow with the visit history of the
+	 * patient.
+	 * 
+	 * @param patient the patient whose visits to get
+	 * @param location the location of the visits, null for any
+	 * @param visitType the type of the visits, null for any
+	 * @return the active visits
+	 * @throws APIException
+	 * @should return the un voided visits of the patient that have not been stopped
+	 * @should return only the visits at the given location and of the given type
+	 */
+	@Transactional(readOnly = true)
+	@Authorized(PrivilegeConstants.VIEW_VISITS)
+	public List<Visit> getActiveVisits(Patient patient, Location location, VisitType visitType) throws APIException;
+	
+	/**
+	 * Gets the un voided visits at the given locations that started in the given range after the
+	 * given position, ordered by start date, earliest first, and then by id. Like
+	 * {@link #getVisitsChangedSince(Date, Integer, int)} the position is the start date and the id
+	 * of the last visit of the previous page, so each page is a range scan of the location and
+	 * start date index however deep the client pages.
+	 * 
+	 * @param locationIds the ids of the locations of the visits, null for any
+	 * @param visitType the type of the visits, null for any
+	 * @param fromStartDatetime the earliest start date of the visits, null for no limit
+	 * @param toStartDatetime the date the visits started before, null for no limit
+	 * @param afterStartDatetime the start date of the last visit that has already been fetched
+	 * @param afterVisitId the id of the last visit that has already been fetched, null to start
+	 *            from the first visit
+	 * @param maxResults the maximum number of visits to return
+	 * @return the matching visits
+	 * @throws APIException
+	 * @should return the visits at the given locations that started in the given range
+	 * @should return only the visits of the given type
+	 * @should continue after the given visit for visits with the same start date
+	 */
+	@Transactional(readOnly = true)
+	@Authorized(PrivilegeConstants.VIEW_VISITS)
+	public List<Visit> getVisits(Collection<Integer> locationIds, VisitType visitType, Date fromStartDatetime,
+	        Date toStartDatetime, Date afterStartDatetime, Integer afterVisitId, int maxResults) throws APIException;
+	
+	/**
+	 * Counts the un voided visits that started in the given range by visit type, location and day
+	 * or hour of their start date, in one grouped query, ordered by the day or hour
+	 * 
+	 * @param fromStartDatetime the earliest start date of the visits, null for no limit
+	 * @param toStartDatetime the date the visits started before, null for no limit
+	 * @param byHour whether to count by hour instead of by day
+	 * @return a row per visit type, location and day or hour which has visits, each holding the
+	 *         id of the visit type, the id of the location or null, the start of the day or hour as
+	 *         a date and the number of visits as a long
+	 * @throws APIException
+	 * @should count the visits by visit type, location and day
+	 * @should count the visits by hour if asked to
+	 */
+	@Transactional(readOnly = true)
+	@Authorized(PrivilegeConstants.VIEW_VISITS)
+	public List<Object[]> getVisitCounts(Date fromStartDatetime, Date toStartDatetime, boolean byHour)
+	        throws APIException;
+	
+	/**
+	 * Gets the statistics of the hibernate second level cache regions, including the query cache
+	 * ones. Hibernate only gathers statistics if the hibernate.generate_statistics runtime property
+	 * is set to true, they are not switched on here since gathering them makes every load and query
+	 * synchronize on the statistics of the session factory.
+	 * 
+	 * @return the hits, misses, puts and elements in memory of each region by region name, or null
+	 *         if statistics are not gathered
+	 * @throws APIException
+	 * @should get the statistics of the cache regions
+	 * @should return null if statistics are not gathered
+	 */
+	@Authorized(PrivilegeConstants.VIEW_ADMIN_FUNCTIONS)
+	public Map<String, Map<String, Long>> getCacheStatistics() throws APIException;
+}
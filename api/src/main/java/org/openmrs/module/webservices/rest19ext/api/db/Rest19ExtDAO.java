@@ -0,0 +1,111 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.api.db;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.openmrs.Auditable;
+import org.openmrs.Encounter;
+import org.openmrs.Location;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.Patient;
+import org.openmrs.Provider;
+import org.openmrs.Visit;
+import org.openmrs.VisitType;
+import org.openmrs.api.db.DAOException;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+
+/**
+ * Database access for {@link Rest19ExtService}
+ */
+public interface Rest19ExtDAO {
+	
+	/**
+	 * @see Rest19ExtService#getVisitsByPatient(Patient, boolean, boolean, Integer, Integer)
+	 */
+	public List<Visit> getVisitsByPatient(Patient patient, boolean includeInactive, boolean includeVoided,
+	        Integer firstResult, Integer maxResults) throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getEncountersByPatient(Patient, boolean, Integer, Integer)
+	 */
+	public List<Encounter> getEncountersByPatient(Patient patient, boolean includeVoided, Integer firstResult,
+	        Integer maxResults) throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getVisitsChangedSince(Date, Integer, int)
+	 */
+	public List<Visit> getVisitsChangedSince(Date changedSince, Integer afterVisitId, int maxResults)
+	        throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getProviders(String, boolean, String, Integer, int)
+	 */
+	public List<Provider> getProviders(String query, boolean includeRetired, String afterIdentifier,
+	        Integer afterProviderId, int maxResults) throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getObjectById(Class, Integer)
+	 */
+	public <T extends OpenmrsObject> T getObjectById(Class<T> type, Integer id) throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getObjectsByIds(Class, Collection)
+	 */
+	public <T extends OpenmrsObject> List<T> getObjectsByIds(Class<T> type, Collection<Integer> ids) throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getObjectsByUuids(Class, Collection)
+	 */
+	public <T extends OpenmrsObject> List<T> getObjectsByUuids(Class<T> type, Collection<String> uuids)
+	        throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#fetchEncountersAndAttributes(Collection)
+	 */
+	public void fetchEncountersAndAttributes(Collection<Visit> visits) throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getChangeStamp(Class)
+	 */
+	public String getChangeStamp(Class<? extends Auditable> type) throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getLastChangeOfEncountersAndAttributes(Visit)
+	 */
+	public Object[] getLastChangeOfEncountersAndAttributes(Visit visit) throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getActiveVisits(Patient, Location, VisitType)
+	 */
+	public List<Visit> getActiveVisits(Patient patient, Location location, VisitType visitType) throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getVisits(Collection, VisitType, Date, Date, Date, Integer, int)
+	 */
+	public List<Visit> getVisits(Collection<Integer> locationIds, VisitType visitType, Date fromStartDatetime,
+	        Date toStartDatetime, Date afterStartDatetime, Integer afterVisitId, int maxResults) throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getVisitCounts(Date, Date, boolean)
+	 */
+	public List<Object[]> getVisitCounts(Date fromStartDatetime, Date toStartDatetime, boolean byHour)
+	        throws DAOException;
+	
+	/**
+	 * @see Rest19ExtService#getCacheStatistics()
+	 */
+	public Map<String, Map<String, Long>> getCacheStatistics() throws DAOException;
+}
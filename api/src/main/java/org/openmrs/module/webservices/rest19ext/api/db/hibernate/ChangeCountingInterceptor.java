@@ -0,0 +1,116 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.api.db.hibernate;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Transaction;
+import org.hibernate.type.Type;
+
+/**
+ * Counts the committed changes of each type made through the session factory, so that a change
+ * stamp notices changes the audit dates cannot tell apart, like a second change of an object
+ * within the same second. The types saved, flushed or deleted on a thread are only counted once
+ * its transaction has completed, a cache rebuilt in the meantime would otherwise still read the
+ * old objects under the new count. Changes of transactions that were rolled back are not counted.
+ */
+public class ChangeCountingInterceptor extends EmptyInterceptor {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final ConcurrentMap<Class<?>, AtomicLong> changeCounts = new ConcurrentHashMap<Class<?>, AtomicLong>();
+	
+	private static final ThreadLocal<Set<Class<?>>> changedTypes = new ThreadLocal<Set<Class<?>>>() {
+		
+		@Override
+		protected Set<Class<?>> initialValue() {
+			return new HashSet<Class<?>>();
+		}
+	};
+	
+	/**
+	 * @param type the type of the objects
+	 * @return the number of committed transactions that changed objects of the type or of its
+	 *         subclasses so far
+	 * @should count the changes of committed transactions
+	 * @should not count the changes of rolled back transactions
+	 * @should count the changes of subclasses
+	 */
+	public static long getChangeCount(Class<?> type) {
+		long count = 0;
+		for (Map.Entry<Class<?>, AtomicLong> entry : changeCounts.entrySet()) {
+			if (type.isAssignableFrom(entry.getKey()))
+				count += entry.getValue().get();
+		}
+		return count;
+	}
+	
+	/**
+	 * @see org.hibernate.EmptyInterceptor#onSave(java.lang.Object, java.io.Serializable,
+	 *      java.lang.Object[], java.lang.String[], org.hibernate.type.Type[])
+	 */
+	@Override
+	public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		changedTypes.get().add(entity.getClass());
+		return false;
+	}
+	
+	/**
+	 * @see org.hibernate.EmptyInterceptor#onFlushDirty(java.lang.Object, java.io.Serializable,
+	 *      java.lang.Object[], java.lang.Object[], java.lang.String[], org.hibernate.type.Type[])
+	 */
+	@Override
+	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+	        String[] propertyNames, Type[] types) {
+		changedTypes.get().add(entity.getClass());
+		return false;
+	}
+	
+	/**
+	 * @see org.hibernate.EmptyInterceptor#onDelete(java.lang.Object, java.io.Serializable,
+	 *      java.lang.Object[], java.lang.String[], org.hibernate.type.Type[])
+	 */
+	@Override
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		changedTypes.get().add(entity.getClass());
+	}
+	
+	/**
+	 * @see org.hibernate.EmptyInterceptor#afterTransactionCompletion(org.hibernate.Transaction)
+	 */
+	@Override
+	public void afterTransactionCompletion(Transaction tx) {
+		Set<Class<?>> types = changedTypes.get();
+		if (types.isEmpty())
+			return;
+		
+		// hibernate passes no transaction when it does not know the outcome, counting is the safe side
+		if (tx == null || !tx.wasRolledBack()) {
+			for (Class<?> type : types) {
+				AtomicLong count = changeCounts.get(type);
+				if (count == null) {
+					changeCounts.putIfAbsent(type, new AtomicLong());
+					count = changeCounts.get(type);
+				}
+				count.incrementAndGet();
+			}
+		}
+		types.clear();
+	}
+}
@@ -0,0 +1,513 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.api.db.hibernate;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.StringUtils;
+import org.hibernate.Criteria;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Disjunction;
+import org.hibernate.criterion.MatchMode;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.criterion.Subqueries;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.openmrs.Auditable;
+import org.openmrs.Encounter;
+import org.openmrs.Location;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.Patient;
+import org.openmrs.PersonName;
+import org.openmrs.Provider;
+import org.openmrs.Visit;
+import org.openmrs.VisitType;
+import org.openmrs.api.db.DAOException;
+import org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO;
+
+/**
+ * Hibernate implementation of {@link Rest19ExtDAO}
+ */
+public class HibernateRest19ExtDAO implements Rest19ExtDAO {
+	
+	/**
+	 * The largest number of values bound to a single IN restriction, so that long lists of ids do
+	 * not exceed the parameter limits of the database
+	 */
+	private static final int MAX_IN_VALUES = 500;
+	
+	/**
+	 * The audit dates are kept to the second by most databases, another change within this time of
+	 * the latest one would not change them
+	 */
+	private static final long DATE_PRECISION_MILLIS = 1000;
+	
+	private static final AtomicLong unsettledStamps = new AtomicLong();
+	
+	private SessionFactory sessionFactory;
+	
+	/**
+	 * @param sessionFactory the sessionFactory to set
+	 */
+	public void setSessionFactory(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getVisitsByPatient(org.openmrs.Patient,
+	 *      boolean, boolean, java.lang.Integer, java.lang.Integer)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<Visit> getVisitsByPatient(Patient patient, boolean includeInactive, boolean includeVoided,
+	        Integer firstResult, Integer maxResults) throws DAOException {
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Visit.class);
+		criteria.add(Restrictions.eq("patient", patient));
+		if (!includeInactive)
+			criteria.add(Restrictions.isNull("stopDatetime"));
+		if (!includeVoided)
+			criteria.add(Restrictions.eq("voided", false));
+		
+		//the visit id is a tie breaker so that pages are stable for visits with the same start date
+		criteria.addOrder(Order.desc("startDatetime"));
+		criteria.addOrder(Order.desc("visitId"));
+		
+		if (firstResult != null)
+			criteria.setFirstResult(firstResult);
+		if (maxResults != null)
+			criteria.setMaxResults(maxResults);
+		
+		return criteria.list();
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getEncountersByPatient(org.openmrs.Patient,
+	 *      boolean, java.lang.Integer, java.lang.Integer)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<Encounter> getEncountersByPatient(Patient patient, boolean includeVoided, Integer firstResult,
+	        Integer maxResults) throws DAOException {
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Encounter.class);
+		criteria.add(Restrictions.eq("patient", patient));
+		if (!includeVoided)
+			criteria.add(Restrictions.eq("voided", false));
+		
+		criteria.addOrder(Order.desc("encounterDatetime"));
+		criteria.addOrder(Order.desc("encounterId"));
+		
+		if (firstResult != null)
+			criteria.setFirstResult(firstResult);
+		if (maxResults != null)
+			criteria.setMaxResults(maxResults);
+		
+		return criteria.list();
+	}
+	
+	/**
+	 * Visits that were changed and ones that never were are fetched with separate queries on the
+	 * change date and the creation date so that each of them is a range scan of its own index,
+	 * rest19ext_visit_changed and rest19ext_visit_created of the liquibase changelog of the omod,
+	 * and the two pages are then merged.
+	 * 
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getVisitsChangedSince(java.util.Date,
+	 *      java.lang.Integer, int)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<Visit> getVisitsChangedSince(Date changedSince, Integer afterVisitId, int maxResults)
+	        throws DAOException {
+		Criteria changed = createChangeFeedCriteria("dateChanged", changedSince, afterVisitId, maxResults);
+		Criteria created = createChangeFeedCriteria("dateCreated", changedSince, afterVisitId, maxResults);
+		created.add(Restrictions.isNull("dateChanged"));
+		
+		List<Visit> changedVisits = changed.list();
+		List<Visit> createdVisits = created.list();
+		List<Visit> visits = new ArrayList<Visit>(Math.min(maxResults, changedVisits.size() + createdVisits.size()));
+		int i = 0;
+		int j = 0;
+		while (visits.size() < maxResults && (i < changedVisits.size() || j < createdVisits.size())) {
+			if (j == createdVisits.size()
+			        || (i < changedVisits.size() && compareChanges(changedVisits.get(i), createdVisits.get(j)) < 0))
+				visits.add(changedVisits.get(i++));
+			else
+				visits.add(createdVisits.get(j++));
+		}
+		return visits;
+	}
+	
+	private Criteria createChangeFeedCriteria(String dateProperty, Date changedSince, Integer afterVisitId,
+	        int maxResults) {
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Visit.class);
+		if (afterVisitId == null)
+			criteria.add(Restrictions.gt(dateProperty, changedSince));
+		else
+			criteria.add(Restrictions.or(Restrictions.gt(dateProperty, changedSince), Restrictions.and(Restrictions.eq(
+			    dateProperty, changedSince), Restrictions.gt("visitId", afterVisitId))));
+		criteria.addOrder(Order.asc(dateProperty));
+		criteria.addOrder(Order.asc("visitId"));
+		criteria.setMaxResults(maxResults);
+		return criteria;
+	}
+	
+	private int compareChanges(Visit visit, Visit other) {
+		int result = getDateOfLastChange(visit).compareTo(getDateOfLastChange(other));
+		return result != 0 ? result : visit.getVisitId().compareTo(other.getVisitId());
+	}
+	
+	private Date getDateOfLastChange(Visit visit) {
+		return visit.getDateChanged() != null ? visit.getDateChanged() : visit.getDateCreated();
+	}
+	
+	/**
+	 * Providers without an identifier are fetched with a query of their own since databases do not
+	 * agree on where nulls are sorted.
+	 * 
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getProviders(java.lang.String,
+	 *      boolean, java.lang.String, java.lang.Integer, int)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<Provider> getProviders(String query, boolean includeRetired, String afterIdentifier,
+	        Integer afterProviderId, int maxResults) throws DAOException {
+		List<Provider> providers = new ArrayList<Provider>();
+		if (afterProviderId == null || afterIdentifier == null) {
+			Criteria withoutIdentifier = createProviderCriteria(query, includeRetired);
+			withoutIdentifier.add(Restrictions.isNull("identifier"));
+			if (afterProviderId != null)
+				withoutIdentifier.add(Restrictions.gt("providerId", afterProviderId));
+			withoutIdentifier.addOrder(Order.asc("providerId"));
+			withoutIdentifier.setMaxResults(maxResults);
+			providers.addAll(withoutIdentifier.list());
+		}
+		
+		if (providers.size() < maxResults) {
+			Criteria withIdentifier = createProviderCriteria(query, includeRetired);
+			if (afterIdentifier == null)
+				withIdentifier.add(Restrictions.isNotNull("identifier"));
+			else
+				withIdentifier.add(Restrictions.or(Restrictions.gt("identifier", afterIdentifier), Restrictions.and(
+				    Restrictions.eq("identifier", afterIdentifier), Restrictions.gt("providerId", afterProviderId))));
+			withIdentifier.addOrder(Order.asc("identifier"));
+			withIdentifier.addOrder(Order.asc("providerId"));
+			withIdentifier.setMaxResults(maxResults - providers.size());
+			providers.addAll(withIdentifier.list());
+		}
+		return providers;
+	}
+	
+	/**
+	 * Matches the query the way ProviderService#getProviders does, but with a subquery on the names
+	 * instead of a join so that the order by identifier is not broken up by duplicates.
+	 */
+	private Criteria createProviderCriteria(String query, boolean includeRetired) {
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Provider.class);
+		if (!includeRetired)
+			criteria.add(Restrictions.eq("retired", false));
+		if (StringUtils.isNotBlank(query)) {
+			query = query.trim();
+			DetachedCriteria personNames = DetachedCriteria.forClass(PersonName.class);
+			personNames.add(Restrictions.eq("voided", false));
+			for (String word : StringUtils.split(query)) {
+				personNames.add(Restrictions.or(Restrictions.ilike("givenName", word, MatchMode.START), Restrictions.or(
+				    Restrictions.ilike("middleName", word, MatchMode.START), Restrictions.ilike("familyName", word,
+				        MatchMode.START))));
+			}
+			personNames.setProjection(Projections.property("person"));
+			
+			criteria.add(Restrictions.or(Restrictions.ilike("identifier", query, MatchMode.ANYWHERE), Restrictions.or(
+			    Restrictions.ilike("name", query, MatchMode.ANYWHERE), Subqueries.propertyIn("person", personNames))));
+		}
+		return criteria;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getObjectById(java.lang.Class,
+	 *      java.lang.Integer)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends OpenmrsObject> T getObjectById(Class<T> type, Integer id) throws DAOException {
+		return (T) sessionFactory.getCurrentSession().get(type, id);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getObjectsByIds(java.lang.Class,
+	 *      java.util.Collection)
+	 */
+	@Override
+	public <T extends OpenmrsObject> List<T> getObjectsByIds(Class<T> type, Collection<Integer> ids) throws DAOException {
+		//the query cache only pays off if the objects are cached too, see MetadataCacheConfigurer
+		boolean cacheable = ((SessionFactoryImplementor) sessionFactory).getEntityPersister(type.getName()).hasCache();
+		return getObjectsIn(type, "id", ids, cacheable);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getObjectsByUuids(java.lang.Class,
+	 *      java.util.Collection)
+	 */
+	@Override
+	public <T extends OpenmrsObject> List<T> getObjectsByUuids(Class<T> type, Collection<String> uuids)
+	        throws DAOException {
+		return getObjectsIn(type, "uuid", uuids, false);
+	}
+	
+	/**
+	 * Gets the objects whose property has one of the given values, with one query per
+	 * {@link #MAX_IN_VALUES} values
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> List<T> getObjectsIn(Class<T> type, String property, Collection<?> values, boolean cacheable) {
+		List<T> objects = new ArrayList<T>(values.size());
+		List<Object> batch = new ArrayList<Object>(Math.min(values.size(), MAX_IN_VALUES));
+		for (Iterator<?> it = values.iterator(); it.hasNext();) {
+			batch.add(it.next());
+			if (batch.size() == MAX_IN_VALUES || !it.hasNext()) {
+				Criteria criteria = sessionFactory.getCurrentSession().createCriteria(type).add(
+				    Restrictions.in(property, batch));
+				if (cacheable)
+					criteria.setCacheable(true).setCacheRegion(MetadataCacheConfigurer.QUERY_CACHE_REGION);
+				objects.addAll(criteria.list());
+				batch.clear();
+			}
+		}
+		return objects;
+	}
+	
+	/**
+	 * The encounters and the attributes are fetched with separate queries so that the rows of one
+	 * are not multiplied by the other. The fetched collections are attached to the visits already in
+	 * the session.
+	 * 
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#fetchEncountersAndAttributes(java.util.Collection)
+	 */
+	@Override
+	public void fetchEncountersAndAttributes(Collection<Visit> visits) throws DAOException {
+		if (visits.isEmpty())
+			return;
+		
+		Session session = sessionFactory.getCurrentSession();
+		session.createQuery("select distinct v from Visit v left join fetch v.encounters where v in (:visits)")
+		        .setParameterList("visits", visits).list();
+		session.createQuery(
+		    "select distinct v from Visit v left join fetch v.attributes a left join fetch a.attributeType"
+		            + " where v in (:visits)").setParameterList("visits", visits).list();
+	}
+	
+	/**
+	 * Deleted objects are noticed by the count, created and changed ones by the latest of their
+	 * dates, the auditable interceptor of OpenMRS sets the date changed of every object it flushes.
+	 * Changes committed through this session factory are counted as well, see
+	 * {@link ChangeCountingInterceptor}, so a change that leaves the dates as they were is noticed
+	 * too. For changes made elsewhere the dates are all there is, so while the latest of them is
+	 * within their precision of now every call gets a stamp of its own.
+	 * 
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getChangeStamp(java.lang.Class)
+	 */
+	@Override
+	public String getChangeStamp(Class<? extends Auditable> type) throws DAOException {
+		// read before the dates, a change committed in between only leads to another rebuild
+		long changeCount = ChangeCountingInterceptor.getChangeCount(type);
+		Object[] row = (Object[]) sessionFactory.getCurrentSession().createQuery(
+		    "select count(*), max(dateCreated), max(dateChanged) from " + type.getName()).uniqueResult();
+		Long lastCreated = toMillis((Date) row[1]);
+		Long lastChanged = toMillis((Date) row[2]);
+		String stamp = changeCount + " " + row[0] + " " + lastCreated + " " + lastChanged;
+		
+		long lastChange = Math.max(lastCreated == null ? 0 : lastCreated, lastChanged == null ? 0 : lastChanged);
+		if (System.currentTimeMillis() - lastChange < DATE_PRECISION_MILLIS)
+			stamp += " " + unsettledStamps.incrementAndGet();
+		return stamp;
+	}
+	
+	/**
+	 * The counts are distinct since the two joins multiply the rows, hql has no function for the
+	 * greatest of several columns so the latest date is picked from their maxima afterwards
+	 * 
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getLastChangeOfEncountersAndAttributes(org.openmrs.Visit)
+	 */
+	@Override
+	public Object[] getLastChangeOfEncountersAndAttributes(Visit visit) throws DAOException {
+		if (visit.getId() == null)
+			return null;
+		
+		Object[] row = (Object[]) sessionFactory.getCurrentSession().createQuery(
+		    "select count(distinct e.id), count(distinct a.id), max(e.dateCreated), max(e.dateChanged),"
+		            + " max(e.dateVoided), max(a.dateCreated), max(a.dateChanged), max(a.dateVoided)"
+		            + " from Visit v left join v.encounters e left join v.attributes a where v.id = :visitId")
+		        .setInteger("visitId", visit.getId()).uniqueResult();
+		long encounterCount = ((Number) row[0]).longValue();
+		long attributeCount = ((Number) row[1]).longValue();
+		if (encounterCount == 0 && attributeCount == 0)
+			return null;
+		
+		Long lastChange = null;
+		for (int i = 2; i < row.length; i++) {
+			Long millis = toMillis((Date) row[i]);
+			if (millis != null && (lastChange == null || millis > lastChange))
+				lastChange = millis;
+		}
+		return new Object[] { encounterCount, attributeCount, lastChange == null ? null : new Date(lastChange) };
+	}
+	
+	/**
+	 * Groups by the parts of the start date with the date functions hibernate translates for every
+	 * dialect, the start of each day or hour is put together from them afterwards
+	 * 
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getVisitCounts(java.util.Date,
+	 *      java.util.Date, boolean)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<Object[]> getVisitCounts(Date fromStartDatetime, Date toStartDatetime, boolean byHour)
+	        throws DAOException {
+		String parts = "year(v.startDatetime), month(v.startDatetime), day(v.startDatetime)";
+		if (byHour)
+			parts += ", hour(v.startDatetime)";
+		String hql = "select v.visitType.id, v.location.id, " + parts + ", count(*) from Visit v where v.voided = false";
+		if (fromStartDatetime != null)
+			hql += " and v.startDatetime >= :from";
+		if (toStartDatetime != null)
+			hql += " and v.startDatetime < :to";
+		hql += " group by v.visitType.id, v.location.id, " + parts + " order by " + parts;
+		
+		Query query = sessionFactory.getCurrentSession().createQuery(hql);
+		if (fromStartDatetime != null)
+			query.setTimestamp("from", fromStartDatetime);
+		if (toStartDatetime != null)
+			query.setTimestamp("to", toStartDatetime);
+		
+		List<Object[]> counts = new ArrayList<Object[]>();
+		Calendar calendar = Calendar.getInstance();
+		for (Object[] row : (List<Object[]>) query.list()) {
+			calendar.clear();
+			calendar.set(((Number) row[2]).intValue(), ((Number) row[3]).intValue() - 1, ((Number) row[4]).intValue());
+			if (byHour)
+				calendar.set(Calendar.HOUR_OF_DAY, ((Number) row[5]).intValue());
+			counts.add(new Object[] { row[0], row[1], calendar.getTime(), ((Number) row[row.length - 1]).longValue() });
+		}
+		return counts;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getCacheStatistics()
+	 */
+	@Override
+	public Map<String, Map<String, Long>> getCacheStatistics() throws DAOException {
+		Statistics statistics = sessionFactory.getStatistics();
+		if (!statistics.isStatisticsEnabled())
+			return null;
+		
+		Map<String, Map<String, Long>> regions = new TreeMap<String, Map<String, Long>>();
+		for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+			SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(regionName);
+			if (region == null)
+				continue;
+			Map<String, Long> counts = new LinkedHashMap<String, Long>();
+			counts.put("hits", region.getHitCount());
+			counts.put("misses", region.getMissCount());
+			counts.put("puts", region.getPutCount());
+			counts.put("elementsInMemory", region.getElementCountInMemory());
+			regions.put(regionName, counts);
+		}
+		return regions;
+	}
+	
+	private static Long toMillis(Date date) {
+		return date == null ? null : date.getTime();
+	}
+	
+	/**
+	 * Restricts the patient and a null stop date, the columns of the rest19ext_visit_patient_stopped
+	 * index of the liquibase changelog of the omod, so the database can look up the active visits of
+	 * the patient without reading the stopped ones. The other restrictions and the order are applied
+	 * to those few rows.
+	 * 
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getActiveVisits(org.openmrs.Patient,
+	 *      org.openmrs.Location, org.openmrs.VisitType)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<Visit> getActiveVisits(Patient patient, Location location, VisitType visitType) throws DAOException {
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Visit.class);
+		criteria.add(Restrictions.eq("patient", patient));
+		criteria.add(Restrictions.isNull("stopDatetime"));
+		criteria.add(Restrictions.eq("voided", false));
+		if (location != null)
+			criteria.add(Restrictions.eq("location", location));
+		if (visitType != null)
+			criteria.add(Restrictions.eq("visitType", visitType));
+		
+		criteria.addOrder(Order.desc("startDatetime"));
+		criteria.addOrder(Order.desc("visitId"));
+		return criteria.list();
+	}
+	
+	/**
+	 * Restricts the location and the start date, the columns of the
+	 * rest19ext_visit_location_started index of the liquibase changelog of the omod. The location
+	 * ids are compared with the foreign key of the visit so the locations are not joined, in
+	 * batches of at most {@link #MAX_IN_VALUES} ids.
+	 * 
+	 * @see org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO#getVisits(java.util.Collection,
+	 *      org.openmrs.VisitType, java.util.Date, java.util.Date, java.util.Date, java.lang.Integer, int)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<Visit> getVisits(Collection<Integer> locationIds, VisitType visitType, Date fromStartDatetime,
+	        Date toStartDatetime, Date afterStartDatetime, Integer afterVisitId, int maxResults) throws DAOException {
+		if (locationIds != null && locationIds.isEmpty())
+			return new ArrayList<Visit>();
+		
+		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(Visit.class);
+		if (locationIds != null) {
+			Disjunction atLocations = Restrictions.disjunction();
+			List<Integer> ids = new ArrayList<Integer>(locationIds);
+			for (int i = 0; i < ids.size(); i += MAX_IN_VALUES) {
+				atLocations.add(Restrictions.in("location.id", ids.subList(i, Math.min(i + MAX_IN_VALUES, ids.size()))));
+			}
+			criteria.add(atLocations);
+		}
+		if (visitType != null)
+			criteria.add(Restrictions.eq("visitType", visitType));
+		if (fromStartDatetime != null)
+			criteria.add(Restrictions.ge("startDatetime", fromStartDatetime));
+		if (toStartDatetime != null)
+			criteria.add(Restrictions.lt("startDatetime", toStartDatetime));
+		if (afterVisitId != null)
+			criteria.add(Restrictions.or(Restrictions.gt("startDatetime", afterStartDatetime), Restrictions.and(
+			    Restrictions.eq("startDatetime", afterStartDatetime), Restrictions.gt("visitId", afterVisitId))));
+		criteria.add(Restrictions.eq("voided", false));
+		
+		//the visit id is a tie breaker so that pages are stable for visits with the same start date
+		criteria.addOrder(Order.asc("startDatetime"));
+		criteria.addOrder(Order.asc("visitId"));
+		criteria.setMaxResults(maxResults);
+		
+		return criteria.list();
+	}
+}
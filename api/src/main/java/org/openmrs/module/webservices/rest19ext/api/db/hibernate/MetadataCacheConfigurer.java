@@ -0,0 +1,95 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.api.db.hibernate;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.context.Context;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+/**
+ * Puts the metadata types the REST resources read on almost every request into the hibernate
+ * second level cache, the core mappings of OpenMRS 1.9 do not cache them. The cache strategies are
+ * added to the entity cache strategies of the session factory before it is built, the ones the
+ * session factory is configured with already are kept. It can be switched off with the
+ * {@link #RUNTIME_PROPERTY_CACHE_METADATA} runtime property, e.g. for clustered installations whose
+ * cache provider is not replicated. The query cache is only used if the
+ * hibernate.cache.use_query_cache runtime property is set to true.
+ */
+public class MetadataCacheConfigurer implements BeanFactoryPostProcessor {
+	
+	/**
+	 * The runtime property that switches the cache off if set to false
+	 */
+	public static final String RUNTIME_PROPERTY_CACHE_METADATA = "webservices.rest19ext.cache_metadata";
+	
+	/**
+	 * The query cache region of the queries for the cached types
+	 */
+	public static final String QUERY_CACHE_REGION = "rest19ext.metadata";
+	
+	private Log log = LogFactory.getLog(getClass());
+	
+	private String sessionFactoryBeanName = "sessionFactory";
+	
+	private Properties entityCacheStrategies = new Properties();
+	
+	/**
+	 * @param sessionFactoryBeanName the name of the session factory bean, sessionFactory by default
+	 */
+	public void setSessionFactoryBeanName(String sessionFactoryBeanName) {
+		this.sessionFactoryBeanName = sessionFactoryBeanName;
+	}
+	
+	/**
+	 * @param entityCacheStrategies the cache strategy of each class to cache by class name, e.g.
+	 *            read-write, optionally followed by a comma and the region name
+	 */
+	public void setEntityCacheStrategies(Properties entityCacheStrategies) {
+		this.entityCacheStrategies = entityCacheStrategies;
+	}
+	
+	/**
+	 * @see org.springframework.beans.factory.config.BeanFactoryPostProcessor#postProcessBeanFactory(org.springframework.beans.factory.config.ConfigurableListableBeanFactory)
+	 * @should add the cache strategies to the session factory
+	 * @should keep the cache strategies the session factory is configured with
+	 * @should not add the cache strategies if switched off
+	 */
+	@Override
+	public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+		if ("false".equalsIgnoreCase(Context.getRuntimeProperties().getProperty(RUNTIME_PROPERTY_CACHE_METADATA))) {
+			log.info("The second level cache for metadata is switched off");
+			return;
+		}
+		if (!beanFactory.containsBeanDefinition(sessionFactoryBeanName)) {
+			log.warn("Cannot cache the metadata, there is no bean named " + sessionFactoryBeanName);
+			return;
+		}
+		
+		BeanDefinition definition = beanFactory.getBeanDefinition(sessionFactoryBeanName);
+		MutablePropertyValues values = definition.getPropertyValues();
+		Properties strategies = new Properties();
+		strategies.putAll(entityCacheStrategies);
+		PropertyValue configured = values.getPropertyValue("entityCacheStrategies");
+		if (configured != null && configured.getValue() instanceof Map)
+			strategies.putAll((Map<?, ?>) configured.getValue());
+		values.addPropertyValue("entityCacheStrategies", strategies);
+	}
+}
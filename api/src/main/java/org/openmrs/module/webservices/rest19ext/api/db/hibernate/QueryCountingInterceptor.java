@@ -0,0 +1,92 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.api.db.hibernate;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Transaction;
+
+/**
+ * Counts the statements hibernate prepares on each thread and adds up the time the thread spends in
+ * hibernate transactions, so that the number of queries and the persistence time of a request can
+ * be told from the values before and after it. Transactions that join one already running on the
+ * thread are not timed again. OpenMRS adds the interceptors declared in module application contexts
+ * to its session factory.
+ */
+public class QueryCountingInterceptor extends EmptyInterceptor {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final int COUNT = 0;
+	
+	private static final int TRANSACTION_NANOS = 1;
+	
+	private static final int TRANSACTION_START = 2;
+	
+	private static final int OPEN_TRANSACTIONS = 3;
+	
+	private static final ThreadLocal<long[]> counts = new ThreadLocal<long[]>() {
+		
+		@Override
+		protected long[] initialValue() {
+			return new long[4];
+		}
+	};
+	
+	/**
+	 * @return the number of statements prepared on the current thread so far
+	 */
+	public static long getCount() {
+		return counts.get()[COUNT];
+	}
+	
+	/**
+	 * @return the nanoseconds the current thread has spent in transactions so far, including the
+	 *         transaction it is in
+	 * @should add up the time spent in completed transactions
+	 * @should not time a nested transaction twice
+	 */
+	public static long getTransactionNanos() {
+		long[] values = counts.get();
+		if (values[OPEN_TRANSACTIONS] == 0)
+			return values[TRANSACTION_NANOS];
+		return values[TRANSACTION_NANOS] + System.nanoTime() - values[TRANSACTION_START];
+	}
+	
+	/**
+	 * @see org.hibernate.EmptyInterceptor#onPrepareStatement(java.lang.String)
+	 */
+	@Override
+	public String onPrepareStatement(String sql) {
+		counts.get()[COUNT]++;
+		return sql;
+	}
+	
+	/**
+	 * @see org.hibernate.EmptyInterceptor#afterTransactionBegin(org.hibernate.Transaction)
+	 */
+	@Override
+	public void afterTransactionBegin(Transaction tx) {
+		long[] values = counts.get();
+		if (values[OPEN_TRANSACTIONS]++ == 0)
+			values[TRANSACTION_START] = System.nanoTime();
+	}
+	
+	/**
+	 * @see org.hibernate.EmptyInterceptor#afterTransactionCompletion(org.hibernate.Transaction)
+	 */
+	@Override
+	public void afterTransactionCompletion(Transaction tx) {
+		long[] values = counts.get();
+		if (values[OPEN_TRANSACTIONS] > 0 && --values[OPEN_TRANSACTIONS] == 0)
+			values[TRANSACTION_NANOS] += System.nanoTime() - values[TRANSACTION_START];
+	}
+}
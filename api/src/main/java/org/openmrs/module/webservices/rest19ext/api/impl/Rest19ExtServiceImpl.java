@@ -0,0 +1,197 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.api.impl;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.openmrs.Auditable;
+import org.openmrs.Encounter;
+import org.openmrs.Location;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.Patient;
+import org.openmrs.Provider;
+import org.openmrs.Visit;
+import org.openmrs.VisitType;
+import org.openmrs.api.APIException;
+import org.openmrs.api.VisitService;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.impl.BaseOpenmrsService;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+import org.openmrs.module.webservices.rest19ext.api.db.Rest19ExtDAO;
+import org.openmrs.validator.ValidateUtil;
+
+/**
+ * Default implementation of {@link Rest19ExtService}
+ */
+public class Rest19ExtServiceImpl extends BaseOpenmrsService implements Rest19ExtService {
+	
+	private Rest19ExtDAO dao;
+	
+	/**
+	 * @param dao the dao to set
+	 */
+	public void setDao(Rest19ExtDAO dao) {
+		this.dao = dao;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getVisitsByPatient(org.openmrs.Patient,
+	 *      boolean, boolean, java.lang.Integer, java.lang.Integer)
+	 */
+	@Override
+	public List<Visit> getVisitsByPatient(Patient patient, boolean includeInactive, boolean includeVoided,
+	        Integer firstResult, Integer maxResults) throws APIException {
+		return dao.getVisitsByPatient(patient, includeInactive, includeVoided, firstResult, maxResults);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getEncountersByPatient(org.openmrs.Patient,
+	 *      boolean, java.lang.Integer, java.lang.Integer)
+	 */
+	@Override
+	public List<Encounter> getEncountersByPatient(Patient patient, boolean includeVoided, Integer firstResult,
+	        Integer maxResults) throws APIException {
+		return dao.getEncountersByPatient(patient, includeVoided, firstResult, maxResults);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getVisitsChangedSince(java.util.Date,
+	 *      java.lang.Integer, int)
+	 */
+	@Override
+	public List<Visit> getVisitsChangedSince(Date changedSince, Integer afterVisitId, int maxResults)
+	        throws APIException {
+		return dao.getVisitsChangedSince(changedSince, afterVisitId, maxResults);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getProviders(java.lang.String,
+	 *      boolean, java.lang.String, java.lang.Integer, int)
+	 */
+	@Override
+	public List<Provider> getProviders(String query, boolean includeRetired, String afterIdentifier,
+	        Integer afterProviderId, int maxResults) throws APIException {
+		return dao.getProviders(query, includeRetired, afterIdentifier, afterProviderId, maxResults);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getObjectById(java.lang.Class,
+	 *      java.lang.Integer)
+	 */
+	@Override
+	public <T extends OpenmrsObject> T getObjectById(Class<T> type, Integer id) throws APIException {
+		return dao.getObjectById(type, id);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getObjectsByIds(java.lang.Class,
+	 *      java.util.Collection)
+	 */
+	@Override
+	public <T extends OpenmrsObject> List<T> getObjectsByIds(Class<T> type, Collection<Integer> ids) throws APIException {
+		return dao.getObjectsByIds(type, ids);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getObjectsByUuids(java.lang.Class,
+	 *      java.util.Collection)
+	 */
+	@Override
+	public <T extends OpenmrsObject> List<T> getObjectsByUuids(Class<T> type, Collection<String> uuids)
+	        throws APIException {
+		return dao.getObjectsByUuids(type, uuids);
+	}
+	
+	/**
+	 * Goes through {@link VisitService#saveVisit(Visit)} so that the visits are validated and
+	 * audited the same way as visits saved one at a time. All visits are validated before the first
+	 * one is saved, so that an invalid visit fails the call before anything is written.
+	 * 
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#saveVisits(java.util.List)
+	 */
+	@Override
+	public List<Visit> saveVisits(List<Visit> visits) throws APIException {
+		for (Visit visit : visits) {
+			ValidateUtil.validate(visit);
+		}
+		VisitService visitService = Context.getVisitService();
+		for (Visit visit : visits) {
+			visitService.saveVisit(visit);
+		}
+		return visits;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#fetchEncountersAndAttributes(java.util.Collection)
+	 */
+	@Override
+	public void fetchEncountersAndAttributes(Collection<Visit> visits) throws APIException {
+		dao.fetchEncountersAndAttributes(visits);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getChangeStamp(java.lang.Class)
+	 */
+	@Override
+	public String getChangeStamp(Class<? extends Auditable> type) throws APIException {
+		return dao.getChangeStamp(type);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getLastChangeOfEncountersAndAttributes(org.openmrs.Visit)
+	 */
+	@Override
+	public Object[] getLastChangeOfEncountersAndAttributes(Visit visit) throws APIException {
+		return dao.getLastChangeOfEncountersAndAttributes(visit);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getActiveVisits(org.openmrs.Patient,
+	 *      org.openmrs.Location, org.openmrs.VisitType)
+	 */
+	@Override
+	public List<Visit> getActiveVisits(Patient patient, Location location, VisitType visitType) throws APIException {
+		return dao.getActiveVisits(patient, location, visitType);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getVisits(java.util.Collection,
+	 *      org.openmrs.VisitType, java.util.Date, java.util.Date, java.util.Date, java.lang.Integer, int)
+	 */
+	@Override
+	public List<Visit> getVisits(Collection<Integer> locationIds, VisitType visitType, Date fromStartDatetime,
+	        Date toStartDatetime, Date afterStartDatetime, Integer afterVisitId, int maxResults) throws APIException {
+		return dao.getVisits(locationIds, visitType, fromStartDatetime, toStartDatetime, afterStartDatetime,
+		    afterVisitId, maxResults);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getVisitCounts(java.util.Date,
+	 *      java.util.Date, boolean)
+	 */
+	@Override
+	public List<Object[]> getVisitCounts(Date fromStartDatetime, Date toStartDatetime, boolean byHour)
+	        throws APIException {
+		return dao.getVisitCounts(fromStartDatetime, toStartDatetime, byHour);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.api.Rest19ExtService#getCacheStatistics()
+	 */
+	@Override
+	public Map<String, Map<String, Long>> getCacheStatistics() throws APIException {
+		return dao.getCacheStatistics();
+	}
+}
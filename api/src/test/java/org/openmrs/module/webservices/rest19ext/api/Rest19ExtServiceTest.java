@@ -0,0 +1,435 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.Hibernate;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Encounter;
+import org.openmrs.Location;
+import org.openmrs.Patient;
+import org.openmrs.PersonName;
+import org.openmrs.Provider;
+import org.openmrs.Visit;
+import org.openmrs.VisitType;
+import org.openmrs.api.ValidationException;
+import org.openmrs.api.VisitService;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+
+/**
+ * Tests {@link Rest19ExtService}
+ */
+public class Rest19ExtServiceTest extends BaseModuleContextSensitiveTest {
+	
+	private Rest19ExtService service;
+	
+	private VisitService visitService;
+	
+	@Before
+	public void before() throws Exception {
+		service = Context.getService(Rest19ExtService.class);
+		visitService = Context.getVisitService();
+	}
+	
+	/**
+	 * @see Rest19ExtService#getObjectById(Class,Integer)
+	 * @verifies return the object with the given id
+	 */
+	@Test
+	public void getObjectById_shouldReturnTheObjectWithTheGivenId() throws Exception {
+		Assert.assertEquals(visitService.getVisitType(1), service.getObjectById(VisitType.class, 1));
+	}
+	
+	/**
+	 * @see Rest19ExtService#getObjectById(Class,Integer)
+	 * @verifies return null if no object has the given id
+	 */
+	@Test
+	public void getObjectById_shouldReturnNullIfNoObjectHasTheGivenId() throws Exception {
+		Assert.assertNull(service.getObjectById(VisitType.class, 9999));
+	}
+	
+	/**
+	 * @see Rest19ExtService#getObjectsByIds(Class,java.util.Collection)
+	 * @verifies return the objects with the given ids
+	 */
+	@Test
+	public void getObjectsByIds_shouldReturnTheObjectsWithTheGivenIds() throws Exception {
+		//more ids than fit in a single IN restriction
+		List<Integer> ids = new ArrayList<Integer>();
+		for (int id = 1; id <= 1200; id++) {
+			ids.add(id);
+		}
+		List<VisitType> visitTypes = service.getObjectsByIds(VisitType.class, ids);
+		Assert.assertEquals(new HashSet<VisitType>(visitService.getAllVisitTypes()), new HashSet<VisitType>(visitTypes));
+		Assert.assertEquals(visitService.getAllVisitTypes().size(), visitTypes.size());
+	}
+	
+	/**
+	 * @see Rest19ExtService#getObjectsByIds(Class,java.util.Collection)
+	 * @verifies return an empty list if no ids are given
+	 */
+	@Test
+	public void getObjectsByIds_shouldReturnAnEmptyListIfNoIdsAreGiven() throws Exception {
+		Assert.assertTrue(service.getObjectsByIds(VisitType.class, Collections.<Integer> emptySet()).isEmpty());
+	}
+	
+	/**
+	 * @see Rest19ExtService#getObjectsByUuids(Class,java.util.Collection)
+	 * @verifies return the objects with the given uuids
+	 */
+	@Test
+	public void getObjectsByUuids_shouldReturnTheObjectsWithTheGivenUuids() throws Exception {
+		List<VisitType> visitTypes = visitService.getAllVisitTypes();
+		Assert.assertTrue(visitTypes.size() > 1);
+		Set<String> uuids = new HashSet<String>();
+		for (VisitType visitType : visitTypes.subList(1, visitTypes.size())) {
+			uuids.add(visitType.getUuid());
+		}
+		uuids.add("no-such-visit-type");
+		
+		Set<String> found = new HashSet<String>();
+		for (VisitType visitType : service.getObjectsByUuids(VisitType.class, uuids)) {
+			found.add(visitType.getUuid());
+		}
+		uuids.remove("no-such-visit-type");
+		Assert.assertEquals(uuids, found);
+	}
+	
+	/**
+	 * @see Rest19ExtService#getObjectsByUuids(Class,java.util.Collection)
+	 * @verifies return an empty list if no uuids are given
+	 */
+	@Test
+	public void getObjectsByUuids_shouldReturnAnEmptyListIfNoUuidsAreGiven() throws Exception {
+		Assert.assertTrue(service.getObjectsByUuids(VisitType.class, Collections.<String> emptySet()).isEmpty());
+	}
+	
+	/**
+	 * @see Rest19ExtService#saveVisits(List)
+	 * @verifies save all visits
+	 */
+	@Test
+	public void saveVisits_shouldSaveAllVisits() throws Exception {
+		Patient patient = Context.getPatientService().getPatient(2);
+		int before = visitService.getVisitsByPatient(patient).size();
+		List<Visit> visits = Arrays.asList(newVisit(patient), newVisit(patient));
+		
+		service.saveVisits(visits);
+		for (Visit visit : visits) {
+			Assert.assertNotNull(visit.getVisitId());
+		}
+		Assert.assertEquals(before + 2, visitService.getVisitsByPatient(patient).size());
+	}
+	
+	/**
+	 * @see Rest19ExtService#saveVisits(List)
+	 * @verifies save no visit if one of them is invalid
+	 */
+	@Test
+	public void saveVisits_shouldSaveNoVisitIfOneOfThemIsInvalid() throws Exception {
+		Patient patient = Context.getPatientService().getPatient(2);
+		int before = visitService.getVisitsByPatient(patient).size();
+		Visit valid = newVisit(patient);
+		Visit invalid = newVisit(patient);
+		invalid.setVisitType(null);
+		
+		try {
+			service.saveVisits(Arrays.asList(valid, invalid));
+			Assert.fail("the visit without a visit type should have been rejected");
+		}
+		catch (ValidationException expected) {}
+		Assert.assertNull(valid.getVisitId());
+		Assert.assertEquals(before, visitService.getVisitsByPatient(patient).size());
+	}
+	
+	/**
+	 * @see Rest19ExtService#fetchEncountersAndAttributes(java.util.Collection)
+	 * @verifies initialize the encounters and attributes of the visits
+	 */
+	@Test
+	public void fetchEncountersAndAttributes_shouldInitializeTheEncountersAndAttributesOfTheVisits() throws Exception {
+		Patient patient = Context.getPatientService().getPatient(2);
+		service.saveVisits(Arrays.asList(newVisit(patient), newVisit(patient)));
+		Context.flushSession();
+		Context.clearSession();
+		
+		List<Visit> visits = visitService.getVisitsByPatient(Context.getPatientService().getPatient(2));
+		Assert.assertTrue(visits.size() >= 2);
+		for (Visit visit : visits) {
+			Assert.assertFalse(Hibernate.isInitialized(visit.getEncounters()));
+			Assert.assertFalse(Hibernate.isInitialized(visit.getAttributes()));
+		}
+		service.fetchEncountersAndAttributes(visits);
+		for (Visit visit : visits) {
+			Assert.assertTrue(Hibernate.isInitialized(visit.getEncounters()));
+			Assert.assertTrue(Hibernate.isInitialized(visit.getAttributes()));
+		}
+	}
+	
+	/**
+	 * @see Rest19ExtService#getChangeStamp(Class)
+	 * @verifies change when an object of the type is changed
+	 */
+	@Test
+	public void getChangeStamp_shouldChangeWhenAnObjectOfTheTypeIsChanged() throws Exception {
+		String stamp = service.getChangeStamp(VisitType.class);
+		changeVisitType("changed");
+		Assert.assertFalse(stamp.equals(service.getChangeStamp(VisitType.class)));
+	}
+	
+	/**
+	 * @see Rest19ExtService#getChangeStamp(Class)
+	 * @verifies not change if no object of the type is changed
+	 */
+	@Test
+	public void getChangeStamp_shouldNotChangeIfNoObjectOfTheTypeIsChanged() throws Exception {
+		String stamp = service.getChangeStamp(VisitType.class);
+		Location location = Context.getLocationService().getLocation(1);
+		location.setDescription("changed");
+		Context.getLocationService().saveLocation(location);
+		Context.flushSession();
+		Assert.assertEquals(stamp, service.getChangeStamp(VisitType.class));
+	}
+	
+	/**
+	 * @see Rest19ExtService#getChangeStamp(Class)
+	 * @verifies change when an object of the type is changed twice within a second
+	 */
+	@Test
+	public void getChangeStamp_shouldChangeWhenAnObjectOfTheTypeIsChangedTwiceWithinASecond() throws Exception {
+		changeVisitType("changed");
+		String stamp = service.getChangeStamp(VisitType.class);
+		changeVisitType("changed again");
+		Assert.assertFalse(stamp.equals(service.getChangeStamp(VisitType.class)));
+	}
+	
+	/**
+	 * @see Rest19ExtService#getLastChangeOfEncountersAndAttributes(Visit)
+	 * @verifies return the counts and the latest audit date of the encounters and attributes
+	 */
+	@Test
+	public void getLastChangeOfEncountersAndAttributes_shouldReturnTheCountsAndTheLatestAuditDateOfTheEncountersAndAttributes()
+	        throws Exception {
+		Visit visit = visitService.saveVisit(newVisit(Context.getPatientService().getPatient(2)));
+		Context.flushSession();
+		Assert.assertNull(service.getLastChangeOfEncountersAndAttributes(visit));
+		
+		Encounter encounter = saveEncounter(visit);
+		Object[] lastChange = service.getLastChangeOfEncountersAndAttributes(visit);
+		Assert.assertEquals(1L, lastChange[0]);
+		Assert.assertEquals(0L, lastChange[1]);
+		Assert.assertEquals(encounter.getDateCreated().getTime(), ((Date) lastChange[2]).getTime());
+	}
+	
+	/**
+	 * @see Rest19ExtService#getLastChangeOfEncountersAndAttributes(Visit)
+	 * @verifies return a later date when an encounter of the visit is changed
+	 */
+	@Test
+	public void getLastChangeOfEncountersAndAttributes_shouldReturnALaterDateWhenAnEncounterOfTheVisitIsChanged()
+	        throws Exception {
+		Visit visit = visitService.saveVisit(newVisit(Context.getPatientService().getPatient(2)));
+		Encounter encounter = saveEncounter(visit);
+		Date lastChange = (Date) service.getLastChangeOfEncountersAndAttributes(visit)[2];
+		
+		encounter.setEncounterDatetime(new Date(encounter.getEncounterDatetime().getTime() + 1000));
+		encounter.setDateChanged(new Date());
+		Context.getEncounterService().saveEncounter(encounter);
+		Context.flushSession();
+		Assert.assertTrue(((Date) service.getLastChangeOfEncountersAndAttributes(visit)[2]).after(lastChange));
+	}
+	
+	/**
+	 * @see Rest19ExtService#getProviders(String,boolean,String,Integer,int)
+	 * @verifies return the providers ordered by identifier and id
+	 */
+	@Test
+	public void getProviders_shouldReturnTheProvidersOrderedByIdentifierAndId() throws Exception {
+		Provider b = saveProvider("rest19ext-b");
+		Provider a1 = saveProvider("rest19ext-a");
+		Provider a2 = saveProvider("rest19ext-a");
+		Assert.assertEquals(Arrays.asList(a1, a2, b), service.getProviders("rest19ext-", true, null, null, 10));
+	}
+	
+	/**
+	 * @see Rest19ExtService#getProviders(String,boolean,String,Integer,int)
+	 * @verifies continue after the given provider
+	 */
+	@Test
+	public void getProviders_shouldContinueAfterTheGivenProvider() throws Exception {
+		Provider a = saveProvider("rest19ext-a");
+		Provider b = saveProvider("rest19ext-b");
+		Provider c = saveProvider("rest19ext-c");
+		Assert.assertEquals(Arrays.asList(b), service.getProviders("rest19ext-", true, a.getIdentifier(), a
+		        .getProviderId(), 1));
+		Assert.assertEquals(Arrays.asList(c), service.getProviders("rest19ext-", true, b.getIdentifier(), b
+		        .getProviderId(), 1));
+		Assert.assertTrue(service.getProviders("rest19ext-", true, c.getIdentifier(), c.getProviderId(), 1).isEmpty());
+	}
+	
+	/**
+	 * @see Rest19ExtService#getProviders(String,boolean,String,Integer,int)
+	 * @verifies continue after the given provider among providers with the same identifier
+	 */
+	@Test
+	public void getProviders_shouldContinueAfterTheGivenProviderAmongProvidersWithTheSameIdentifier() throws Exception {
+		Provider first = saveProvider("rest19ext-same");
+		Provider second = saveProvider("rest19ext-same");
+		Provider third = saveProvider("rest19ext-same");
+		Assert.assertEquals(Arrays.asList(second, third), service.getProviders("rest19ext-", true, "rest19ext-same", first
+		        .getProviderId(), 10));
+		Assert.assertEquals(Arrays.asList(third), service.getProviders("rest19ext-", true, "rest19ext-same", second
+		        .getProviderId(), 10));
+	}
+	
+	/**
+	 * @see Rest19ExtService#getProviders(String,boolean,String,Integer,int)
+	 * @verifies return the providers matching the query
+	 */
+	@Test
+	public void getProviders_shouldReturnTheProvidersMatchingTheQuery() throws Exception {
+		Provider byIdentifier = saveProvider("x-rest19ext-x");
+		Provider byName = saveProvider("rest19ext-name");
+		byName.setName("Dr. Rest19ext Tester");
+		Context.getProviderService().saveProvider(byName);
+		Provider byPersonName = saveProvider("rest19ext-person");
+		byPersonName.setName(null);
+		byPersonName.setPerson(Context.getPersonService().getPerson(2));
+		Context.getProviderService().saveProvider(byPersonName);
+		
+		Assert.assertEquals(Arrays.asList(byIdentifier), service.getProviders("X-REST19EXT", true, null, null, 10));
+		Assert.assertEquals(Arrays.asList(byName), service.getProviders("ext tester", true, null, null, 10));
+		PersonName name = byPersonName.getPerson().getPersonName();
+		List<Provider> providers = service.getProviders(name.getGivenName().substring(0, 3) + " "
+		        + name.getFamilyName().substring(0, 3), true, null, null, 10);
+		Assert.assertTrue(providers.contains(byPersonName));
+		Assert.assertFalse(service.getProviders(name.getGivenName() + " zzzz", true, null, null, 10).contains(
+		    byPersonName));
+	}
+	
+	/**
+	 * @see Rest19ExtService#getProviders(String,boolean,String,Integer,int)
+	 * @verifies leave out retired providers unless told to include them
+	 */
+	@Test
+	public void getProviders_shouldLeaveOutRetiredProvidersUnlessToldToIncludeThem() throws Exception {
+		Provider active = saveProvider("rest19ext-active");
+		Provider retired = saveProvider("rest19ext-retired");
+		Context.getProviderService().retireProvider(retired, "unit test");
+		Assert.assertEquals(Arrays.asList(active), service.getProviders("rest19ext-", false, null, null, 10));
+		Assert.assertEquals(Arrays.asList(active, retired), service.getProviders("rest19ext-", true, null, null, 10));
+	}
+	
+	/**
+	 * @see Rest19ExtService#getVisits(java.util.Collection,VisitType,Date,Date,Date,Integer,int)
+	 * @verifies return the visits at the given locations that started in the given range
+	 */
+	@Test
+	public void getVisits_shouldReturnTheVisitsAtTheGivenLocationsThatStartedInTheGivenRange() throws Exception {
+		Location location = Context.getLocationService().getLocation(1);
+		Date day = new Date(1000L * 3600 * 24 * 365 * 50);
+		Visit inRange = saveVisit(location, visitService.getVisitType(1), day);
+		saveVisit(location, visitService.getVisitType(1), new Date(day.getTime() - 1));
+		saveVisit(location, visitService.getVisitType(1), new Date(day.getTime() + 3600000));
+		saveVisit(Context.getLocationService().getLocation(2), visitService.getVisitType(1), day);
+		
+		List<Visit> visits = service.getVisits(Collections.singleton(location.getLocationId()), null, day, new Date(day
+		        .getTime() + 3600000), null, null, 10);
+		Assert.assertEquals(Arrays.asList(inRange), visits);
+	}
+	
+	/**
+	 * @see Rest19ExtService#getVisits(java.util.Collection,VisitType,Date,Date,Date,Integer,int)
+	 * @verifies return only the visits of the given type
+	 */
+	@Test
+	public void getVisits_shouldReturnOnlyTheVisitsOfTheGivenType() throws Exception {
+		Location location = Context.getLocationService().getLocation(1);
+		Date day = new Date(1000L * 3600 * 24 * 365 * 50);
+		Visit ofType = saveVisit(location, visitService.getVisitType(1), day);
+		saveVisit(location, visitService.getVisitType(2), day);
+		
+		List<Visit> visits = service.getVisits(Collections.singleton(location.getLocationId()), visitService
+		        .getVisitType(1), day, null, null, null, 10);
+		Assert.assertEquals(Arrays.asList(ofType), visits);
+	}
+	
+	/**
+	 * @see Rest19ExtService#getVisits(java.util.Collection,VisitType,Date,Date,Date,Integer,int)
+	 * @verifies continue after the given visit for visits with the same start date
+	 */
+	@Test
+	public void getVisits_shouldContinueAfterTheGivenVisitForVisitsWithTheSameStartDate() throws Exception {
+		Location location = Context.getLocationService().getLocation(1);
+		Date day = new Date(1000L * 3600 * 24 * 365 * 50);
+		Visit first = saveVisit(location, visitService.getVisitType(1), day);
+		Visit second = saveVisit(location, visitService.getVisitType(1), day);
+		Visit later = saveVisit(location, visitService.getVisitType(1), new Date(day.getTime() + 1000));
+		
+		Set<Integer> locationIds = Collections.singleton(location.getLocationId());
+		Assert.assertEquals(Arrays.asList(first, second, later), service.getVisits(locationIds, null, day, null, null,
+		    null, 10));
+		Assert.assertEquals(Arrays.asList(second), service.getVisits(locationIds, null, day, null, day, first
+		        .getVisitId(), 1));
+		Assert.assertEquals(Arrays.asList(later), service.getVisits(locationIds, null, day, null, day, second
+		        .getVisitId(), 10));
+	}
+	
+	private Visit saveVisit(Location location, VisitType visitType, Date startDatetime) {
+		Visit visit = new Visit(Context.getPatientService().getPatient(2), visitType, startDatetime);
+		visit.setLocation(location);
+		visit.setStopDatetime(new Date(startDatetime.getTime() + 1000));
+		return visitService.saveVisit(visit);
+	}
+	
+	private Provider saveProvider(String identifier) {
+		Provider provider = new Provider();
+		provider.setIdentifier(identifier);
+		provider.setName("Provider " + identifier);
+		return Context.getProviderService().saveProvider(provider);
+	}
+	
+	private Encounter saveEncounter(Visit visit) {
+		Encounter encounter = new Encounter();
+		encounter.setPatient(visit.getPatient());
+		encounter.setEncounterType(Context.getEncounterService().getEncounterType(1));
+		encounter.setEncounterDatetime(visit.getStartDatetime());
+		encounter.setVisit(visit);
+		// created a minute ago so that a change made by the test is later
+		encounter.setDateCreated(new Date(System.currentTimeMillis() - 60000));
+		Context.getEncounterService().saveEncounter(encounter);
+		Context.flushSession();
+		return encounter;
+	}
+	
+	private void changeVisitType(String description) {
+		VisitType visitType = visitService.getVisitType(1);
+		visitType.setDescription(description);
+		visitService.saveVisitType(visitType);
+		Context.flushSession();
+	}
+	
+	private Visit newVisit(Patient patient) {
+		return new Visit(patient, visitService.getVisitType(1), new Date());
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.api.db.hibernate;
+
+import javax.transaction.Synchronization;
+
+import org.hibernate.Transaction;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.OpenmrsMetadata;
+import org.openmrs.VisitType;
+
+/**
+ * Tests {@link ChangeCountingInterceptor}
+ */
+public class ChangeCountingInterceptorTest {
+	
+	private ChangeCountingInterceptor interceptor = new ChangeCountingInterceptor();
+	
+	/**
+	 * @see ChangeCountingInterceptor#getChangeCount(Class)
+	 * @verifies count the changes of committed transactions
+	 */
+	@Test
+	public void getChangeCount_shouldCountTheChangesOfCommittedTransactions() throws Exception {
+		long before = ChangeCountingInterceptor.getChangeCount(VisitType.class);
+		interceptor.onFlushDirty(new VisitType(), 1, null, null, null, null);
+		interceptor.onSave(new VisitType(), 2, null, null, null);
+		Assert.assertEquals(before, ChangeCountingInterceptor.getChangeCount(VisitType.class));
+		
+		interceptor.afterTransactionCompletion(new CompletedTransaction(false));
+		Assert.assertEquals(before + 1, ChangeCountingInterceptor.getChangeCount(VisitType.class));
+	}
+	
+	/**
+	 * @see ChangeCountingInterceptor#getChangeCount(Class)
+	 * @verifies not count the changes of rolled back transactions
+	 */
+	@Test
+	public void getChangeCount_shouldNotCountTheChangesOfRolledBackTransactions() throws Exception {
+		long before = ChangeCountingInterceptor.getChangeCount(VisitType.class);
+		interceptor.onDelete(new VisitType(), 1, null, null, null);
+		interceptor.afterTransactionCompletion(new CompletedTransaction(true));
+		Assert.assertEquals(before, ChangeCountingInterceptor.getChangeCount(VisitType.class));
+		
+		interceptor.afterTransactionCompletion(new CompletedTransaction(false));
+		Assert.assertEquals(before, ChangeCountingInterceptor.getChangeCount(VisitType.class));
+	}
+	
+	/**
+	 * @see ChangeCountingInterceptor#getChangeCount(Class)
+	 * @verifies count the changes of subclasses
+	 */
+	@Test
+	public void getChangeCount_shouldCountTheChangesOfSubclasses() throws Exception {
+		long before = ChangeCountingInterceptor.getChangeCount(OpenmrsMetadata.class);
+		interceptor.onFlushDirty(new VisitType(), 1, null, null, null, null);
+		interceptor.onFlushDirty(new Location(), 1, null, null, null, null);
+		interceptor.afterTransactionCompletion(new CompletedTransaction(false));
+		Assert.assertEquals(before + 2, ChangeCountingInterceptor.getChangeCount(OpenmrsMetadata.class));
+	}
+	
+	private static class CompletedTransaction implements Transaction {
+		
+		private final boolean rolledBack;
+		
+		CompletedTransaction(boolean rolledBack) {
+			this.rolledBack = rolledBack;
+		}
+		
+		public void begin() {
+		}
+		
+		public void commit() {
+		}
+		
+		public void rollback() {
+		}
+		
+		public boolean wasRolledBack() {
+			return rolledBack;
+		}
+		
+		public boolean wasCommitted() {
+			return !rolledBack;
+		}
+		
+		public boolean isActive() {
+			return false;
+		}
+		
+		public void registerSynchronization(Synchronization synchronization) {
+		}
+		
+		public void setTimeout(int seconds) {
+		}
+	}
+}
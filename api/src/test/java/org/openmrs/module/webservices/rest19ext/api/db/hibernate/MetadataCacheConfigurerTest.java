@@ -0,0 +1,104 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.api.db.hibernate;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.context.Context;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+/**
+ * Tests {@link MetadataCacheConfigurer}
+ */
+public class MetadataCacheConfigurerTest {
+	
+	private Properties runtimeProperties;
+	
+	private DefaultListableBeanFactory beanFactory;
+	
+	private MetadataCacheConfigurer configurer;
+	
+	@Before
+	public void before() throws Exception {
+		runtimeProperties = Context.getRuntimeProperties();
+		Context.setRuntimeProperties(new Properties());
+		
+		beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerBeanDefinition("sessionFactory", new RootBeanDefinition(Object.class));
+		
+		Properties strategies = new Properties();
+		strategies.setProperty("org.openmrs.VisitType", "read-write");
+		configurer = new MetadataCacheConfigurer();
+		configurer.setEntityCacheStrategies(strategies);
+	}
+	
+	@After
+	public void after() throws Exception {
+		Context.setRuntimeProperties(runtimeProperties);
+	}
+	
+	/**
+	 * @see MetadataCacheConfigurer#postProcessBeanFactory(org.springframework.beans.factory.config.ConfigurableListableBeanFactory)
+	 * @verifies add the cache strategies to the session factory
+	 */
+	@Test
+	public void postProcessBeanFactory_shouldAddTheCacheStrategiesToTheSessionFactory() throws Exception {
+		configurer.postProcessBeanFactory(beanFactory);
+		Assert.assertEquals("read-write", getStrategies().get("org.openmrs.VisitType"));
+	}
+	
+	/**
+	 * @see MetadataCacheConfigurer#postProcessBeanFactory(org.springframework.beans.factory.config.ConfigurableListableBeanFactory)
+	 * @verifies keep the cache strategies the session factory is configured with
+	 */
+	@Test
+	public void postProcessBeanFactory_shouldKeepTheCacheStrategiesTheSessionFactoryIsConfiguredWith() throws Exception {
+		Properties configured = new Properties();
+		configured.setProperty("org.openmrs.VisitType", "read-only");
+		configured.setProperty("org.openmrs.Concept", "read-write");
+		beanFactory.getBeanDefinition("sessionFactory").getPropertyValues().addPropertyValue("entityCacheStrategies",
+		    configured);
+		
+		configurer.postProcessBeanFactory(beanFactory);
+		Map<?, ?> strategies = getStrategies();
+		Assert.assertEquals("read-only", strategies.get("org.openmrs.VisitType"));
+		Assert.assertEquals("read-write", strategies.get("org.openmrs.Concept"));
+	}
+	
+	/**
+	 * @see MetadataCacheConfigurer#postProcessBeanFactory(org.springframework.beans.factory.config.ConfigurableListableBeanFactory)
+	 * @verifies not add the cache strategies if switched off
+	 */
+	@Test
+	public void postProcessBeanFactory_shouldNotAddTheCacheStrategiesIfSwitchedOff() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty(MetadataCacheConfigurer.RUNTIME_PROPERTY_CACHE_METADATA, "false");
+		Context.setRuntimeProperties(properties);
+		
+		configurer.postProcessBeanFactory(beanFactory);
+		Assert.assertNull(beanFactory.getBeanDefinition("sessionFactory").getPropertyValues().getPropertyValue(
+		    "entityCacheStrategies"));
+	}
+	
+	private Map<?, ?> getStrategies() {
+		PropertyValue value = beanFactory.getBeanDefinition("sessionFactory").getPropertyValues().getPropertyValue(
+		    "entityCacheStrategies");
+		return (Map<?, ?>) value.getValue();
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.api.db.hibernate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link QueryCountingInterceptor}
+ */
+public class QueryCountingInterceptorTest {
+	
+	private QueryCountingInterceptor interceptor = new QueryCountingInterceptor();
+	
+	/**
+	 * @see QueryCountingInterceptor#getTransactionNanos()
+	 * @verifies add up the time spent in completed transactions
+	 */
+	@Test
+	public void getTransactionNanos_shouldAddUpTheTimeSpentInCompletedTransactions() throws Exception {
+		long before = QueryCountingInterceptor.getTransactionNanos();
+		interceptor.afterTransactionBegin(null);
+		Thread.sleep(20);
+		interceptor.afterTransactionCompletion(null);
+		long afterFirst = QueryCountingInterceptor.getTransactionNanos();
+		Assert.assertTrue(afterFirst - before >= 20000000);
+		
+		Thread.sleep(20);
+		Assert.assertEquals(afterFirst, QueryCountingInterceptor.getTransactionNanos());
+	}
+	
+	/**
+	 * @see QueryCountingInterceptor#getTransactionNanos()
+	 * @verifies not time a nested transaction twice
+	 */
+	@Test
+	public void getTransactionNanos_shouldNotTimeANestedTransactionTwice() throws Exception {
+		long before = QueryCountingInterceptor.getTransactionNanos();
+		long start = System.nanoTime();
+		interceptor.afterTransactionBegin(null);
+		interceptor.afterTransactionBegin(null);
+		Thread.sleep(20);
+		interceptor.afterTransactionCompletion(null);
+		interceptor.afterTransactionCompletion(null);
+		long elapsed = System.nanoTime() - start;
+		Assert.assertTrue(QueryCountingInterceptor.getTransactionNanos() - before <= elapsed);
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmrs.Visit;
+import org.openmrs.VisitAttribute;
+import org.openmrs.VisitAttributeType;
+import org.openmrs.api.VisitService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.controller.VisitAttributeController;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.BaseAttributeCrudResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Measures adding attributes to a visit one by one and all at once. Every invocation writes to a new
+ * visit so that the cost does not depend on how many attributes earlier invocations added.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AttributeWriteBenchmark {
+	
+	@Param( { "1", "10", "50" })
+	public int attributes;
+	
+	private VisitService service;
+	
+	private VisitAttributeController controller;
+	
+	private VisitAttributeType attributeType;
+	
+	private Visit template;
+	
+	private Visit visit;
+	
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkContext.start();
+		service = Context.getVisitService();
+		controller = new VisitAttributeController();
+		attributeType = service.getVisitAttributeTypeByUuid(BenchmarkContext.FREE_TEXT_VISIT_ATTRIBUTE_TYPE_UUID);
+		template = service.getVisitByUuid(BenchmarkContext.VISIT_UUID);
+	}
+	
+	@Setup(Level.Invocation)
+	public void createVisit() {
+		visit = new Visit(template.getPatient(), template.getVisitType(), new Date());
+		service.saveVisit(visit);
+		Context.flushSession();
+		Context.clearSession();
+	}
+	
+	@Benchmark
+	public Object createOneByOne() throws Exception {
+		Object result = null;
+		for (int i = 0; i < attributes; i++) {
+			SimpleObject post = new SimpleObject().add("attributeType", attributeType.getUuid()).add("value",
+			    "value " + i);
+			result = controller.create(visit.getUuid(), post, new MockHttpServletRequest(), new MockHttpServletResponse());
+		}
+		Context.flushSession();
+		return result;
+	}
+	
+	@Benchmark
+	public Object createAll() throws Exception {
+		List<Map<String, Object>> posts = new ArrayList<Map<String, Object>>(attributes);
+		for (int i = 0; i < attributes; i++) {
+			posts.add(new SimpleObject().add("attributeType", attributeType.getUuid()).add("value", "value " + i));
+		}
+		Object result = controller.createAll(visit.getUuid(), posts, new MockHttpServletRequest(),
+		    new MockHttpServletResponse());
+		Context.flushSession();
+		return result;
+	}
+	
+	@Benchmark
+	public VisitAttribute setValue() throws Exception {
+		VisitAttribute attribute = new VisitAttribute();
+		attribute.setAttributeType(attributeType);
+		for (int i = 0; i < attributes; i++) {
+			BaseAttributeCrudResource.setValue(attribute, "value " + i);
+		}
+		return attribute;
+	}
+}
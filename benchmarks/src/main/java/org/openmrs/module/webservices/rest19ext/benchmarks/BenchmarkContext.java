@@ -0,0 +1,59 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.benchmarks;
+
+import org.openmrs.api.context.Context;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.test.context.TestContextManager;
+
+/**
+ * Sets up the module the way its tests run it: the spring context of the web tests, an in memory
+ * database with the standard test data, the data of the omod tests and {@link #BENCHMARK_DATASET},
+ * and an authenticated session. The session belongs to the thread that called {@link #start()}, so
+ * benchmarks using it must run their setup and measurements on a single thread.
+ */
+public class BenchmarkContext extends BaseModuleWebContextSensitiveTest {
+	
+	public static final String TEST_DATASET = "customTestDataset.xml";
+	
+	public static final String BENCHMARK_DATASET = "benchmarkDataset.xml";
+	
+	public static final String VISIT_UUID = "1e5d5d48-6b78-11e0-93c3-18a905e044dc";
+	
+	public static final String PATIENT_UUID = "da7f524f-27ce-4bb2-86d6-6d1d05312bd5";
+	
+	public static final String FREE_TEXT_VISIT_ATTRIBUTE_TYPE_UUID = "b1d8d3b8-4c6f-4f4e-9d55-5e8f3b7bb101";
+	
+	public static final String FREE_TEXT_PROVIDER_ATTRIBUTE_TYPE_UUID = "b1d8d3b8-4c6f-4f4e-9d55-5e8f3b7bb102";
+	
+	private static boolean started;
+	
+	/**
+	 * Starts the context unless it has already been started in this JVM
+	 * 
+	 * @throws Exception
+	 */
+	public static synchronized void start() throws Exception {
+		if (started)
+			return;
+		
+		BenchmarkContext context = new BenchmarkContext();
+		new TestContextManager(BenchmarkContext.class).prepareTestInstance(context);
+		if (!Context.isSessionOpen())
+			Context.openSession();
+		context.baseSetupWithStandardDataAndAuthentication();
+		context.executeDataSet(TEST_DATASET);
+		context.executeDataSet(BENCHMARK_DATASET);
+		Context.flushSession();
+		started = true;
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+
+/**
+ * Measures converting visits, providers and locations to their representations, i.e. the work
+ * behind every GET of these resources
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+	
+	@Param( { "visit", "provider", "location" })
+	public String resource;
+	
+	@Param( { "ref", "default", "full" })
+	public String representation;
+	
+	private List<?> objects;
+	
+	private Representation rep;
+	
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkContext.start();
+		if ("visit".equals(resource))
+			objects = Context.getVisitService().getAllVisits();
+		else if ("provider".equals(resource))
+			objects = Context.getProviderService().getAllProviders();
+		else
+			objects = Context.getLocationService().getAllLocations();
+		
+		if ("ref".equals(representation))
+			rep = Representation.REF;
+		else if ("default".equals(representation))
+			rep = Representation.DEFAULT;
+		else
+			rep = Representation.FULL;
+		
+		//load everything the representations touch so that only the conversion is measured
+		for (Object object : objects) {
+			ConversionUtil.convertToRepresentation(object, rep);
+		}
+	}
+	
+	@Benchmark
+	public void convertAll(Blackhole blackhole) throws Exception {
+		for (Object object : objects) {
+			blackhole.consume(ConversionUtil.convertToRepresentation(object, rep));
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmrs.VisitType;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.controller.LocationAttributeTypeController;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.controller.ProviderAttributeTypeController;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.controller.VisitAttributeTypeController;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.VisitTypeResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Measures searching attribute types by name and looking up visit types, which are served from the
+ * metadata caches of the resources
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MetadataLookupBenchmark {
+	
+	@Param( { "da", "date", "random attribute", "no such type" })
+	public String query;
+	
+	private VisitAttributeTypeController visitAttributeTypeController;
+	
+	private LocationAttributeTypeController locationAttributeTypeController;
+	
+	private ProviderAttributeTypeController providerAttributeTypeController;
+	
+	private VisitTypeResource visitTypeResource;
+	
+	private String visitTypeUuid;
+	
+	private String visitTypeName;
+	
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkContext.start();
+		visitAttributeTypeController = new VisitAttributeTypeController();
+		locationAttributeTypeController = new LocationAttributeTypeController();
+		providerAttributeTypeController = new ProviderAttributeTypeController();
+		visitTypeResource = new VisitTypeResource();
+		
+		VisitType visitType = Context.getVisitService().getAllVisitTypes().get(0);
+		visitTypeUuid = visitType.getUuid();
+		visitTypeName = visitType.getName();
+	}
+	
+	@Benchmark
+	public SimpleObject searchVisitAttributeTypes() throws Exception {
+		return visitAttributeTypeController.search(query, new MockHttpServletRequest(), new MockHttpServletResponse());
+	}
+	
+	@Benchmark
+	public SimpleObject searchLocationAttributeTypes() throws Exception {
+		return locationAttributeTypeController.search(query, new MockHttpServletRequest(), new MockHttpServletResponse());
+	}
+	
+	@Benchmark
+	public SimpleObject searchProviderAttributeTypes() throws Exception {
+		return providerAttributeTypeController.search(query, new MockHttpServletRequest(), new MockHttpServletResponse());
+	}
+	
+	@Benchmark
+	public VisitType getVisitTypeByUuid() {
+		return visitTypeResource.getByUniqueId(visitTypeUuid);
+	}
+	
+	@Benchmark
+	public VisitType getVisitTypeByName() {
+		return visitTypeResource.getByUniqueId(visitTypeName);
+	}
+}
@@ -0,0 +1,74 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmrs.Location;
+import org.openmrs.Patient;
+import org.openmrs.Visit;
+import org.openmrs.VisitType;
+import org.openmrs.module.webservices.rest19ext.web.PropertyAccessors;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.VisitResource;
+
+/**
+ * Compares reading the properties of a representation with bean utils, as the core resources do,
+ * with the getters resolved once by {@link PropertyAccessors}. The visit is built in memory so that
+ * no database work is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PropertyAccessBenchmark {
+	
+	@Param( { "startDatetime", "visitType", "location.name" })
+	public String property;
+	
+	private Visit visit;
+	
+	private PropertyAccessors accessors;
+	
+	@Setup
+	public void setup() {
+		Location location = new Location();
+		location.setName("Mumbai");
+		visit = new Visit(new Patient(2), new VisitType("Outpatient", null), new Date());
+		visit.setLocation(location);
+		accessors = new PropertyAccessors(VisitResource.class);
+	}
+	
+	@Benchmark
+	public Object propertyUtils() throws Exception {
+		return PropertyUtils.getProperty(visit, property);
+	}
+	
+	@Benchmark
+	public Object propertyAccessors() throws Exception {
+		return accessors.find(visit, property).get(visit);
+	}
+}
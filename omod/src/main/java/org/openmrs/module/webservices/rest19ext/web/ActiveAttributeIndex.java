@@ -0,0 +1,137 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openmrs.attribute.Attribute;
+import org.openmrs.customdatatype.Customizable;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Lookup of the active attributes of a {@link Customizable} by identity and uuid, so checking
+ * whether an attribute is already attached does not scan the attributes. An index is built once per
+ * owner and request and shared by everything that touches the attributes of that owner while the
+ * request is handled; outside of a request every call to {@link #get(Customizable)} builds a new
+ * one. Callers that add or void attributes through other means than {@link #add(Attribute)} and
+ * {@link #remove(Attribute)} must not rely on an index obtained earlier.
+ * 
+ * @param <T> the attribute type
+ */
+public class ActiveAttributeIndex<T extends Attribute<?, ?>> {
+	
+	private static final String REQUEST_ATTRIBUTE = ActiveAttributeIndex.class.getName();
+	
+	private final Map<T, T> byIdentity = new IdentityHashMap<T, T>();
+	
+	private final Map<String, T> byUuid = new HashMap<String, T>();
+	
+	private final List<T> active = new ArrayList<T>();
+	
+	private ActiveAttributeIndex(Customizable<T> owner) {
+		for (T attribute : owner.getAttributes()) {
+			if (!attribute.isVoided())
+				add(attribute);
+		}
+	}
+	
+	/**
+	 * Gets the index of the active attributes of the given owner
+	 * 
+	 * @param owner the owner of the attributes
+	 * @return the index
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends Attribute<?, ?>> ActiveAttributeIndex<T> get(Customizable<T> owner) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null)
+			return new ActiveAttributeIndex<T>(owner);
+		
+		Map<Object, ActiveAttributeIndex<?>> indexes = (Map<Object, ActiveAttributeIndex<?>>) attributes.getAttribute(
+		    REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (indexes == null) {
+			indexes = new IdentityHashMap<Object, ActiveAttributeIndex<?>>();
+			attributes.setAttribute(REQUEST_ATTRIBUTE, indexes, RequestAttributes.SCOPE_REQUEST);
+		}
+		ActiveAttributeIndex<T> index = (ActiveAttributeIndex<T>) indexes.get(owner);
+		if (index == null) {
+			index = new ActiveAttributeIndex<T>(owner);
+			indexes.put(owner, index);
+		}
+		return index;
+	}
+	
+	/**
+	 * @param attribute the attribute to look for
+	 * @return true if the attribute or one with the same uuid is active
+	 */
+	public boolean contains(T attribute) {
+		return byIdentity.containsKey(attribute)
+		        || (attribute.getUuid() != null && byUuid.containsKey(attribute.getUuid()));
+	}
+	
+	/**
+	 * @param uuid the uuid to look for
+	 * @return the active attribute with the given uuid or null if there is none
+	 */
+	public T getByUuid(String uuid) {
+		return byUuid.get(uuid);
+	}
+	
+	/**
+	 * @return the active attributes in the order they were indexed
+	 */
+	public List<T> getActive() {
+		return new ArrayList<T>(active);
+	}
+	
+	/**
+	 * Records that the given attribute is now active
+	 * 
+	 * @param attribute the attribute
+	 */
+	public void add(T attribute) {
+		if (contains(attribute))
+			return;
+		byIdentity.put(attribute, attribute);
+		if (attribute.getUuid() != null)
+			byUuid.put(attribute.getUuid(), attribute);
+		active.add(attribute);
+	}
+	
+	/**
+	 * Records that the given attribute is no longer active, e.g. because it has been voided
+	 * 
+	 * @param attribute the attribute
+	 */
+	public void remove(T attribute) {
+		T indexed = byIdentity.remove(attribute);
+		if (indexed == null && attribute.getUuid() != null)
+			indexed = byUuid.get(attribute.getUuid());
+		if (indexed == null)
+			return;
+		byIdentity.remove(indexed);
+		if (indexed.getUuid() != null)
+			byUuid.remove(indexed.getUuid());
+		for (int i = 0; i < active.size(); i++) {
+			if (active.get(i) == indexed) {
+				active.remove(i);
+				break;
+			}
+		}
+	}
+}
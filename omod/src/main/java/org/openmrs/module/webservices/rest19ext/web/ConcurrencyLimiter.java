@@ -0,0 +1,116 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.concurrent.Semaphore;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest19ext.web.metrics.MetricsFilter;
+import org.openmrs.module.webservices.rest19ext.web.metrics.RestMetrics;
+import org.openmrs.module.webservices.rest19ext.web.response.ServiceUnavailableException;
+
+/**
+ * Limits how many requests an endpoint handles at the same time. Requests beyond the limit are
+ * turned away with a 503 and a Retry-After header right away, instead of queueing for database
+ * connections while they hold on to container threads. The limit is read from a global property
+ * the first time it is needed, so changing it takes effect after a restart. The rejected requests
+ * are counted with the statistics of the operation the limiter guards, see
+ * {@link RestMetrics#recordRejection(String)}.
+ */
+public class ConcurrencyLimiter {
+	
+	/**
+	 * The number of seconds clients are asked to wait before they retry a rejected request
+	 */
+	public static final int RETRY_AFTER_SECONDS = 1;
+	
+	private static final Log log = LogFactory.getLog(ConcurrencyLimiter.class);
+	
+	private final String operation;
+	
+	private final String globalPropertyName;
+	
+	private final int defaultLimit;
+	
+	private volatile Semaphore permits;
+	
+	/**
+	 * @param operation the resource and operation the rejected requests are counted for, as named by
+	 *            the {@link MetricsFilter}, e.g. "v1/visit search"
+	 * @param globalPropertyName the global property holding the limit
+	 * @param defaultLimit the limit if the global property is not set to a positive number
+	 */
+	public ConcurrencyLimiter(String operation, String globalPropertyName, int defaultLimit) {
+		this.operation = operation;
+		this.globalPropertyName = globalPropertyName;
+		this.defaultLimit = defaultLimit;
+	}
+	
+	/**
+	 * Admits a request, the caller has to {@link #release()} it once it is handled
+	 * 
+	 * @param response the response of the request, gets the Retry-After header if the request is
+	 *            rejected
+	 * @throws ServiceUnavailableException if the endpoint already handles as many requests as it may
+	 * @should admit requests up to the limit
+	 * @should reject requests beyond the limit
+	 * @should admit a request again once another one is released
+	 */
+	public void acquire(HttpServletResponse response) throws ServiceUnavailableException {
+		if (!getPermits().tryAcquire()) {
+			RestMetrics.getInstance().recordRejection(operation);
+			response.setHeader("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+			throw new ServiceUnavailableException();
+		}
+	}
+	
+	/**
+	 * Releases a request that was admitted by {@link #acquire(HttpServletResponse)}
+	 */
+	public void release() {
+		getPermits().release();
+	}
+	
+	private Semaphore getPermits() {
+		Semaphore current = permits;
+		if (current == null) {
+			synchronized (this) {
+				current = permits;
+				if (current == null) {
+					current = new Semaphore(readLimit());
+					permits = current;
+				}
+			}
+		}
+		return current;
+	}
+	
+	private int readLimit() {
+		String value = Context.getAdministrationService().getGlobalProperty(globalPropertyName);
+		if (value != null) {
+			try {
+				int limit = Integer.parseInt(value.trim());
+				if (limit > 0)
+					return limit;
+			}
+			catch (NumberFormatException e) {
+				// fall back to the default below
+			}
+			log.warn("Ignoring the invalid value " + value + " of " + globalPropertyName);
+		}
+		return defaultLimit;
+	}
+}
@@ -0,0 +1,258 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Auditable;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.Patient;
+import org.openmrs.Person;
+import org.openmrs.Provider;
+import org.openmrs.Retireable;
+import org.openmrs.Visit;
+import org.openmrs.Voidable;
+import org.openmrs.api.APIException;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.api.RestService;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.LocationResource;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.ProviderResource;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.VisitResource;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.VisitTypeResource;
+
+/**
+ * Answers conditional GETs of single visits, providers, locations and visit types. The ETag and
+ * Last-Modified of an object are derived from its uuid, the representation asked for and the
+ * latest of the audit dates of the object and of the objects the representation is built from, so
+ * a client that already has the current version gets a 304 before any representation is built.
+ * The default and full representations of a visit embed its encounters and attributes, their count
+ * and latest audit date are read with a single aggregate query, see
+ * {@link Rest19ExtService#getLastChangeOfEncountersAndAttributes(Visit)}. Those of the other
+ * resources embed objects that change without touching any of these dates, so only requests for
+ * their ref representation are answered, the others are passed on without a lookup.
+ */
+public class ConditionalGetFilter implements Filter {
+	
+	private static final Log log = LogFactory.getLog(ConditionalGetFilter.class);
+	
+	private static final String REST_PATH = "/rest/";
+	
+	private static final String ETAG_PREFIX = "W/\"";
+	
+	private static final Map<String, Class<? extends DelegatingCrudResource<?>>> resources = new HashMap<String, Class<? extends DelegatingCrudResource<?>>>();
+	
+	static {
+		resources.put(RestConstants.VERSION_1 + "/visit", VisitResource.class);
+		resources.put(RestConstants.VERSION_1 + "/provider", ProviderResource.class);
+		resources.put(RestConstants.VERSION_2 + "/location", LocationResource.class);
+		resources.put(RestConstants.VERSION_1 + "/visittype", VisitTypeResource.class);
+	}
+	
+	/**
+	 * @see javax.servlet.Filter#init(javax.servlet.FilterConfig)
+	 */
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+	}
+	
+	/**
+	 * @see javax.servlet.Filter#doFilter(javax.servlet.ServletRequest, javax.servlet.ServletResponse,
+	 *      javax.servlet.FilterChain)
+	 * @should set the etag and last modified headers of an object
+	 * @should answer not modified if the etag matches
+	 * @should answer not modified if the object has not been modified since the given date
+	 * @should pass the request on if the etag does not match
+	 * @should pass the request on if it is not for a single object
+	 * @should pass the request on for the default and full representations of a provider
+	 * @should change the etag when an object the display is built from is changed
+	 * @should answer not modified for the default representation of a visit
+	 * @should change the etag of the default representation when an encounter of the visit is changed
+	 * @should key the etag by the representation
+	 */
+	@Override
+	public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+		HttpServletRequest request = (HttpServletRequest) req;
+		HttpServletResponse response = (HttpServletResponse) res;
+		String rep = "GET".equals(request.getMethod()) ? getRepresentation(request) : null;
+		if (rep != null) {
+			Object delegate = getDelegate(request, rep);
+			if (delegate instanceof OpenmrsObject && delegate instanceof Auditable) {
+				String etag = ETAG_PREFIX + ((OpenmrsObject) delegate).getUuid() + "-" + rep;
+				Date lastModified = getLastModified(getSources(delegate, rep));
+				if (delegate instanceof Visit && !RestConstants.REPRESENTATION_REF.equals(rep)) {
+					// the counts tell a removed encounter or attribute apart, its dates are gone
+					Object[] lastChange = Context.getService(Rest19ExtService.class)
+					        .getLastChangeOfEncountersAndAttributes((Visit) delegate);
+					if (lastChange != null) {
+						etag += "-" + lastChange[0] + "-" + lastChange[1];
+						lastModified = latest(lastModified, (Date) lastChange[2]);
+					}
+				}
+				etag += "-" + lastModified.getTime() + "\"";
+				response.setHeader("ETag", etag);
+				response.setDateHeader("Last-Modified", lastModified.getTime());
+				if (isNotModified(request, etag, lastModified)) {
+					response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+					return;
+				}
+			}
+		}
+		chain.doFilter(req, res);
+	}
+	
+	/**
+	 * @see javax.servlet.Filter#destroy()
+	 */
+	@Override
+	public void destroy() {
+	}
+	
+	/**
+	 * Gets the representation a request asks for, null if it is neither ref, default nor full. A
+	 * request that lists fields is passed on since the fields may reach beyond the objects the
+	 * validators are built from, see {@link FieldsRepresentation}
+	 */
+	private String getRepresentation(HttpServletRequest request) {
+		if (request.getParameter(Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_FIELDS) != null)
+			return null;
+		String rep = request.getParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION);
+		if (rep == null)
+			return RestConstants.REPRESENTATION_DEFAULT;
+		if (RestConstants.REPRESENTATION_REF.equals(rep) || RestConstants.REPRESENTATION_DEFAULT.equals(rep)
+		        || RestConstants.REPRESENTATION_FULL.equals(rep))
+			return rep;
+		return null;
+	}
+	
+	/**
+	 * Gets the objects the given representation of the given object is built from apart from the
+	 * encounters and attributes of a visit, i.e. the sources of its display string, see the
+	 * {@link DisplayStringCache} of its resource, and for a visit those of the references it embeds
+	 */
+	private Auditable[] getSources(Object delegate, String rep) {
+		if (delegate instanceof Visit) {
+			Visit visit = (Visit) delegate;
+			if (RestConstants.REPRESENTATION_REF.equals(rep))
+				return new Auditable[] { visit, visit.getVisitType(), visit.getLocation() };
+			Patient patient = visit.getPatient();
+			return new Auditable[] { visit, visit.getVisitType(), visit.getLocation(), visit.getIndication(), patient,
+			        patient.getPersonName(), patient.getPatientIdentifier() };
+		}
+		if (delegate instanceof Provider) {
+			Provider provider = (Provider) delegate;
+			Person person = provider.getPerson();
+			return new Auditable[] { provider, person, person != null ? person.getPersonName() : null };
+		}
+		return new Auditable[] { (Auditable) delegate };
+	}
+	
+	/**
+	 * Gets the object a request is for if it asks for a single object of one of the supported
+	 * resources, e.g. /ws/rest/v1/visit/{uuid}, in a representation answered for the resource
+	 */
+	private Object getDelegate(HttpServletRequest request, String rep) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		int start = path.indexOf(REST_PATH);
+		if (start < 0)
+			return null;
+		
+		String[] segments = path.substring(start + REST_PATH.length()).split("/");
+		if (segments.length != 3)
+			return null;
+		Class<? extends DelegatingCrudResource<?>> resourceClass = resources.get(segments[0] + "/" + segments[1]);
+		if (resourceClass == null
+		        || (resourceClass != VisitResource.class && !RestConstants.REPRESENTATION_REF.equals(rep)))
+			return null;
+		
+		try {
+			DelegatingCrudResource<?> resource = Context.getService(RestService.class).getResource(resourceClass);
+			return resource.getByUniqueId(URLDecoder.decode(segments[2], "UTF-8"));
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+		catch (APIException e) {
+			// let the controller report it the way it reports any other error
+			log.debug("Unable to get the object for a conditional request to " + path, e);
+			return null;
+		}
+	}
+	
+	private Date getLastModified(Auditable[] objects) {
+		Date lastModified = null;
+		for (Auditable object : objects) {
+			if (object == null)
+				continue;
+			lastModified = latest(lastModified, object.getDateCreated());
+			lastModified = latest(lastModified, object.getDateChanged());
+			if (object instanceof Voidable)
+				lastModified = latest(lastModified, ((Voidable) object).getDateVoided());
+			if (object instanceof Retireable)
+				lastModified = latest(lastModified, ((Retireable) object).getDateRetired());
+		}
+		return lastModified != null ? lastModified : new Date(0);
+	}
+	
+	private Date latest(Date date, Date other) {
+		if (date == null)
+			return other;
+		if (other == null || !other.after(date))
+			return date;
+		return other;
+	}
+	
+	/**
+	 * If-None-Match takes precedence over If-Modified-Since as required by the HTTP spec, and the
+	 * ETags are compared weakly, with or without the W/ prefix, since the ETag sent is weak
+	 */
+	private boolean isNotModified(HttpServletRequest request, String etag, Date lastModified) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			String opaqueTag = etag.substring(ETAG_PREFIX.length() - 1);
+			for (String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				if (tag.equals("*") || tag.equals(etag) || tag.equals(opaqueTag))
+					return true;
+			}
+			return false;
+		}
+		
+		long ifModifiedSince;
+		try {
+			ifModifiedSince = request.getDateHeader("If-Modified-Since");
+		}
+		catch (IllegalArgumentException e) {
+			return false;
+		}
+		// http dates have no milliseconds
+		return ifModifiedSince >= 0 && lastModified.getTime() / 1000 <= ifModifiedSince / 1000;
+	}
+}
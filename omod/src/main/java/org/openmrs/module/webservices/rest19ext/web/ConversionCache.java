@@ -0,0 +1,129 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openmrs.OpenmrsObject;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.Hyperlink;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.util.HibernateProxyHelper;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Converts objects that are referenced by many of the results of a request, e.g. the location and
+ * visit type of the visits of a page, only once per representation and request. Later occurrences
+ * get a deep copy of the first conversion. Outside of a request nothing is cached. The numbers of hits
+ * and misses are counted over all requests.
+ */
+public class ConversionCache {
+	
+	private static final String REQUEST_ATTRIBUTE = ConversionCache.class.getName();
+	
+	private static final AtomicLong hits = new AtomicLong();
+	
+	private static final AtomicLong misses = new AtomicLong();
+	
+	private ConversionCache() {
+	}
+	
+	/**
+	 * Converts the given object to the given representation unless it has already been converted
+	 * to it while handling the current request
+	 * 
+	 * @param object the object to convert
+	 * @param rep the representation
+	 * @return the representation of the object
+	 * @throws ConversionException
+	 * @should convert an object only once per representation within a request
+	 * @should convert an object every time outside of a request
+	 * @should not share the nested values of the representation between occurrences
+	 */
+	@SuppressWarnings("unchecked")
+	public static Object convert(Object object, Representation rep) throws ConversionException {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (!(object instanceof OpenmrsObject) || attributes == null)
+			return ConversionUtil.convertToRepresentation(object, rep);
+		
+		Map<String, Object> converted = (Map<String, Object>) attributes.getAttribute(REQUEST_ATTRIBUTE,
+		    RequestAttributes.SCOPE_REQUEST);
+		if (converted == null) {
+			converted = new HashMap<String, Object>();
+			attributes.setAttribute(REQUEST_ATTRIBUTE, converted, RequestAttributes.SCOPE_REQUEST);
+		}
+		
+		String key = rep.getRepresentation() + " "
+		        + HibernateProxyHelper.getClassWithoutInitializingProxy(object).getName() + " "
+		        + ((OpenmrsObject) object).getUuid();
+		Object representation = converted.get(key);
+		if (representation == null) {
+			misses.incrementAndGet();
+			representation = ConversionUtil.convertToRepresentation(object, rep);
+			converted.put(key, representation);
+		} else {
+			hits.incrementAndGet();
+		}
+		
+		// the caller may add to the representation or to what it nests, e.g. links, so every
+		// occurrence gets its own copy
+		return copy(representation);
+	}
+	
+	/**
+	 * Copies the maps, lists and links of a representation down to their values, which are left
+	 * shared since they are strings, numbers, dates or the like
+	 */
+	@SuppressWarnings("unchecked")
+	private static Object copy(Object value) {
+		if (value instanceof Map) {
+			Map<String, Object> copy = value instanceof SimpleObject ? new SimpleObject()
+			        : new LinkedHashMap<String, Object>();
+			for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet())
+				copy.put(entry.getKey(), copy(entry.getValue()));
+			return copy;
+		}
+		if (value instanceof List) {
+			List<Object> copy = new ArrayList<Object>();
+			for (Object element : (List<Object>) value)
+				copy.add(copy(element));
+			return copy;
+		}
+		if (value instanceof Hyperlink) {
+			Hyperlink link = (Hyperlink) value;
+			return new Hyperlink(link.getRel(), link.getUri());
+		}
+		return value;
+	}
+	
+	/**
+	 * @return the number of conversions that were served from the cache
+	 */
+	public static long getHits() {
+		return hits.get();
+	}
+	
+	/**
+	 * @return the number of conversions that had to be done
+	 */
+	public static long getMisses() {
+		return misses.get();
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.openmrs.attribute.AttributeType;
+import org.openmrs.customdatatype.CustomDatatype;
+import org.openmrs.customdatatype.CustomDatatypeUtil;
+
+/**
+ * Keeps the configured {@link CustomDatatype} of every attribute type so that writing attribute
+ * values does not instantiate and configure a new datatype each time. The datatypes are shared by
+ * all threads, which is fine for the datatypes of core since they only read their configuration
+ * once it is set. An entry is only reused while the datatype class name and configuration of the
+ * attribute type are the ones it was built from, so types edited outside of the REST resources are
+ * picked up as well, {@link #invalidate(AttributeType)} just frees the entry early.
+ */
+public class CustomDatatypeCache {
+	
+	private static final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	
+	private CustomDatatypeCache() {
+	}
+	
+	/**
+	 * Gets the datatype of the given attribute type
+	 * 
+	 * @param attributeType the attribute type
+	 * @return the configured datatype
+	 * @should return the same instance for the same attribute type
+	 * @should return a new instance if the datatype config has changed
+	 */
+	public static CustomDatatype<?> get(AttributeType<?> attributeType) {
+		String classname = attributeType.getDatatypeClassname();
+		String config = attributeType.getDatatypeConfig();
+		String uuid = attributeType.getUuid();
+		if (uuid == null)
+			return CustomDatatypeUtil.getDatatype(classname, config);
+		
+		Entry entry = entries.get(uuid);
+		if (entry == null || !entry.isFor(classname, config)) {
+			entry = new Entry(classname, config, CustomDatatypeUtil.getDatatype(classname, config));
+			entries.put(uuid, entry);
+		}
+		return entry.datatype;
+	}
+	
+	/**
+	 * Discards the datatype of the given attribute type, to be called when it is saved or purged
+	 * 
+	 * @param attributeType the attribute type
+	 * @should return a new instance after the attribute type is invalidated
+	 */
+	public static void invalidate(AttributeType<?> attributeType) {
+		if (attributeType.getUuid() != null)
+			entries.remove(attributeType.getUuid());
+	}
+	
+	private static class Entry {
+		
+		private final String classname;
+		
+		private final String config;
+		
+		private final CustomDatatype<?> datatype;
+		
+		public Entry(String classname, String config, CustomDatatype<?> datatype) {
+			this.classname = classname;
+			this.config = config;
+			this.datatype = datatype;
+		}
+		
+		public boolean isFor(String classname, String config) {
+			return ObjectUtils.equals(this.classname, classname) && ObjectUtils.equals(this.config, config);
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.time.FastDateFormat;
+import org.openmrs.Auditable;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.api.context.Context;
+
+/**
+ * Keeps the display strings a resource builds for its objects per uuid and locale, since the
+ * display is written for every object at every representation level. An entry is only reused
+ * while the objects the display is built from, see {@link #getSources(OpenmrsObject)}, have not
+ * changed since, going by their date changed or else date created. So objects edited outside of
+ * the REST resources are picked up as well, {@link #invalidate(OpenmrsObject)} just frees the entry
+ * early. At most {@link #MAX_OBJECTS} objects are kept, the cache starts over once it is full.
+ * 
+ * @param <T> the type of the objects
+ */
+public abstract class DisplayStringCache<T extends OpenmrsObject> {
+	
+	/**
+	 * The number of objects whose display strings are kept
+	 */
+	public static final int MAX_OBJECTS = 10000;
+	
+	/**
+	 * The precision the change dates are stored with, e.g. MySQL keeps whole seconds. A display
+	 * built within this time of the last change of its sources is not kept, since another change
+	 * within the same second would not change the stamp.
+	 */
+	public static final long STAMP_PRECISION_MILLIS = 1000;
+	
+	private static final ConcurrentMap<Locale, FastDateFormat> dateTimeFormats = new ConcurrentHashMap<Locale, FastDateFormat>();
+	
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	
+	/**
+	 * Builds the display string of the given object
+	 * 
+	 * @param object the object
+	 * @param locale the locale to build it for
+	 * @return the display string
+	 */
+	protected abstract String build(T object, Locale locale);
+	
+	/**
+	 * Gets the objects the display string of the given object is built from, a changed display is
+	 * only noticed if one of them has changed
+	 * 
+	 * @param object the object
+	 * @return the objects, may contain nulls
+	 */
+	protected abstract Auditable[] getSources(T object);
+	
+	/**
+	 * Gets the display string of the given object for the locale of the current user
+	 * 
+	 * @param object the object
+	 * @return the display string
+	 * @should build the display string only once while the object is unchanged
+	 * @should build the display string again once the object has changed
+	 * @should build the display string again after the object is invalidated
+	 * @should keep a display string per locale
+	 * @should not keep a display string built within the stamp precision of the last change
+	 */
+	public String get(T object) {
+		Locale locale = Context.getLocale();
+		String uuid = object.getUuid();
+		if (uuid == null)
+			return build(object, locale);
+		
+		Auditable[] sources = getSources(object);
+		if (System.currentTimeMillis() - getLastChange(sources) < STAMP_PRECISION_MILLIS)
+			return build(object, locale);
+		
+		String stamp = getStamp(sources);
+		Entry entry = entries.get(uuid);
+		if (entry == null || !entry.stamp.equals(stamp)) {
+			if (entries.size() >= MAX_OBJECTS)
+				entries.clear();
+			entry = new Entry(stamp);
+			entries.put(uuid, entry);
+		}
+		
+		String display = entry.displays.get(locale);
+		if (display == null) {
+			display = build(object, locale);
+			entry.displays.put(locale, display);
+		}
+		return display;
+	}
+	
+	/**
+	 * Discards the display strings of the given object, to be called when it is saved or purged
+	 * 
+	 * @param object the object
+	 */
+	public void invalidate(T object) {
+		if (object.getUuid() != null)
+			entries.remove(object.getUuid());
+	}
+	
+	/**
+	 * Formats a date and time like {@link Context#getDateTimeFormat()} does for the given locale,
+	 * with a formatter that is built once per locale and shared by all threads
+	 * 
+	 * @param date the date to format
+	 * @param locale the locale, should be the one of the current user
+	 * @return the formatted date
+	 * @should format like the date time format of the context
+	 */
+	public static String formatDateTime(Date date, Locale locale) {
+		FastDateFormat format = dateTimeFormats.get(locale);
+		if (format == null) {
+			DateFormat contextFormat = Context.getDateTimeFormat();
+			if (!(contextFormat instanceof SimpleDateFormat) || !locale.equals(Context.getLocale()))
+				return contextFormat.format(date);
+			format = FastDateFormat.getInstance(((SimpleDateFormat) contextFormat).toPattern(), locale);
+			dateTimeFormats.putIfAbsent(locale, format);
+		}
+		return format.format(date);
+	}
+	
+	private static String getStamp(Auditable[] sources) {
+		StringBuilder stamp = new StringBuilder();
+		for (Auditable source : sources) {
+			Date changed = getDateOfLastChange(source);
+			stamp.append(changed == null ? "-" : String.valueOf(changed.getTime())).append(' ');
+		}
+		return stamp.toString();
+	}
+	
+	private static long getLastChange(Auditable[] sources) {
+		long last = Long.MIN_VALUE;
+		for (Auditable source : sources) {
+			Date changed = getDateOfLastChange(source);
+			if (changed != null && changed.getTime() > last)
+				last = changed.getTime();
+		}
+		return last;
+	}
+	
+	private static Date getDateOfLastChange(Auditable source) {
+		if (source == null)
+			return null;
+		return source.getDateChanged() != null ? source.getDateChanged() : source.getDateCreated();
+	}
+	
+	private static class Entry {
+		
+		private final String stamp;
+		
+		private final ConcurrentMap<Locale, String> displays = new ConcurrentHashMap<Locale, String>();
+		
+		public Entry(String stamp) {
+			this.stamp = stamp;
+		}
+	}
+}
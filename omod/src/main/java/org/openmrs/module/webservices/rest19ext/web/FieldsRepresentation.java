@@ -0,0 +1,171 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.lang.StringUtils;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription.Property;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+
+/**
+ * Representation with only the fields a client listed in the
+ * {@link Rest19ExtWebConstants#REQUEST_PROPERTY_FOR_FIELDS} request parameter, e.g.
+ * <code>?fields=uuid,startDatetime,visitType.name</code>. The fields are picked from the full
+ * representation of the resource and the properties that are not listed are never read. A dotted
+ * field reads a single property of a nested object and is written as a nested object, only the
+ * dotted fields the resource allows are accepted, see
+ * {@link RepresentationDescriptionCache#getNestedFields()}. "links" asks for the self link. Only the
+ * objects a request asks for are pruned, the objects nested in them keep their usual
+ * representations.
+ */
+public class FieldsRepresentation implements Representation {
+	
+	private static final String PREFIX = "fields:";
+	
+	private static final String LINKS = "links";
+	
+	private final List<String> fields;
+	
+	private FieldsRepresentation(List<String> fields) {
+		this.fields = fields;
+	}
+	
+	/**
+	 * Replaces the representation of the given context with the fields listed by its request, if
+	 * the request lists any
+	 * 
+	 * @param context the request context
+	 * @throws ConversionException if the parameter lists no fields
+	 */
+	public static void applyTo(RequestContext context) throws ConversionException {
+		HttpServletRequest request = context.getRequest();
+		String fields = request == null ? null : request.getParameter(Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_FIELDS);
+		if (fields != null)
+			context.setRepresentation(parse(fields));
+	}
+	
+	/**
+	 * @param fields the comma separated fields
+	 * @return the representation with the given fields
+	 * @throws ConversionException if no fields are given
+	 * @should keep the fields in the given order without duplicates
+	 * @should drop the dotted fields of objects that are listed as a whole
+	 * @should fail if no fields are given
+	 */
+	public static FieldsRepresentation parse(String fields) throws ConversionException {
+		Set<String> listed = new LinkedHashSet<String>();
+		for (String field : fields.split(",")) {
+			if (StringUtils.isNotBlank(field))
+				listed.add(field.trim());
+		}
+		if (listed.isEmpty())
+			throw new ConversionException("No fields given");
+		
+		List<String> kept = new ArrayList<String>(listed.size());
+		for (String field : listed) {
+			int dot = field.indexOf('.');
+			if (dot < 0 || !listed.contains(field.substring(0, dot)))
+				kept.add(field);
+		}
+		return new FieldsRepresentation(kept);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.representation.Representation#getRepresentation()
+	 */
+	@Override
+	public String getRepresentation() {
+		return PREFIX + StringUtils.join(fields, ",");
+	}
+	
+	/**
+	 * @param name the name of a property
+	 * @return true if the property or any of its nested properties is listed
+	 */
+	public boolean includes(String name) {
+		for (String field : fields) {
+			if (field.equals(name) || field.startsWith(name + "."))
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Builds the description with only the listed fields
+	 * 
+	 * @param full the description of the full representation of the resource
+	 * @param nested the dotted fields the resource allows, one level deep
+	 * @return the pruned description
+	 * @throws ConversionException if a field is not part of the full representation or is a dotted
+	 *             field the resource does not allow
+	 * @should keep only the listed properties of the full description
+	 * @should read an allowed dotted field as a property of the delegate
+	 * @should fail for a field that is not part of the full description
+	 * @should fail for a dotted field that is not allowed
+	 */
+	public DelegatingResourceDescription prune(DelegatingResourceDescription full, Set<String> nested)
+	        throws ConversionException {
+		DelegatingResourceDescription pruned = new DelegatingResourceDescription();
+		for (String field : fields) {
+			if (LINKS.equals(field)) {
+				pruned.addSelfLink();
+				continue;
+			}
+			
+			int dot = field.indexOf('.');
+			Property property = full.getProperties().get(dot < 0 ? field : field.substring(0, dot));
+			if (property == null || (dot >= 0 && !nested.contains(field)))
+				throw new ConversionException("Unknown field: " + field);
+			if (dot < 0)
+				pruned.getProperties().put(field, property);
+			else
+				pruned.addProperty(field, Representation.REF);
+		}
+		return pruned;
+	}
+	
+	/**
+	 * Turns the dotted fields of an object converted with this representation into nested objects
+	 * 
+	 * @param simple the converted object
+	 * @return the object with nested objects in place of the dotted fields
+	 * @should nest the dotted fields
+	 */
+	public SimpleObject nest(SimpleObject simple) {
+		SimpleObject nested = new SimpleObject();
+		for (Map.Entry<String, Object> entry : simple.entrySet()) {
+			String[] path = entry.getKey().split("\\.");
+			SimpleObject target = nested;
+			for (int i = 0; i < path.length - 1; i++) {
+				Object child = target.get(path[i]);
+				if (!(child instanceof SimpleObject)) {
+					child = new SimpleObject();
+					target.put(path[i], child);
+				}
+				target = (SimpleObject) child;
+			}
+			target.put(path[path.length - 1], entry.getValue());
+		}
+		return nested;
+	}
+}
@@ -0,0 +1,187 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang.StringUtils;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.resource.api.PageableResult;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+
+/**
+ * A page of results that continues from the position of the last result of the previous page
+ * instead of from a start index. The position is made of the values the results are ordered by,
+ * e.g. a name and an id, and is handed to the client as an opaque cursor in the next link of the
+ * page, see {@link Rest19ExtWebConstants#REQUEST_PROPERTY_FOR_CURSOR}. Fetching the page after a
+ * position is a range scan, so walking all pages takes linear time however deep the client pages,
+ * and results added or removed in between do not shift the following pages.
+ * 
+ * @param <T> the type of the results
+ */
+public abstract class KeysetPagedResult<T> implements PageableResult {
+	
+	private static final String NULL_VALUE = "~";
+	
+	private static final String VALUE_PREFIX = "=";
+	
+	private final RequestContext context;
+	
+	private final List<T> results;
+	
+	/**
+	 * @param context the request context, used for the page size, the representation and the next
+	 *            link
+	 * @param results the results after the position of the cursor, fetched with one extra row so
+	 *            that it can tell if there are more
+	 */
+	public KeysetPagedResult(RequestContext context, List<T> results) {
+		this.context = context;
+		this.results = results;
+	}
+	
+	/**
+	 * Gets the position of a result, i.e. the values of the properties the results are ordered by
+	 * 
+	 * @param result the result
+	 * @return the position, values may be null
+	 */
+	protected abstract String[] getPosition(T result);
+	
+	/**
+	 * Gets the position the client wants to continue from. A start index cannot be honoured since
+	 * the pages are not counted, so a request with one is rejected rather than served from the
+	 * first page.
+	 * 
+	 * @param context the request context
+	 * @return the values of the position or null if no cursor was given
+	 * @throws ConversionException if the cursor is not a valid one or a start index is given
+	 * @should return the position of the next link of a page
+	 * @should return null if no cursor was given
+	 * @should fail if a start index is given
+	 */
+	public static String[] getCursorPosition(RequestContext context) throws ConversionException {
+		HttpServletRequest request = context.getRequest();
+		String startIndex = request.getParameter(RestConstants.REQUEST_PROPERTY_FOR_START_INDEX);
+		if (StringUtils.isNotBlank(startIndex) && !startIndex.trim().equals("0"))
+			throw new ConversionException(RestConstants.REQUEST_PROPERTY_FOR_START_INDEX
+			        + " is not supported, follow the next link of the page which continues from its "
+			        + Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_CURSOR);
+		return decode(request.getParameter(Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_CURSOR));
+	}
+	
+	/**
+	 * Gets the position of the given cursor
+	 * 
+	 * @param cursor the cursor
+	 * @return the values of the position or null if the cursor is blank
+	 * @throws ConversionException if the cursor is not a valid one
+	 */
+	public static String[] decode(String cursor) throws ConversionException {
+		if (StringUtils.isBlank(cursor))
+			return null;
+		
+		try {
+			String[] values = new String(Base64.decodeBase64(cursor.getBytes("UTF-8")), "UTF-8").split(":", -1);
+			for (int i = 0; i < values.length; i++) {
+				if (values[i].equals(NULL_VALUE))
+					values[i] = null;
+				else if (values[i].startsWith(VALUE_PREFIX))
+					values[i] = URLDecoder.decode(values[i].substring(VALUE_PREFIX.length()), "UTF-8");
+				else
+					throw new ConversionException("Invalid cursor: " + cursor);
+			}
+			return values;
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Gets the cursor of the given position
+	 * 
+	 * @param position the values of the position, may be null
+	 * @return the cursor
+	 */
+	public static String encode(String... position) {
+		try {
+			StringBuilder cursor = new StringBuilder();
+			for (String value : position) {
+				if (cursor.length() > 0)
+					cursor.append(":");
+				if (value == null)
+					cursor.append(NULL_VALUE);
+				else
+					cursor.append(VALUE_PREFIX).append(URLEncoder.encode(value, "UTF-8"));
+			}
+			return Base64.encodeBase64URLSafeString(cursor.toString().getBytes("UTF-8"));
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.api.PageableResult#toSimpleObject()
+	 * @should add a next link if there are more results
+	 * @should not add a next link to the last page
+	 */
+	@Override
+	public SimpleObject toSimpleObject() throws ResponseException {
+		boolean hasMoreResults = results.size() > context.getLimit();
+		List<T> page = hasMoreResults ? results.subList(0, context.getLimit()) : results;
+		
+		List<Object> converted = new ArrayList<Object>(page.size());
+		for (T result : page) {
+			converted.add(ConversionUtil.convertToRepresentation(result, context.getRepresentation()));
+		}
+		SimpleObject ret = new SimpleObject().add("results", converted);
+		if (hasMoreResults) {
+			String next = getNextLink(encode(getPosition(page.get(page.size() - 1))));
+			ret.add("links", Arrays.asList(new SimpleObject().add("rel", "next").add("uri", next)));
+		}
+		return ret;
+	}
+	
+	private String getNextLink(String cursor) {
+		HttpServletRequest request = context.getRequest();
+		StringBuilder link = new StringBuilder(request.getRequestURL()).append("?");
+		try {
+			for (Object name : request.getParameterMap().keySet()) {
+				if (name.equals(Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_CURSOR)
+				        || name.equals(RestConstants.REQUEST_PROPERTY_FOR_START_INDEX))
+					continue;
+				for (String value : request.getParameterValues((String) name)) {
+					link.append(URLEncoder.encode((String) name, "UTF-8")).append("=").append(
+					    URLEncoder.encode(value, "UTF-8")).append("&");
+				}
+			}
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+		return link.append(Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_CURSOR).append("=").append(cursor).toString();
+	}
+}
@@ -0,0 +1,197 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+
+/**
+ * In memory copy of the location hierarchy, so that the ancestors and descendants of a location are
+ * found without loading the locations level by level. Only the ids, the parents and the retired
+ * flags are kept, the locations are loaded by id in a single query once the ones a request needs
+ * are known. Before every lookup the copy is compared with the change stamp of the locations, see
+ * {@link Rest19ExtService#getChangeStamp(Class)}, and rebuilt if they have changed since, so
+ * changes made outside of the REST resources are picked up as well.
+ */
+public class LocationTree {
+	
+	private volatile Snapshot snapshot;
+	
+	/**
+	 * Gets the children of the given location and of each of its descendants
+	 * 
+	 * @param ancestor the location to start from
+	 * @param includeRetired whether retired locations and the locations below them should be
+	 *            included
+	 * @return the ids of the children by the id of their parent, starting with the given location
+	 *         and going down depth first, every location with children has an entry
+	 * @should get the children of the location and of its descendants
+	 * @should leave out the retired locations unless asked to include them
+	 * @should pick up locations added after it was built
+	 */
+	public Map<Integer, List<Integer>> getChildIds(Location ancestor, boolean includeRetired) {
+		Snapshot current = getSnapshot();
+		Map<Integer, List<Integer>> childIds = new LinkedHashMap<Integer, List<Integer>>();
+		collectChildIds(current, ancestor.getLocationId(), includeRetired, childIds);
+		return childIds;
+	}
+	
+	/**
+	 * Gets the descendants of the given location
+	 * 
+	 * @param ancestor the location to start from
+	 * @param includeRetired whether retired locations and the locations below them should be
+	 *            included
+	 * @return the ids of the descendants, depth first with each location before its children
+	 * @should get all locations below the location
+	 */
+	public List<Integer> getDescendantIds(Location ancestor, boolean includeRetired) {
+		Map<Integer, List<Integer>> childIds = getChildIds(ancestor, includeRetired);
+		List<Integer> descendantIds = new ArrayList<Integer>();
+		addDescendantIds(ancestor.getLocationId(), childIds, descendantIds);
+		return descendantIds;
+	}
+	
+	/**
+	 * Gets the ancestors of the given location
+	 * 
+	 * @param location the location to start from
+	 * @return the ids of the ancestors, starting with the parent and ending with the root
+	 * @should get the locations above the location
+	 */
+	public List<Integer> getAncestorIds(Location location) {
+		Snapshot current = getSnapshot();
+		List<Integer> ancestorIds = new ArrayList<Integer>();
+		Set<Integer> seen = new HashSet<Integer>();
+		seen.add(location.getLocationId());
+		Integer parentId = current.parentIds.get(location.getLocationId());
+		// a broken hierarchy may contain cycles
+		while (parentId != null && seen.add(parentId)) {
+			ancestorIds.add(parentId);
+			parentId = current.parentIds.get(parentId);
+		}
+		return ancestorIds;
+	}
+	
+	/**
+	 * Loads the locations with the given ids in a single query
+	 * 
+	 * @param ids the ids of the locations
+	 * @return the locations in the order of the given ids, locations purged in the meantime are
+	 *         left out
+	 */
+	public List<Location> getLocations(List<Integer> ids) {
+		Map<Integer, Location> byId = new HashMap<Integer, Location>();
+		for (Location location : Context.getService(Rest19ExtService.class).getObjectsByIds(Location.class, ids)) {
+			byId.put(location.getLocationId(), location);
+		}
+		List<Location> locations = new ArrayList<Location>(ids.size());
+		for (Integer id : ids) {
+			Location location = byId.get(id);
+			if (location != null)
+				locations.add(location);
+		}
+		return locations;
+	}
+	
+	private void collectChildIds(Snapshot current, Integer parentId, boolean includeRetired,
+	        Map<Integer, List<Integer>> childIds) {
+		List<Integer> children = current.childIds.get(parentId);
+		if (children == null || childIds.containsKey(parentId))
+			return;
+		
+		List<Integer> included = new ArrayList<Integer>(children.size());
+		for (Integer childId : children) {
+			if (includeRetired || !current.retiredIds.contains(childId))
+				included.add(childId);
+		}
+		if (included.isEmpty())
+			return;
+		childIds.put(parentId, included);
+		for (Integer childId : included) {
+			collectChildIds(current, childId, includeRetired, childIds);
+		}
+	}
+	
+	private void addDescendantIds(Integer parentId, Map<Integer, List<Integer>> childIds, List<Integer> descendantIds) {
+		List<Integer> children = childIds.get(parentId);
+		if (children == null)
+			return;
+		for (Integer childId : children) {
+			descendantIds.add(childId);
+			addDescendantIds(childId, childIds, descendantIds);
+		}
+	}
+	
+	private Snapshot getSnapshot() {
+		String stamp = Context.getService(Rest19ExtService.class).getChangeStamp(Location.class);
+		Snapshot current = snapshot;
+		if (current == null || !current.stamp.equals(stamp)) {
+			current = new Snapshot(stamp, Context.getLocationService().getAllLocations(true));
+			snapshot = current;
+		}
+		return current;
+	}
+	
+	/**
+	 * Immutable copy of the hierarchy, a new one is built on every rebuild so readers never need to
+	 * lock
+	 */
+	private static class Snapshot {
+		
+		final String stamp;
+		
+		final Map<Integer, Integer> parentIds;
+		
+		/**
+		 * The ids of the children of each location ordered by name
+		 */
+		final Map<Integer, List<Integer>> childIds;
+		
+		final Set<Integer> retiredIds;
+		
+		Snapshot(String stamp, List<Location> locations) {
+			this.stamp = stamp;
+			Map<Integer, Integer> parents = new HashMap<Integer, Integer>();
+			Map<Integer, List<Integer>> children = new HashMap<Integer, List<Integer>>();
+			Set<Integer> retired = new HashSet<Integer>();
+			// getAllLocations orders by name, so the children end up ordered by name as well
+			for (Location location : locations) {
+				if (Boolean.TRUE.equals(location.isRetired()))
+					retired.add(location.getLocationId());
+				if (location.getParentLocation() == null)
+					continue;
+				Integer parentId = location.getParentLocation().getLocationId();
+				parents.put(location.getLocationId(), parentId);
+				List<Integer> siblings = children.get(parentId);
+				if (siblings == null) {
+					siblings = new ArrayList<Integer>();
+					children.put(parentId, siblings);
+				}
+				siblings.add(location.getLocationId());
+			}
+			parentIds = Collections.unmodifiableMap(parents);
+			childIds = Collections.unmodifiableMap(children);
+			retiredIds = Collections.unmodifiableSet(retired);
+		}
+	}
+}
@@ -0,0 +1,346 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.openmrs.OpenmrsMetadata;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In memory index of a metadata type by uuid and case insensitive name. Only the ids are kept,
+ * single lookups fetch the item via {@link Rest19ExtService#getObjectById(Class, Integer)} so that
+ * no detached objects are shared between hibernate sessions, lists are fetched by id in a single
+ * query. The index is built lazily from {@link #loadAll()} and rebuilt after {@link #invalidate()}
+ * has been called, resources are expected to call it whenever they save, retire or purge an item.
+ * Items changed elsewhere, e.g. by core or other modules, are noticed by comparing the
+ * {@link Rest19ExtService#getChangeStamp(Class) change stamp} of the type at most every
+ * {@link #CHECK_INTERVAL} milliseconds by default.
+ *
+ * @param <T> the metadata type
+ */
+public abstract class MetadataCache<T extends OpenmrsMetadata> {
+	
+	/**
+	 * The length of the grams in the name index
+	 */
+	public static final int GRAM_LENGTH = 3;
+	
+	/**
+	 * The default number of milliseconds an index is used before it is checked against the change
+	 * stamp of the type
+	 */
+	public static final long CHECK_INTERVAL = 10000;
+	
+	private final Class<T> type;
+	
+	private final long checkInterval;
+	
+	private volatile Snapshot snapshot;
+	
+	/**
+	 * Counts the discarded indexes, so that an index whose build overlapped a discard is not
+	 * published
+	 */
+	private long generation;
+	
+	/**
+	 * @param type the metadata type, used to fetch the items
+	 */
+	public MetadataCache(Class<T> type) {
+		this(type, CHECK_INTERVAL);
+	}
+	
+	/**
+	 * @param type the metadata type, used to fetch the items
+	 * @param checkInterval the number of milliseconds an index is used before it is checked
+	 *            against the change stamp of the type
+	 */
+	public MetadataCache(Class<T> type, long checkInterval) {
+		this.type = type;
+		this.checkInterval = checkInterval;
+	}
+	
+	/**
+	 * Loads all items including retired ones, called whenever the index needs to be rebuilt
+	 *
+	 * @return all items
+	 */
+	protected abstract List<T> loadAll();
+	
+	/**
+	 * Gets the item with the given uuid
+	 *
+	 * @param uuid the uuid to match
+	 * @return the matching item or null if none is indexed
+	 * @should return null for an item purged since the index was built
+	 */
+	public T getByUuid(String uuid) {
+		if (uuid == null)
+			return null;
+		return toItem(getSnapshot().idsByUuid.get(uuid));
+	}
+	
+	/**
+	 * Gets the first item with the given name ignoring case
+	 *
+	 * @param name the name to match
+	 * @return the matching item or null if none is indexed
+	 * @should find an item saved elsewhere once the index is checked again
+	 */
+	public T getByName(String name) {
+		if (name == null)
+			return null;
+		return toItem(getSnapshot().idsByName.get(normalize(name)));
+	}
+	
+	/**
+	 * Gets all indexed items in the order they were loaded
+	 *
+	 * @param includeRetired whether retired items should be included
+	 * @return the items
+	 */
+	public List<T> getAll(boolean includeRetired) {
+		Snapshot current = getSnapshot();
+		return toItems(includeRetired ? current.allIds : current.unretiredIds);
+	}
+	
+	/**
+	 * Gets all items whose name contains the given phrase ignoring case. Phrases of at least
+	 * {@link #GRAM_LENGTH} characters are only compared with the names that contain the rarest of
+	 * their grams, shorter ones are compared with all names.
+	 *
+	 * @param phrase the phrase to look for
+	 * @param includeRetired whether retired items should be included
+	 * @return the matching items in the order they were loaded
+	 */
+	public List<T> findByName(String phrase, boolean includeRetired) {
+		Snapshot current = getSnapshot();
+		String normalized = normalize(phrase);
+		List<Integer> matches = new ArrayList<Integer>();
+		int[] candidates = current.getCandidates(normalized);
+		int count = candidates == null ? current.names.length : candidates.length;
+		for (int c = 0; c < count; c++) {
+			int i = candidates == null ? c : candidates[c];
+			if ((includeRetired || !current.retired[i]) && current.names[i].indexOf(normalized) >= 0)
+				matches.add(current.ids[i]);
+		}
+		return toItems(matches);
+	}
+	
+	/**
+	 * Discards the index, it will be rebuilt on the next lookup
+	 *
+	 * @should not keep an index whose loading overlapped the call
+	 */
+	public void invalidate() {
+		discard();
+		invalidateAfterTransaction();
+	}
+	
+	/**
+	 * @param name the name to normalize
+	 * @return the form of the name that is used as the key in the name index
+	 */
+	protected static String normalize(String name) {
+		return name == null ? "" : name.toLowerCase(Locale.ENGLISH);
+	}
+	
+	private Snapshot getSnapshot() {
+		Snapshot current = snapshot;
+		if (current != null && System.currentTimeMillis() - current.checked < checkInterval)
+			return current;
+		
+		String stamp = Context.getService(Rest19ExtService.class).getChangeStamp(type);
+		if (current != null && current.stamp.equals(stamp)) {
+			current.checked = System.currentTimeMillis();
+			return current;
+		}
+		
+		long started;
+		synchronized (this) {
+			started = generation;
+		}
+		current = new Snapshot(loadAll(), stamp);
+		synchronized (this) {
+			//an invalidate() while loading may have come too late for loadAll() to see its change
+			if (generation == started)
+				snapshot = current;
+		}
+		return current;
+	}
+	
+	private synchronized void discard() {
+		generation++;
+		snapshot = null;
+	}
+	
+	/**
+	 * If a transaction is active the change the index is invalidated for is not committed yet, an
+	 * index loaded before the commit would miss it and one loaded by this transaction would keep it
+	 * after a rollback, so the index is discarded again once the transaction completes. Only the
+	 * transactions that change an item pay for the rebuild.
+	 */
+	private void invalidateAfterTransaction() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				
+				@Override
+				public void afterCompletion(int status) {
+					discard();
+				}
+			});
+		}
+	}
+	
+	private T toItem(Integer id) {
+		if (id == null)
+			return null;
+		return Context.getService(Rest19ExtService.class).getObjectById(type, id);
+	}
+	
+	private List<T> toItems(List<Integer> ids) {
+		Map<Integer, T> byId = new HashMap<Integer, T>();
+		for (T item : Context.getService(Rest19ExtService.class).getObjectsByIds(type, ids)) {
+			byId.put(item.getId(), item);
+		}
+		//keep the order of the index, items purged behind our back are skipped
+		List<T> items = new ArrayList<T>(ids.size());
+		for (Integer id : ids) {
+			T item = byId.get(id);
+			if (item != null)
+				items.add(item);
+		}
+		return items;
+	}
+	
+	/**
+	 * Immutable view of the indexed items, a new one is built on every rebuild so readers never
+	 * need to lock. Only the time of the last stamp check changes.
+	 */
+	private static class Snapshot {
+		
+		final String stamp;
+		
+		/**
+		 * When the stamp was last found to be current
+		 */
+		volatile long checked;
+		
+		final Map<String, Integer> idsByUuid;
+		
+		final Map<String, Integer> idsByName;
+		
+		final List<Integer> allIds;
+		
+		final List<Integer> unretiredIds;
+		
+		final Integer[] ids;
+		
+		final String[] names;
+		
+		final boolean[] retired;
+		
+		/**
+		 * The positions of the names containing each gram in ascending order
+		 */
+		final Map<String, int[]> positionsByGram;
+		
+		Snapshot(List<? extends OpenmrsMetadata> items, String stamp) {
+			this.stamp = stamp;
+			this.checked = System.currentTimeMillis();
+			Map<String, Integer> byUuid = new HashMap<String, Integer>();
+			Map<String, Integer> byName = new HashMap<String, Integer>();
+			List<Integer> all = new ArrayList<Integer>(items.size());
+			List<Integer> unretired = new ArrayList<Integer>(items.size());
+			ids = new Integer[items.size()];
+			names = new String[items.size()];
+			retired = new boolean[items.size()];
+			for (int i = 0; i < items.size(); i++) {
+				OpenmrsMetadata item = items.get(i);
+				String name = normalize(item.getName());
+				byUuid.put(item.getUuid(), item.getId());
+				//keep the first one like a linear scan would
+				if (!byName.containsKey(name))
+					byName.put(name, item.getId());
+				all.add(item.getId());
+				boolean isRetired = Boolean.TRUE.equals(item.isRetired());
+				if (!isRetired)
+					unretired.add(item.getId());
+				ids[i] = item.getId();
+				names[i] = name;
+				retired[i] = isRetired;
+			}
+			idsByUuid = byUuid;
+			idsByName = byName;
+			allIds = Collections.unmodifiableList(all);
+			unretiredIds = Collections.unmodifiableList(unretired);
+			positionsByGram = indexGrams(names);
+		}
+		
+		/**
+		 * Gets the positions of the names that may contain the given phrase
+		 *
+		 * @param phrase the normalized phrase
+		 * @return the candidate positions in ascending order or null if the phrase is too short for
+		 *         the gram index and all names have to be checked
+		 */
+		int[] getCandidates(String phrase) {
+			if (phrase.length() < GRAM_LENGTH)
+				return null;
+			int[] rarest = null;
+			for (int i = 0; i + GRAM_LENGTH <= phrase.length(); i++) {
+				int[] positions = positionsByGram.get(phrase.substring(i, i + GRAM_LENGTH));
+				if (positions == null)
+					return new int[0];
+				if (rarest == null || positions.length < rarest.length)
+					rarest = positions;
+			}
+			return rarest;
+		}
+		
+		private static Map<String, int[]> indexGrams(String[] names) {
+			Map<String, List<Integer>> positions = new HashMap<String, List<Integer>>();
+			for (int i = 0; i < names.length; i++) {
+				for (int j = 0; j + GRAM_LENGTH <= names[i].length(); j++) {
+					String gram = names[i].substring(j, j + GRAM_LENGTH);
+					List<Integer> list = positions.get(gram);
+					if (list == null) {
+						list = new ArrayList<Integer>();
+						positions.put(gram, list);
+					}
+					//a gram can occur more than once in the same name
+					if (list.isEmpty() || list.get(list.size() - 1) != i)
+						list.add(i);
+				}
+			}
+			
+			Map<String, int[]> index = new HashMap<String, int[]>();
+			for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+				int[] array = new int[entry.getValue().size()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = entry.getValue().get(i);
+				}
+				index.put(entry.getKey(), array);
+			}
+			return index;
+		}
+	}
+}
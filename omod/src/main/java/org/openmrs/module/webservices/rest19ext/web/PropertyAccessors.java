@@ -0,0 +1,140 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hibernate.proxy.HibernateProxyHelper;
+import org.openmrs.module.webservices.rest.web.annotation.PropertyGetter;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+
+/**
+ * Resolves the getters behind the property names of a resource's representations once per type and
+ * property, so that converting an object does not look them up by name again. Properties the
+ * resource provides a {@link PropertyGetter} for are left to the resource.
+ */
+public class PropertyAccessors {
+	
+	private static final Accessor NONE = new Accessor(new Method[0]);
+	
+	private final Set<String> customGetters = new HashSet<String>();
+	
+	private final ConcurrentMap<Class<?>, ConcurrentMap<String, Accessor>> accessors = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Accessor>>();
+	
+	/**
+	 * @param resourceClass the class of the resource, used to find its {@link PropertyGetter}s
+	 */
+	public PropertyAccessors(Class<?> resourceClass) {
+		for (Method method : resourceClass.getMethods()) {
+			PropertyGetter getter = method.getAnnotation(PropertyGetter.class);
+			if (getter != null)
+				customGetters.add(getter.value());
+		}
+	}
+	
+	/**
+	 * Gets the accessor for the given property of the given object
+	 * 
+	 * @param instance the object
+	 * @param propertyName the name of the property, nested properties are separated by dots
+	 * @return the accessor or null if the property has no plain getter and should be resolved by
+	 *         the resource
+	 */
+	public Accessor find(Object instance, String propertyName) {
+		if (customGetters.contains(propertyName))
+			return null;
+		
+		Class<?> type = HibernateProxyHelper.getClassWithoutInitializingProxy(instance);
+		ConcurrentMap<String, Accessor> byName = accessors.get(type);
+		if (byName == null) {
+			accessors.putIfAbsent(type, new ConcurrentHashMap<String, Accessor>());
+			byName = accessors.get(type);
+		}
+		
+		Accessor accessor = byName.get(propertyName);
+		if (accessor == null) {
+			accessor = compile(type, propertyName);
+			byName.putIfAbsent(propertyName, accessor);
+		}
+		return accessor == NONE ? null : accessor;
+	}
+	
+	private static Accessor compile(Class<?> type, String propertyName) {
+		String[] names = propertyName.split("\\.");
+		Method[] getters = new Method[names.length];
+		Class<?> current = type;
+		for (int i = 0; i < names.length; i++) {
+			Method getter = findGetter(current, names[i]);
+			if (getter == null)
+				return NONE;
+			getters[i] = getter;
+			current = getter.getReturnType();
+		}
+		return new Accessor(getters);
+	}
+	
+	private static Method findGetter(Class<?> type, String name) {
+		try {
+			for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+				if (descriptor.getName().equals(name))
+					return descriptor.getReadMethod();
+			}
+		}
+		catch (IntrospectionException e) {
+			// leave it to the resource
+		}
+		return null;
+	}
+	
+	/**
+	 * Reads a property through a chain of resolved getters
+	 */
+	public static class Accessor {
+		
+		private final Method[] getters;
+		
+		private Accessor(Method[] getters) {
+			this.getters = getters;
+		}
+		
+		/**
+		 * @param instance the object to read the property of
+		 * @return the value of the property, null if any object along the way is null
+		 * @throws ConversionException if a getter fails
+		 */
+		public Object get(Object instance) throws ConversionException {
+			Object value = instance;
+			for (Method getter : getters) {
+				if (value == null)
+					return null;
+				try {
+					value = getter.invoke(value);
+				}
+				catch (IllegalAccessException e) {
+					throw new ConversionException("Unable to read " + getter.getName(), e);
+				}
+				catch (InvocationTargetException e) {
+					throw new ConversionException("Unable to read " + getter.getName(), e.getCause());
+				}
+			}
+			return value;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.RefRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+
+/**
+ * Keeps the description a resource builds for each of the standard representations, so that the
+ * description and the methods it refers to are not looked up again for every converted object.
+ * The descriptions of {@link FieldsRepresentation}s are pruned from the full one and kept per field
+ * list, up to {@link #MAX_FIELD_LISTS} of them. Other representations, e.g. named ones, are built on
+ * every call. The cached descriptions are shared and must not be modified by callers.
+ */
+public abstract class RepresentationDescriptionCache {
+	
+	/**
+	 * Stands in for representations the resource has no description for, since a concurrent map
+	 * cannot hold null
+	 */
+	private static final DelegatingResourceDescription NONE = new DelegatingResourceDescription();
+	
+	/**
+	 * The number of field lists whose descriptions are kept, the field lists come from clients so
+	 * the ones beyond are pruned on every call instead
+	 */
+	public static final int MAX_FIELD_LISTS = 100;
+	
+	private final ConcurrentMap<Class<?>, DelegatingResourceDescription> descriptions = new ConcurrentHashMap<Class<?>, DelegatingResourceDescription>();
+	
+	private final ConcurrentMap<String, DelegatingResourceDescription> pruned = new ConcurrentHashMap<String, DelegatingResourceDescription>();
+	
+	/**
+	 * Builds the description for the given representation
+	 * 
+	 * @param rep the representation
+	 * @return the description or null if the representation is not supported
+	 */
+	protected abstract DelegatingResourceDescription build(Representation rep);
+	
+	/**
+	 * Gets the dotted fields a {@link FieldsRepresentation} may read from the objects nested in the
+	 * resource, e.g. "visitType.name". They are read as bean paths of the delegate, so any other
+	 * dotted field is rejected rather than let a client reach properties no resource exposes.
+	 * 
+	 * @return the allowed dotted fields, none by default
+	 */
+	protected Set<String> getNestedFields() {
+		return Collections.emptySet();
+	}
+	
+	/**
+	 * Gets the description for the given representation
+	 * 
+	 * @param rep the representation
+	 * @return the description or null if the representation is not supported
+	 */
+	public DelegatingResourceDescription get(Representation rep) {
+		if (rep instanceof FieldsRepresentation)
+			return getPruned((FieldsRepresentation) rep);
+		
+		Class<?> key = rep == null ? null : rep.getClass();
+		if (key != DefaultRepresentation.class && key != FullRepresentation.class && key != RefRepresentation.class)
+			return build(rep);
+		
+		DelegatingResourceDescription description = descriptions.get(key);
+		if (description == null) {
+			description = build(rep);
+			if (description == null)
+				description = NONE;
+			descriptions.putIfAbsent(key, description);
+		}
+		return description == NONE ? null : description;
+	}
+	
+	private DelegatingResourceDescription getPruned(FieldsRepresentation rep) {
+		String key = rep.getRepresentation();
+		DelegatingResourceDescription description = pruned.get(key);
+		if (description == null) {
+			DelegatingResourceDescription full = get(Representation.FULL);
+			if (full == null)
+				return null;
+			description = rep.prune(full, getNestedFields());
+			if (pruned.size() < MAX_FIELD_LISTS)
+				pruned.putIfAbsent(key, description);
+		}
+		return description;
+	}
+}
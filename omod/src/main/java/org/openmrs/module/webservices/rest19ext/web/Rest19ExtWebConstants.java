@@ -0,0 +1,64 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+/**
+ * Constants used by the rest19ext web layer
+ */
+public class Rest19ExtWebConstants {
+	
+	/**
+	 * Request parameter that asks for the results of a listing to be written to the response one at
+	 * a time instead of being converted as a whole first
+	 */
+	public static final String REQUEST_PROPERTY_FOR_STREAMING = "stream";
+	
+	/**
+	 * Request parameter that asks for the objects that were created, changed or voided after a date
+	 */
+	public static final String REQUEST_PROPERTY_FOR_CHANGED_SINCE = "changedSince";
+	
+	/**
+	 * Request parameter holding the opaque position to continue a change feed from, it takes the
+	 * place of the start index
+	 */
+	public static final String REQUEST_PROPERTY_FOR_CURSOR = "cursor";
+	
+	/**
+	 * Request parameter for the number of objects a bulk import saves in one transaction
+	 */
+	public static final String REQUEST_PROPERTY_FOR_CHUNK_SIZE = "chunkSize";
+	
+	/**
+	 * Request parameter listing the only fields to write for each object, see
+	 * {@link FieldsRepresentation}
+	 */
+	public static final String REQUEST_PROPERTY_FOR_FIELDS = "fields";
+	
+	/**
+	 * Request parameter with a comma separated list of uuids whose objects to fetch at once, see
+	 * {@link UuidsPagedResult}
+	 */
+	public static final String REQUEST_PROPERTY_FOR_UUIDS = "uuids";
+	
+	/**
+	 * Global property with the number of patient searches each of the visit and encounter endpoints
+	 * handles at the same time, see {@link ConcurrencyLimiter}
+	 */
+	public static final String GLOBAL_PROPERTY_MAX_CONCURRENT_PATIENT_SEARCHES = "webservices.rest19ext.maxConcurrentPatientSearches";
+	
+	/**
+	 * The number of patient searches each endpoint handles at the same time unless configured
+	 * otherwise
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT_PATIENT_SEARCHES = 10;
+}
@@ -0,0 +1,147 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.resource.impl.AlreadyPaged;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+
+/**
+ * Writes a page of results straight to the response instead of building the representation of the
+ * whole page first. The page is fetched from the database in chunks, every item is converted and
+ * written on its own and then evicted from the session, so the memory used by a request depends on
+ * the size of a chunk rather than on the size of the page. The output has the same shape as
+ * {@link AlreadyPaged#toSimpleObject()}. Nothing is written before the first chunk has been
+ * fetched and converted, so a failure there still gets the error status of the REST module. Once
+ * the status has been sent a failure can only be told by the body, so the results written so far
+ * are followed by an error object like the one of the REST module instead of the links, and the
+ * output is always complete JSON.
+ * 
+ * @param <T> the type of the results
+ */
+public abstract class StreamingPagedResult<T> {
+	
+	/**
+	 * The number of items fetched from the database at a time
+	 */
+	public static final int CHUNK_SIZE = 20;
+	
+	private static final Log log = LogFactory.getLog(StreamingPagedResult.class);
+	
+	private static final ObjectMapper mapper = new ObjectMapper();
+	
+	private final RequestContext context;
+	
+	/**
+	 * @param context the request context, used for the page boundaries and the representation
+	 */
+	public StreamingPagedResult(RequestContext context) {
+		this.context = context;
+	}
+	
+	/**
+	 * Fetches a chunk of the results
+	 * 
+	 * @param firstResult the index of the first item to fetch
+	 * @param maxResults the maximum number of items to fetch
+	 * @return the items
+	 */
+	protected abstract List<T> fetch(int firstResult, int maxResults);
+	
+	/**
+	 * Writes the page to the given response
+	 * 
+	 * @param response the response to write to
+	 * @throws ResponseException
+	 * @throws IOException
+	 * @should fail without writing anything if the first chunk fails
+	 * @should end the page with an error if a later chunk fails
+	 */
+	public void write(HttpServletResponse response) throws ResponseException, IOException {
+		int limit = context.getLimit();
+		int fetched = 0;
+		boolean hasMoreResults = false;
+		JsonGenerator generator = null;
+		try {
+			//fetch one extra row so that we can tell if there are more results without counting them all
+			while (fetched <= limit) {
+				int maxResults = Math.min(CHUNK_SIZE, limit + 1 - fetched);
+				List<T> chunk = fetch(context.getStartIndex() + fetched, maxResults);
+				List<Object> converted = new ArrayList<Object>(chunk.size());
+				for (T item : chunk) {
+					if (fetched++ == limit) {
+						hasMoreResults = true;
+						break;
+					}
+					converted.add(ConversionUtil.convertToRepresentation(item, context.getRepresentation()));
+					Context.evictFromSession(item);
+				}
+				
+				if (generator == null)
+					generator = start(response);
+				for (Object item : converted) {
+					generator.writeObject(item);
+				}
+				generator.flush();
+				if (chunk.size() < maxResults)
+					break;
+			}
+		}
+		catch (RuntimeException e) {
+			if (generator == null)
+				throw e;
+			log.error("Failed to write a page of results", e);
+			SimpleObject error = new SimpleObject();
+			error.add("message", "The page is incomplete: " + e.getMessage());
+			generator.writeEndArray();
+			generator.writeObjectField("error", error);
+			generator.writeEndObject();
+			generator.flush();
+			return;
+		}
+		
+		generator.writeEndArray();
+		//let the regular paged result create the links so they look the same
+		SimpleObject page = new AlreadyPaged<T>(context, new ArrayList<T>(), hasMoreResults).toSimpleObject();
+		for (Map.Entry<String, Object> entry : page.entrySet()) {
+			if (!"results".equals(entry.getKey()))
+				generator.writeObjectField(entry.getKey(), entry.getValue());
+		}
+		generator.writeEndObject();
+		generator.flush();
+	}
+	
+	private JsonGenerator start(HttpServletResponse response) throws IOException {
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		JsonGenerator generator = mapper.getJsonFactory().createJsonGenerator(response.getOutputStream(),
+		    JsonEncoding.UTF8);
+		generator.writeStartObject();
+		generator.writeArrayFieldStart("results");
+		return generator;
+	}
+}
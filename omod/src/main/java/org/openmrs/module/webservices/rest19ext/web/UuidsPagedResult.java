@@ -0,0 +1,109 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.resource.api.PageableResult;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+
+/**
+ * The objects of a list of uuids, see {@link Rest19ExtWebConstants#REQUEST_PROPERTY_FOR_UUIDS}.
+ * All of them are written in one page in the order of the uuids, the uuids no object was found for
+ * are listed in a missing property instead of failing the request. The objects are expected to be
+ * fetched with one query, e.g. {@link Rest19ExtService#getObjectsByUuids(Class, Collection)}, so at
+ * most {@link #MAX_UUIDS} uuids are accepted.
+ * 
+ * @param <T> the type of the objects
+ */
+public class UuidsPagedResult<T extends OpenmrsObject> implements PageableResult {
+	
+	/**
+	 * The number of uuids a client may ask for at once
+	 */
+	public static final int MAX_UUIDS = 100;
+	
+	private final RequestContext context;
+	
+	private final List<String> uuids;
+	
+	private final Collection<T> objects;
+	
+	/**
+	 * @param context the request context, used for the representation
+	 * @param uuids the uuids the client asked for, see {@link #parse(String)}
+	 * @param objects the objects found for the uuids in any order
+	 */
+	public UuidsPagedResult(RequestContext context, List<String> uuids, Collection<T> objects) {
+		this.context = context;
+		this.uuids = uuids;
+		this.objects = objects;
+	}
+	
+	/**
+	 * Gets the uuids of a comma separated list, blanks and duplicates are left out
+	 * 
+	 * @param uuids the comma separated list
+	 * @return the uuids in the order they are listed
+	 * @throws ConversionException if more than {@link #MAX_UUIDS} uuids are listed
+	 * @should get the uuids in the order they are listed
+	 * @should leave out blanks and duplicates
+	 * @should fail if more than the maximum number of uuids are listed
+	 */
+	public static List<String> parse(String uuids) throws ConversionException {
+		Set<String> parsed = new LinkedHashSet<String>();
+		for (String uuid : StringUtils.split(uuids, ',')) {
+			if (StringUtils.isNotBlank(uuid))
+				parsed.add(uuid.trim());
+		}
+		if (parsed.size() > MAX_UUIDS)
+			throw new ConversionException("At most " + MAX_UUIDS + " uuids can be fetched at once");
+		return new ArrayList<String>(parsed);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.api.PageableResult#toSimpleObject()
+	 * @should write the objects in the order of the uuids
+	 * @should list the uuids no object was found for
+	 */
+	@Override
+	public SimpleObject toSimpleObject() throws ResponseException {
+		Map<String, T> byUuid = new HashMap<String, T>();
+		for (T object : objects) {
+			byUuid.put(object.getUuid(), object);
+		}
+		
+		List<Object> results = new ArrayList<Object>(byUuid.size());
+		List<String> missing = new ArrayList<String>();
+		for (String uuid : uuids) {
+			T object = byUuid.get(uuid);
+			if (object == null)
+				missing.add(uuid);
+			else
+				results.add(ConversionUtil.convertToRepresentation(object, context.getRepresentation()));
+		}
+		return new SimpleObject().add("results", results).add("missing", missing);
+	}
+}
@@ -0,0 +1,209 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openmrs.Location;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.VisitType;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+
+/**
+ * Counts of visits by visit type, location and hour, day or week of their start date, see
+ * {@link Rest19ExtService#getVisitCounts(Date, Date, boolean)}. Weeks start on Monday and are
+ * added up from the counts by day. The counts of each range and interval are kept for
+ * {@link #TIME_TO_LIVE} milliseconds since dashboards poll the same ones over and over, so they may
+ * lag behind by as much. At most {@link #MAX_ENTRIES} of them are kept, the cache starts over once
+ * it is full. Only the counts by id are kept, the visit types and locations they refer to are
+ * converted for every request so the refs are written for the user and locale of that request.
+ * Callers must check that the user may view visits before, since cached counts are handed out
+ * without going through the service.
+ */
+public class VisitStatistics {
+	
+	/**
+	 * The number of milliseconds the counts are kept for
+	 */
+	public static final long TIME_TO_LIVE = 60 * 1000;
+	
+	/**
+	 * The number of ranges and intervals whose counts are kept
+	 */
+	public static final int MAX_ENTRIES = 100;
+	
+	/**
+	 * The largest number of intervals a range may span, so that a request cannot make the database
+	 * group all visits ever started by hour
+	 */
+	public static final int MAX_INTERVALS = 1000;
+	
+	public static final String INTERVAL_HOUR = "hour";
+	
+	public static final String INTERVAL_DAY = "day";
+	
+	public static final String INTERVAL_WEEK = "week";
+	
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	
+	/**
+	 * Gets the counts of the un voided visits that started in the given range
+	 * 
+	 * @param fromStartDatetime the earliest start date of the visits
+	 * @param toStartDatetime the date the visits started before
+	 * @param interval one of {@link #INTERVAL_HOUR}, {@link #INTERVAL_DAY} or
+	 *            {@link #INTERVAL_WEEK}
+	 * @return the counts with the uuids of the visit type and location, and the start of the
+	 *         interval, along with refs to the visit types and locations they refer to
+	 * @should count the visits by visit type, location and interval
+	 * @should add up the days of a week
+	 * @should count the visits only once while they are cached
+	 * @should convert the cached counts for every call
+	 * @should fail for an unknown interval
+	 * @should fail without a range
+	 * @should fail for a range of more than the maximum number of intervals
+	 */
+	public SimpleObject get(Date fromStartDatetime, Date toStartDatetime, String interval) {
+		long intervalMillis;
+		if (INTERVAL_HOUR.equals(interval))
+			intervalMillis = 60 * 60 * 1000L;
+		else if (INTERVAL_DAY.equals(interval))
+			intervalMillis = 24 * 60 * 60 * 1000L;
+		else if (INTERVAL_WEEK.equals(interval))
+			intervalMillis = 7 * 24 * 60 * 60 * 1000L;
+		else
+			throw new ConversionException("Invalid interval: " + interval);
+		
+		if (fromStartDatetime == null || toStartDatetime == null)
+			throw new ConversionException("Both fromStartDatetime and toStartDatetime are required");
+		long rangeMillis = toStartDatetime.getTime() - fromStartDatetime.getTime();
+		if (rangeMillis <= 0)
+			throw new ConversionException("toStartDatetime must be after fromStartDatetime");
+		if (rangeMillis > MAX_INTERVALS * intervalMillis)
+			throw new ConversionException("The range may span at most " + MAX_INTERVALS + " intervals by " + interval);
+		
+		String key = fromStartDatetime.getTime() + " " + toStartDatetime.getTime() + " " + interval;
+		long now = System.currentTimeMillis();
+		Entry entry = entries.get(key);
+		if (entry == null || entry.expires < now) {
+			entry = new Entry(now + TIME_TO_LIVE, count(fromStartDatetime, toStartDatetime, interval));
+			if (entries.size() >= MAX_ENTRIES)
+				entries.clear();
+			entries.put(key, entry);
+		}
+		return convert(entry.rows, interval);
+	}
+	
+	private List<Object[]> count(Date fromStartDatetime, Date toStartDatetime, String interval) {
+		List<Object[]> rows = Context.getService(Rest19ExtService.class).getVisitCounts(fromStartDatetime,
+		    toStartDatetime, INTERVAL_HOUR.equals(interval));
+		if (INTERVAL_WEEK.equals(interval))
+			rows = addUpWeeks(rows);
+		return rows;
+	}
+	
+	private SimpleObject convert(List<Object[]> rows, String interval) {
+		Rest19ExtService service = Context.getService(Rest19ExtService.class);
+		Map<Integer, String> visitTypes = new HashMap<Integer, String>();
+		Map<Integer, String> locations = new HashMap<Integer, String>();
+		for (Object[] row : rows) {
+			visitTypes.put((Integer) row[0], null);
+			if (row[1] != null)
+				locations.put((Integer) row[1], null);
+		}
+		List<Object> visitTypeRefs = toRefs(service.getObjectsByIds(VisitType.class, visitTypes.keySet()), visitTypes);
+		List<Object> locationRefs = toRefs(service.getObjectsByIds(Location.class, locations.keySet()), locations);
+		
+		List<SimpleObject> counts = new ArrayList<SimpleObject>();
+		for (Object[] row : rows) {
+			SimpleObject count = new SimpleObject();
+			count.add("visitType", visitTypes.get(row[0]));
+			count.add("location", row[1] == null ? null : locations.get(row[1]));
+			count.add("start", ConversionUtil.convertToRepresentation(row[2], Representation.REF));
+			count.add("count", row[3]);
+			counts.add(count);
+		}
+		
+		SimpleObject result = new SimpleObject();
+		result.add("interval", interval);
+		result.add("counts", counts);
+		result.add("visitTypes", visitTypeRefs);
+		result.add("locations", locationRefs);
+		return result;
+	}
+	
+	/**
+	 * Converts the given objects to refs and fills in their uuids by id
+	 */
+	private List<Object> toRefs(List<? extends OpenmrsObject> objects, Map<Integer, String> uuids) {
+		List<Object> refs = new ArrayList<Object>();
+		for (OpenmrsObject object : objects) {
+			uuids.put(object.getId(), object.getUuid());
+			refs.add(ConversionUtil.convertToRepresentation(object, Representation.REF));
+		}
+		return refs;
+	}
+	
+	/**
+	 * Adds up the counts by day of each visit type and location into counts by week
+	 */
+	private List<Object[]> addUpWeeks(List<Object[]> days) {
+		Map<List<Object>, Object[]> weeks = new LinkedHashMap<List<Object>, Object[]>();
+		Calendar calendar = Calendar.getInstance();
+		for (Object[] day : days) {
+			calendar.setTime((Date) day[2]);
+			int daysSinceMonday = (calendar.get(Calendar.DAY_OF_WEEK) + 5) % 7;
+			calendar.add(Calendar.DAY_OF_MONTH, -daysSinceMonday);
+			Date monday = calendar.getTime();
+			
+			List<Object> key = new ArrayList<Object>();
+			key.add(day[0]);
+			key.add(day[1]);
+			key.add(monday);
+			Object[] week = weeks.get(key);
+			if (week == null)
+				weeks.put(key, new Object[] { day[0], day[1], monday, day[3] });
+			else
+				week[3] = (Long) week[3] + (Long) day[3];
+		}
+		return new ArrayList<Object[]>(weeks.values());
+	}
+	
+	private static class Entry {
+		
+		private final long expires;
+		
+		/**
+		 * The rows of visit type id, location id, start of the interval and count, never changed
+		 * once the entry is built
+		 */
+		private final List<Object[]> rows;
+		
+		private Entry(long expires, List<Object[]> rows) {
+			this.expires = expires;
+			this.rows = rows;
+		}
+	}
+}
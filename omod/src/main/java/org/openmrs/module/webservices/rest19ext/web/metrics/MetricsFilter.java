@@ -0,0 +1,298 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.metrics;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest19ext.api.db.hibernate.QueryCountingInterceptor;
+import org.openmrs.module.webservices.rest19ext.web.Rest19ExtWebConstants;
+
+/**
+ * Records the latency, the number of queries and the size of the response of every request to the
+ * REST resources in {@link RestMetrics}, and registers the metrics in the platform MBean server
+ * while the module is running. Requests are told apart by resource and operation, e.g.
+ * "v1/visit/attribute retrieve", the uuids in the path are left out. The time spent in persistence
+ * is taken from {@link QueryCountingInterceptor#getTransactionNanos()} and the time spent writing
+ * is measured around the writes to the response.
+ */
+public class MetricsFilter implements Filter {
+	
+	private static final Log log = LogFactory.getLog(MetricsFilter.class);
+	
+	private static final String REST_PATH = "/rest/";
+	
+	/**
+	 * The parameters of a listing that do not make it a search
+	 */
+	private static final Set<String> LISTING_PARAMETERS = new HashSet<String>(Arrays.asList(
+	    RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, RestConstants.REQUEST_PROPERTY_FOR_LIMIT,
+	    RestConstants.REQUEST_PROPERTY_FOR_START_INDEX, Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_CURSOR,
+	    Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_FIELDS));
+	
+	/**
+	 * The paths of the operations that are neither a resource nor one of its uuids, they are
+	 * recorded by their path and method, e.g. "v1/visit/stats GET"
+	 */
+	private static final Set<String> OPERATION_PATHS = new HashSet<String>(Arrays.asList(RestConstants.VERSION_1
+	        + "/visit/stats", RestConstants.VERSION_1 + "/rest19ext/metrics", RestConstants.VERSION_1
+	        + "/rest19ext/metrics/cache"));
+	
+	/**
+	 * @see javax.servlet.Filter#init(javax.servlet.FilterConfig)
+	 */
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(RestMetrics.OBJECT_NAME);
+			if (!server.isRegistered(name))
+				server.registerMBean(RestMetrics.getInstance(), name);
+		}
+		catch (JMException e) {
+			log.warn("Unable to register the REST metrics with the MBean server", e);
+		}
+	}
+	
+	/**
+	 * @see javax.servlet.Filter#doFilter(javax.servlet.ServletRequest, javax.servlet.ServletResponse,
+	 *      javax.servlet.FilterChain)
+	 * @should record the latency queries and size of a request
+	 * @should pass on requests that are not for a resource without recording them
+	 */
+	@Override
+	public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+		HttpServletRequest request = (HttpServletRequest) req;
+		String operation = getOperation(request);
+		if (operation == null) {
+			chain.doFilter(req, res);
+			return;
+		}
+		
+		CountingResponse response = new CountingResponse((HttpServletResponse) res);
+		long queries = QueryCountingInterceptor.getCount();
+		long transactionNanos = QueryCountingInterceptor.getTransactionNanos();
+		long start = System.nanoTime();
+		try {
+			chain.doFilter(req, response);
+		}
+		finally {
+			response.flushWriter();
+			RestMetrics.getInstance().record(operation, (System.nanoTime() - start) / 1000000,
+			    (QueryCountingInterceptor.getTransactionNanos() - transactionNanos) / 1000000,
+			    response.getWritingNanos() / 1000000, QueryCountingInterceptor.getCount() - queries,
+			    response.getCount());
+		}
+	}
+	
+	/**
+	 * @see javax.servlet.Filter#destroy()
+	 */
+	@Override
+	public void destroy() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(RestMetrics.OBJECT_NAME);
+			if (server.isRegistered(name))
+				server.unregisterMBean(name);
+		}
+		catch (JMException e) {
+			log.warn("Unable to unregister the REST metrics from the MBean server", e);
+		}
+	}
+	
+	/**
+	 * Gets the resource and operation a request is for, e.g. /ws/rest/v1/visit/{uuid}/attribute
+	 * lists the attributes of a visit and is "v1/visit/attribute getAll"
+	 * 
+	 * @param request the request
+	 * @return the resource and operation or null if the request is not for a resource
+	 * @should leave out the uuids of the path
+	 * @should record the operations that are not on a resource by their path
+	 */
+	static String getOperation(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		int start = path.indexOf(REST_PATH);
+		if (start < 0)
+			return null;
+		
+		path = StringUtils.removeEnd(path.substring(start + REST_PATH.length()), "/");
+		if (OPERATION_PATHS.contains(path))
+			return path + " " + request.getMethod();
+		String[] segments = path.split("/");
+		if (segments.length < 2)
+			return null;
+		StringBuilder resource = new StringBuilder(segments[0]).append('/').append(segments[1]);
+		for (int i = 3; i < segments.length; i += 2) {
+			resource.append('/').append(segments[i]);
+		}
+		
+		// the segments alternate between resource names and uuids
+		boolean single = segments.length % 2 == 1;
+		String method = request.getMethod();
+		String operation;
+		if ("GET".equals(method))
+			operation = single ? "retrieve" : isSearch(request) ? "search" : "getAll";
+		else if ("POST".equals(method))
+			operation = single ? "update" : "create";
+		else if ("DELETE".equals(method))
+			operation = "true".equals(request.getParameter("purge")) ? "purge" : "delete";
+		else
+			operation = method;
+		return resource.append(' ').append(operation).toString();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static boolean isSearch(HttpServletRequest request) {
+		for (Enumeration<String> names = request.getParameterNames(); names.hasMoreElements();) {
+			if (!LISTING_PARAMETERS.contains(names.nextElement()))
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Counts the bytes written to the response. Like the response it wraps it can only be written
+	 * through either its output stream or its writer.
+	 */
+	static class CountingResponse extends HttpServletResponseWrapper {
+		
+		private final CountingOutputStream out;
+		
+		private PrintWriter writer;
+		
+		private boolean outputStreamUsed;
+		
+		public CountingResponse(HttpServletResponse response) {
+			super(response);
+			out = new CountingOutputStream(response);
+		}
+		
+		/**
+		 * @see javax.servlet.ServletResponseWrapper#getOutputStream()
+		 * @should fail if the writer has been used
+		 */
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (writer != null)
+				throw new IllegalStateException("getWriter() has already been called for this response");
+			outputStreamUsed = true;
+			return out;
+		}
+		
+		/**
+		 * @see javax.servlet.ServletResponseWrapper#getWriter()
+		 * @should fail if the output stream has been used
+		 */
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (outputStreamUsed)
+				throw new IllegalStateException("getOutputStream() has already been called for this response");
+			if (writer == null)
+				writer = new PrintWriter(new OutputStreamWriter(out, getCharacterEncoding()));
+			return writer;
+		}
+		
+		@Override
+		public void flushBuffer() throws IOException {
+			flushWriter();
+			super.flushBuffer();
+		}
+		
+		void flushWriter() {
+			if (writer != null)
+				writer.flush();
+		}
+		
+		long getCount() {
+			return out.count;
+		}
+		
+		long getWritingNanos() {
+			return out.writingNanos;
+		}
+	}
+	
+	/**
+	 * Passes the bytes on to the output stream of the response, which is only asked for once
+	 * something is written, and times the writes
+	 */
+	private static class CountingOutputStream extends ServletOutputStream {
+		
+		private final HttpServletResponse response;
+		
+		private ServletOutputStream out;
+		
+		private long count;
+		
+		private long writingNanos;
+		
+		public CountingOutputStream(HttpServletResponse response) {
+			this.response = response;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			long start = System.nanoTime();
+			getOut().write(b);
+			writingNanos += System.nanoTime() - start;
+			count++;
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			long start = System.nanoTime();
+			getOut().write(b, off, len);
+			writingNanos += System.nanoTime() - start;
+			count += len;
+		}
+		
+		@Override
+		public void flush() throws IOException {
+			if (out != null) {
+				long start = System.nanoTime();
+				out.flush();
+				writingNanos += System.nanoTime() - start;
+			}
+		}
+		
+		private ServletOutputStream getOut() throws IOException {
+			if (out == null)
+				out = response.getOutputStream();
+			return out;
+		}
+	}
+}
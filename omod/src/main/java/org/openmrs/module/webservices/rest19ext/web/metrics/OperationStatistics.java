@@ -0,0 +1,152 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.metrics;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+
+/**
+ * Snapshot of the statistics of one operation of a resource, see {@link RestMetrics}
+ */
+public class OperationStatistics {
+	
+	private final long count;
+	
+	private final long[] latencyHistogram;
+	
+	private final long totalLatencyMillis;
+	
+	private final long maxLatencyMillis;
+	
+	private final long persistenceMillis;
+	
+	private final long conversionMillis;
+	
+	private final long writingMillis;
+	
+	private final long queries;
+	
+	private final long bytes;
+	
+	private final long rejected;
+	
+	public OperationStatistics(long count, long[] latencyHistogram, long totalLatencyMillis, long maxLatencyMillis,
+	    long persistenceMillis, long conversionMillis, long writingMillis, long queries, long bytes, long rejected) {
+		this.count = count;
+		this.latencyHistogram = latencyHistogram;
+		this.totalLatencyMillis = totalLatencyMillis;
+		this.maxLatencyMillis = maxLatencyMillis;
+		this.persistenceMillis = persistenceMillis;
+		this.conversionMillis = conversionMillis;
+		this.writingMillis = writingMillis;
+		this.queries = queries;
+		this.bytes = bytes;
+		this.rejected = rejected;
+	}
+	
+	/**
+	 * @return the number of handled requests
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return the number of requests per latency bucket, see
+	 *         {@link RestMetrics#getLatencyBoundsMillis()}
+	 */
+	public long[] getLatencyHistogram() {
+		return latencyHistogram.clone();
+	}
+	
+	/**
+	 * @return the mean latency in milliseconds
+	 */
+	public double getMeanLatencyMillis() {
+		return count == 0 ? 0 : (double) totalLatencyMillis / count;
+	}
+	
+	/**
+	 * @return the highest latency in milliseconds
+	 */
+	public long getMaxLatencyMillis() {
+		return maxLatencyMillis;
+	}
+	
+	/**
+	 * @return the mean time in milliseconds spent in transactions
+	 */
+	public double getMeanPersistenceMillis() {
+		return count == 0 ? 0 : (double) persistenceMillis / count;
+	}
+	
+	/**
+	 * @return the mean time in milliseconds spent neither in transactions nor writing the response,
+	 *         mostly converting the results to their representations
+	 */
+	public double getMeanConversionMillis() {
+		return count == 0 ? 0 : (double) conversionMillis / count;
+	}
+	
+	/**
+	 * @return the mean time in milliseconds spent writing the response
+	 */
+	public double getMeanWritingMillis() {
+		return count == 0 ? 0 : (double) writingMillis / count;
+	}
+	
+	/**
+	 * @return the number of queries of all requests
+	 */
+	public long getQueries() {
+		return queries;
+	}
+	
+	/**
+	 * @return the mean number of queries per request
+	 */
+	public double getMeanQueries() {
+		return count == 0 ? 0 : (double) queries / count;
+	}
+	
+	/**
+	 * @return the number of bytes of all responses
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+	
+	/**
+	 * @return the mean size of the responses in bytes
+	 */
+	public double getMeanBytes() {
+		return count == 0 ? 0 : (double) bytes / count;
+	}
+	
+	/**
+	 * @return the number of requests that were turned away with a 503 because too many were handled
+	 *         at the same time, they are among the handled requests
+	 */
+	public long getRejected() {
+		return rejected;
+	}
+	
+	/**
+	 * @return the statistics as they are written by the metrics resource
+	 */
+	public SimpleObject toSimpleObject() {
+		return new SimpleObject().add("count", count).add("latencyHistogram", getLatencyHistogram()).add(
+		    "meanLatencyMillis", getMeanLatencyMillis()).add("maxLatencyMillis", maxLatencyMillis).add(
+		    "meanPersistenceMillis", getMeanPersistenceMillis()).add("meanConversionMillis", getMeanConversionMillis())
+		        .add("meanWritingMillis", getMeanWritingMillis()).add("queries", queries).add("meanQueries",
+		            getMeanQueries()).add("bytes", bytes).add("meanBytes", getMeanBytes()).add("rejected", rejected);
+	}
+}
@@ -0,0 +1,222 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest19ext.web.ConcurrencyLimiter;
+import org.openmrs.module.webservices.rest19ext.web.ConversionCache;
+
+/**
+ * Collects the latencies, query counts and response sizes of the requests to the REST resources
+ * per resource and operation, see {@link MetricsFilter}. The latencies are counted in a histogram
+ * with fixed buckets rather than in an HDR histogram, which the module would have to bundle, so
+ * recording a request costs a few atomic increments and no locking, and percentiles can be read to
+ * within a bucket. The latency of a request is split into the time spent in persistence, i.e. in
+ * hibernate transactions, the time spent writing the response to the client, and the rest, which is
+ * mostly the conversion of the results to their representations. At most {@link #MAX_OPERATIONS}
+ * operations are told apart, the requests of any further ones are recorded as {@link #OTHER}. The
+ * requests a {@link ConcurrencyLimiter} turned away are counted with the operation they were for.
+ */
+public class RestMetrics implements RestMetricsMXBean {
+	
+	/**
+	 * The name the metrics are registered with in the platform MBean server
+	 */
+	public static final String OBJECT_NAME = "org.openmrs.module.webservices.rest19ext:type=RestMetrics";
+	
+	/**
+	 * The number of operations that are told apart
+	 */
+	public static final int MAX_OPERATIONS = 200;
+	
+	/**
+	 * The operation the requests beyond {@link #MAX_OPERATIONS} are recorded as
+	 */
+	public static final String OTHER = "other";
+	
+	private static final long[] LATENCY_BOUNDS_MILLIS = { 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+	
+	private static final RestMetrics instance = new RestMetrics();
+	
+	private final ConcurrentMap<String, Operation> operations = new ConcurrentHashMap<String, Operation>();
+	
+	private RestMetrics() {
+	}
+	
+	/**
+	 * @return the metrics of the module
+	 */
+	public static RestMetrics getInstance() {
+		return instance;
+	}
+	
+	/**
+	 * Records a handled request
+	 * 
+	 * @param operation the resource and operation, e.g. "v1/visit search"
+	 * @param latencyMillis the time it took to handle the request
+	 * @param persistenceMillis the part of the latency spent in transactions
+	 * @param writingMillis the part of the latency spent writing the response
+	 * @param queries the number of queries the request caused
+	 * @param bytes the size of the response
+	 * @should count the requests of an operation
+	 * @should put the latency in the first bucket whose bound it does not exceed
+	 * @should record the operations beyond the maximum as other
+	 * @should attribute the rest of the latency to conversion
+	 */
+	public void record(String operation, long latencyMillis, long persistenceMillis, long writingMillis, long queries,
+	        long bytes) {
+		getOperation(operation).record(latencyMillis, persistenceMillis, writingMillis, queries, bytes);
+	}
+	
+	/**
+	 * Records a request that was turned away with a 503 because the operation already handled as
+	 * many requests as it may, see {@link ConcurrencyLimiter}. The request is recorded as handled
+	 * as well once the response is written.
+	 * 
+	 * @param operation the resource and operation, e.g. "v1/visit search"
+	 * @should count the rejected requests of an operation
+	 */
+	public void recordRejection(String operation) {
+		getOperation(operation).rejected.incrementAndGet();
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.web.metrics.RestMetricsMXBean#getLatencyBoundsMillis()
+	 */
+	@Override
+	public long[] getLatencyBoundsMillis() {
+		return LATENCY_BOUNDS_MILLIS.clone();
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.web.metrics.RestMetricsMXBean#getOperations()
+	 */
+	@Override
+	public Map<String, OperationStatistics> getOperations() {
+		Map<String, OperationStatistics> statistics = new TreeMap<String, OperationStatistics>();
+		for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+			statistics.put(entry.getKey(), entry.getValue().getStatistics());
+		}
+		return statistics;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.web.metrics.RestMetricsMXBean#getConversionCacheHits()
+	 */
+	@Override
+	public long getConversionCacheHits() {
+		return ConversionCache.getHits();
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.web.metrics.RestMetricsMXBean#getConversionCacheMisses()
+	 */
+	@Override
+	public long getConversionCacheMisses() {
+		return ConversionCache.getMisses();
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.web.metrics.RestMetricsMXBean#reset()
+	 */
+	@Override
+	public void reset() {
+		operations.clear();
+	}
+	
+	private Operation getOperation(String operation) {
+		Operation current = operations.get(operation);
+		if (current == null) {
+			if (operations.size() >= MAX_OPERATIONS)
+				operation = OTHER;
+			operations.putIfAbsent(operation, new Operation());
+			current = operations.get(operation);
+		}
+		return current;
+	}
+	
+	/**
+	 * @return the metrics as they are written by the metrics resource
+	 */
+	public SimpleObject toSimpleObject() {
+		SimpleObject byOperation = new SimpleObject();
+		for (Map.Entry<String, OperationStatistics> entry : getOperations().entrySet()) {
+			byOperation.add(entry.getKey(), entry.getValue().toSimpleObject());
+		}
+		SimpleObject conversionCache = new SimpleObject().add("hits", getConversionCacheHits()).add("misses",
+		    getConversionCacheMisses());
+		return new SimpleObject().add("latencyBoundsMillis", getLatencyBoundsMillis()).add("operations", byOperation)
+		        .add("conversionCache", conversionCache);
+	}
+	
+	/**
+	 * The counters of one operation, they are updated independently so a snapshot taken while
+	 * requests are recorded may be off by those requests
+	 */
+	private static class Operation {
+		
+		private final AtomicLong count = new AtomicLong();
+		
+		private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BOUNDS_MILLIS.length + 1);
+		
+		private final AtomicLong totalLatencyMillis = new AtomicLong();
+		
+		private final AtomicLong maxLatencyMillis = new AtomicLong();
+		
+		private final AtomicLong persistenceMillis = new AtomicLong();
+		
+		private final AtomicLong conversionMillis = new AtomicLong();
+		
+		private final AtomicLong writingMillis = new AtomicLong();
+		
+		private final AtomicLong queries = new AtomicLong();
+		
+		private final AtomicLong bytes = new AtomicLong();
+		
+		private final AtomicLong rejected = new AtomicLong();
+		
+		void record(long latencyMillis, long persistence, long writing, long queryCount, long byteCount) {
+			int bucket = 0;
+			while (bucket < LATENCY_BOUNDS_MILLIS.length && latencyMillis > LATENCY_BOUNDS_MILLIS[bucket])
+				bucket++;
+			latencyHistogram.incrementAndGet(bucket);
+			count.incrementAndGet();
+			totalLatencyMillis.addAndGet(latencyMillis);
+			long max = maxLatencyMillis.get();
+			while (latencyMillis > max && !maxLatencyMillis.compareAndSet(max, latencyMillis))
+				max = maxLatencyMillis.get();
+			persistenceMillis.addAndGet(persistence);
+			writingMillis.addAndGet(writing);
+			conversionMillis.addAndGet(Math.max(0, latencyMillis - persistence - writing));
+			queries.addAndGet(queryCount);
+			bytes.addAndGet(byteCount);
+		}
+		
+		OperationStatistics getStatistics() {
+			long[] histogram = new long[latencyHistogram.length()];
+			for (int i = 0; i < histogram.length; i++) {
+				histogram[i] = latencyHistogram.get(i);
+			}
+			return new OperationStatistics(count.get(), histogram, totalLatencyMillis.get(), maxLatencyMillis.get(),
+			        persistenceMillis.get(), conversionMillis.get(), writingMillis.get(), queries.get(), bytes.get(),
+			        rejected.get());
+		}
+	}
+}
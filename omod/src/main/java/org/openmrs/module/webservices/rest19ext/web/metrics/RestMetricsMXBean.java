@@ -0,0 +1,46 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link RestMetrics}
+ */
+public interface RestMetricsMXBean {
+	
+	/**
+	 * @return the upper bounds of the latency histogram buckets in milliseconds, the last bucket
+	 *         has no bound
+	 */
+	public long[] getLatencyBoundsMillis();
+	
+	/**
+	 * @return the statistics of each operation by resource and operation, e.g. "v1/visit search"
+	 */
+	public Map<String, OperationStatistics> getOperations();
+	
+	/**
+	 * @return the number of conversions served from the conversion cache
+	 */
+	public long getConversionCacheHits();
+	
+	/**
+	 * @return the number of conversions the conversion cache had to do
+	 */
+	public long getConversionCacheMisses();
+	
+	/**
+	 * Discards the statistics of all operations
+	 */
+	public void reset();
+}
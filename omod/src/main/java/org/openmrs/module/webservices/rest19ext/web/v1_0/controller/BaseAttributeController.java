@@ -0,0 +1,64 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.annotation.WSDoc;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseSubResourceController;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.BaseAttributeCrudResource;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Subclass of {@link BaseSubResourceController} for attribute sub resources that also allows
+ * adding several attributes to the parent in one request
+ * 
+ * @param <R> the attribute resource
+ */
+public abstract class BaseAttributeController<R extends BaseAttributeCrudResource<?, ?, ?>> extends BaseSubResourceController<R> {
+	
+	/**
+	 * Adds all attributes in the posted array to the parent, the parent is saved only once
+	 * 
+	 * @param parentUuid
+	 * @param posts
+	 * @param request
+	 * @param response
+	 * @return the added attributes
+	 * @throws ResponseException
+	 * @should add all attributes to the parent
+	 * @should not add any attribute if one of the values is invalid
+	 */
+	@RequestMapping(method = RequestMethod.POST, params = "bulk")
+	@WSDoc("Add several attributes at once, the body is an array of attributes")
+	@ResponseBody
+	public SimpleObject createAll(@PathVariable("parentUuid") String parentUuid,
+	        @RequestBody List<Map<String, Object>> posts, HttpServletRequest request, HttpServletResponse response)
+	        throws ResponseException {
+		RequestContext context = RestUtil.getRequestContext(request);
+		SimpleObject created = getResource().createAll(parentUuid, posts, context);
+		response.setStatus(HttpServletResponse.SC_CREATED);
+		return created;
+	}
+}
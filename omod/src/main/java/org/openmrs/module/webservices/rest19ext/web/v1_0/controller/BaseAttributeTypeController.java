@@ -0,0 +1,56 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.annotation.WSDoc;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudController;
+import org.openmrs.module.webservices.rest19ext.web.Rest19ExtWebConstants;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.BaseAttributeTypeCrudResource;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Subclass of {@link BaseCrudController} for attribute type resources that also allows fetching
+ * several attribute types by uuid in one request
+ * 
+ * @param <R> the attribute type resource
+ */
+public abstract class BaseAttributeTypeController<R extends BaseAttributeTypeCrudResource<?>> extends BaseCrudController<R> {
+	
+	/**
+	 * Fetches the attribute types with the given uuids
+	 * 
+	 * @param uuids
+	 * @param request
+	 * @param response
+	 * @return the attribute types and the uuids no attribute type was found for
+	 * @throws ResponseException
+	 * @should get the attribute types with the given uuids and list the missing ones
+	 * @should write only the requested fields
+	 * @should fail without the privilege to view the attribute types
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_UUIDS)
+	@WSDoc("Fetch the attribute types with the given comma separated uuids, the uuids not found are listed as missing")
+	@ResponseBody
+	public SimpleObject getByUuids(@RequestParam(Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_UUIDS) String uuids,
+	        HttpServletRequest request, HttpServletResponse response) throws ResponseException {
+		return getResource().getByUuids(uuids, RestUtil.getRequestContext(request));
+	}
+}
@@ -1,26 +1,91 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License Version
- * 1.0 (the "License"); you may not use this file except in compliance with the
- * License. You may obtain a copy of the License at http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS" basis,
- * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
- * the specific language governing rights and limitations under the License.
- *
- * Copyright (C) OpenMRS, LLC. All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
-
-import org.openmrs.module.webservices.rest.web.RestConstants;
-import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudController;
-import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.LocationResource;
-import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.RequestMapping;
-
-/**
- * Controller for REST web service access to the Location. Supports CRUD on the
- * resource itself.
- */
-@Controller("org.openmrs.module.webservices.rest19ext.web.v1_0.controller.LocationController")
-@RequestMapping(value = "/rest/" + RestConstants.VERSION_2 + "/location")
-public class LocationController extends BaseCrudController<LocationResource> {}
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.annotation.WSDoc;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudController;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.LocationResource;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Controller for REST web service access to the Location. Supports CRUD on the
+ * resource itself.
+ */
+@Controller("org.openmrs.module.webservices.rest19ext.web.v1_0.controller.LocationController")
+@RequestMapping(value = "/rest/" + RestConstants.VERSION_2 + "/location")
+public class LocationController extends BaseCrudController<LocationResource> {
+	
+	/**
+	 * Fetches the locations below a given location at any level
+	 * 
+	 * @param ancestorUniqueId
+	 * @param request
+	 * @param response
+	 * @return the descendants of the location
+	 * @throws ResponseException
+	 * @should get the locations below the given location at any level
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = "ancestor")
+	@WSDoc("Fetch all non-retired locations below the location with the given uuid at any level")
+	@ResponseBody
+	public SimpleObject searchByAncestor(@RequestParam("ancestor") String ancestorUniqueId, HttpServletRequest request,
+	        HttpServletResponse response) throws ResponseException {
+		return getResource().getDescendants(ancestorUniqueId, RestUtil.getRequestContext(request));
+	}
+	
+	/**
+	 * Fetches the locations above a given location
+	 * 
+	 * @param descendantUniqueId
+	 * @param request
+	 * @param response
+	 * @return the ancestors of the location starting with its parent
+	 * @throws ResponseException
+	 * @should get the locations above the given location
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = "descendant")
+	@WSDoc("Fetch the locations above the location with the given uuid, starting with its parent")
+	@ResponseBody
+	public SimpleObject searchByDescendant(@RequestParam("descendant") String descendantUniqueId,
+	        HttpServletRequest request, HttpServletResponse response) throws ResponseException {
+		return getResource().getAncestors(descendantUniqueId, RestUtil.getRequestContext(request));
+	}
+	
+	/**
+	 * Fetches a location with all locations below it in one response
+	 * 
+	 * @param uuid
+	 * @param request
+	 * @return the location with its children, each with their children
+	 * @throws ResponseException
+	 * @should get the location with the locations below it
+	 */
+	@RequestMapping(value = "/{uuid}", method = RequestMethod.GET, params = "subtree=true")
+	@WSDoc("Fetch a location with all non-retired locations below it, each location has its children in a children property")
+	@ResponseBody
+	public SimpleObject retrieveSubtree(@PathVariable("uuid") String uuid, HttpServletRequest request)
+	        throws ResponseException {
+		return getResource().getSubtree(uuid, RestUtil.getRequestContext(request));
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.annotation.WSDoc;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseRestController;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+import org.openmrs.module.webservices.rest19ext.web.metrics.RestMetrics;
+import org.openmrs.util.PrivilegeConstants;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Controller for REST web service access to the {@link RestMetrics} of the module and the statistics
+ * of the hibernate second level cache
+ */
+@Controller
+@RequestMapping(value = "/rest/" + RestConstants.VERSION_1 + "/rest19ext/metrics")
+public class MetricsController extends BaseRestController {
+	
+	/**
+	 * Gets the metrics of the REST resources
+	 * 
+	 * @param request
+	 * @param response
+	 * @return the statistics of each operation and of the conversion cache
+	 * @throws ResponseException
+	 * @should get the statistics of each operation and of the conversion cache
+	 */
+	@RequestMapping(method = RequestMethod.GET)
+	@WSDoc("Get the latency histograms, query counts, response sizes and rejected requests of the REST resources by operation")
+	@ResponseBody
+	public SimpleObject getMetrics(HttpServletRequest request, HttpServletResponse response) throws ResponseException {
+		Context.requirePrivilege(PrivilegeConstants.VIEW_ADMIN_FUNCTIONS);
+		return RestMetrics.getInstance().toSimpleObject();
+	}
+	
+	/**
+	 * Gets the statistics of the hibernate second level cache, see
+	 * {@link Rest19ExtService#getCacheStatistics()}
+	 * 
+	 * @param request
+	 * @param response
+	 * @return whether statistics are gathered and the statistics of each cache region
+	 * @throws ResponseException
+	 * @should get the statistics of each cache region
+	 * @should tell if statistics are not gathered
+	 */
+	@RequestMapping(value = "/cache", method = RequestMethod.GET)
+	@WSDoc("Get the hits, misses, puts and elements in memory of each region of the hibernate second level cache")
+	@ResponseBody
+	public SimpleObject getCacheStatistics(HttpServletRequest request, HttpServletResponse response)
+	        throws ResponseException {
+		Map<String, Map<String, Long>> regions = Context.getService(Rest19ExtService.class).getCacheStatistics();
+		return new SimpleObject().add("statisticsEnabled", regions != null).add("regions", regions);
+	}
+}
@@ -1,30 +1,58 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License
- * Version 1.0 (the "License"); you may not use this file except in
- * compliance with the License. You may obtain a copy of the License at
- * http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS"
- * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
- * License for the specific language governing rights and limitations
- * under the License.
- *
- * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
-
-import org.openmrs.module.webservices.rest.web.RestConstants;
-import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudController;
-import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.ProviderResource;
-import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.RequestMapping;
-
-/**
- * Controller for REST web service access to the Provider resource. Supports CRUD on the resource
- * itself, and listing and addition of some subresources.
- */
-@Controller
-@RequestMapping(value = "/rest/" + RestConstants.VERSION_1 + "/provider")
-public class ProviderController extends BaseCrudController<ProviderResource> {
-
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.annotation.WSDoc;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudController;
+import org.openmrs.module.webservices.rest19ext.web.Rest19ExtWebConstants;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.ProviderResource;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Controller for REST web service access to the Provider resource. Supports CRUD on the resource
+ * itself, and listing and addition of some subresources.
+ */
+@Controller
+@RequestMapping(value = "/rest/" + RestConstants.VERSION_1 + "/provider")
+public class ProviderController extends BaseCrudController<ProviderResource> {
+	
+	/**
+	 * Fetches the providers with the given uuids
+	 * 
+	 * @param uuids
+	 * @param request
+	 * @param response
+	 * @return the providers and the uuids no provider was found for
+	 * @throws ResponseException
+	 * @should get the providers with the given uuids and list the missing ones
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_UUIDS)
+	@WSDoc("Fetch the providers with the given comma separated uuids, the uuids not found are listed as missing")
+	@ResponseBody
+	public SimpleObject getByUuids(@RequestParam(Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_UUIDS) String uuids,
+	        HttpServletRequest request, HttpServletResponse response) throws ResponseException {
+		return getResource().getProvidersByUuids(uuids, RestUtil.getRequestContext(request));
+	}
+}
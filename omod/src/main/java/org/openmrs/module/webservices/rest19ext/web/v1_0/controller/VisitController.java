@@ -1,59 +1,242 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License
- * Version 1.0 (the "License"); you may not use this file except in
- * compliance with the License. You may obtain a copy of the License at
- * http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS"
- * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
- * License for the specific language governing rights and limitations
- * under the License.
- *
- * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
-
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-
-import org.openmrs.module.webservices.rest.SimpleObject;
-import org.openmrs.module.webservices.rest.web.RequestContext;
-import org.openmrs.module.webservices.rest.web.RestConstants;
-import org.openmrs.module.webservices.rest.web.RestUtil;
-import org.openmrs.module.webservices.rest.web.annotation.WSDoc;
-import org.openmrs.module.webservices.rest.web.response.ResponseException;
-import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudController;
-import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.VisitResource;
-import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestMethod;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseBody;
-
-/**
- * Controller for REST web service access to {@link VisitResource}. Supports CRUD on the resource
- * itself.
- */
-@Controller
-@RequestMapping(value = "/rest/" + RestConstants.VERSION_1 + "/visit")
-public class VisitController extends BaseCrudController<VisitResource> {
-	
-	/**
-	 * Fetches visits for a given patient
-	 * 
-	 * @param patientUniqueId
-	 * @param request
-	 * @param response
-	 * @return visits for the given patient
-	 * @throws ResponseException
-	 * @should get visits for the patient
-	 */
-	@RequestMapping(method = RequestMethod.GET, params = "patient")
-	@WSDoc("Fetch all non-voided visits for a patient with the given uuid")
-	@ResponseBody
-	public SimpleObject searchByPatient(@RequestParam("patient") String patientUniqueId, HttpServletRequest request,
-	        HttpServletResponse response) throws ResponseException {
-		RequestContext context = RestUtil.getRequestContext(request);
-		return getResource().getVisitsByPatient(patientUniqueId, context);
-	}
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.annotation.WSDoc;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudController;
+import org.openmrs.module.webservices.rest19ext.web.ConcurrencyLimiter;
+import org.openmrs.module.webservices.rest19ext.web.Rest19ExtWebConstants;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.VisitResource;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Controller for REST web service access to {@link VisitResource}. Supports CRUD on the resource
+ * itself.
+ */
+@Controller
+@RequestMapping(value = "/rest/" + RestConstants.VERSION_1 + "/visit")
+public class VisitController extends BaseCrudController<VisitResource> {
+	
+	/**
+	 * Limits the patient searches this endpoint handles at the same time
+	 */
+	private final ConcurrencyLimiter patientSearches = new ConcurrencyLimiter(RestConstants.VERSION_1 + "/visit search",
+	        Rest19ExtWebConstants.GLOBAL_PROPERTY_MAX_CONCURRENT_PATIENT_SEARCHES,
+	        Rest19ExtWebConstants.DEFAULT_MAX_CONCURRENT_PATIENT_SEARCHES);
+	
+	/**
+	 * Fetches visits for a given patient
+	 * 
+	 * @param patientUniqueId
+	 * @param request
+	 * @param response
+	 * @return visits for the given patient
+	 * @throws ResponseException
+	 * @should get visits for the patient
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = "patient")
+	@WSDoc("Fetch all non-voided visits for a patient with the given uuid")
+	@ResponseBody
+	public SimpleObject searchByPatient(@RequestParam("patient") String patientUniqueId, HttpServletRequest request,
+	        HttpServletResponse response) throws ResponseException {
+		RequestContext context = RestUtil.getRequestContext(request);
+		patientSearches.acquire(response);
+		try {
+			return getResource().getVisitsByPatient(patientUniqueId, context);
+		}
+		finally {
+			patientSearches.release();
+		}
+	}
+	
+	/**
+	 * Fetches the visits with the given uuids
+	 * 
+	 * @param uuids
+	 * @param request
+	 * @param response
+	 * @return the visits and the uuids no visit was found for
+	 * @throws ResponseException
+	 * @should get the visits with the given uuids and list the missing ones
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_UUIDS)
+	@WSDoc("Fetch the visits with the given comma separated uuids, the uuids not found are listed as missing")
+	@ResponseBody
+	public SimpleObject getByUuids(@RequestParam(Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_UUIDS) String uuids,
+	        HttpServletRequest request, HttpServletResponse response) throws ResponseException {
+		return getResource().getVisitsByUuids(uuids, RestUtil.getRequestContext(request));
+	}
+	
+	/**
+	 * Fetches the visits of a given patient that have not been stopped
+	 * 
+	 * @param patientUniqueId
+	 * @param locationUniqueId
+	 * @param visitTypeUniqueId
+	 * @param request
+	 * @param response
+	 * @return the active visits of the patient
+	 * @throws ResponseException
+	 * @should get the active visits for the patient
+	 * @should get only the active visits at the given location and of the given type
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = { "patient", "active=true" })
+	@WSDoc("Fetch the non-voided visits of a patient that have not been stopped, optionally only at a location or of a visit type")
+	@ResponseBody
+	public SimpleObject searchActiveByPatient(@RequestParam("patient") String patientUniqueId,
+	        @RequestParam(value = "location", required = false) String locationUniqueId,
+	        @RequestParam(value = "visitType", required = false) String visitTypeUniqueId, HttpServletRequest request,
+	        HttpServletResponse response) throws ResponseException {
+		RequestContext context = RestUtil.getRequestContext(request);
+		return getResource().getActiveVisits(patientUniqueId, locationUniqueId, visitTypeUniqueId, context);
+	}
+	
+	/**
+	 * Fetches the visits at a given location, optionally only the ones of a visit type or started
+	 * in a range of dates
+	 * 
+	 * @param locationUniqueId
+	 * @param visitTypeUniqueId
+	 * @param fromStartDatetime
+	 * @param toStartDatetime
+	 * @param includeDescendants
+	 * @param request
+	 * @param response
+	 * @return the visits at the given location
+	 * @throws ResponseException
+	 * @should get the visits at the location that started in the given range
+	 * @should include the visits at the locations below the location if asked to
+	 * @should continue from the cursor of the next link
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = { "location", "!patient" })
+	@WSDoc("Fetch the non-voided visits at a location, optionally only of a visit type, started from fromStartDatetime and before toStartDatetime, or also at the locations below it if includeDescendants is true")
+	@ResponseBody
+	public SimpleObject searchByLocation(@RequestParam("location") String locationUniqueId,
+	        @RequestParam(value = "visitType", required = false) String visitTypeUniqueId,
+	        @RequestParam(value = "fromStartDatetime", required = false) String fromStartDatetime,
+	        @RequestParam(value = "toStartDatetime", required = false) String toStartDatetime,
+	        @RequestParam(value = "includeDescendants", required = false) Boolean includeDescendants,
+	        HttpServletRequest request, HttpServletResponse response) throws ResponseException {
+		RequestContext context = RestUtil.getRequestContext(request);
+		return getResource().getVisitsByLocation(locationUniqueId, visitTypeUniqueId, fromStartDatetime,
+		    toStartDatetime, Boolean.TRUE.equals(includeDescendants), context);
+	}
+	
+	/**
+	 * Counts the visits by visit type, location and hour, day or week of their start date
+	 * 
+	 * @param fromStartDatetime
+	 * @param toStartDatetime
+	 * @param interval
+	 * @param request
+	 * @param response
+	 * @return the counts
+	 * @throws ResponseException
+	 * @should count the visits by visit type, location and day
+	 */
+	@RequestMapping(value = "/stats", method = RequestMethod.GET)
+	@WSDoc("Count the non-voided visits started from fromStartDatetime and before toStartDatetime by visit type, location and interval, which is hour, day or week. Both dates are required and the range may span at most 1000 intervals")
+	@ResponseBody
+	public SimpleObject getStatistics(@RequestParam(value = "fromStartDatetime", required = false) String fromStartDatetime,
+	        @RequestParam(value = "toStartDatetime", required = false) String toStartDatetime,
+	        @RequestParam(value = "interval", required = false) String interval, HttpServletRequest request,
+	        HttpServletResponse response) throws ResponseException {
+		return getResource().getVisitStatistics(fromStartDatetime, toStartDatetime, interval);
+	}
+	
+	/**
+	 * Fetches the visits that were created, changed or voided after a given date
+	 * 
+	 * @param changedSince
+	 * @param cursor
+	 * @param request
+	 * @param response
+	 * @return the visits changed since the given date and a link to the next page if there are more
+	 * @throws ResponseException
+	 * @should get the visits changed since the given date
+	 * @should include the visits voided since the given date
+	 * @should continue from the cursor of the next link
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_CHANGED_SINCE)
+	@WSDoc("Fetch the visits created, changed or voided after a date, follow the next link to continue")
+	@ResponseBody
+	public SimpleObject searchChangedSince(
+	        @RequestParam(Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_CHANGED_SINCE) String changedSince,
+	        @RequestParam(value = Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_CURSOR, required = false) String cursor,
+	        HttpServletRequest request, HttpServletResponse response) throws ResponseException {
+		RequestContext context = RestUtil.getRequestContext(request);
+		return getResource().getVisitsChangedSince(changedSince, cursor, context);
+	}
+	
+	/**
+	 * Creates visits from newline delimited JSON, one visit per line
+	 * 
+	 * @param chunkSize
+	 * @param request
+	 * @param response
+	 * @return the number of imported and skipped visits and the lines that could not be imported
+	 * @throws ResponseException
+	 * @throws IOException
+	 * @should import the valid lines and report the invalid ones
+	 * @should skip the lines whose visit already exists
+	 * @should fail without the privilege to add visits before reading the lines
+	 * @should fail for a chunk size above the maximum
+	 */
+	@RequestMapping(method = RequestMethod.POST, params = "bulk")
+	@WSDoc("Create visits from newline delimited JSON, one visit per line with references given as uuids")
+	@ResponseBody
+	public SimpleObject importVisits(
+	        @RequestParam(value = Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_CHUNK_SIZE, required = false) Integer chunkSize,
+	        HttpServletRequest request, HttpServletResponse response) throws ResponseException, IOException {
+		return getResource().importVisits(request.getReader(), chunkSize);
+	}
+	
+	/**
+	 * Writes the visits of a given patient to the response one at a time
+	 * 
+	 * @param patientUniqueId
+	 * @param request
+	 * @param response
+	 * @throws ResponseException
+	 * @throws IOException
+	 * @should write the visits for the patient
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = { "patient",
+	        Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_STREAMING + "=true" })
+	@WSDoc("Stream all non-voided visits for a patient with the given uuid")
+	public void streamByPatient(@RequestParam("patient") String patientUniqueId, HttpServletRequest request,
+	        HttpServletResponse response) throws ResponseException, IOException {
+		patientSearches.acquire(response);
+		try {
+			getResource().streamVisitsByPatient(patientUniqueId, RestUtil.getRequestContext(request), response);
+		}
+		finally {
+			patientSearches.release();
+		}
+	}
+}
@@ -1,119 +1,324 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License
- * Version 1.0 (the "License"); you may not use this file except in
- * compliance with the License. You may obtain a copy of the License at
- * http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS"
- * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
- * License for the specific language governing rights and limitations
- * under the License.
- *
- * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
-
-import java.util.Arrays;
-import java.util.List;
-
-import org.apache.commons.lang.StringUtils;
-import org.openmrs.attribute.Attribute;
-import org.openmrs.customdatatype.CustomDatatype;
-import org.openmrs.customdatatype.CustomDatatypeUtil;
-import org.openmrs.module.webservices.rest.web.RestConstants;
-import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
-import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.Representation;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubResource;
-
-/**
- * Subclass of {@link DelegatingSubResource} with helper methods specific to {@link Attribute}
- * 
- * @param <T> The type of the attribute this sub resource is associated to
- * @param <P> The parent/owning type for the type T
- * @param <PR> The Resource for the parent/owning type P
- */
-public abstract class BaseAttributeCrudResource<T extends Attribute<?, ?>, P, PR> extends DelegatingSubResource<T, P, DelegatingCrudResource<P>> {
-	
-	/**
-	 * Sets value on the given attribute.
-	 * 
-	 * @param instance
-	 * @param value
-	 */
-	@PropertySetter("value")
-	public static void setValue(Attribute<?, ?> instance, String value) throws Exception {
-		CustomDatatype<?> datatype = CustomDatatypeUtil.getDatatype(instance.getAttributeType().getDatatypeClassname(),
-		    instance.getAttributeType().getDatatypeConfig());
-		if (StringUtils.isNotEmpty(value)) // check empty instead of blank, because " " is meaningful
-			instance.setValue(datatype.fromReferenceString(value));
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
-	 */
-	@Override
-	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
-		if (rep instanceof DefaultRepresentation) {
-			DelegatingResourceDescription description = new DelegatingResourceDescription();
-			description.addProperty("display", findMethod("getDisplayString"));
-			description.addProperty("uuid");
-			description.addProperty("value");
-			description.addProperty("attributeType", Representation.REF);
-			description.addProperty("voided");
-			description.addSelfLink();
-			description.addLink("full", ".?v=" + RestConstants.REPRESENTATION_FULL);
-			return description;
-		} else if (rep instanceof FullRepresentation) {
-			DelegatingResourceDescription description = new DelegatingResourceDescription();
-			description.addProperty("display", findMethod("getDisplayString"));
-			description.addProperty("uuid");
-			description.addProperty("value");
-			description.addProperty("attributeType", Representation.REF);
-			description.addProperty("voided");
-			description.addProperty("auditInfo", findMethod("getAuditInfo"));
-			description.addSelfLink();
-			return description;
-		}
-		return null;
-	}
-	
-	@Override
-	public DelegatingResourceDescription getCreatableProperties() {
-		DelegatingResourceDescription description = new DelegatingResourceDescription();
-		description.addRequiredProperty("value");
-		description.addRequiredProperty("attributeType");
-		return description;
-	}
-	
-	/**
-	 * Gets the display string for an attribute.
-	 * 
-	 * @param attr the attribute.
-	 * @return attribute type + value (for concise display purposes)
-	 */
-	public String getDisplayString(T attr) {
-		if (attr.getAttributeType() == null)
-			return "";
-		return attr.getAttributeType().getName() + " - " + attr.getValue();
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
-	 */
-	@Override
-	public String getResourceVersion() {
-		return "1.9";
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getPropertiesToExposeAsSubResources()
-	 */
-	@Override
-	public List<String> getPropertiesToExposeAsSubResources() {
-		return Arrays.asList("attributes");
-	}
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+import org.openmrs.attribute.Attribute;
+import org.openmrs.attribute.AttributeType;
+import org.openmrs.customdatatype.CustomDatatype;
+import org.openmrs.customdatatype.Customizable;
+import org.openmrs.customdatatype.InvalidCustomValueException;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
+import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubResource;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest.web.response.ObjectNotFoundException;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest19ext.web.ActiveAttributeIndex;
+import org.openmrs.module.webservices.rest19ext.web.ConversionCache;
+import org.openmrs.module.webservices.rest19ext.web.CustomDatatypeCache;
+import org.openmrs.module.webservices.rest19ext.web.FieldsRepresentation;
+import org.openmrs.module.webservices.rest19ext.web.PropertyAccessors;
+import org.openmrs.module.webservices.rest19ext.web.PropertyAccessors.Accessor;
+import org.openmrs.module.webservices.rest19ext.web.RepresentationDescriptionCache;
+
+/**
+ * Subclass of {@link DelegatingSubResource} with helper methods specific to {@link Attribute}
+ * 
+ * @param <T> The type of the attribute this sub resource is associated to
+ * @param <P> The parent/owning type for the type T
+ * @param <PR> The Resource for the parent/owning type P
+ */
+public abstract class BaseAttributeCrudResource<T extends Attribute<?, ?>, P extends Customizable<T>, PR> extends DelegatingSubResource<T, P, DelegatingCrudResource<P>> {
+	
+	/**
+	 * The dotted fields a client may ask for, see {@link FieldsRepresentation}
+	 */
+	private static final Set<String> NESTED_FIELDS = new HashSet<String>(Arrays.asList(
+	    "attributeType.uuid", "attributeType.name", "attributeType.datatypeClassname"));
+	
+	private final RepresentationDescriptionCache descriptions = new RepresentationDescriptionCache() {
+		
+		@Override
+		protected DelegatingResourceDescription build(Representation rep) {
+			return buildRepresentationDescription(rep);
+		}
+		
+		@Override
+		protected Set<String> getNestedFields() {
+			return NESTED_FIELDS;
+		}
+	};
+	
+	private final PropertyAccessors accessors = new PropertyAccessors(getClass());
+	
+	/**
+	 * Sets value on the given attribute.
+	 * 
+	 * @param instance
+	 * @param value
+	 */
+	@PropertySetter("value")
+	public static void setValue(Attribute<?, ?> instance, String value) throws Exception {
+		CustomDatatype<?> datatype = CustomDatatypeCache.get(instance.getAttributeType());
+		if (StringUtils.isNotEmpty(value)) // check empty instead of blank, because " " is meaningful
+			instance.setValue(datatype.fromReferenceString(value));
+	}
+	
+	/**
+	 * Adds several attributes to a parent at once. The values are converted and validated with the
+	 * cached datatype of their attribute type before anything is saved, and the parent is then
+	 * saved a single time, so either all attributes are added or none. An invalid value is rejected
+	 * as a conversion error, so the client gets a bad request.
+	 * 
+	 * @param parentUniqueId the uuid of the parent
+	 * @param posts the attributes to add, with the same properties as for a single create
+	 * @param context the request context
+	 * @return the default representations of the added attributes
+	 * @throws ResponseException
+	 */
+	public SimpleObject createAll(String parentUniqueId, List<? extends Map<String, Object>> posts,
+	        RequestContext context) throws ResponseException {
+		P parent = parentResource.getByUniqueId(parentUniqueId);
+		if (parent == null)
+			throw new ObjectNotFoundException();
+		
+		// the value is set and validated below with the cached datatype of the attribute type
+		DelegatingResourceDescription description = new DelegatingResourceDescription();
+		description.addRequiredProperty("attributeType");
+		
+		List<T> attributes = new ArrayList<T>(posts.size());
+		for (Map<String, Object> post : posts) {
+			if (!post.containsKey("value"))
+				throw new ConversionException("Some required properties are missing: value");
+			Map<String, Object> properties = new HashMap<String, Object>(post);
+			Object value = properties.remove("value");
+			
+			T attribute = newDelegate();
+			setParent(attribute, parent);
+			setConvertedProperties(attribute, properties, description, true);
+			
+			AttributeType<?> attributeType = attribute.getAttributeType();
+			if (attributeType == null)
+				throw new ConversionException("No attribute type found for " + post.get("attributeType"));
+			if (value != null && StringUtils.isNotEmpty(value.toString()))
+				setValidatedValue(attribute, CustomDatatypeCache.get(attributeType), value.toString());
+			attributes.add(attribute);
+		}
+		
+		for (T attribute : attributes) {
+			addToParent(parent, attribute);
+		}
+		saveParent(parent);
+		
+		List<Object> results = new ArrayList<Object>(attributes.size());
+		for (T attribute : attributes) {
+			results.add(ConversionUtil.convertToRepresentation(attribute, Representation.DEFAULT));
+		}
+		return new SimpleObject().add("results", results);
+	}
+	
+	/**
+	 * Saves the parent of the attributes, which cascades to the attributes
+	 * 
+	 * @param parent the parent to save
+	 */
+	protected abstract void saveParent(P parent);
+	
+	/**
+	 * Adds the given attribute to the parent unless it is already one of its active attributes
+	 * 
+	 * @param parent the parent
+	 * @param attribute the attribute to add
+	 */
+	protected void addToParent(P parent, T attribute) {
+		ActiveAttributeIndex<T> index = ActiveAttributeIndex.get(parent);
+		if (!index.contains(attribute)) {
+			parent.addAttribute(attribute);
+			index.add(attribute);
+		}
+	}
+	
+	/**
+	 * Voids the given attribute, the caller still needs to save the parent
+	 * 
+	 * @param parent the parent
+	 * @param attribute the attribute to void
+	 * @param reason the void reason
+	 */
+	protected void voidAttribute(P parent, T attribute, String reason) {
+		attribute.setVoided(true);
+		attribute.setVoidReason(reason);
+		ActiveAttributeIndex.get(parent).remove(attribute);
+	}
+	
+	/**
+	 * Gets the active attributes of the given parent
+	 * 
+	 * @param parent the parent
+	 * @return the active attributes
+	 */
+	protected List<T> getActiveAttributes(P parent) {
+		return ActiveAttributeIndex.get(parent).getActive();
+	}
+	
+	private static <V> void setValidatedValue(Attribute<?, ?> instance, CustomDatatype<V> datatype, String value) {
+		try {
+			V typedValue = datatype.fromReferenceString(value);
+			datatype.validate(typedValue);
+			instance.setValue(typedValue);
+		}
+		catch (InvalidCustomValueException e) {
+			throw new ConversionException(e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
+	 */
+	@Override
+	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
+		return descriptions.get(rep);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubResource#retrieve(java.lang.String,
+	 *      java.lang.String, org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public Object retrieve(String parentUniqueId, String uuid, RequestContext context) throws ResponseException {
+		FieldsRepresentation.applyTo(context);
+		return super.retrieve(parentUniqueId, uuid, context);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#asRepresentation(java.lang.Object,
+	 *      org.openmrs.module.webservices.rest.web.representation.Representation)
+	 */
+	@Override
+	public SimpleObject asRepresentation(T delegate, Representation rep) throws ConversionException {
+		SimpleObject simple = super.asRepresentation(delegate, rep);
+		return rep instanceof FieldsRepresentation ? ((FieldsRepresentation) rep).nest(simple) : simple;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubResource#getAll(java.lang.String,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public SimpleObject getAll(String parentUniqueId, RequestContext context) throws ResponseException {
+		FieldsRepresentation.applyTo(context);
+		return super.getAll(parentUniqueId, context);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getProperty(java.lang.Object,
+	 *      java.lang.String)
+	 */
+	@Override
+	public Object getProperty(T instance, String propertyName) throws ConversionException {
+		Accessor accessor = accessors.find(instance, propertyName);
+		if (accessor == null)
+			return super.getProperty(instance, propertyName);
+		return accessor.get(instance);
+	}
+	
+	private DelegatingResourceDescription buildRepresentationDescription(Representation rep) {
+		if (rep instanceof DefaultRepresentation) {
+			DelegatingResourceDescription description = new DelegatingResourceDescription();
+			description.addProperty("display", findMethod("getDisplayString"));
+			description.addProperty("uuid");
+			description.addProperty("value");
+			description.addProperty("attributeType", findMethod("getAttributeTypeReference"));
+			description.addProperty("voided");
+			description.addSelfLink();
+			description.addLink("full", ".?v=" + RestConstants.REPRESENTATION_FULL);
+			return description;
+		} else if (rep instanceof FullRepresentation) {
+			DelegatingResourceDescription description = new DelegatingResourceDescription();
+			description.addProperty("display", findMethod("getDisplayString"));
+			description.addProperty("uuid");
+			description.addProperty("value");
+			description.addProperty("attributeType", findMethod("getAttributeTypeReference"));
+			description.addProperty("voided");
+			description.addProperty("auditInfo", findMethod("getAuditInfo"));
+			description.addSelfLink();
+			return description;
+		}
+		return null;
+	}
+	
+	@Override
+	public DelegatingResourceDescription getCreatableProperties() {
+		DelegatingResourceDescription description = new DelegatingResourceDescription();
+		description.addRequiredProperty("value");
+		description.addRequiredProperty("attributeType");
+		return description;
+	}
+	
+	/**
+	 * Gets the display string for an attribute.
+	 * 
+	 * @param attr the attribute.
+	 * @return attribute type + value (for concise display purposes)
+	 */
+	public String getDisplayString(T attr) {
+		if (attr.getAttributeType() == null)
+			return "";
+		return attr.getAttributeType().getName() + " - " + attr.getValue();
+	}
+	
+	/**
+	 * Gets the ref representation of the attribute type of an attribute, see
+	 * {@link ConversionCache}
+	 * 
+	 * @param attr the attribute.
+	 * @return the representation of the attribute type
+	 */
+	public Object getAttributeTypeReference(T attr) {
+		return ConversionCache.convert(attr.getAttributeType(), Representation.REF);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
+	 */
+	@Override
+	public String getResourceVersion() {
+		return "1.9";
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getPropertiesToExposeAsSubResources()
+	 */
+	@Override
+	public List<String> getPropertiesToExposeAsSubResources() {
+		return Arrays.asList("attributes");
+	}
+}
@@ -1,93 +1,211 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License Version
- * 1.0 (the "License"); you may not use this file except in compliance with the
- * License. You may obtain a copy of the License at http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS" basis,
- * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
- * the specific language governing rights and limitations under the License.
- *
- * Copyright (C) OpenMRS, LLC. All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
-
-import org.openmrs.attribute.AttributeType;
-import org.openmrs.module.webservices.rest.web.RestConstants;
-import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.Representation;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
-import org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource;
-
-/**
- * Subclass of {@link MetadataDelegatingCrudResource} with helper methods specific to
- * {@link AttributeType}
- * 
- * @param <T>
- */
-public abstract class BaseAttributeTypeCrudResource<T extends AttributeType<?>> extends MetadataDelegatingCrudResource<T> {
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
-	 */
-	@Override
-	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
-		if (rep instanceof DefaultRepresentation) {
-			DelegatingResourceDescription description = new DelegatingResourceDescription();
-			description.addProperty("uuid");
-			description.addProperty("display", findMethod("getDisplayString"));
-			description.addProperty("name");
-			description.addProperty("description");
-			description.addProperty("minOccurs");
-			description.addProperty("maxOccurs");
-			description.addProperty("datatypeClassname");
-			description.addProperty("preferredHandlerClassname");
-			description.addProperty("retired");
-			description.addSelfLink();
-			description.addLink("full", ".?v=" + RestConstants.REPRESENTATION_FULL);
-			return description;
-		} else if (rep instanceof FullRepresentation) {
-			DelegatingResourceDescription description = new DelegatingResourceDescription();
-			description.addProperty("uuid");
-			description.addProperty("display", findMethod("getDisplayString"));
-			description.addProperty("name");
-			description.addProperty("description");
-			description.addProperty("minOccurs");
-			description.addProperty("maxOccurs");
-			description.addProperty("datatypeClassname");
-			description.addProperty("datatypeConfig");
-			description.addProperty("preferredHandlerClassname");
-			description.addProperty("handlerConfig");
-			description.addProperty("retired");
-			description.addProperty("auditInfo", findMethod("getAuditInfo"));
-			description.addSelfLink();
-			return description;
-		}
-		return null;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
-	 */
-	@Override
-	public DelegatingResourceDescription getCreatableProperties() {
-		DelegatingResourceDescription description = new DelegatingResourceDescription();
-		description.addRequiredProperty("name");
-		description.addRequiredProperty("datatypeClassname");
-		description.addProperty("description");
-		description.addProperty("minOccurs");
-		description.addProperty("maxOccurs");
-		description.addProperty("datatypeConfig");
-		description.addProperty("preferredHandlerClassname");
-		description.addProperty("handlerConfig");
-		return description;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
-	 */
-	@Override
-	public String getResourceVersion() {
-		return "1.9";
-	}
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
+
+import java.util.List;
+
+import org.openmrs.api.context.Context;
+import org.openmrs.attribute.AttributeType;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+import org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+import org.openmrs.module.webservices.rest19ext.web.CustomDatatypeCache;
+import org.openmrs.module.webservices.rest19ext.web.FieldsRepresentation;
+import org.openmrs.module.webservices.rest19ext.web.MetadataCache;
+import org.openmrs.module.webservices.rest19ext.web.RepresentationDescriptionCache;
+import org.openmrs.module.webservices.rest19ext.web.UuidsPagedResult;
+
+/**
+ * Subclass of {@link MetadataDelegatingCrudResource} with helper methods specific to
+ * {@link AttributeType}
+ * 
+ * @param <T>
+ */
+public abstract class BaseAttributeTypeCrudResource<T extends AttributeType<?>> extends MetadataDelegatingCrudResource<T> {
+	
+	private final MetadataCache<T> searchIndex;
+	
+	private final RepresentationDescriptionCache descriptions = new RepresentationDescriptionCache() {
+		
+		@Override
+		protected DelegatingResourceDescription build(Representation rep) {
+			return buildRepresentationDescription(rep);
+		}
+	};
+	
+	@SuppressWarnings("unchecked")
+	public BaseAttributeTypeCrudResource() {
+		searchIndex = new MetadataCache<T>((Class<T>) newDelegate().getClass()) {
+			
+			@Override
+			protected List<T> loadAll() {
+				return getAllAttributeTypes();
+			}
+		};
+	}
+	
+	/**
+	 * Gets all attribute types of this resource including retired ones, used to build the search
+	 * index
+	 * 
+	 * @return the attribute types
+	 */
+	protected abstract List<T> getAllAttributeTypes();
+	
+	/**
+	 * Gets the privilege needed to view the attribute types of this resource
+	 * 
+	 * @return the privilege
+	 */
+	protected abstract String getViewPrivilege();
+	
+	/**
+	 * Gets the attribute types of this resource from the search index. The index is loaded through
+	 * a service that is not restricted to attribute types, so the view privilege is checked here.
+	 * 
+	 * @param includeRetired whether retired attribute types should be included
+	 * @return the attribute types
+	 */
+	protected List<T> getIndexedAttributeTypes(boolean includeRetired) {
+		Context.requirePrivilege(getViewPrivilege());
+		return searchIndex.getAll(includeRetired);
+	}
+	
+	/**
+	 * Gets the attribute types whose name contains the given phrase ignoring case, the view
+	 * privilege is checked as for {@link #getIndexedAttributeTypes(boolean)}
+	 * 
+	 * @param phrase the phrase to look for
+	 * @param includeRetired whether retired attribute types should be included
+	 * @return the matching attribute types
+	 */
+	protected List<T> findAttributeTypesByName(String phrase, boolean includeRetired) {
+		Context.requirePrivilege(getViewPrivilege());
+		return searchIndex.findByName(phrase, includeRetired);
+	}
+	
+	/**
+	 * Gets the attribute types of this resource with the given uuids in one query, see
+	 * {@link UuidsPagedResult}
+	 * 
+	 * @param uuids the comma separated uuids of the attribute types
+	 * @param context the request context
+	 * @return the attribute types and the uuids no attribute type was found for
+	 * @throws ResponseException
+	 */
+	@SuppressWarnings("unchecked")
+	public SimpleObject getByUuids(String uuids, RequestContext context) throws ResponseException {
+		Context.requirePrivilege(getViewPrivilege());
+		FieldsRepresentation.applyTo(context);
+		List<String> parsed = UuidsPagedResult.parse(uuids);
+		List<T> attributeTypes = Context.getService(Rest19ExtService.class).getObjectsByUuids(
+		    (Class<T>) newDelegate().getClass(), parsed);
+		return new UuidsPagedResult<T>(context, parsed, attributeTypes).toSimpleObject();
+	}
+	
+	/**
+	 * Discards the search index and the cached datatype of the given attribute type, subclasses
+	 * must call this whenever they save or purge an attribute type. Retiring goes through save.
+	 * 
+	 * @param attributeType the saved or purged attribute type
+	 */
+	protected void invalidateCaches(T attributeType) {
+		searchIndex.invalidate();
+		CustomDatatypeCache.invalidate(attributeType);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
+	 */
+	@Override
+	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
+		return descriptions.get(rep);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#asRepresentation(java.lang.Object,
+	 *      org.openmrs.module.webservices.rest.web.representation.Representation)
+	 */
+	@Override
+	public SimpleObject asRepresentation(T delegate, Representation rep) throws ConversionException {
+		SimpleObject simple = super.asRepresentation(delegate, rep);
+		return rep instanceof FieldsRepresentation ? ((FieldsRepresentation) rep).nest(simple) : simple;
+	}
+	
+	private DelegatingResourceDescription buildRepresentationDescription(Representation rep) {
+		if (rep instanceof DefaultRepresentation) {
+			DelegatingResourceDescription description = new DelegatingResourceDescription();
+			description.addProperty("uuid");
+			description.addProperty("display", findMethod("getDisplayString"));
+			description.addProperty("name");
+			description.addProperty("description");
+			description.addProperty("minOccurs");
+			description.addProperty("maxOccurs");
+			description.addProperty("datatypeClassname");
+			description.addProperty("preferredHandlerClassname");
+			description.addProperty("retired");
+			description.addSelfLink();
+			description.addLink("full", ".?v=" + RestConstants.REPRESENTATION_FULL);
+			return description;
+		} else if (rep instanceof FullRepresentation) {
+			DelegatingResourceDescription description = new DelegatingResourceDescription();
+			description.addProperty("uuid");
+			description.addProperty("display", findMethod("getDisplayString"));
+			description.addProperty("name");
+			description.addProperty("description");
+			description.addProperty("minOccurs");
+			description.addProperty("maxOccurs");
+			description.addProperty("datatypeClassname");
+			description.addProperty("datatypeConfig");
+			description.addProperty("preferredHandlerClassname");
+			description.addProperty("handlerConfig");
+			description.addProperty("retired");
+			description.addProperty("auditInfo", findMethod("getAuditInfo"));
+			description.addSelfLink();
+			return description;
+		}
+		return null;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
+	 */
+	@Override
+	public DelegatingResourceDescription getCreatableProperties() {
+		DelegatingResourceDescription description = new DelegatingResourceDescription();
+		description.addRequiredProperty("name");
+		description.addRequiredProperty("datatypeClassname");
+		description.addProperty("description");
+		description.addProperty("minOccurs");
+		description.addProperty("maxOccurs");
+		description.addProperty("datatypeConfig");
+		description.addProperty("preferredHandlerClassname");
+		description.addProperty("handlerConfig");
+		return description;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
+	 */
+	@Override
+	public String getResourceVersion() {
+		return "1.9";
+	}
+}
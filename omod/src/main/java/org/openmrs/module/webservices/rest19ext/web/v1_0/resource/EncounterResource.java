@@ -1,69 +1,119 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License
- * Version 1.0 (the "License"); you may not use this file except in
- * compliance with the License. You may obtain a copy of the License at
- * http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS"
- * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
- * License for the specific language governing rights and limitations
- * under the License.
- *
- * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
-
-import org.openmrs.Encounter;
-import org.openmrs.annotation.Handler;
-import org.openmrs.module.webservices.rest.web.annotation.Resource;
-import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.Representation;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
-import org.springframework.stereotype.Component;
-
-/**
- * {@link Resource} for {@link EncounterResource}, supporting standard CRUD operations
- */
-@Component("org.openmrs.module.webservices.rest19ext.web.v1_0.resource.EncounterResource")
-@Resource("encounter")
-@Handler(supports = Encounter.class, order = -1)
-public class EncounterResource extends org.openmrs.module.webservices.rest.web.v1_0.resource.EncounterResource {
-	
-	/**
-	 * @see DelegatingCrudResource#getRepresentationDescription(Representation)
-	 */
-	@Override
-	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
-		if (rep instanceof DefaultRepresentation) {
-			DelegatingResourceDescription description = super.getRepresentationDescription(rep);
-			description.addProperty("visit", Representation.REF);
-			return description;
-		} else if (rep instanceof FullRepresentation) {
-			DelegatingResourceDescription description = super.getRepresentationDescription(rep);
-			description.addProperty("visit", Representation.DEFAULT);
-			return description;
-		}
-		return null;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
-	 */
-	@Override
-	public DelegatingResourceDescription getCreatableProperties() {
-		DelegatingResourceDescription description = super.getCreatableProperties();
-		description.addProperty("visit");
-		return description;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
-	 */
-	@Override
-	public String getResourceVersion() {
-		return "1.9";
-	}
-	
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.openmrs.Encounter;
+import org.openmrs.Patient;
+import org.openmrs.annotation.Handler;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.annotation.Resource;
+import org.openmrs.module.webservices.rest.web.api.RestService;
+import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+import org.openmrs.module.webservices.rest.web.response.ObjectNotFoundException;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest.web.v1_0.resource.PatientResource;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+import org.openmrs.module.webservices.rest19ext.web.ConversionCache;
+import org.openmrs.module.webservices.rest19ext.web.StreamingPagedResult;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link Resource} for {@link EncounterResource}, supporting standard CRUD operations
+ */
+@Component("org.openmrs.module.webservices.rest19ext.web.v1_0.resource.EncounterResource")
+@Resource("encounter")
+@Handler(supports = Encounter.class, order = -1)
+public class EncounterResource extends org.openmrs.module.webservices.rest.web.v1_0.resource.EncounterResource {
+	
+	/**
+	 * @see DelegatingCrudResource#getRepresentationDescription(Representation)
+	 */
+	@Override
+	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
+		if (rep instanceof DefaultRepresentation) {
+			DelegatingResourceDescription description = super.getRepresentationDescription(rep);
+			description.addProperty("visit", findMethod("getVisitReference"));
+			return description;
+		} else if (rep instanceof FullRepresentation) {
+			DelegatingResourceDescription description = super.getRepresentationDescription(rep);
+			description.addProperty("visit", Representation.DEFAULT);
+			return description;
+		}
+		return null;
+	}
+	
+	/**
+	 * @param encounter
+	 * @return the ref representation of the visit of the encounter, see {@link ConversionCache}
+	 */
+	public Object getVisitReference(Encounter encounter) {
+		return ConversionCache.convert(encounter.getVisit(), Representation.REF);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
+	 */
+	@Override
+	public DelegatingResourceDescription getCreatableProperties() {
+		DelegatingResourceDescription description = super.getCreatableProperties();
+		description.addProperty("visit");
+		return description;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
+	 */
+	@Override
+	public String getResourceVersion() {
+		return "1.9";
+	}
+	
+	/**
+	 * Writes a page of the non voided encounters of the given patient straight to the response, see
+	 * {@link StreamingPagedResult}
+	 * 
+	 * @param patientUniqueId the uuid of the patient
+	 * @param context the request context
+	 * @param response the response to write to
+	 * @throws ResponseException
+	 * @throws IOException
+	 */
+	public void streamEncountersByPatient(String patientUniqueId, RequestContext context, HttpServletResponse response)
+	        throws ResponseException, IOException {
+		final Patient patient = Context.getService(RestService.class).getResource(PatientResource.class).getByUniqueId(
+		    patientUniqueId);
+		if (patient == null)
+			throw new ObjectNotFoundException();
+		
+		new StreamingPagedResult<Encounter>(context) {
+			
+			@Override
+			protected List<Encounter> fetch(int firstResult, int maxResults) {
+				return Context.getService(Rest19ExtService.class).getEncountersByPatient(patient, false, firstResult,
+				    maxResults);
+			}
+		}.write(response);
+	}
+
+}
@@ -1,129 +1,124 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License
- * Version 1.0 (the "License"); you may not use this file except in
- * compliance with the License. You may obtain a copy of the License at
- * http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS"
- * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
- * License for the specific language governing rights and limitations
- * under the License.
- *
- * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
-
-import java.util.List;
-
-import org.openmrs.Location;
-import org.openmrs.LocationAttribute;
-import org.openmrs.LocationAttributeType;
-import org.openmrs.annotation.Handler;
-import org.openmrs.api.context.Context;
-import org.openmrs.module.webservices.rest.web.RequestContext;
-import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
-import org.openmrs.module.webservices.rest.web.annotation.Resource;
-import org.openmrs.module.webservices.rest.web.annotation.SubResource;
-import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
-import org.openmrs.module.webservices.rest.web.response.ResponseException;
-
-/**
- * {@link Resource} for LocationAttributes, supporting standard CRUD operations
- */
-@SubResource(parent = LocationResource.class, path = "attribute")
-@Handler(supports = LocationAttribute.class, order = 0)
-public class LocationAttributeResource extends BaseAttributeCrudResource<LocationAttribute, Location, LocationResource> {
-	
-	/**
-	 * Sets attributeType on the given LocationAttribute.
-	 * 
-	 * @param instance
-	 * @param attr
-	 */
-	@PropertySetter("attributeType")
-	public static void setAttributeType(LocationAttribute instance, LocationAttributeType attr) {
-		instance.setAttributeType(attr);
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubResource#getParent(java.lang.Object)
-	 */
-	@Override
-	public Location getParent(LocationAttribute instance) {
-		return instance.getLocation();
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#newDelegate()
-	 */
-	@Override
-	public LocationAttribute newDelegate() {
-		return new LocationAttribute();
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubResource#setParent(java.lang.Object,
-	 *      java.lang.Object)
-	 */
-	@Override
-	public void setParent(LocationAttribute instance, Location location) {
-		instance.setLocation(location);
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getByUniqueId(java.lang.String)
-	 */
-	@Override
-	public LocationAttribute getByUniqueId(String uniqueId) {
-		return Context.getLocationService().getLocationAttributeByUuid(uniqueId);
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubResource#doGetAll(java.lang.Object,
-	 *      org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	public NeedsPaging<LocationAttribute> doGetAll(Location parent, RequestContext context) throws ResponseException {
-		return new NeedsPaging<LocationAttribute>((List<LocationAttribute>) parent.getActiveAttributes(), context);
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceHandler#save(java.lang.Object)
-	 */
-	@Override
-	public LocationAttribute save(LocationAttribute delegate) {
-		// make sure it has not already been added to the location
-		boolean needToAdd = true;
-		for (LocationAttribute pa : delegate.getLocation().getActiveAttributes()) {
-			if (pa.equals(delegate)) {
-				needToAdd = false;
-				break;
-			}
-		}
-		if (needToAdd) {
-			delegate.getLocation().addAttribute(delegate);
-		}
-		Context.getLocationService().saveLocation(delegate.getLocation());
-		return delegate;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#delete(java.lang.Object,
-	 *      java.lang.String, org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	protected void delete(LocationAttribute delegate, String reason, RequestContext context) throws ResponseException {
-		delegate.setVoided(true);
-		delegate.setVoidReason(reason);
-		Context.getLocationService().saveLocation(delegate.getLocation());
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
-	 *      org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	public void purge(LocationAttribute delegate, RequestContext context) throws ResponseException {
-		throw new UnsupportedOperationException("Cannot purge LocationAttribute");
-	}
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
+
+import org.openmrs.Location;
+import org.openmrs.LocationAttribute;
+import org.openmrs.LocationAttributeType;
+import org.openmrs.annotation.Handler;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
+import org.openmrs.module.webservices.rest.web.annotation.Resource;
+import org.openmrs.module.webservices.rest.web.annotation.SubResource;
+import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+
+/**
+ * {@link Resource} for LocationAttributes, supporting standard CRUD operations
+ */
+@SubResource(parent = LocationResource.class, path = "attribute")
+@Handler(supports = LocationAttribute.class, order = 0)
+public class LocationAttributeResource extends BaseAttributeCrudResource<LocationAttribute, Location, LocationResource> {
+	
+	/**
+	 * Sets attributeType on the given LocationAttribute.
+	 * 
+	 * @param instance
+	 * @param attr
+	 */
+	@PropertySetter("attributeType")
+	public static void setAttributeType(LocationAttribute instance, LocationAttributeType attr) {
+		instance.setAttributeType(attr);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubResource#getParent(java.lang.Object)
+	 */
+	@Override
+	public Location getParent(LocationAttribute instance) {
+		return instance.getLocation();
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#newDelegate()
+	 */
+	@Override
+	public LocationAttribute newDelegate() {
+		return new LocationAttribute();
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubResource#setParent(java.lang.Object,
+	 *      java.lang.Object)
+	 */
+	@Override
+	public void setParent(LocationAttribute instance, Location location) {
+		instance.setLocation(location);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getByUniqueId(java.lang.String)
+	 */
+	@Override
+	public LocationAttribute getByUniqueId(String uniqueId) {
+		return Context.getLocationService().getLocationAttributeByUuid(uniqueId);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingSubResource#doGetAll(java.lang.Object,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public NeedsPaging<LocationAttribute> doGetAll(Location parent, RequestContext context) throws ResponseException {
+		return new NeedsPaging<LocationAttribute>(getActiveAttributes(parent), context);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceHandler#save(java.lang.Object)
+	 */
+	@Override
+	public LocationAttribute save(LocationAttribute delegate) {
+		addToParent(delegate.getLocation(), delegate);
+		saveParent(delegate.getLocation());
+		return delegate;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#delete(java.lang.Object,
+	 *      java.lang.String, org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	protected void delete(LocationAttribute delegate, String reason, RequestContext context) throws ResponseException {
+		voidAttribute(delegate.getLocation(), delegate, reason);
+		saveParent(delegate.getLocation());
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest19ext.web.v1_0.resource.BaseAttributeCrudResource#saveParent(org.openmrs.customdatatype.Customizable)
+	 */
+	@Override
+	protected void saveParent(Location parent) {
+		Context.getLocationService().saveLocation(parent);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public void purge(LocationAttribute delegate, RequestContext context) throws ResponseException {
+		throw new UnsupportedOperationException("Cannot purge LocationAttribute");
+	}
+}
@@ -1,94 +1,207 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License
- * Version 1.0 (the "License"); you may not use this file except in
- * compliance with the License. You may obtain a copy of the License at
- * http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS"
- * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
- * License for the specific language governing rights and limitations
- * under the License.
- *
- * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
-
-import java.util.Arrays;
-import java.util.List;
-import org.openmrs.Location;
-import org.openmrs.LocationAttribute;
-import org.openmrs.annotation.Handler;
-import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
-import org.openmrs.module.webservices.rest.web.annotation.Resource;
-import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.Representation;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
-import org.springframework.stereotype.Component;
-
-/**
- * {@link Resource} for {@link Location}, supporting standard CRUD operations
- */
-@Component("org.openmrs.module.webservices.rest19ext.web.v2_0.resource.LocationResource")
-@Resource("location")
-@Handler(supports = Location.class, order = -1)
-public class LocationResource extends org.openmrs.module.webservices.rest.web.v1_0.resource.LocationResource {
-	
-	/**
-	 * Sets attributes on the given Location.
-	 * 
-	 * @param instance
-	 * @param attrs
-	 */
-	@PropertySetter("attributes")
-	public static void setAttributes(Location instance, List<LocationAttribute> attrs) {
-		for (LocationAttribute attr : attrs) {
-			instance.addAttribute(attr);
-		}
-	}
-	
-	/**
-	 * @see DelegatingCrudResource#getRepresentationDescription(Representation)
-	 */
-	@Override
-	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
-		if (rep instanceof DefaultRepresentation) {
-			DelegatingResourceDescription description = super.getRepresentationDescription(rep);
-			description.addProperty("attributes", Representation.REF);
-			return description;
-		} else if (rep instanceof FullRepresentation) {
-			DelegatingResourceDescription description = super.getRepresentationDescription(rep);
-			description.addProperty("attributes", Representation.DEFAULT);
-			return description;
-		}
-		return null;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
-	 */
-	@Override
-	public DelegatingResourceDescription getCreatableProperties() {
-		DelegatingResourceDescription description = super.getCreatableProperties();
-		description.addProperty("attributes");
-		return description;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getPropertiesToExposeAsSubResources()
-	 */
-	@Override
-	public List<String> getPropertiesToExposeAsSubResources() {
-		return Arrays.asList("attributes");
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
-	 */
-	@Override
-	public String getResourceVersion() {
-		return "1.9";
-	}
-	
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openmrs.Location;
+import org.openmrs.LocationAttribute;
+import org.openmrs.annotation.Handler;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
+import org.openmrs.module.webservices.rest.web.annotation.Resource;
+import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.AlreadyPaged;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+import org.openmrs.module.webservices.rest.web.response.ObjectNotFoundException;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest19ext.web.LocationTree;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link Resource} for {@link Location}, supporting standard CRUD operations
+ */
+@Component("org.openmrs.module.webservices.rest19ext.web.v2_0.resource.LocationResource")
+@Resource("location")
+@Handler(supports = Location.class, order = -1)
+public class LocationResource extends org.openmrs.module.webservices.rest.web.v1_0.resource.LocationResource {
+	
+	private final LocationTree tree = new LocationTree();
+	
+	/**
+	 * Sets attributes on the given Location.
+	 * 
+	 * @param instance
+	 * @param attrs
+	 */
+	@PropertySetter("attributes")
+	public static void setAttributes(Location instance, List<LocationAttribute> attrs) {
+		for (LocationAttribute attr : attrs) {
+			instance.addAttribute(attr);
+		}
+	}
+	
+	/**
+	 * @see DelegatingCrudResource#getRepresentationDescription(Representation)
+	 */
+	@Override
+	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
+		if (rep instanceof DefaultRepresentation) {
+			DelegatingResourceDescription description = super.getRepresentationDescription(rep);
+			description.addProperty("attributes", Representation.REF);
+			return description;
+		} else if (rep instanceof FullRepresentation) {
+			DelegatingResourceDescription description = super.getRepresentationDescription(rep);
+			description.addProperty("attributes", Representation.DEFAULT);
+			return description;
+		}
+		return null;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
+	 */
+	@Override
+	public DelegatingResourceDescription getCreatableProperties() {
+		DelegatingResourceDescription description = super.getCreatableProperties();
+		description.addProperty("attributes");
+		return description;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getPropertiesToExposeAsSubResources()
+	 */
+	@Override
+	public List<String> getPropertiesToExposeAsSubResources() {
+		return Arrays.asList("attributes");
+	}
+	
+	/**
+	 * @return the location hierarchy, see {@link LocationTree}
+	 */
+	public LocationTree getLocationTree() {
+		return tree;
+	}
+	
+	/**
+	 * Gets a page of the unretired locations below the given one at any level, see
+	 * {@link LocationTree}
+	 * 
+	 * @param ancestorUniqueId the uuid of the location to start from
+	 * @param context the request context
+	 * @return the page of locations, depth first with each location before its children
+	 * @throws ResponseException
+	 */
+	public SimpleObject getDescendants(String ancestorUniqueId, RequestContext context) throws ResponseException {
+		Location ancestor = getByUniqueId(ancestorUniqueId);
+		if (ancestor == null)
+			throw new ObjectNotFoundException();
+		return toPage(tree.getDescendantIds(ancestor, false), context);
+	}
+	
+	/**
+	 * Gets the locations above the given one
+	 * 
+	 * @param descendantUniqueId the uuid of the location to start from
+	 * @param context the request context
+	 * @return the locations, starting with the parent and ending with the root
+	 * @throws ResponseException
+	 */
+	public SimpleObject getAncestors(String descendantUniqueId, RequestContext context) throws ResponseException {
+		Location descendant = getByUniqueId(descendantUniqueId);
+		if (descendant == null)
+			throw new ObjectNotFoundException();
+		return toPage(tree.getAncestorIds(descendant), context);
+	}
+	
+	/**
+	 * Gets the given location with all unretired locations below it in one response, each location
+	 * has its children in a children property. The locations are written as refs unless another
+	 * representation is asked for, since the default one lists the child locations of each location
+	 * once more.
+	 * 
+	 * @param uniqueId the uuid of the location to start from
+	 * @param context the request context
+	 * @return the location with its children
+	 * @throws ResponseException
+	 */
+	public SimpleObject getSubtree(String uniqueId, RequestContext context) throws ResponseException {
+		Location root = getByUniqueId(uniqueId);
+		if (root == null)
+			throw new ObjectNotFoundException();
+		
+		Representation rep = Representation.REF;
+		if (context.getRequest().getParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION) != null)
+			rep = context.getRepresentation();
+		
+		// the descendants are taken from the same copy of the hierarchy as the children
+		Map<Integer, List<Integer>> childIds = tree.getChildIds(root, false);
+		List<Integer> descendantIds = new ArrayList<Integer>();
+		for (List<Integer> ids : childIds.values()) {
+			descendantIds.addAll(ids);
+		}
+		Map<Integer, Location> locations = new HashMap<Integer, Location>();
+		locations.put(root.getLocationId(), root);
+		for (Location location : tree.getLocations(descendantIds)) {
+			locations.put(location.getLocationId(), location);
+		}
+		return toNode(root, childIds, locations, rep);
+	}
+	
+	private SimpleObject toNode(Location location, Map<Integer, List<Integer>> childIds,
+	        Map<Integer, Location> locations, Representation rep) {
+		SimpleObject node = new SimpleObject();
+		node.putAll((SimpleObject) ConversionUtil.convertToRepresentation(location, rep));
+		List<SimpleObject> children = new ArrayList<SimpleObject>();
+		List<Integer> ids = childIds.get(location.getLocationId());
+		if (ids != null) {
+			for (Integer id : ids) {
+				Location child = locations.get(id);
+				if (child != null)
+					children.add(toNode(child, childIds, locations, rep));
+			}
+		}
+		node.add("children", children);
+		return node;
+	}
+	
+	/**
+	 * Loads only the locations of the requested page
+	 */
+	private SimpleObject toPage(List<Integer> ids, RequestContext context) {
+		int start = Math.min(context.getStartIndex(), ids.size());
+		int end = Math.min(start + context.getLimit(), ids.size());
+		List<Location> page = tree.getLocations(ids.subList(start, end));
+		return new AlreadyPaged<Location>(context, page, end < ids.size()).toSimpleObject();
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
+	 */
+	@Override
+	public String getResourceVersion() {
+		return "1.9";
+	}
+
+}
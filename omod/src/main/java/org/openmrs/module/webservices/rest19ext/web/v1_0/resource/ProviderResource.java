@@ -1,209 +1,341 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License Version
- * 1.0 (the "License"); you may not use this file except in compliance with the
- * License. You may obtain a copy of the License at http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS" basis,
- * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
- * the specific language governing rights and limitations under the License.
- *
- * Copyright (C) OpenMRS, LLC. All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
-
-import java.util.List;
-import java.util.Set;
-import org.openmrs.ProviderAttribute;
-import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
-import org.openmrs.Provider;
-import org.openmrs.annotation.Handler;
-import org.openmrs.api.context.Context;
-import org.openmrs.module.webservices.rest.web.RequestContext;
-import org.openmrs.module.webservices.rest.web.RestConstants;
-import org.openmrs.module.webservices.rest.web.annotation.Resource;
-import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.Representation;
-import org.openmrs.module.webservices.rest.web.resource.impl.AlreadyPaged;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
-import org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource;
-import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
-import org.openmrs.module.webservices.rest.web.response.ResponseException;
-
-/**
- * {@link Resource} for Provider, supporting standard CRUD operations
- */
-@Resource("provider")
-@Handler(supports = Provider.class, order = 0)
-public class ProviderResource extends MetadataDelegatingCrudResource<Provider> {
-	
-	public ProviderResource() {
-	}
-	
-	/**
-	 * @see
-	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
-	 */
-	@Override
-	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
-		if (rep instanceof DefaultRepresentation) {
-			DelegatingResourceDescription description = new DelegatingResourceDescription();
-			description.addProperty("uuid");
-			description.addProperty("display", findMethod("getDisplayString"));
-			description.addProperty("person", Representation.REF);
-			description.addProperty("identifier");
-			description.addProperty("attributes", "activeAttributes", Representation.REF);
-			description.addProperty("retired");
-			description.addSelfLink();
-			description.addLink("full", ".?v=" + RestConstants.REPRESENTATION_FULL);
-			return description;
-		} else if (rep instanceof FullRepresentation) {
-			DelegatingResourceDescription description = new DelegatingResourceDescription();
-			description.addProperty("uuid");
-			description.addProperty("display", findMethod("getDisplayString"));
-			description.addProperty("person", Representation.DEFAULT);
-			description.addProperty("identifier");
-			description.addProperty("attributes", "activeAttributes", Representation.DEFAULT);
-			description.addProperty("retired");
-			description.addProperty("auditInfo", findMethod("getAuditInfo"));
-			description.addSelfLink();
-			return description;
-		}
-		return null;
-	}
-	
-	/**
-	 * Sets the attributes of a Provider
-	 *
-	 * @param provider whose attributes to be set
-	 * @param attributes the attributes to be set
-	 */
-	@PropertySetter("attributes")
-	public static void setAttributes(Provider provider, Set<ProviderAttribute> attributes) {
-		for (ProviderAttribute attribute : attributes) {
-			attribute.setOwner(provider);
-		}
-		provider.setAttributes(attributes);
-	}
-	
-	/**
-	 * @see
-	 * org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
-	 */
-	@Override
-	public DelegatingResourceDescription getCreatableProperties() {
-		DelegatingResourceDescription description = new DelegatingResourceDescription();
-		description.addRequiredProperty("person");
-		description.addRequiredProperty("identifier");
-		description.addProperty("attributes");
-		description.addProperty("retired");
-		return description;
-	}
-	
-	/**
-	 * @see
-	 * org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getUpdatableProperties()
-	 */
-	@Override
-	public DelegatingResourceDescription getUpdatableProperties() {
-		return getCreatableProperties();
-	}
-	
-	/**
-	 * @see
-	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#newDelegate()
-	 */
-	@Override
-	public Provider newDelegate() {
-		return new Provider();
-	}
-	
-	/**
-	 * @see
-	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#save(java.lang.Object)
-	 */
-	@Override
-	public Provider save(Provider provider) {
-		return Context.getProviderService().saveProvider(provider);
-	}
-	
-	/**
-	 * @see
-	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getByUniqueId(java.lang.String)
-	 */
-	@Override
-	public Provider getByUniqueId(String uuid) {
-		return Context.getProviderService().getProviderByUuid(uuid);
-	}
-	
-	/**
-	 * @see
-	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#delete(java.lang.Object,
-	 * java.lang.String, org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	public void delete(Provider provider, String reason, RequestContext context) throws ResponseException {
-		if (provider.isRetired()) {
-			// DELETE is idempotent, so we return success here
-			return;
-		}
-		Context.getProviderService().retireProvider(provider, reason);
-	}
-	
-	/**
-	 * @see
-	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
-	 * org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	public void purge(Provider provider, RequestContext context) throws ResponseException {
-		if (provider == null) {
-			// DELETE is idempotent, so we return success here
-			return;
-		}
-		Context.getProviderService().purgeProvider(provider);
-	}
-	
-	/**
-	 * @see
-	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doSearch(java.lang.String,
-	 * org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	protected AlreadyPaged<Provider> doSearch(String query, RequestContext context) {
-		List<Provider> providers = Context.getProviderService().getProviders(query, context.getStartIndex(),
-		    context.getLimit(), null);
-		return new AlreadyPaged<Provider>(context, providers, false);
-		
-	}
-	
-	/**
-	 * @see
-	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doSearch(java.lang.String,
-	 * org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	protected NeedsPaging<Provider> doGetAll(RequestContext context) throws ResponseException {
-		return new NeedsPaging<Provider>(Context.getProviderService().getAllProviders(), context);
-	}
-	
-	/**
-	 * @param provider
-	 * @return identifier + name (for concise display purposes)
-	 */
-	@Override
-	public String getDisplayString(Provider provider) {
-		if (provider.getIdentifier() == null) {
-			return "";
-		}
-		return provider.getIdentifier() + " - " + provider.getName();
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
-	 */
-	@Override
-	public String getResourceVersion() {
-		return "1.9";
-	}
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.openmrs.ProviderAttribute;
+import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
+import org.openmrs.Auditable;
+import org.openmrs.Person;
+import org.openmrs.Provider;
+import org.openmrs.annotation.Handler;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.annotation.Resource;
+import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+import org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+import org.openmrs.module.webservices.rest19ext.web.DisplayStringCache;
+import org.openmrs.module.webservices.rest19ext.web.FieldsRepresentation;
+import org.openmrs.module.webservices.rest19ext.web.KeysetPagedResult;
+import org.openmrs.module.webservices.rest19ext.web.PropertyAccessors;
+import org.openmrs.module.webservices.rest19ext.web.PropertyAccessors.Accessor;
+import org.openmrs.module.webservices.rest19ext.web.RepresentationDescriptionCache;
+import org.openmrs.module.webservices.rest19ext.web.UuidsPagedResult;
+import org.openmrs.util.PrivilegeConstants;
+
+/**
+ * {@link Resource} for Provider, supporting standard CRUD operations
+ */
+@Resource("provider")
+@Handler(supports = Provider.class, order = 0)
+public class ProviderResource extends MetadataDelegatingCrudResource<Provider> {
+	
+	/**
+	 * The dotted fields a client may ask for, see {@link FieldsRepresentation}
+	 */
+	private static final Set<String> NESTED_FIELDS = new HashSet<String>(Arrays.asList("person.uuid",
+	    "person.gender", "person.birthdate"));
+	
+	private final RepresentationDescriptionCache descriptions = new RepresentationDescriptionCache() {
+		
+		@Override
+		protected DelegatingResourceDescription build(Representation rep) {
+			return buildRepresentationDescription(rep);
+		}
+		
+		@Override
+		protected Set<String> getNestedFields() {
+			return NESTED_FIELDS;
+		}
+	};
+	
+	private final PropertyAccessors accessors = new PropertyAccessors(getClass());
+	
+	private final DisplayStringCache<Provider> displays = new DisplayStringCache<Provider>() {
+		
+		@Override
+		protected String build(Provider provider, Locale locale) {
+			return provider.getIdentifier() + " - " + provider.getName();
+		}
+		
+		@Override
+		protected Auditable[] getSources(Provider provider) {
+			Person person = provider.getPerson();
+			return new Auditable[] { provider, person, person == null ? null : person.getPersonName() };
+		}
+	};
+	
+	public ProviderResource() {
+	}
+	
+	/**
+	 * @see
+	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
+	 */
+	@Override
+	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
+		return descriptions.get(rep);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#retrieve(java.lang.String,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public Object retrieve(String uuid, RequestContext context) throws ResponseException {
+		FieldsRepresentation.applyTo(context);
+		return super.retrieve(uuid, context);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#asRepresentation(java.lang.Object,
+	 *      org.openmrs.module.webservices.rest.web.representation.Representation)
+	 */
+	@Override
+	public SimpleObject asRepresentation(Provider delegate, Representation rep) throws ConversionException {
+		SimpleObject simple = super.asRepresentation(delegate, rep);
+		return rep instanceof FieldsRepresentation ? ((FieldsRepresentation) rep).nest(simple) : simple;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getProperty(java.lang.Object,
+	 *      java.lang.String)
+	 */
+	@Override
+	public Object getProperty(Provider instance, String propertyName) throws ConversionException {
+		Accessor accessor = accessors.find(instance, propertyName);
+		if (accessor == null)
+			return super.getProperty(instance, propertyName);
+		return accessor.get(instance);
+	}
+	
+	private DelegatingResourceDescription buildRepresentationDescription(Representation rep) {
+		if (rep instanceof DefaultRepresentation) {
+			DelegatingResourceDescription description = new DelegatingResourceDescription();
+			description.addProperty("uuid");
+			description.addProperty("display", findMethod("getDisplayString"));
+			description.addProperty("person", Representation.REF);
+			description.addProperty("identifier");
+			description.addProperty("attributes", "activeAttributes", Representation.REF);
+			description.addProperty("retired");
+			description.addSelfLink();
+			description.addLink("full", ".?v=" + RestConstants.REPRESENTATION_FULL);
+			return description;
+		} else if (rep instanceof FullRepresentation) {
+			DelegatingResourceDescription description = new DelegatingResourceDescription();
+			description.addProperty("uuid");
+			description.addProperty("display", findMethod("getDisplayString"));
+			description.addProperty("person", Representation.DEFAULT);
+			description.addProperty("identifier");
+			description.addProperty("attributes", "activeAttributes", Representation.DEFAULT);
+			description.addProperty("retired");
+			description.addProperty("auditInfo", findMethod("getAuditInfo"));
+			description.addSelfLink();
+			return description;
+		}
+		return null;
+	}
+	
+	/**
+	 * Sets the attributes of a Provider
+	 *
+	 * @param provider whose attributes to be set
+	 * @param attributes the attributes to be set
+	 */
+	@PropertySetter("attributes")
+	public static void setAttributes(Provider provider, Set<ProviderAttribute> attributes) {
+		for (ProviderAttribute attribute : attributes) {
+			attribute.setOwner(provider);
+		}
+		provider.setAttributes(attributes);
+	}
+	
+	/**
+	 * @see
+	 * org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
+	 */
+	@Override
+	public DelegatingResourceDescription getCreatableProperties() {
+		DelegatingResourceDescription description = new DelegatingResourceDescription();
+		description.addRequiredProperty("person");
+		description.addRequiredProperty("identifier");
+		description.addProperty("attributes");
+		description.addProperty("retired");
+		return description;
+	}
+	
+	/**
+	 * @see
+	 * org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getUpdatableProperties()
+	 */
+	@Override
+	public DelegatingResourceDescription getUpdatableProperties() {
+		return getCreatableProperties();
+	}
+	
+	/**
+	 * @see
+	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#newDelegate()
+	 */
+	@Override
+	public Provider newDelegate() {
+		return new Provider();
+	}
+	
+	/**
+	 * @see
+	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#save(java.lang.Object)
+	 */
+	@Override
+	public Provider save(Provider provider) {
+		displays.invalidate(provider);
+		return Context.getProviderService().saveProvider(provider);
+	}
+	
+	/**
+	 * @see
+	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#getByUniqueId(java.lang.String)
+	 */
+	@Override
+	public Provider getByUniqueId(String uuid) {
+		return Context.getProviderService().getProviderByUuid(uuid);
+	}
+	
+	/**
+	 * @see
+	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#delete(java.lang.Object,
+	 * java.lang.String, org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public void delete(Provider provider, String reason, RequestContext context) throws ResponseException {
+		if (provider.isRetired()) {
+			// DELETE is idempotent, so we return success here
+			return;
+		}
+		Context.getProviderService().retireProvider(provider, reason);
+	}
+	
+	/**
+	 * @see
+	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
+	 * org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public void purge(Provider provider, RequestContext context) throws ResponseException {
+		if (provider == null) {
+			// DELETE is idempotent, so we return success here
+			return;
+		}
+		displays.invalidate(provider);
+		Context.getProviderService().purgeProvider(provider);
+	}
+	
+	/**
+	 * @see
+	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doSearch(java.lang.String,
+	 * org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	protected KeysetPagedResult<Provider> doSearch(String query, RequestContext context) {
+		return getProviders(query, false, context);
+	}
+	
+	/**
+	 * @see
+	 * org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doGetAll(org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	protected KeysetPagedResult<Provider> doGetAll(RequestContext context) throws ResponseException {
+		return getProviders(null, true, context);
+	}
+	
+	/**
+	 * Gets the providers with the given uuids in one query, see {@link UuidsPagedResult}
+	 * 
+	 * @param uuids the comma separated uuids of the providers
+	 * @param context the request context
+	 * @return the providers and the uuids no provider was found for
+	 * @throws ResponseException
+	 */
+	public SimpleObject getProvidersByUuids(String uuids, RequestContext context) throws ResponseException {
+		Context.requirePrivilege(PrivilegeConstants.VIEW_PROVIDERS);
+		FieldsRepresentation.applyTo(context);
+		List<String> parsed = UuidsPagedResult.parse(uuids);
+		List<Provider> providers = Context.getService(Rest19ExtService.class).getObjectsByUuids(Provider.class, parsed);
+		return new UuidsPagedResult<Provider>(context, parsed, providers).toSimpleObject();
+	}
+	
+	/**
+	 * Gets the page of providers after the cursor of the request in the order of their identifiers,
+	 * see {@link KeysetPagedResult}. Like the provider service, searches leave out retired providers
+	 * while the listing of all providers includes them.
+	 */
+	private KeysetPagedResult<Provider> getProviders(String query, boolean includeRetired, RequestContext context) {
+		FieldsRepresentation.applyTo(context);
+		String[] position = KeysetPagedResult.getCursorPosition(context);
+		String afterIdentifier = null;
+		Integer afterProviderId = null;
+		if (position != null) {
+			try {
+				afterIdentifier = position[0];
+				afterProviderId = Integer.valueOf(position[1]);
+			}
+			catch (RuntimeException e) {
+				throw new ConversionException("Invalid cursor", e);
+			}
+		}
+		
+		//fetch one extra row so that we can tell if there are more results without counting them all
+		List<Provider> providers = Context.getService(Rest19ExtService.class).getProviders(query, includeRetired,
+		    afterIdentifier, afterProviderId, context.getLimit() + 1);
+		return new KeysetPagedResult<Provider>(context, providers) {
+			
+			@Override
+			protected String[] getPosition(Provider provider) {
+				return new String[] { provider.getIdentifier(), provider.getProviderId().toString() };
+			}
+		};
+	}
+	
+	/**
+	 * @param provider
+	 * @return identifier + name (for concise display purposes), see {@link DisplayStringCache}
+	 * @should build the display again once the name of the person has changed
+	 */
+	@Override
+	public String getDisplayString(Provider provider) {
+		if (provider.getIdentifier() == null) {
+			return "";
+		}
+		return displays.get(provider);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
+	 */
+	@Override
+	public String getResourceVersion() {
+		return "1.9";
+	}
+}
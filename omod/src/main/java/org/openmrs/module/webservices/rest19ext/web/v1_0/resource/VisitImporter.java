@@ -0,0 +1,270 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openmrs.Concept;
+import org.openmrs.Location;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.Patient;
+import org.openmrs.Visit;
+import org.openmrs.VisitAttribute;
+import org.openmrs.VisitAttributeType;
+import org.openmrs.VisitType;
+import org.openmrs.api.APIAuthenticationException;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+import org.openmrs.validator.ValidateUtil;
+
+/**
+ * Creates visits from newline delimited JSON for {@link VisitResource#importVisits}. Every line is
+ * a visit with the creatable properties of the resource except encounters, references are given as
+ * uuids. The lines are handled in chunks: the references of a chunk are looked up with one query
+ * per type, the valid visits of the chunk are saved in a single transaction and the session is then
+ * cleared, so the memory used does not grow with the size of the import. A line whose uuid belongs
+ * to a visit that already exists is skipped, so that an import can be run again.
+ */
+class VisitImporter {
+	
+	private static final ObjectMapper mapper = new ObjectMapper();
+	
+	private final int chunkSize;
+	
+	private int imported;
+	
+	private int skipped;
+	
+	/**
+	 * The error messages by line number, so that they are reported in the order of the lines
+	 */
+	private final SortedMap<Integer, String> errors = new TreeMap<Integer, String>();
+	
+	/**
+	 * @param chunkSize the number of lines to handle at a time
+	 */
+	public VisitImporter(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+	
+	/**
+	 * Imports all lines of the given reader. A line that cannot be converted to a valid visit is
+	 * reported with its line number and does not keep the other visits of its chunk from being
+	 * saved. If saving a chunk fails its visits are saved one at a time, so that only the ones that
+	 * cannot be saved are reported.
+	 * 
+	 * @param reader the reader to import from
+	 * @return the number of imported and skipped visits and the errors ordered by line number
+	 * @throws IOException
+	 */
+	public SimpleObject importVisits(BufferedReader reader) throws IOException {
+		Map<Integer, Map<String, Object>> chunk = new LinkedHashMap<Integer, Map<String, Object>>();
+		int lineNumber = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (StringUtils.isBlank(line))
+				continue;
+			
+			try {
+				chunk.put(lineNumber, mapper.readValue(line, SimpleObject.class));
+			}
+			catch (IOException e) {
+				addError(lineNumber, "Invalid JSON: " + e.getMessage());
+				continue;
+			}
+			if (chunk.size() == chunkSize) {
+				importChunk(chunk);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty())
+			importChunk(chunk);
+		
+		List<SimpleObject> lines = new ArrayList<SimpleObject>(errors.size());
+		for (Map.Entry<Integer, String> error : errors.entrySet()) {
+			lines.add(new SimpleObject().add("line", error.getKey()).add("message", error.getValue()));
+		}
+		return new SimpleObject().add("imported", imported).add("skipped", skipped).add("errors", lines);
+	}
+	
+	private void importChunk(Map<Integer, Map<String, Object>> rows) {
+		Collection<Map<String, Object>> values = rows.values();
+		Map<String, Patient> patients = lookUp(Patient.class, values, "patient");
+		Map<String, VisitType> visitTypes = lookUp(VisitType.class, values, "visitType");
+		Map<String, Location> locations = lookUp(Location.class, values, "location");
+		Map<String, Concept> indications = lookUp(Concept.class, values, "indication");
+		Map<String, VisitAttributeType> attributeTypes = lookUp(VisitAttributeType.class, getAttributes(values),
+		    "attributeType");
+		Map<String, Visit> existing = lookUp(Visit.class, values, "uuid");
+		
+		Map<Integer, Visit> visits = new LinkedHashMap<Integer, Visit>();
+		Set<String> uuids = new HashSet<String>();
+		for (Map.Entry<Integer, Map<String, Object>> row : rows.entrySet()) {
+			try {
+				Map<String, Object> properties = row.getValue();
+				Visit visit = new Visit();
+				String uuid = getUuid(properties.get("uuid"));
+				if (uuid != null) {
+					if (existing.containsKey(uuid)) {
+						skipped++;
+						continue;
+					}
+					if (!uuids.add(uuid))
+						throw new ConversionException("The uuid " + uuid + " is given on an earlier line");
+					visit.setUuid(uuid);
+				}
+				visit.setPatient(resolve(patients, properties, "patient", true));
+				visit.setVisitType(resolve(visitTypes, properties, "visitType", true));
+				visit.setLocation(resolve(locations, properties, "location", false));
+				visit.setIndication(resolve(indications, properties, "indication", false));
+				visit.setStartDatetime(toDate(properties, "startDatetime", true));
+				visit.setStopDatetime(toDate(properties, "stopDatetime", false));
+				for (Map<String, Object> attributeProperties : getAttributes(properties)) {
+					VisitAttribute attribute = new VisitAttribute();
+					attribute.setAttributeType(resolve(attributeTypes, attributeProperties, "attributeType", true));
+					Object value = attributeProperties.get("value");
+					BaseAttributeCrudResource.setValue(attribute, value != null ? value.toString() : null);
+					visit.addAttribute(attribute);
+				}
+				ValidateUtil.validate(visit);
+				visits.put(row.getKey(), visit);
+			}
+			catch (Exception e) {
+				addError(row.getKey(), e.getMessage());
+			}
+		}
+		
+		Rest19ExtService service = Context.getService(Rest19ExtService.class);
+		try {
+			service.saveVisits(new ArrayList<Visit>(visits.values()));
+			imported += visits.size();
+			return;
+		}
+		catch (APIAuthenticationException e) {
+			// a missing privilege is not a problem of the visits
+			throw e;
+		}
+		catch (RuntimeException e) {
+			// fall through and find the visits that cannot be saved
+		}
+		finally {
+			Context.clearSession();
+		}
+		
+		for (Map.Entry<Integer, Visit> entry : visits.entrySet()) {
+			Visit visit = entry.getValue();
+			// the ids given by the rolled back transaction are not taken
+			visit.setId(null);
+			for (VisitAttribute attribute : visit.getAttributes()) {
+				attribute.setId(null);
+			}
+			try {
+				service.saveVisits(Collections.singletonList(visit));
+				imported++;
+			}
+			catch (RuntimeException e) {
+				addError(entry.getKey(), e.getMessage());
+			}
+			finally {
+				Context.clearSession();
+			}
+		}
+	}
+	
+	private void addError(int lineNumber, String message) {
+		errors.put(lineNumber, message);
+	}
+	
+	/**
+	 * Gets the objects the given property of the given rows refers to, by uuid
+	 */
+	private <T extends OpenmrsObject> Map<String, T> lookUp(Class<T> type, Collection<Map<String, Object>> rows,
+	        String property) {
+		Set<String> uuids = new HashSet<String>();
+		for (Map<String, Object> row : rows) {
+			String uuid = getUuid(row.get(property));
+			if (uuid != null)
+				uuids.add(uuid);
+		}
+		
+		Map<String, T> objects = new HashMap<String, T>();
+		for (T object : Context.getService(Rest19ExtService.class).getObjectsByUuids(type, uuids)) {
+			objects.put(object.getUuid(), object);
+		}
+		return objects;
+	}
+	
+	private <T> T resolve(Map<String, T> objects, Map<String, Object> properties, String property, boolean required) {
+		String uuid = getUuid(properties.get(property));
+		if (uuid == null) {
+			if (required)
+				throw new ConversionException("Some required properties are missing: " + property);
+			return null;
+		}
+		T object = objects.get(uuid);
+		if (object == null)
+			throw new ConversionException("No " + property + " found with uuid " + uuid);
+		return object;
+	}
+	
+	/**
+	 * References can be given as a uuid or as an object with a uuid, like in representations
+	 */
+	private String getUuid(Object reference) {
+		if (reference instanceof Map)
+			reference = ((Map<?, ?>) reference).get("uuid");
+		return reference != null ? reference.toString() : null;
+	}
+	
+	private Date toDate(Map<String, Object> properties, String property, boolean required) {
+		Object value = properties.get(property);
+		if (value == null) {
+			if (required)
+				throw new ConversionException("Some required properties are missing: " + property);
+			return null;
+		}
+		return (Date) ConversionUtil.convert(value, Date.class);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<Map<String, Object>> getAttributes(Map<String, Object> properties) {
+		Object attributes = properties.get("attributes");
+		return attributes instanceof List ? (List<Map<String, Object>>) attributes : new ArrayList<Map<String, Object>>();
+	}
+	
+	private List<Map<String, Object>> getAttributes(Collection<Map<String, Object>> rows) {
+		List<Map<String, Object>> attributes = new ArrayList<Map<String, Object>>();
+		for (Map<String, Object> row : rows) {
+			attributes.addAll(getAttributes(row));
+		}
+		return attributes;
+	}
+}
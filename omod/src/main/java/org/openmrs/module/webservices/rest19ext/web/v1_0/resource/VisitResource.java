@@ -1,221 +1,643 @@
-/**
- * Version 1.0 (the "License"); you may not use this file except in
- * compliance with the License. You may obtain a copy of the License at
- * http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS"
- * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
- * License for the specific language governing rights and limitations
- * under the License.
- *
- * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
-
-import java.util.Set;
-
-import org.openmrs.Patient;
-import org.openmrs.Visit;
-import org.openmrs.VisitAttribute;
-import org.openmrs.annotation.Handler;
-import org.openmrs.api.context.Context;
-import org.openmrs.module.webservices.rest.SimpleObject;
-import org.openmrs.module.webservices.rest.web.RequestContext;
-import org.openmrs.module.webservices.rest.web.RestConstants;
-import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
-import org.openmrs.module.webservices.rest.web.annotation.Resource;
-import org.openmrs.module.webservices.rest.web.api.RestService;
-import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
-import org.openmrs.module.webservices.rest.web.representation.Representation;
-import org.openmrs.module.webservices.rest.web.resource.impl.DataDelegatingCrudResource;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
-import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
-import org.openmrs.module.webservices.rest.web.response.ObjectNotFoundException;
-import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
-import org.openmrs.module.webservices.rest.web.response.ResponseException;
-import org.openmrs.module.webservices.rest.web.v1_0.resource.PatientResource;
-
-/**
- * {@link Resource} for {@link Visit}, supporting standard CRUD operations
- */
-@Resource("visit")
-@Handler(supports = Visit.class, order = 0)
-public class VisitResource extends DataDelegatingCrudResource<Visit> {
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceHandler#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
-	 */
-	@Override
-	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
-		if (rep instanceof DefaultRepresentation) {
-			DelegatingResourceDescription description = new DelegatingResourceDescription();
-			description.addProperty("uuid");
-			description.addProperty("display", findMethod("getDisplayString"));
-			description.addProperty("patient", Representation.REF);
-			description.addProperty("visitType", Representation.REF);
-			description.addProperty("indication", Representation.REF);
-			description.addProperty("location", Representation.REF);
-			description.addProperty("startDatetime");
-			description.addProperty("stopDatetime");
-			description.addProperty("encounters", Representation.REF);
-			description.addProperty("attributes", "activeAttributes", Representation.REF);
-			description.addProperty("voided");
-			description.addSelfLink();
-			description.addLink("full", ".?v=" + RestConstants.REPRESENTATION_FULL);
-			return description;
-		} else if (rep instanceof FullRepresentation) {
-			DelegatingResourceDescription description = new DelegatingResourceDescription();
-			description.addProperty("uuid");
-			description.addProperty("display", findMethod("getDisplayString"));
-			description.addProperty("patient", Representation.REF);
-			description.addProperty("visitType", Representation.REF);
-			description.addProperty("indication", Representation.REF);
-			description.addProperty("location", Representation.REF);
-			description.addProperty("startDatetime");
-			description.addProperty("stopDatetime");
-			description.addProperty("encounters", Representation.DEFAULT);
-			description.addProperty("attributes", "activeAttributes", Representation.DEFAULT);
-			description.addProperty("voided");
-			description.addProperty("auditInfo", findMethod("getAuditInfo"));
-			description.addSelfLink();
-			return description;
-		}
-		return null;
-	}
-	
-	/**
-	 * Returns a display string
-	 * 
-	 * @param visit
-	 * @return the display string
-	 */
-	public String getDisplayString(Visit visit) {
-		String ret = visit.getVisitType().getName();
-		ret += " ";
-		ret += visit.getLocation() == null ? "?" : "@ " + visit.getLocation().getName();
-		ret += " - ";
-		ret += Context.getDateTimeFormat().format(visit.getStartDatetime());
-		return ret;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
-	 */
-	@Override
-	public DelegatingResourceDescription getCreatableProperties() {
-		DelegatingResourceDescription description = new DelegatingResourceDescription();
-		description.addRequiredProperty("patient");
-		description.addRequiredProperty("visitType");
-		description.addRequiredProperty("startDatetime");
-		
-		description.addProperty("location");
-		description.addProperty("indication");
-		description.addProperty("stopDatetime");
-		description.addProperty("encounters");
-		description.addProperty("attributes");
-		
-		return description;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getUpdatableProperties()
-	 */
-	@Override
-	public DelegatingResourceDescription getUpdatableProperties() throws ResourceDoesNotSupportOperationException {
-		DelegatingResourceDescription description = super.getUpdatableProperties();
-		//shouldn't be editing the patient
-		description.removeProperty("patient");
-		return description;
-	}
-	
-	/**
-	 * @see DelegatingCrudResource#newDelegate()
-	 */
-	@Override
-	public Visit newDelegate() {
-		return new Visit();
-	}
-	
-	/**
-	 * @see DelegatingCrudResource#save(java.lang.Object)
-	 */
-	@Override
-	public Visit save(Visit visit) {
-		return Context.getVisitService().saveVisit(visit);
-	}
-	
-	/**
-	 * Fetches a visit by uuid
-	 * 
-	 * @see DelegatingCrudResource#getByUniqueId(java.lang.String)
-	 */
-	@Override
-	public Visit getByUniqueId(String uuid) {
-		return Context.getVisitService().getVisitByUuid(uuid);
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#delete(org.openmrs.Encounter,
-	 *      java.lang.String, org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	public void delete(Visit visit, String reason, RequestContext context) throws ResponseException {
-		if (visit.isVoided()) {
-			// Makes no sense, so we return success here
-			return;
-		}
-		Context.getVisitService().voidVisit(visit, reason);
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
-	 *      org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	public void purge(Visit visit, RequestContext context) throws ResponseException {
-		if (visit == null)
-			return;
-		Context.getVisitService().purgeVisit(visit);
-	}
-	
-	/**
-	 * Gets un voided visits for the given patient including inactive ones
-	 * 
-	 * @param patientUniqueId @see {@link PatientResource#getByUniqueId(String)} for interpretation
-	 * @param context
-	 * @return
-	 * @throws ResponseException
-	 */
-	public SimpleObject getVisitsByPatient(String patientUniqueId, RequestContext context) throws ResponseException {
-		Patient patient = Context.getService(RestService.class).getResource(PatientResource.class).getByUniqueId(
-		    patientUniqueId);
-		if (patient == null)
-			throw new ObjectNotFoundException();
-		return new NeedsPaging<Visit>(Context.getVisitService().getVisitsByPatient(patient, true, false), context)
-		        .toSimpleObject();
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
-	 */
-	@Override
-	public String getResourceVersion() {
-		return "1.9";
-	}
-	
-	/**
-	 * Sets the attributes of a visit
-	 *
-	 * @param visit the visit whose attributes to set
-	 * @param attributes the attributes to set
-	 */
-	@PropertySetter("attributes")
-	public static void setAttributes(Visit visit, Set<VisitAttribute> attributes) {
-		for (VisitAttribute attribute : attributes) {
-			attribute.setOwner(visit);
-		}
-		visit.setAttributes(attributes);
-	}
-}
+/**
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.openmrs.Auditable;
+import org.openmrs.Location;
+import org.openmrs.Patient;
+import org.openmrs.Visit;
+import org.openmrs.VisitAttribute;
+import org.openmrs.VisitType;
+import org.openmrs.annotation.Handler;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.ConversionUtil;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.annotation.PropertySetter;
+import org.openmrs.module.webservices.rest.web.annotation.Resource;
+import org.openmrs.module.webservices.rest.web.api.RestService;
+import org.openmrs.module.webservices.rest.web.representation.DefaultRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.FullRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.RefRepresentation;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.AlreadyPaged;
+import org.openmrs.module.webservices.rest.web.resource.impl.DataDelegatingCrudResource;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest.web.response.ObjectNotFoundException;
+import org.openmrs.module.webservices.rest.web.response.ResourceDoesNotSupportOperationException;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest.web.v1_0.resource.PatientResource;
+import org.openmrs.module.webservices.rest19ext.api.Rest19ExtService;
+import org.openmrs.module.webservices.rest19ext.web.ConversionCache;
+import org.openmrs.module.webservices.rest19ext.web.DisplayStringCache;
+import org.openmrs.module.webservices.rest19ext.web.FieldsRepresentation;
+import org.openmrs.module.webservices.rest19ext.web.KeysetPagedResult;
+import org.openmrs.module.webservices.rest19ext.web.LocationTree;
+import org.openmrs.module.webservices.rest19ext.web.PropertyAccessors;
+import org.openmrs.module.webservices.rest19ext.web.PropertyAccessors.Accessor;
+import org.openmrs.module.webservices.rest19ext.web.RepresentationDescriptionCache;
+import org.openmrs.module.webservices.rest19ext.web.StreamingPagedResult;
+import org.openmrs.module.webservices.rest19ext.web.UuidsPagedResult;
+import org.openmrs.module.webservices.rest19ext.web.VisitStatistics;
+import org.openmrs.util.PrivilegeConstants;
+
+/**
+ * {@link Resource} for {@link Visit}, supporting standard CRUD operations
+ */
+@Resource("visit")
+@Handler(supports = Visit.class, order = 0)
+public class VisitResource extends DataDelegatingCrudResource<Visit> {
+	
+	/**
+	 * The number of visits {@link #importVisits(BufferedReader, Integer)} saves in one transaction
+	 * unless asked otherwise
+	 */
+	public static final int DEFAULT_IMPORT_CHUNK_SIZE = 100;
+	
+	/**
+	 * The largest number of visits a client may ask {@link #importVisits(BufferedReader, Integer)}
+	 * to save in one transaction
+	 */
+	public static final int MAX_IMPORT_CHUNK_SIZE = 1000;
+	
+	/**
+	 * The privileges needed to import visits, the importer looks up the references of the visits
+	 * through a service that is not restricted to them and reports the ones it cannot find
+	 */
+	private static final String[] IMPORT_PRIVILEGES = { PrivilegeConstants.ADD_VISITS, PrivilegeConstants.VIEW_VISITS,
+	        PrivilegeConstants.VIEW_PATIENTS, PrivilegeConstants.VIEW_VISIT_TYPES, PrivilegeConstants.VIEW_LOCATIONS,
+	        PrivilegeConstants.VIEW_CONCEPTS, PrivilegeConstants.VIEW_VISIT_ATTRIBUTE_TYPES };
+	
+	/**
+	 * The dotted fields a client may ask for, see {@link FieldsRepresentation}
+	 */
+	private static final Set<String> NESTED_FIELDS = new HashSet<String>(Arrays.asList("patient.uuid",
+	    "visitType.uuid", "visitType.name", "visitType.description", "indication.uuid", "location.uuid", "location.name"));
+	
+	private final RepresentationDescriptionCache descriptions = new RepresentationDescriptionCache() {
+		
+		@Override
+		protected DelegatingResourceDescription build(Representation rep) {
+			return buildRepresentationDescription(rep);
+		}
+		
+		@Override
+		protected Set<String> getNestedFields() {
+			return NESTED_FIELDS;
+		}
+	};
+	
+	private final PropertyAccessors accessors = new PropertyAccessors(getClass());
+	
+	private final VisitStatistics statistics = new VisitStatistics();
+	
+	private final DisplayStringCache<Visit> displays = new DisplayStringCache<Visit>() {
+		
+		@Override
+		protected String build(Visit visit, Locale locale) {
+			String ret = visit.getVisitType().getName();
+			ret += " ";
+			ret += visit.getLocation() == null ? "?" : "@ " + visit.getLocation().getName();
+			ret += " - ";
+			ret += formatDateTime(visit.getStartDatetime(), locale);
+			return ret;
+		}
+		
+		@Override
+		protected Auditable[] getSources(Visit visit) {
+			return new Auditable[] { visit, visit.getVisitType(), visit.getLocation() };
+		}
+	};
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceHandler#getRepresentationDescription(org.openmrs.module.webservices.rest.web.representation.Representation)
+	 */
+	@Override
+	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
+		return descriptions.get(rep);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getProperty(java.lang.Object,
+	 *      java.lang.String)
+	 */
+	@Override
+	public Object getProperty(Visit instance, String propertyName) throws ConversionException {
+		Accessor accessor = accessors.find(instance, propertyName);
+		if (accessor == null)
+			return super.getProperty(instance, propertyName);
+		return accessor.get(instance);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#retrieve(java.lang.String,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public Object retrieve(String uuid, RequestContext context) throws ResponseException {
+		FieldsRepresentation.applyTo(context);
+		return super.retrieve(uuid, context);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#asRepresentation(java.lang.Object,
+	 *      org.openmrs.module.webservices.rest.web.representation.Representation)
+	 */
+	@Override
+	public SimpleObject asRepresentation(Visit delegate, Representation rep) throws ConversionException {
+		SimpleObject simple = super.asRepresentation(delegate, rep);
+		return rep instanceof FieldsRepresentation ? ((FieldsRepresentation) rep).nest(simple) : simple;
+	}
+	
+	private DelegatingResourceDescription buildRepresentationDescription(Representation rep) {
+		if (rep instanceof DefaultRepresentation) {
+			DelegatingResourceDescription description = new DelegatingResourceDescription();
+			description.addProperty("uuid");
+			description.addProperty("display", findMethod("getDisplayString"));
+			description.addProperty("patient", findMethod("getPatientReference"));
+			description.addProperty("visitType", findMethod("getVisitTypeReference"));
+			description.addProperty("indication", findMethod("getIndicationReference"));
+			description.addProperty("location", findMethod("getLocationReference"));
+			description.addProperty("startDatetime");
+			description.addProperty("stopDatetime");
+			description.addProperty("encounters", Representation.REF);
+			description.addProperty("attributes", "activeAttributes", Representation.REF);
+			description.addProperty("voided");
+			description.addSelfLink();
+			description.addLink("full", ".?v=" + RestConstants.REPRESENTATION_FULL);
+			return description;
+		} else if (rep instanceof FullRepresentation) {
+			DelegatingResourceDescription description = new DelegatingResourceDescription();
+			description.addProperty("uuid");
+			description.addProperty("display", findMethod("getDisplayString"));
+			description.addProperty("patient", findMethod("getPatientReference"));
+			description.addProperty("visitType", findMethod("getVisitTypeReference"));
+			description.addProperty("indication", findMethod("getIndicationReference"));
+			description.addProperty("location", findMethod("getLocationReference"));
+			description.addProperty("startDatetime");
+			description.addProperty("stopDatetime");
+			description.addProperty("encounters", Representation.DEFAULT);
+			description.addProperty("attributes", "activeAttributes", Representation.DEFAULT);
+			description.addProperty("voided");
+			description.addProperty("auditInfo", findMethod("getAuditInfo"));
+			description.addSelfLink();
+			return description;
+		}
+		return null;
+	}
+	
+	/**
+	 * @param visit
+	 * @return the ref representation of the patient of the visit, see {@link ConversionCache}
+	 */
+	public Object getPatientReference(Visit visit) {
+		return ConversionCache.convert(visit.getPatient(), Representation.REF);
+	}
+	
+	/**
+	 * @param visit
+	 * @return the ref representation of the visit type of the visit, see {@link ConversionCache}
+	 */
+	public Object getVisitTypeReference(Visit visit) {
+		return ConversionCache.convert(visit.getVisitType(), Representation.REF);
+	}
+	
+	/**
+	 * @param visit
+	 * @return the ref representation of the indication of the visit, see {@link ConversionCache}
+	 */
+	public Object getIndicationReference(Visit visit) {
+		return ConversionCache.convert(visit.getIndication(), Representation.REF);
+	}
+	
+	/**
+	 * @param visit
+	 * @return the ref representation of the location of the visit, see {@link ConversionCache}
+	 */
+	public Object getLocationReference(Visit visit) {
+		return ConversionCache.convert(visit.getLocation(), Representation.REF);
+	}
+	
+	/**
+	 * Returns a display string, see {@link DisplayStringCache}
+	 * 
+	 * @param visit
+	 * @return the display string
+	 */
+	public String getDisplayString(Visit visit) {
+		return displays.get(visit);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
+	 */
+	@Override
+	public DelegatingResourceDescription getCreatableProperties() {
+		DelegatingResourceDescription description = new DelegatingResourceDescription();
+		description.addRequiredProperty("patient");
+		description.addRequiredProperty("visitType");
+		description.addRequiredProperty("startDatetime");
+		
+		description.addProperty("location");
+		description.addProperty("indication");
+		description.addProperty("stopDatetime");
+		description.addProperty("encounters");
+		description.addProperty("attributes");
+		
+		return description;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getUpdatableProperties()
+	 */
+	@Override
+	public DelegatingResourceDescription getUpdatableProperties() throws ResourceDoesNotSupportOperationException {
+		DelegatingResourceDescription description = super.getUpdatableProperties();
+		//shouldn't be editing the patient
+		description.removeProperty("patient");
+		return description;
+	}
+	
+	/**
+	 * @see DelegatingCrudResource#newDelegate()
+	 */
+	@Override
+	public Visit newDelegate() {
+		return new Visit();
+	}
+	
+	/**
+	 * @see DelegatingCrudResource#save(java.lang.Object)
+	 */
+	@Override
+	public Visit save(Visit visit) {
+		displays.invalidate(visit);
+		return Context.getVisitService().saveVisit(visit);
+	}
+	
+	/**
+	 * Fetches a visit by uuid
+	 * 
+	 * @see DelegatingCrudResource#getByUniqueId(java.lang.String)
+	 */
+	@Override
+	public Visit getByUniqueId(String uuid) {
+		return Context.getVisitService().getVisitByUuid(uuid);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#delete(org.openmrs.Encounter,
+	 *      java.lang.String, org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public void delete(Visit visit, String reason, RequestContext context) throws ResponseException {
+		if (visit.isVoided()) {
+			// Makes no sense, so we return success here
+			return;
+		}
+		Context.getVisitService().voidVisit(visit, reason);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public void purge(Visit visit, RequestContext context) throws ResponseException {
+		if (visit == null)
+			return;
+		displays.invalidate(visit);
+		Context.getVisitService().purgeVisit(visit);
+	}
+	
+	/**
+	 * Gets un voided visits for the given patient including inactive ones, only the requested page
+	 * is fetched from the database
+	 * 
+	 * @param patientUniqueId @see {@link PatientResource#getByUniqueId(String)} for interpretation
+	 * @param context
+	 * @return
+	 * @throws ResponseException
+	 */
+	public SimpleObject getVisitsByPatient(String patientUniqueId, RequestContext context) throws ResponseException {
+		FieldsRepresentation.applyTo(context);
+		Patient patient = Context.getService(RestService.class).getResource(PatientResource.class).getByUniqueId(
+		    patientUniqueId);
+		if (patient == null)
+			throw new ObjectNotFoundException();
+		
+		//fetch one extra row so that we can tell if there are more results without counting them all
+		List<Visit> visits = Context.getService(Rest19ExtService.class).getVisitsByPatient(patient, true, false,
+		    context.getStartIndex(), context.getLimit() + 1);
+		boolean hasMoreResults = visits.size() > context.getLimit();
+		if (hasMoreResults)
+			visits = visits.subList(0, context.getLimit());
+		fetchEncountersAndAttributes(visits, context.getRepresentation());
+		
+		return new AlreadyPaged<Visit>(context, visits, hasMoreResults).toSimpleObject();
+	}
+	
+	/**
+	 * Gets the un voided visits of the given patient that have not been stopped, see
+	 * {@link Rest19ExtService#getActiveVisits(Patient, Location, VisitType)}
+	 * 
+	 * @param patientUniqueId the uuid of the patient
+	 * @param locationUniqueId the uuid of the location of the visits, null for any
+	 * @param visitTypeUniqueId the uuid of the type of the visits, null for any
+	 * @param context the request context
+	 * @return the active visits
+	 * @throws ResponseException
+	 */
+	public SimpleObject getActiveVisits(String patientUniqueId, String locationUniqueId, String visitTypeUniqueId,
+	        RequestContext context) throws ResponseException {
+		FieldsRepresentation.applyTo(context);
+		RestService restService = Context.getService(RestService.class);
+		Patient patient = restService.getResource(PatientResource.class).getByUniqueId(patientUniqueId);
+		if (patient == null)
+			throw new ObjectNotFoundException();
+		Location location = null;
+		if (locationUniqueId != null) {
+			location = restService.getResource(LocationResource.class).getByUniqueId(locationUniqueId);
+			if (location == null)
+				throw new ObjectNotFoundException();
+		}
+		VisitType visitType = null;
+		if (visitTypeUniqueId != null) {
+			visitType = restService.getResource(VisitTypeResource.class).getByUniqueId(visitTypeUniqueId);
+			if (visitType == null)
+				throw new ObjectNotFoundException();
+		}
+		
+		List<Visit> visits = Context.getService(Rest19ExtService.class).getActiveVisits(patient, location, visitType);
+		fetchEncountersAndAttributes(visits, context.getRepresentation());
+		return new AlreadyPaged<Visit>(context, visits, false).toSimpleObject();
+	}
+	
+	/**
+	 * Gets a page of the un voided visits at the given location that started in the given range,
+	 * see {@link Rest19ExtService#getVisits(Collection, VisitType, Date, Date, Date, Integer, int)}.
+	 * Instead of a start index the next link of the page carries a cursor which continues right
+	 * after the last visit of the page, see {@link KeysetPagedResult}.
+	 * 
+	 * @param locationUniqueId the uuid of the location of the visits
+	 * @param visitTypeUniqueId the uuid of the type of the visits, null for any
+	 * @param fromStartDatetime the earliest start date of the visits, null for no limit
+	 * @param toStartDatetime the date the visits started before, null for no limit
+	 * @param includeDescendants whether to include the visits at the unretired locations below the
+	 *            given one, see {@link LocationTree}
+	 * @param context the request context
+	 * @return the page of visits, earliest first
+	 * @throws ResponseException
+	 */
+	public SimpleObject getVisitsByLocation(String locationUniqueId, String visitTypeUniqueId, String fromStartDatetime,
+	        String toStartDatetime, boolean includeDescendants, RequestContext context) throws ResponseException {
+		FieldsRepresentation.applyTo(context);
+		RestService restService = Context.getService(RestService.class);
+		LocationResource locationResource = restService.getResource(LocationResource.class);
+		Location location = locationResource.getByUniqueId(locationUniqueId);
+		if (location == null)
+			throw new ObjectNotFoundException();
+		List<Integer> locationIds = new ArrayList<Integer>();
+		locationIds.add(location.getLocationId());
+		if (includeDescendants)
+			locationIds.addAll(locationResource.getLocationTree().getDescendantIds(location, false));
+		VisitType visitType = null;
+		if (visitTypeUniqueId != null) {
+			visitType = restService.getResource(VisitTypeResource.class).getByUniqueId(visitTypeUniqueId);
+			if (visitType == null)
+				throw new ObjectNotFoundException();
+		}
+		
+		String[] position = KeysetPagedResult.getCursorPosition(context);
+		Date afterStartDatetime = null;
+		Integer afterVisitId = null;
+		if (position != null) {
+			try {
+				afterStartDatetime = new Date(Long.parseLong(position[0]));
+				afterVisitId = Integer.valueOf(position[1]);
+			}
+			catch (RuntimeException e) {
+				throw new ConversionException("Invalid cursor", e);
+			}
+		}
+		
+		//fetch one extra row so that we can tell if there are more results without counting them all
+		List<Visit> visits = Context.getService(Rest19ExtService.class).getVisits(locationIds, visitType,
+		    toDate(fromStartDatetime), toDate(toStartDatetime), afterStartDatetime, afterVisitId, context.getLimit() + 1);
+		fetchEncountersAndAttributes(visits, context.getRepresentation());
+		return new KeysetPagedResult<Visit>(context, visits) {
+			
+			@Override
+			protected String[] getPosition(Visit visit) {
+				return new String[] { String.valueOf(visit.getStartDatetime().getTime()), visit.getVisitId().toString() };
+			}
+		}.toSimpleObject();
+	}
+	
+	/**
+	 * Gets the visits with the given uuids in one query, see {@link UuidsPagedResult}
+	 * 
+	 * @param uuids the comma separated uuids of the visits
+	 * @param context the request context
+	 * @return the visits and the uuids no visit was found for
+	 * @throws ResponseException
+	 */
+	public SimpleObject getVisitsByUuids(String uuids, RequestContext context) throws ResponseException {
+		Context.requirePrivilege(PrivilegeConstants.VIEW_VISITS);
+		FieldsRepresentation.applyTo(context);
+		List<String> parsed = UuidsPagedResult.parse(uuids);
+		List<Visit> visits = Context.getService(Rest19ExtService.class).getObjectsByUuids(Visit.class, parsed);
+		fetchEncountersAndAttributes(visits, context.getRepresentation());
+		return new UuidsPagedResult<Visit>(context, parsed, visits).toSimpleObject();
+	}
+	
+	/**
+	 * Gets the counts of the un voided visits that started in the given range by visit type,
+	 * location and interval, see {@link VisitStatistics}
+	 * 
+	 * @param fromStartDatetime the earliest start date of the visits
+	 * @param toStartDatetime the date the visits started before
+	 * @param interval hour, day or week, null for day, the range may span at most
+	 *            {@link VisitStatistics#MAX_INTERVALS} of them
+	 * @return the counts
+	 * @throws ResponseException
+	 */
+	public SimpleObject getVisitStatistics(String fromStartDatetime, String toStartDatetime, String interval)
+	        throws ResponseException {
+		//cached counts are handed out without going through the service
+		Context.requirePrivilege(PrivilegeConstants.VIEW_VISITS);
+		return statistics.get(toDate(fromStartDatetime), toDate(toStartDatetime), interval != null ? interval
+		        : VisitStatistics.INTERVAL_DAY);
+	}
+	
+	private static Date toDate(String date) {
+		if (date == null)
+			return null;
+		Date converted = (Date) ConversionUtil.convert(date, Date.class);
+		if (converted == null)
+			throw new ConversionException("Invalid date: " + date);
+		return converted;
+	}
+	
+	/**
+	 * Writes a page of the visits of the given patient straight to the response, see
+	 * {@link StreamingPagedResult}
+	 * 
+	 * @param patientUniqueId the uuid of the patient
+	 * @param context the request context
+	 * @param response the response to write to
+	 * @throws ResponseException
+	 * @throws IOException
+	 */
+	public void streamVisitsByPatient(String patientUniqueId, RequestContext context, HttpServletResponse response)
+	        throws ResponseException, IOException {
+		FieldsRepresentation.applyTo(context);
+		final Patient patient = Context.getService(RestService.class).getResource(PatientResource.class).getByUniqueId(
+		    patientUniqueId);
+		if (patient == null)
+			throw new ObjectNotFoundException();
+		
+		final Representation rep = context.getRepresentation();
+		new StreamingPagedResult<Visit>(context) {
+			
+			@Override
+			protected List<Visit> fetch(int firstResult, int maxResults) {
+				List<Visit> visits = Context.getService(Rest19ExtService.class).getVisitsByPatient(patient, true, false,
+				    firstResult, maxResults);
+				fetchEncountersAndAttributes(visits, rep);
+				return visits;
+			}
+		}.write(response);
+	}
+	
+	/**
+	 * Gets a page of the visits that were created, changed or voided after the given date, see
+	 * {@link Rest19ExtService#getVisitsChangedSince(Date, Integer, int)}. Instead of a start index
+	 * the next link of the page carries a cursor which continues the feed right after the last
+	 * visit of the page, see {@link KeysetPagedResult}.
+	 * 
+	 * @param changedSince the date to start the feed from, ignored if a cursor is given
+	 * @param cursor the cursor of the next link of a previous page, or null
+	 * @param context the request context
+	 * @return the page of visits
+	 * @throws ResponseException
+	 */
+	public SimpleObject getVisitsChangedSince(String changedSince, String cursor, RequestContext context)
+	        throws ResponseException {
+		FieldsRepresentation.applyTo(context);
+		Date since;
+		Integer afterVisitId = null;
+		String[] position = KeysetPagedResult.decode(cursor);
+		if (position != null) {
+			try {
+				since = new Date(Long.parseLong(position[0]));
+				afterVisitId = Integer.valueOf(position[1]);
+			}
+			catch (RuntimeException e) {
+				throw new ConversionException("Invalid cursor: " + cursor, e);
+			}
+		} else {
+			since = (Date) ConversionUtil.convert(changedSince, Date.class);
+			if (since == null)
+				throw new ConversionException("Invalid date: " + changedSince);
+		}
+		
+		//fetch one extra row so that we can tell if there are more results without counting them all
+		List<Visit> visits = Context.getService(Rest19ExtService.class).getVisitsChangedSince(since, afterVisitId,
+		    context.getLimit() + 1);
+		fetchEncountersAndAttributes(visits, context.getRepresentation());
+		return new KeysetPagedResult<Visit>(context, visits) {
+			
+			@Override
+			protected String[] getPosition(Visit visit) {
+				Date changed = visit.getDateChanged() != null ? visit.getDateChanged() : visit.getDateCreated();
+				return new String[] { String.valueOf(changed.getTime()), visit.getVisitId().toString() };
+			}
+		}.toSimpleObject();
+	}
+	
+	/**
+	 * Creates visits from newline delimited JSON, one visit per line, see {@link VisitImporter}
+	 * 
+	 * @param reader the reader to import from
+	 * @param chunkSize the number of visits to save in one transaction, null for
+	 *            {@link #DEFAULT_IMPORT_CHUNK_SIZE}, at most {@link #MAX_IMPORT_CHUNK_SIZE}
+	 * @return the number of imported visits, the number of lines skipped because their visit
+	 *         already exists and the line numbers and messages of the lines that could not be
+	 *         imported
+	 * @throws ResponseException
+	 * @throws IOException
+	 */
+	public SimpleObject importVisits(BufferedReader reader, Integer chunkSize) throws ResponseException, IOException {
+		//checked before anything is read, so a user without them cannot tell which uuids exist
+		for (String privilege : IMPORT_PRIVILEGES) {
+			Context.requirePrivilege(privilege);
+		}
+		if (chunkSize != null && chunkSize < 1)
+			throw new ConversionException("The chunk size must be at least 1");
+		if (chunkSize != null && chunkSize > MAX_IMPORT_CHUNK_SIZE)
+			throw new ConversionException("The chunk size must be at most " + MAX_IMPORT_CHUNK_SIZE);
+		return new VisitImporter(chunkSize != null ? chunkSize : DEFAULT_IMPORT_CHUNK_SIZE).importVisits(reader);
+	}
+	
+	/**
+	 * Loads the encounters and attributes of a page of visits at once, unless they are rendered as
+	 * refs or the requested fields include neither
+	 */
+	private void fetchEncountersAndAttributes(List<Visit> visits, Representation rep) {
+		if (rep instanceof RefRepresentation)
+			return;
+		if (rep instanceof FieldsRepresentation && !((FieldsRepresentation) rep).includes("encounters")
+		        && !((FieldsRepresentation) rep).includes("attributes"))
+			return;
+		Context.getService(Rest19ExtService.class).fetchEncountersAndAttributes(visits);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
+	 */
+	@Override
+	public String getResourceVersion() {
+		return "1.9";
+	}
+	
+	/**
+	 * Sets the attributes of a visit
+	 *
+	 * @param visit the visit whose attributes to set
+	 * @param attributes the attributes to set
+	 */
+	@PropertySetter("attributes")
+	public static void setAttributes(Visit visit, Set<VisitAttribute> attributes) {
+		for (VisitAttribute attribute : attributes) {
+			attribute.setOwner(visit);
+		}
+		visit.setAttributes(attributes);
+	}
+}
@@ -1,144 +1,176 @@
-/**
- * Version 1.0 (the "License"); you may not use this file except in
- * compliance with the License. You may obtain a copy of the License at
- * http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS"
- * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
- * License for the specific language governing rights and limitations
- * under the License.
- *
- * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
-
-import java.util.ArrayList;
-import java.util.List;
-
-import org.openmrs.VisitType;
-import org.openmrs.annotation.Handler;
-import org.openmrs.api.context.Context;
-import org.openmrs.module.webservices.rest.web.RequestContext;
-import org.openmrs.module.webservices.rest.web.annotation.Resource;
-import org.openmrs.module.webservices.rest.web.representation.Representation;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
-import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
-import org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource;
-import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
-import org.openmrs.module.webservices.rest.web.response.ResponseException;
-
-/**
- * {@link Resource} for {@link VisitType}, supporting standard CRUD operations
- */
-@Resource("visittype")
-@Handler(supports = VisitType.class, order = 0)
-public class VisitTypeResource extends MetadataDelegatingCrudResource<VisitType> {
-	
-	/**
-	 * @see DelegatingCrudResource#getRepresentationDescription(Representation)
-	 */
-	@Override
-	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
-		// superclass has the desired behavior
-		return null;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
-	 */
-	@Override
-	public DelegatingResourceDescription getCreatableProperties() {
-		DelegatingResourceDescription description = new DelegatingResourceDescription();
-		
-		description.addRequiredProperty("name");
-		description.addProperty("description");
-		
-		return description;
-	}
-	
-	/**
-	 * @see DelegatingCrudResource#newDelegate()
-	 */
-	@Override
-	public VisitType newDelegate() {
-		return new VisitType();
-	}
-	
-	/**
-	 * @see DelegatingCrudResource#save(java.lang.Object)
-	 */
-	@Override
-	public VisitType save(VisitType visitType) {
-		return Context.getVisitService().saveVisitType(visitType);
-	}
-	
-	/**
-	 * Fetches a visitType by uuid, if no match is found, it tries to look up one with a matching
-	 * name with the assumption that the passed parameter is a visitType name
-	 * 
-	 * @see DelegatingCrudResource#getByUniqueId(java.lang.String)
-	 */
-	@Override
-	public VisitType getByUniqueId(String uuid) {
-		VisitType visitType = Context.getVisitService().getVisitTypeByUuid(uuid);
-		//We assume the caller was fetching by name, 1.9.0 has no method to fetch by name
-		if (visitType == null) {
-			List<VisitType> visitTypes = Context.getVisitService().getAllVisitTypes();
-			for (VisitType possibleVisitType : visitTypes) {
-				if (possibleVisitType.getName().equalsIgnoreCase(uuid))
-					return possibleVisitType;
-			}
-		}
-		
-		return visitType;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
-	 *      org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	public void purge(VisitType visitType, RequestContext context) throws ResponseException {
-		if (visitType == null)
-			return;
-		Context.getVisitService().purgeVisitType(visitType);
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doGetAll(org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	protected NeedsPaging<VisitType> doGetAll(RequestContext context) {
-		//Apparently, in 1.9.0 this method returns all and has no argument for excluding retired ones
-		List<VisitType> visitTypes = Context.getVisitService().getAllVisitTypes();
-		List<VisitType> unRetiredVisitTypes = new ArrayList<VisitType>();
-		for (VisitType visitType : visitTypes) {
-			if (!visitType.isRetired())
-				unRetiredVisitTypes.add(visitType);
-		}
-		return new NeedsPaging<VisitType>(unRetiredVisitTypes, context);
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doSearch(java.lang.String,
-	 *      org.openmrs.module.webservices.rest.web.RequestContext)
-	 */
-	@Override
-	protected NeedsPaging<VisitType> doSearch(String query, RequestContext context) {
-		List<VisitType> visitTypes = Context.getVisitService().getVisitTypes(query);
-		List<VisitType> unRetiredVisitTypes = new ArrayList<VisitType>();
-		for (VisitType visitType : visitTypes) {
-			if (!visitType.isRetired())
-				unRetiredVisitTypes.add(visitType);
-		}
-		return new NeedsPaging<VisitType>(unRetiredVisitTypes, context);
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
-	 */
-	@Override
-	public String getResourceVersion() {
-		return "1.9";
-	}
-}
+/**
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
+
+import java.util.List;
+
+import org.openmrs.VisitType;
+import org.openmrs.annotation.Handler;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.RequestContext;
+import org.openmrs.module.webservices.rest.web.annotation.Resource;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+import org.openmrs.module.webservices.rest.web.resource.impl.MetadataDelegatingCrudResource;
+import org.openmrs.module.webservices.rest.web.resource.impl.NeedsPaging;
+import org.openmrs.module.webservices.rest.web.response.ResponseException;
+import org.openmrs.module.webservices.rest19ext.web.MetadataCache;
+import org.openmrs.util.PrivilegeConstants;
+
+/**
+ * {@link Resource} for {@link VisitType}, supporting standard CRUD operations. Reads are served from
+ * a {@link MetadataCache} which loads the visit types through a service that is not restricted to
+ * them, so every read checks the privilege to view visit types the visit service would require.
+ */
+@Resource("visittype")
+@Handler(supports = VisitType.class, order = 0)
+public class VisitTypeResource extends MetadataDelegatingCrudResource<VisitType> {
+	
+	private final MetadataCache<VisitType> cache = new MetadataCache<VisitType>(VisitType.class) {
+		
+		@Override
+		protected List<VisitType> loadAll() {
+			return Context.getVisitService().getAllVisitTypes();
+		}
+	};
+	
+	/**
+	 * @see DelegatingCrudResource#getRepresentationDescription(Representation)
+	 */
+	@Override
+	public DelegatingResourceDescription getRepresentationDescription(Representation rep) {
+		// superclass has the desired behavior
+		return null;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getCreatableProperties()
+	 */
+	@Override
+	public DelegatingResourceDescription getCreatableProperties() {
+		DelegatingResourceDescription description = new DelegatingResourceDescription();
+		
+		description.addRequiredProperty("name");
+		description.addProperty("description");
+		
+		return description;
+	}
+	
+	/**
+	 * @see DelegatingCrudResource#newDelegate()
+	 */
+	@Override
+	public VisitType newDelegate() {
+		return new VisitType();
+	}
+	
+	/**
+	 * @see DelegatingCrudResource#save(java.lang.Object)
+	 */
+	@Override
+	public VisitType save(VisitType visitType) {
+		try {
+			return Context.getVisitService().saveVisitType(visitType);
+		}
+		finally {
+			cache.invalidate();
+		}
+	}
+	
+	/**
+	 * Fetches a visitType by uuid, if no match is found, it tries to look up one with a matching
+	 * name with the assumption that the passed parameter is a visitType name. Both lookups are
+	 * served from the cache, the database is only consulted for uuids the cache doesn't know about
+	 * 
+	 * @see DelegatingCrudResource#getByUniqueId(java.lang.String)
+	 */
+	@Override
+	public VisitType getByUniqueId(String uuid) {
+		Context.requirePrivilege(PrivilegeConstants.VIEW_VISIT_TYPES);
+		VisitType visitType = cache.getByUuid(uuid);
+		//We assume the caller was fetching by name, 1.9.0 has no method to fetch by name
+		if (visitType == null)
+			visitType = cache.getByName(uuid);
+		
+		if (visitType == null) {
+			//the visit type could have been created by something other than this resource
+			visitType = Context.getVisitService().getVisitTypeByUuid(uuid);
+			if (visitType != null)
+				cache.invalidate();
+		}
+		
+		return visitType;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#delete(java.lang.Object,
+	 *      java.lang.String, org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public void delete(VisitType visitType, String reason, RequestContext context) throws ResponseException {
+		if (visitType.isRetired()) {
+			// DELETE is idempotent, so we return success here
+			return;
+		}
+		try {
+			Context.getVisitService().retireVisitType(visitType, reason);
+		}
+		finally {
+			cache.invalidate();
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#purge(java.lang.Object,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	public void purge(VisitType visitType, RequestContext context) throws ResponseException {
+		if (visitType == null)
+			return;
+		try {
+			Context.getVisitService().purgeVisitType(visitType);
+		}
+		finally {
+			cache.invalidate();
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doGetAll(org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	protected NeedsPaging<VisitType> doGetAll(RequestContext context) {
+		Context.requirePrivilege(PrivilegeConstants.VIEW_VISIT_TYPES);
+		return new NeedsPaging<VisitType>(cache.getAll(false), context);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.DelegatingCrudResource#doSearch(java.lang.String,
+	 *      org.openmrs.module.webservices.rest.web.RequestContext)
+	 */
+	@Override
+	protected NeedsPaging<VisitType> doSearch(String query, RequestContext context) {
+		Context.requirePrivilege(PrivilegeConstants.VIEW_VISIT_TYPES);
+		return new NeedsPaging<VisitType>(cache.findByName(query, false), context);
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResource#getResourceVersion()
+	 */
+	@Override
+	public String getResourceVersion() {
+		return "1.9";
+	}
+}
@@ -1,32 +1,32 @@
-package org.openmrs.module.webservices.rest19ext.test;
-
-public class Rest19ExtTestConstants {
-	
-	public final static String LOCATION_UUID = "f08ba64b-ea57-4a41-nfdr-9dfc59b0c60a";
-	
-	public final static String LOCATION_ATTRIBUTE_UUID = "3a2bdb18-6faa-11e0-8414-001e378eb67e";
-	
-	public final static String LOCATION_ATTRIBUTE_TYPE_UUID = "9516cc50-6f9f-11e0-8414-001e378eb67e";
-	
-	public final static String LOCATION_ATTRIBUTE_TYPE2_UUID = "9516cc50-6f9f-132r-5433-001e378eb67f";
-	
-	public final static String PROVIDER_UUID = "c2299800-dgha-11e0-9572-0800200c9a66";
-	
-	public final static String PROVIDER_ATTRIBUTE_TYPE_UUID = "9516cc50-n8ik-bc4f-8414-001e378eb67e";
-	
-	public final static String PROVIDER_ATTRIBUTE_TYPE2_UUID = "9516cc50-bm8q-mibn-8414-001e378eb67e";
-	
-	public final static String PROVIDER_ATTRIBUTE_UUID = "3a2bdb18-6faa-n3g3-6e62-001e378eb67e";
-	
-	public final static String PROVIDER_ATTRIBUTE2_UUID = "3a2bdb18-6aan-kwf3-6e62-001e378eb67e";
-	
-	public final static String VISIT_TYPE_UUID = "759799ab-c9a5-435e-b671-77773ada74e4";
-	
-	public final static String VISIT_UUID = "1e5d5d48-6b78-11e0-93c3-18a905e044dc";
-	
-	public final static String VISIT_ATTRIBUTE_TYPE_UUID = "8770f6d6-7673-11e0-8f03-001e378eb67e";
-	
-	public final static String VISIT_ATTRIBUTE_UUID = "4c2tyr18-6faa-11e0-7899-001e378eb66a";
-	
-	public final static String TEST_DATASET = "customTestDataset.xml";
-}
+package org.openmrs.module.webservices.rest19ext.test;
+
+public class Rest19ExtTestConstants {
+	
+	public final static String LOCATION_UUID = "f08ba64b-ea57-4a41-nfdr-9dfc59b0c60a";
+	
+	public final static String LOCATION_ATTRIBUTE_UUID = "3a2bdb18-6faa-11e0-8414-001e378eb67e";
+	
+	public final static String LOCATION_ATTRIBUTE_TYPE_UUID = "9516cc50-6f9f-11e0-8414-001e378eb67e";
+	
+	public final static String LOCATION_ATTRIBUTE_TYPE2_UUID = "9516cc50-6f9f-132r-5433-001e378eb67f";
+	
+	public final static String PROVIDER_UUID = "c2299800-dgha-11e0-9572-0800200c9a66";
+	
+	public final static String PROVIDER_ATTRIBUTE_TYPE_UUID = "9516cc50-n8ik-bc4f-8414-001e378eb67e";
+	
+	public final static String PROVIDER_ATTRIBUTE_TYPE2_UUID = "9516cc50-bm8q-mibn-8414-001e378eb67e";
+	
+	public final static String PROVIDER_ATTRIBUTE_UUID = "3a2bdb18-6faa-n3g3-6e62-001e378eb67e";
+	
+	public final static String PROVIDER_ATTRIBUTE2_UUID = "3a2bdb18-6aan-kwf3-6e62-001e378eb67e";
+	
+	public final static String VISIT_TYPE_UUID = "759799ab-c9a5-435e-b671-77773ada74e4";
+	
+	public final static String VISIT_UUID = "1e5d5d48-6b78-11e0-93c3-18a905e044dc";
+	
+	public final static String VISIT_ATTRIBUTE_TYPE_UUID = "8770f6d6-7673-11e0-8f03-001e378eb67e";
+	
+	public final static String VISIT_ATTRIBUTE_UUID = "4c2tyr18-6faa-11e0-7899-001e378eb66a";
+	
+	public final static String TEST_DATASET = "customTestDataset.xml";
+}
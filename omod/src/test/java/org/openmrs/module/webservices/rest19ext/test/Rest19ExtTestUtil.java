@@ -0,0 +1,24 @@
+package org.openmrs.module.webservices.rest19ext.test;
+
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+
+/**
+ * Fixtures shared by the tests of the module
+ */
+public class Rest19ExtTestUtil {
+	
+	/**
+	 * Saves a new location
+	 * 
+	 * @param name the name of the location
+	 * @param parent the parent of the location, or null
+	 * @return the saved location
+	 */
+	public static Location saveLocation(String name, Location parent) {
+		Location location = new Location();
+		location.setName(name);
+		location.setParentLocation(parent);
+		return Context.getLocationService().saveLocation(location);
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.Visit;
+import org.openmrs.VisitAttribute;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Tests {@link ActiveAttributeIndex}
+ */
+public class ActiveAttributeIndexTest {
+	
+	@After
+	public void after() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+	
+	private VisitAttribute newAttribute(Visit visit, boolean voided) {
+		VisitAttribute attribute = new VisitAttribute();
+		attribute.setVoided(voided);
+		visit.addAttribute(attribute);
+		return attribute;
+	}
+	
+	/**
+	 * @see ActiveAttributeIndex#get(org.openmrs.customdatatype.Customizable)
+	 */
+	@Test
+	public void get_shouldIndexOnlyActiveAttributes() throws Exception {
+		Visit visit = new Visit();
+		VisitAttribute active = newAttribute(visit, false);
+		VisitAttribute voided = newAttribute(visit, true);
+		
+		ActiveAttributeIndex<VisitAttribute> index = ActiveAttributeIndex.get(visit);
+		Assert.assertTrue(index.contains(active));
+		Assert.assertFalse(index.contains(voided));
+		Assert.assertEquals(1, index.getActive().size());
+	}
+	
+	/**
+	 * @see ActiveAttributeIndex#get(org.openmrs.customdatatype.Customizable)
+	 */
+	@Test
+	public void get_shouldShareTheIndexOfAnOwnerWithinARequest() throws Exception {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		Visit visit = new Visit();
+		Assert.assertSame(ActiveAttributeIndex.get(visit), ActiveAttributeIndex.get(visit));
+		Assert.assertNotSame(ActiveAttributeIndex.get(visit), ActiveAttributeIndex.get(new Visit()));
+	}
+	
+	/**
+	 * @see ActiveAttributeIndex#contains(org.openmrs.attribute.Attribute)
+	 */
+	@Test
+	public void contains_shouldMatchAnAttributeWithTheSameUuid() throws Exception {
+		Visit visit = new Visit();
+		VisitAttribute active = newAttribute(visit, false);
+		VisitAttribute copy = new VisitAttribute();
+		copy.setUuid(active.getUuid());
+		Assert.assertTrue(ActiveAttributeIndex.get(visit).contains(copy));
+	}
+	
+	/**
+	 * @see ActiveAttributeIndex#remove(org.openmrs.attribute.Attribute)
+	 */
+	@Test
+	public void remove_shouldNoLongerContainTheAttribute() throws Exception {
+		Visit visit = new Visit();
+		VisitAttribute active = newAttribute(visit, false);
+		ActiveAttributeIndex<VisitAttribute> index = ActiveAttributeIndex.get(visit);
+		index.remove(active);
+		Assert.assertFalse(index.contains(active));
+		Assert.assertNull(index.getByUuid(active.getUuid()));
+		Assert.assertTrue(index.getActive().isEmpty());
+	}
+}
@@ -0,0 +1,90 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest19ext.web.metrics.OperationStatistics;
+import org.openmrs.module.webservices.rest19ext.web.metrics.RestMetrics;
+import org.openmrs.module.webservices.rest19ext.web.response.ServiceUnavailableException;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests {@link ConcurrencyLimiter}
+ */
+public class ConcurrencyLimiterTest extends BaseModuleWebContextSensitiveTest {
+	
+	private static final String OPERATION = "v1/test search";
+	
+	private static final String GLOBAL_PROPERTY = "webservices.rest19ext.test.maxConcurrentRequests";
+	
+	private ConcurrencyLimiter limiter;
+	
+	@Before
+	public void before() {
+		Context.getAdministrationService().saveGlobalProperty(new GlobalProperty(GLOBAL_PROPERTY, "2"));
+		limiter = new ConcurrencyLimiter(OPERATION, GLOBAL_PROPERTY, 10);
+		RestMetrics.getInstance().reset();
+	}
+	
+	private long getRejected() {
+		OperationStatistics statistics = RestMetrics.getInstance().getOperations().get(OPERATION);
+		return statistics == null ? 0 : statistics.getRejected();
+	}
+	
+	/**
+	 * @see ConcurrencyLimiter#acquire(javax.servlet.http.HttpServletResponse)
+	 * @verifies admit requests up to the limit
+	 */
+	@Test
+	public void acquire_shouldAdmitRequestsUpToTheLimit() throws Exception {
+		limiter.acquire(new MockHttpServletResponse());
+		limiter.acquire(new MockHttpServletResponse());
+		Assert.assertEquals(0, getRejected());
+	}
+	
+	/**
+	 * @see ConcurrencyLimiter#acquire(javax.servlet.http.HttpServletResponse)
+	 * @verifies reject requests beyond the limit
+	 */
+	@Test
+	public void acquire_shouldRejectRequestsBeyondTheLimit() throws Exception {
+		limiter.acquire(new MockHttpServletResponse());
+		limiter.acquire(new MockHttpServletResponse());
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			limiter.acquire(response);
+			Assert.fail("the third request should have been rejected");
+		}
+		catch (ServiceUnavailableException e) {
+			Assert.assertEquals(String.valueOf(ConcurrencyLimiter.RETRY_AFTER_SECONDS), response.getHeader("Retry-After"));
+		}
+		Assert.assertEquals(1, getRejected());
+	}
+	
+	/**
+	 * @see ConcurrencyLimiter#acquire(javax.servlet.http.HttpServletResponse)
+	 * @verifies admit a request again once another one is released
+	 */
+	@Test
+	public void acquire_shouldAdmitARequestAgainOnceAnotherOneIsReleased() throws Exception {
+		limiter.acquire(new MockHttpServletResponse());
+		limiter.acquire(new MockHttpServletResponse());
+		limiter.release();
+		limiter.acquire(new MockHttpServletResponse());
+		Assert.assertEquals(0, getRejected());
+	}
+}
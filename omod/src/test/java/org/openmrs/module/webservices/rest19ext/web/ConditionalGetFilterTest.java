@@ -0,0 +1,239 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.Date;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.Encounter;
+import org.openmrs.Visit;
+import org.openmrs.VisitType;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests {@link ConditionalGetFilter}
+ */
+public class ConditionalGetFilterTest extends BaseModuleWebContextSensitiveTest {
+	
+	private static final String VISIT_URI = "/openmrs/ws/rest/v1/visit/" + Rest19ExtTestConstants.VISIT_UUID;
+	
+	private static final String PROVIDER_URI = "/openmrs/ws/rest/v1/provider/" + Rest19ExtTestConstants.PROVIDER_UUID;
+	
+	private ConditionalGetFilter filter = new ConditionalGetFilter();
+	
+	private MockHttpServletRequest newRequest(String uri) {
+		return newRequest(uri, RestConstants.REPRESENTATION_REF);
+	}
+	
+	private MockHttpServletRequest newRequest(String uri, String rep) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+		request.setContextPath("/openmrs");
+		if (rep != null)
+			request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, rep);
+		return request;
+	}
+	
+	private MockHttpServletResponse get(MockHttpServletRequest request, MockFilterChain chain) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+	
+	/**
+	 * @see ConditionalGetFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies set the etag and last modified headers of an object
+	 */
+	@Test
+	public void doFilter_shouldSetTheEtagAndLastModifiedHeadersOfAnObject() throws Exception {
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = get(newRequest(VISIT_URI), chain);
+		Assert.assertNotNull(chain.getRequest());
+		String etag = (String) response.getHeader("ETag");
+		Assert.assertTrue(etag.contains(Rest19ExtTestConstants.VISIT_UUID));
+		Assert.assertTrue(etag.contains(RestConstants.REPRESENTATION_REF));
+		Assert.assertNotNull(response.getHeader("Last-Modified"));
+	}
+	
+	/**
+	 * @see ConditionalGetFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies answer not modified if the etag matches
+	 */
+	@Test
+	public void doFilter_shouldAnswerNotModifiedIfTheEtagMatches() throws Exception {
+		String etag = (String) get(newRequest(VISIT_URI), new MockFilterChain()).getHeader("ETag");
+		
+		MockHttpServletRequest request = newRequest(VISIT_URI);
+		request.addHeader("If-None-Match", etag);
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = get(request, chain);
+		Assert.assertNull(chain.getRequest());
+		Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+	}
+	
+	/**
+	 * @see ConditionalGetFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies answer not modified if the object has not been modified since the given date
+	 */
+	@Test
+	public void doFilter_shouldAnswerNotModifiedIfTheObjectHasNotBeenModifiedSinceTheGivenDate() throws Exception {
+		MockHttpServletRequest request = newRequest(VISIT_URI);
+		request.addHeader("If-Modified-Since", System.currentTimeMillis());
+		MockFilterChain chain = new MockFilterChain();
+		Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, get(request, chain).getStatus());
+		Assert.assertNull(chain.getRequest());
+	}
+	
+	/**
+	 * @see ConditionalGetFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies pass the request on if the etag does not match
+	 */
+	@Test
+	public void doFilter_shouldPassTheRequestOnIfTheEtagDoesNotMatch() throws Exception {
+		String etag = (String) get(newRequest(VISIT_URI), new MockFilterChain()).getHeader("ETag");
+		Context.getVisitService().voidVisit(
+		    Context.getVisitService().getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID), "for the test");
+		
+		MockHttpServletRequest request = newRequest(VISIT_URI);
+		request.addHeader("If-None-Match", etag);
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = get(request, chain);
+		Assert.assertNotNull(chain.getRequest());
+		Assert.assertFalse(etag.equals(response.getHeader("ETag")));
+	}
+	
+	/**
+	 * @see ConditionalGetFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies pass the request on if it is not for a single object
+	 */
+	@Test
+	public void doFilter_shouldPassTheRequestOnIfItIsNotForASingleObject() throws Exception {
+		MockHttpServletRequest request = newRequest("/openmrs/ws/rest/v1/visit");
+		request.addHeader("If-Modified-Since", System.currentTimeMillis());
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = get(request, chain);
+		Assert.assertNotNull(chain.getRequest());
+		Assert.assertNull(response.getHeader("ETag"));
+	}
+	
+	/**
+	 * @see ConditionalGetFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies pass the request on for the default and full representations of a provider
+	 */
+	@Test
+	public void doFilter_shouldPassTheRequestOnForTheDefaultAndFullRepresentationsOfAProvider() throws Exception {
+		for (String rep : new String[] { null, RestConstants.REPRESENTATION_DEFAULT, RestConstants.REPRESENTATION_FULL }) {
+			MockHttpServletRequest request = newRequest(PROVIDER_URI, rep);
+			request.addHeader("If-Modified-Since", System.currentTimeMillis());
+			MockFilterChain chain = new MockFilterChain();
+			MockHttpServletResponse response = get(request, chain);
+			Assert.assertNotNull(chain.getRequest());
+			Assert.assertNull(response.getHeader("ETag"));
+		}
+	}
+	
+	/**
+	 * @see ConditionalGetFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies change the etag when an object the display is built from is changed
+	 */
+	@Test
+	public void doFilter_shouldChangeTheEtagWhenAnObjectTheDisplayIsBuiltFromIsChanged() throws Exception {
+		String etag = (String) get(newRequest(VISIT_URI), new MockFilterChain()).getHeader("ETag");
+		VisitType visitType = Context.getVisitService().getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID).getVisitType();
+		visitType.setName("Renamed");
+		visitType.setDateChanged(new Date(System.currentTimeMillis() + 1000));
+		Context.getVisitService().saveVisitType(visitType);
+		
+		MockHttpServletRequest request = newRequest(VISIT_URI);
+		request.addHeader("If-None-Match", etag);
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = get(request, chain);
+		Assert.assertNotNull(chain.getRequest());
+		Assert.assertFalse(etag.equals(response.getHeader("ETag")));
+	}
+	
+	/**
+	 * @see ConditionalGetFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies answer not modified for the default representation of a visit
+	 */
+	@Test
+	public void doFilter_shouldAnswerNotModifiedForTheDefaultRepresentationOfAVisit() throws Exception {
+		saveEncounter(Context.getVisitService().getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID));
+		String etag = (String) get(newRequest(VISIT_URI, null), new MockFilterChain()).getHeader("ETag");
+		
+		MockHttpServletRequest request = newRequest(VISIT_URI, null);
+		request.addHeader("If-None-Match", etag);
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = get(request, chain);
+		Assert.assertNull(chain.getRequest());
+		Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+	}
+	
+	/**
+	 * @see ConditionalGetFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies change the etag of the default representation when an encounter of the visit is changed
+	 */
+	@Test
+	public void doFilter_shouldChangeTheEtagOfTheDefaultRepresentationWhenAnEncounterOfTheVisitIsChanged()
+	        throws Exception {
+		Encounter encounter = saveEncounter(Context.getVisitService().getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID));
+		String etag = (String) get(newRequest(VISIT_URI, null), new MockFilterChain()).getHeader("ETag");
+		encounter.setDateChanged(new Date(System.currentTimeMillis() + 1000));
+		Context.getEncounterService().saveEncounter(encounter);
+		Context.flushSession();
+		
+		MockHttpServletRequest request = newRequest(VISIT_URI, null);
+		request.addHeader("If-None-Match", etag);
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = get(request, chain);
+		Assert.assertNotNull(chain.getRequest());
+		Assert.assertFalse(etag.equals(response.getHeader("ETag")));
+	}
+	
+	/**
+	 * @see ConditionalGetFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies key the etag by the representation
+	 */
+	@Test
+	public void doFilter_shouldKeyTheEtagByTheRepresentation() throws Exception {
+		String refEtag = (String) get(newRequest(VISIT_URI), new MockFilterChain()).getHeader("ETag");
+		String fullEtag = (String) get(newRequest(VISIT_URI, RestConstants.REPRESENTATION_FULL), new MockFilterChain())
+		        .getHeader("ETag");
+		Assert.assertTrue(fullEtag.contains(RestConstants.REPRESENTATION_FULL));
+		Assert.assertFalse(refEtag.equals(fullEtag));
+		
+		MockHttpServletRequest request = newRequest(VISIT_URI, RestConstants.REPRESENTATION_FULL);
+		request.addHeader("If-None-Match", refEtag);
+		MockFilterChain chain = new MockFilterChain();
+		get(request, chain);
+		Assert.assertNotNull(chain.getRequest());
+	}
+	
+	private Encounter saveEncounter(Visit visit) {
+		Encounter encounter = new Encounter();
+		encounter.setPatient(visit.getPatient());
+		encounter.setEncounterType(Context.getEncounterService().getEncounterType(1));
+		encounter.setEncounterDatetime(visit.getStartDatetime());
+		encounter.setVisit(visit);
+		Context.getEncounterService().saveEncounter(encounter);
+		Context.flushSession();
+		return encounter;
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Tests {@link ConversionCache}
+ */
+public class ConversionCacheTest extends BaseModuleWebContextSensitiveTest {
+	
+	@After
+	public void after() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+	
+	/**
+	 * @see ConversionCache#convert(Object,Representation)
+	 * @verifies convert an object only once per representation within a request
+	 */
+	@Test
+	public void convert_shouldConvertAnObjectOnlyOncePerRepresentationWithinARequest() throws Exception {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		Location location = Context.getLocationService().getLocation(1);
+		long hits = ConversionCache.getHits();
+		long misses = ConversionCache.getMisses();
+		
+		Object first = ConversionCache.convert(location, Representation.REF);
+		Object second = ConversionCache.convert(location, Representation.REF);
+		Assert.assertEquals(first, second);
+		Assert.assertNotSame(first, second);
+		ConversionCache.convert(location, Representation.DEFAULT);
+		Assert.assertEquals(hits + 1, ConversionCache.getHits());
+		Assert.assertEquals(misses + 2, ConversionCache.getMisses());
+	}
+	
+	/**
+	 * @see ConversionCache#convert(Object,Representation)
+	 * @verifies convert an object every time outside of a request
+	 */
+	@Test
+	public void convert_shouldConvertAnObjectEveryTimeOutsideOfARequest() throws Exception {
+		Location location = Context.getLocationService().getLocation(1);
+		long hits = ConversionCache.getHits();
+		long misses = ConversionCache.getMisses();
+		
+		ConversionCache.convert(location, Representation.REF);
+		ConversionCache.convert(location, Representation.REF);
+		Assert.assertEquals(hits, ConversionCache.getHits());
+		Assert.assertEquals(misses, ConversionCache.getMisses());
+	}
+	
+	/**
+	 * @see ConversionCache#convert(Object,Representation)
+	 * @verifies not share the nested values of the representation between occurrences
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void convert_shouldNotShareTheNestedValuesOfTheRepresentationBetweenOccurrences() throws Exception {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		Location location = Context.getLocationService().getLocation(1);
+		
+		SimpleObject first = (SimpleObject) ConversionCache.convert(location, Representation.REF);
+		List<Object> links = (List<Object>) first.get("links");
+		int size = links.size();
+		links.add("changed by the caller");
+		SimpleObject second = (SimpleObject) ConversionCache.convert(location, Representation.REF);
+		Assert.assertEquals(size, ((List<Object>) second.get("links")).size());
+		Assert.assertNotSame(links, second.get("links"));
+	}
+}
@@ -0,0 +1,67 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.VisitAttributeType;
+import org.openmrs.customdatatype.datatype.FreeTextDatatype;
+import org.openmrs.customdatatype.datatype.RegexValidatedTextDatatype;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+
+/**
+ * Tests {@link CustomDatatypeCache}
+ */
+public class CustomDatatypeCacheTest extends BaseModuleWebContextSensitiveTest {
+	
+	private VisitAttributeType newAttributeType(String datatypeClassname, String datatypeConfig) {
+		VisitAttributeType attributeType = new VisitAttributeType();
+		attributeType.setDatatypeClassname(datatypeClassname);
+		attributeType.setDatatypeConfig(datatypeConfig);
+		return attributeType;
+	}
+	
+	/**
+	 * @see CustomDatatypeCache#get(org.openmrs.attribute.AttributeType)
+	 */
+	@Test
+	public void get_shouldReturnTheSameInstanceForTheSameAttributeType() throws Exception {
+		VisitAttributeType attributeType = newAttributeType(FreeTextDatatype.class.getName(), null);
+		Assert.assertSame(CustomDatatypeCache.get(attributeType), CustomDatatypeCache.get(attributeType));
+	}
+	
+	/**
+	 * @see CustomDatatypeCache#get(org.openmrs.attribute.AttributeType)
+	 */
+	@Test
+	public void get_shouldReturnANewInstanceIfTheDatatypeConfigHasChanged() throws Exception {
+		VisitAttributeType attributeType = newAttributeType(RegexValidatedTextDatatype.class.getName(), "[a-z]+");
+		RegexValidatedTextDatatype before = (RegexValidatedTextDatatype) CustomDatatypeCache.get(attributeType);
+		before.validate("abc");
+		
+		attributeType.setDatatypeConfig("[0-9]+");
+		RegexValidatedTextDatatype after = (RegexValidatedTextDatatype) CustomDatatypeCache.get(attributeType);
+		Assert.assertNotSame(before, after);
+		after.validate("123");
+	}
+	
+	/**
+	 * @see CustomDatatypeCache#invalidate(org.openmrs.attribute.AttributeType)
+	 */
+	@Test
+	public void invalidate_shouldReturnANewInstanceAfterTheAttributeTypeIsInvalidated() throws Exception {
+		VisitAttributeType attributeType = newAttributeType(FreeTextDatatype.class.getName(), null);
+		Object before = CustomDatatypeCache.get(attributeType);
+		CustomDatatypeCache.invalidate(attributeType);
+		Assert.assertNotSame(before, CustomDatatypeCache.get(attributeType));
+	}
+}
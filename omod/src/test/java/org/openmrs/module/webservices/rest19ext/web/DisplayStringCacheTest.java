@@ -0,0 +1,138 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.Date;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Auditable;
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+
+/**
+ * Tests {@link DisplayStringCache}
+ */
+public class DisplayStringCacheTest extends BaseModuleWebContextSensitiveTest {
+	
+	private int builds;
+	
+	private DisplayStringCache<Location> cache;
+	
+	private Location location;
+	
+	@Before
+	public void before() {
+		builds = 0;
+		cache = new DisplayStringCache<Location>() {
+			
+			@Override
+			protected String build(Location location, Locale locale) {
+				builds++;
+				return location.getName() + " " + locale;
+			}
+			
+			@Override
+			protected Auditable[] getSources(Location location) {
+				return new Auditable[] { location };
+			}
+		};
+		location = Context.getLocationService().getLocation(1);
+	}
+	
+	@After
+	public void after() {
+		Context.setLocale(Locale.ENGLISH);
+	}
+	
+	/**
+	 * @see DisplayStringCache#get(org.openmrs.OpenmrsObject)
+	 * @verifies build the display string only once while the object is unchanged
+	 */
+	@Test
+	public void get_shouldBuildTheDisplayStringOnlyOnceWhileTheObjectIsUnchanged() throws Exception {
+		Assert.assertEquals(cache.get(location), cache.get(location));
+		Assert.assertEquals(1, builds);
+	}
+	
+	/**
+	 * @see DisplayStringCache#get(org.openmrs.OpenmrsObject)
+	 * @verifies build the display string again once the object has changed
+	 */
+	@Test
+	public void get_shouldBuildTheDisplayStringAgainOnceTheObjectHasChanged() throws Exception {
+		cache.get(location);
+		location.setName("Renamed");
+		location.setDateChanged(new Date(System.currentTimeMillis() + 1000));
+		Assert.assertTrue(cache.get(location).startsWith("Renamed"));
+		Assert.assertEquals(2, builds);
+	}
+	
+	/**
+	 * @see DisplayStringCache#get(org.openmrs.OpenmrsObject)
+	 * @verifies build the display string again after the object is invalidated
+	 */
+	@Test
+	public void get_shouldBuildTheDisplayStringAgainAfterTheObjectIsInvalidated() throws Exception {
+		cache.get(location);
+		cache.invalidate(location);
+		cache.get(location);
+		Assert.assertEquals(2, builds);
+	}
+	
+	/**
+	 * @see DisplayStringCache#get(org.openmrs.OpenmrsObject)
+	 * @verifies keep a display string per locale
+	 */
+	@Test
+	public void get_shouldKeepADisplayStringPerLocale() throws Exception {
+		Context.setLocale(Locale.ENGLISH);
+		String english = cache.get(location);
+		Context.setLocale(Locale.FRENCH);
+		String french = cache.get(location);
+		Assert.assertFalse(english.equals(french));
+		Context.setLocale(Locale.ENGLISH);
+		Assert.assertEquals(english, cache.get(location));
+		Assert.assertEquals(2, builds);
+	}
+	
+	/**
+	 * @see DisplayStringCache#get(org.openmrs.OpenmrsObject)
+	 * @verifies not keep a display string built within the stamp precision of the last change
+	 */
+	@Test
+	public void get_shouldNotKeepADisplayStringBuiltWithinTheStampPrecisionOfTheLastChange() throws Exception {
+		//dates stored with whole seconds, so both changes get the same date
+		Date changed = new Date(System.currentTimeMillis() / 1000 * 1000);
+		location.setDateChanged(changed);
+		cache.get(location);
+		location.setName("Renamed");
+		location.setDateChanged(changed);
+		Assert.assertTrue(cache.get(location).startsWith("Renamed"));
+		Assert.assertEquals(2, builds);
+	}
+	
+	/**
+	 * @see DisplayStringCache#formatDateTime(Date,Locale)
+	 * @verifies format like the date time format of the context
+	 */
+	@Test
+	public void formatDateTime_shouldFormatLikeTheDateTimeFormatOfTheContext() throws Exception {
+		Date date = new Date();
+		Assert.assertEquals(Context.getDateTimeFormat().format(date), DisplayStringCache.formatDateTime(date, Context
+		        .getLocale()));
+	}
+}
@@ -0,0 +1,136 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.representation.Representation;
+import org.openmrs.module.webservices.rest.web.resource.impl.DelegatingResourceDescription;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+
+/**
+ * Tests {@link FieldsRepresentation}
+ */
+public class FieldsRepresentationTest {
+	
+	private static final Set<String> NESTED_FIELDS = Collections.singleton("visitType.name");
+	
+	/**
+	 * @see FieldsRepresentation#parse(String)
+	 * @verifies keep the fields in the given order without duplicates
+	 */
+	@Test
+	public void parse_shouldKeepTheFieldsInTheGivenOrderWithoutDuplicates() throws Exception {
+		Assert.assertEquals("fields:uuid,startDatetime", FieldsRepresentation.parse(" uuid, startDatetime,uuid,")
+		        .getRepresentation());
+	}
+	
+	/**
+	 * @see FieldsRepresentation#parse(String)
+	 * @verifies drop the dotted fields of objects that are listed as a whole
+	 */
+	@Test
+	public void parse_shouldDropTheDottedFieldsOfObjectsThatAreListedAsAWhole() throws Exception {
+		FieldsRepresentation rep = FieldsRepresentation.parse("visitType.name,visitType,location.name");
+		Assert.assertEquals("fields:visitType,location.name", rep.getRepresentation());
+		Assert.assertTrue(rep.includes("location"));
+		Assert.assertFalse(rep.includes("loc"));
+	}
+	
+	/**
+	 * @see FieldsRepresentation#parse(String)
+	 * @verifies fail if no fields are given
+	 */
+	@Test(expected = ConversionException.class)
+	public void parse_shouldFailIfNoFieldsAreGiven() throws Exception {
+		FieldsRepresentation.parse(" , ");
+	}
+	
+	/**
+	 * @see FieldsRepresentation#prune(DelegatingResourceDescription,Set)
+	 * @verifies keep only the listed properties of the full description
+	 */
+	@Test
+	public void prune_shouldKeepOnlyTheListedPropertiesOfTheFullDescription() throws Exception {
+		DelegatingResourceDescription pruned = FieldsRepresentation.parse("startDatetime,uuid").prune(getFull(), NESTED_FIELDS);
+		Assert.assertEquals(Arrays.asList("startDatetime", "uuid"), new ArrayList<String>(pruned.getProperties()
+		        .keySet()));
+	}
+	
+	/**
+	 * @see FieldsRepresentation#prune(DelegatingResourceDescription,Set)
+	 * @verifies read an allowed dotted field as a property of the delegate
+	 */
+	@Test
+	public void prune_shouldReadAnAllowedDottedFieldAsAPropertyOfTheDelegate() throws Exception {
+		DelegatingResourceDescription pruned = FieldsRepresentation.parse("uuid,visitType.name").prune(getFull(), NESTED_FIELDS);
+		Assert.assertEquals(Arrays.asList("uuid", "visitType.name"), new ArrayList<String>(pruned.getProperties()
+		        .keySet()));
+	}
+	
+	/**
+	 * @see FieldsRepresentation#prune(DelegatingResourceDescription,Set)
+	 * @verifies fail for a field that is not part of the full description
+	 */
+	@Test(expected = ConversionException.class)
+	public void prune_shouldFailForAFieldThatIsNotPartOfTheFullDescription() throws Exception {
+		FieldsRepresentation.parse("uuid,patient").prune(getFull(), NESTED_FIELDS);
+	}
+	
+	/**
+	 * @see FieldsRepresentation#prune(DelegatingResourceDescription,Set)
+	 * @verifies fail for a dotted field that is not allowed
+	 */
+	@Test
+	public void prune_shouldFailForADottedFieldThatIsNotAllowed() throws Exception {
+		for (String field : Arrays.asList("visitType.creator", "visitType.name.bytes", "visitType.creator.person",
+		    "startDatetime.time")) {
+			try {
+				FieldsRepresentation.parse(field).prune(getFull(), NESTED_FIELDS);
+				Assert.fail(field + " should have been rejected");
+			}
+			catch (ConversionException expected) {}
+		}
+	}
+	
+	/**
+	 * @see FieldsRepresentation#nest(SimpleObject)
+	 * @verifies nest the dotted fields
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void nest_shouldNestTheDottedFields() throws Exception {
+		SimpleObject simple = new SimpleObject().add("uuid", "abc").add("visitType.name", "Initial").add(
+		    "visitType.description", null);
+		SimpleObject nested = FieldsRepresentation.parse("uuid,visitType.name,visitType.description").nest(simple);
+		Assert.assertEquals("abc", nested.get("uuid"));
+		Map<String, Object> visitType = (Map<String, Object>) nested.get("visitType");
+		Assert.assertEquals("Initial", visitType.get("name"));
+		Assert.assertTrue(visitType.containsKey("description"));
+		Assert.assertEquals(2, nested.size());
+	}
+	
+	private DelegatingResourceDescription getFull() {
+		DelegatingResourceDescription full = new DelegatingResourceDescription();
+		full.addProperty("uuid");
+		full.addProperty("visitType", Representation.REF);
+		full.addProperty("startDatetime");
+		return full;
+	}
+}
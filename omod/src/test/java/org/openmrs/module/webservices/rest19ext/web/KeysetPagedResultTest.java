@@ -0,0 +1,131 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Tests {@link KeysetPagedResult}
+ */
+public class KeysetPagedResultTest extends BaseModuleWebContextSensitiveTest {
+	
+	/**
+	 * @see KeysetPagedResult#getCursorPosition(org.openmrs.module.webservices.rest.web.RequestContext)
+	 * @verifies return the position of the next link of a page
+	 */
+	@Test
+	public void getCursorPosition_shouldReturnThePositionOfTheNextLinkOfAPage() throws Exception {
+		MockHttpServletRequest request = newRequest(1);
+		String next = getNextLink(newResult(request, getLocation(1), getLocation(2)).toSimpleObject());
+		
+		MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		String cursor = next.substring(next.indexOf("cursor=") + "cursor=".length());
+		nextRequest.addParameter(Rest19ExtWebConstants.REQUEST_PROPERTY_FOR_CURSOR, cursor);
+		String[] position = KeysetPagedResult.getCursorPosition(RestUtil.getRequestContext(nextRequest));
+		Assert.assertArrayEquals(new String[] { getLocation(1).getName(), null, "1" }, position);
+	}
+	
+	/**
+	 * @see KeysetPagedResult#getCursorPosition(org.openmrs.module.webservices.rest.web.RequestContext)
+	 * @verifies return null if no cursor was given
+	 */
+	@Test
+	public void getCursorPosition_shouldReturnNullIfNoCursorWasGiven() throws Exception {
+		Assert.assertNull(KeysetPagedResult.getCursorPosition(RestUtil.getRequestContext(new MockHttpServletRequest())));
+	}
+	
+	/**
+	 * @see KeysetPagedResult#getCursorPosition(org.openmrs.module.webservices.rest.web.RequestContext)
+	 * @verifies fail if a start index is given
+	 */
+	@Test(expected = ConversionException.class)
+	public void getCursorPosition_shouldFailIfAStartIndexIsGiven() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_START_INDEX, "25");
+		KeysetPagedResult.getCursorPosition(RestUtil.getRequestContext(request));
+	}
+	
+	/**
+	 * @see KeysetPagedResult#toSimpleObject()
+	 * @verifies add a next link if there are more results
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void toSimpleObject_shouldAddANextLinkIfThereAreMoreResults() throws Exception {
+		MockHttpServletRequest request = newRequest(1);
+		request.addParameter("q", "some query");
+		SimpleObject page = newResult(request, getLocation(1), getLocation(2)).toSimpleObject();
+		
+		List<Map<String, Object>> results = (List<Map<String, Object>>) page.get("results");
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(getLocation(1).getUuid(), results.get(0).get("uuid"));
+		String next = getNextLink(page);
+		Assert.assertTrue(next.contains("q=some+query"));
+		Assert.assertFalse(next.contains(RestConstants.REQUEST_PROPERTY_FOR_START_INDEX));
+	}
+	
+	/**
+	 * @see KeysetPagedResult#toSimpleObject()
+	 * @verifies not add a next link to the last page
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void toSimpleObject_shouldNotAddANextLinkToTheLastPage() throws Exception {
+		SimpleObject page = newResult(newRequest(2), getLocation(1), getLocation(2)).toSimpleObject();
+		Assert.assertEquals(2, ((List<Object>) page.get("results")).size());
+		Assert.assertNull(page.get("links"));
+	}
+	
+	private Location getLocation(Integer id) {
+		return Context.getLocationService().getLocation(id);
+	}
+	
+	private MockHttpServletRequest newRequest(int limit) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_LIMIT, String.valueOf(limit));
+		return request;
+	}
+	
+	/**
+	 * Pages the given locations by name, a null and id, so that the cursor holds a value which
+	 * needs escaping and a null
+	 */
+	private KeysetPagedResult<Location> newResult(MockHttpServletRequest request, Location... locations) {
+		return new KeysetPagedResult<Location>(RestUtil.getRequestContext(request), Arrays.asList(locations)) {
+			
+			@Override
+			protected String[] getPosition(Location location) {
+				return new String[] { location.getName(), null, location.getLocationId().toString() };
+			}
+		};
+	}
+	
+	@SuppressWarnings("unchecked")
+	private String getNextLink(SimpleObject page) {
+		List<Map<String, Object>> links = (List<Map<String, Object>>) page.get("links");
+		Assert.assertEquals("next", links.get(0).get("rel"));
+		return (String) links.get(0).get("uri");
+	}
+}
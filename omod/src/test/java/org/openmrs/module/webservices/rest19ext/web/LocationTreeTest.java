@@ -0,0 +1,106 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestUtil;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+
+/**
+ * Tests {@link LocationTree}
+ */
+public class LocationTreeTest extends BaseModuleWebContextSensitiveTest {
+	
+	private LocationTree tree = new LocationTree();
+	
+	private Location facility;
+	
+	private Location ward;
+	
+	private Location bed;
+	
+	private Location closedWard;
+	
+	@Before
+	public void before() throws Exception {
+		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
+		facility = Context.getLocationService().getLocationByUuid(Rest19ExtTestConstants.LOCATION_UUID);
+		ward = Rest19ExtTestUtil.saveLocation("Ward A", facility);
+		bed = Rest19ExtTestUtil.saveLocation("Bed 1", ward);
+		closedWard = Rest19ExtTestUtil.saveLocation("Ward B", facility);
+		Context.getLocationService().retireLocation(closedWard, "closed");
+	}
+	
+	/**
+	 * @see LocationTree#getChildIds(Location,boolean)
+	 * @verifies get the children of the location and of its descendants
+	 */
+	@Test
+	public void getChildIds_shouldGetTheChildrenOfTheLocationAndOfItsDescendants() throws Exception {
+		Map<Integer, List<Integer>> childIds = tree.getChildIds(facility, false);
+		Assert.assertEquals(Arrays.asList(ward.getLocationId()), childIds.get(facility.getLocationId()));
+		Assert.assertEquals(Arrays.asList(bed.getLocationId()), childIds.get(ward.getLocationId()));
+		Assert.assertEquals(2, childIds.size());
+	}
+	
+	/**
+	 * @see LocationTree#getChildIds(Location,boolean)
+	 * @verifies leave out the retired locations unless asked to include them
+	 */
+	@Test
+	public void getChildIds_shouldLeaveOutTheRetiredLocationsUnlessAskedToIncludeThem() throws Exception {
+		Assert.assertFalse(tree.getChildIds(facility, false).get(facility.getLocationId()).contains(
+		    closedWard.getLocationId()));
+		Assert.assertEquals(Arrays.asList(ward.getLocationId(), closedWard.getLocationId()), tree.getChildIds(facility,
+		    true).get(facility.getLocationId()));
+	}
+	
+	/**
+	 * @see LocationTree#getChildIds(Location,boolean)
+	 * @verifies pick up locations added after it was built
+	 */
+	@Test
+	public void getChildIds_shouldPickUpLocationsAddedAfterItWasBuilt() throws Exception {
+		tree.getChildIds(facility, false);
+		Location secondBed = Rest19ExtTestUtil.saveLocation("Bed 2", ward);
+		Assert.assertEquals(Arrays.asList(bed.getLocationId(), secondBed.getLocationId()), tree.getChildIds(facility,
+		    false).get(ward.getLocationId()));
+	}
+	
+	/**
+	 * @see LocationTree#getDescendantIds(Location,boolean)
+	 * @verifies get all locations below the location
+	 */
+	@Test
+	public void getDescendantIds_shouldGetAllLocationsBelowTheLocation() throws Exception {
+		Assert.assertEquals(Arrays.asList(ward.getLocationId(), bed.getLocationId()), tree
+		        .getDescendantIds(facility, false));
+	}
+	
+	/**
+	 * @see LocationTree#getAncestorIds(Location)
+	 * @verifies get the locations above the location
+	 */
+	@Test
+	public void getAncestorIds_shouldGetTheLocationsAboveTheLocation() throws Exception {
+		Assert.assertEquals(Arrays.asList(ward.getLocationId(), facility.getLocationId()), tree.getAncestorIds(bed));
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.VisitType;
+import org.openmrs.api.VisitService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+
+/**
+ * Tests {@link MetadataCache}
+ */
+public class MetadataCacheTest extends BaseModuleWebContextSensitiveTest {
+	
+	private VisitService service;
+	
+	private int loads;
+	
+	@Before
+	public void before() throws Exception {
+		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
+		service = Context.getVisitService();
+	}
+	
+	/**
+	 * @see MetadataCache#getByUuid(String)
+	 * @verifies return null for an item purged since the index was built
+	 */
+	@Test
+	public void getByUuid_shouldReturnNullForAnItemPurgedSinceTheIndexWasBuilt() throws Exception {
+		VisitType visitType = service.saveVisitType(new VisitType("Purged soon", null));
+		MetadataCache<VisitType> cache = newCache(MetadataCache.CHECK_INTERVAL);
+		Assert.assertNotNull(cache.getByUuid(visitType.getUuid()));
+		
+		service.purgeVisitType(visitType);
+		Assert.assertNull(cache.getByUuid(visitType.getUuid()));
+	}
+	
+	/**
+	 * @see MetadataCache#getByName(String)
+	 * @verifies find an item saved elsewhere once the index is checked again
+	 */
+	@Test
+	public void getByName_shouldFindAnItemSavedElsewhereOnceTheIndexIsCheckedAgain() throws Exception {
+		MetadataCache<VisitType> cache = newCache(0);
+		Assert.assertNull(cache.getByName("Saved elsewhere"));
+		
+		VisitType visitType = service.saveVisitType(new VisitType("Saved Elsewhere", null));
+		Assert.assertEquals(visitType, cache.getByName("saved elsewhere"));
+		Assert.assertEquals(2, loads);
+		
+		//nothing changed since, so the index is kept
+		cache.getByName("saved elsewhere");
+		Assert.assertEquals(2, loads);
+	}
+	
+	/**
+	 * @see MetadataCache#invalidate()
+	 * @verifies not keep an index whose loading overlapped the call
+	 */
+	@Test
+	public void invalidate_shouldNotKeepAnIndexWhoseLoadingOverlappedTheCall() throws Exception {
+		MetadataCache<VisitType> cache = new MetadataCache<VisitType>(VisitType.class) {
+			
+			@Override
+			protected List<VisitType> loadAll() {
+				List<VisitType> visitTypes = service.getAllVisitTypes();
+				//stands in for a save on another thread while the index is loaded
+				if (++loads == 1)
+					invalidate();
+				return visitTypes;
+			}
+		};
+		Assert.assertNotNull(cache.getByUuid(Rest19ExtTestConstants.VISIT_TYPE_UUID));
+		Assert.assertNotNull(cache.getByUuid(Rest19ExtTestConstants.VISIT_TYPE_UUID));
+		Assert.assertEquals(2, loads);
+		Assert.assertNotNull(cache.getByUuid(Rest19ExtTestConstants.VISIT_TYPE_UUID));
+		Assert.assertEquals(2, loads);
+	}
+	
+	private MetadataCache<VisitType> newCache(long checkInterval) {
+		return new MetadataCache<VisitType>(VisitType.class, checkInterval) {
+			
+			@Override
+			protected List<VisitType> loadAll() {
+				loads++;
+				return service.getAllVisitTypes();
+			}
+		};
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.Visit;
+import org.openmrs.VisitType;
+import org.openmrs.module.webservices.rest.web.annotation.PropertyGetter;
+
+/**
+ * Tests {@link PropertyAccessors}
+ */
+public class PropertyAccessorsTest {
+	
+	public static class ResourceWithGetter {
+		
+		@PropertyGetter("location")
+		public static Object getLocation(Visit visit) {
+			return null;
+		}
+	}
+	
+	/**
+	 * @see PropertyAccessors#find(Object, String)
+	 */
+	@Test
+	public void find_shouldReadTheValueOfAProperty() throws Exception {
+		Visit visit = new Visit();
+		visit.setVisitType(new VisitType());
+		Assert.assertSame(visit.getVisitType(), new PropertyAccessors(Object.class).find(visit, "visitType").get(visit));
+	}
+	
+	/**
+	 * @see PropertyAccessors#find(Object, String)
+	 */
+	@Test
+	public void find_shouldReadNestedPropertiesAndStopAtNull() throws Exception {
+		PropertyAccessors accessors = new PropertyAccessors(Object.class);
+		Visit visit = new Visit();
+		Assert.assertNull(accessors.find(visit, "location.name").get(visit));
+		visit.setLocation(new Location());
+		visit.getLocation().setName("Clinic");
+		Assert.assertEquals("Clinic", accessors.find(visit, "location.name").get(visit));
+	}
+	
+	/**
+	 * @see PropertyAccessors#find(Object, String)
+	 */
+	@Test
+	public void find_shouldReturnNullForPropertiesWithoutAGetter() throws Exception {
+		Assert.assertNull(new PropertyAccessors(Object.class).find(new Visit(), "noSuchProperty"));
+	}
+	
+	/**
+	 * @see PropertyAccessors#find(Object, String)
+	 */
+	@Test
+	public void find_shouldLeavePropertiesWithAPropertyGetterToTheResource() throws Exception {
+		Assert.assertNull(new PropertyAccessors(ResourceWithGetter.class).find(new Visit(), "location"));
+	}
+}
@@ -0,0 +1,90 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.api.APIException;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests {@link StreamingPagedResult}
+ */
+public class StreamingPagedResultTest extends BaseModuleWebContextSensitiveTest {
+	
+	/**
+	 * @see StreamingPagedResult#write(javax.servlet.http.HttpServletResponse)
+	 * @verifies fail without writing anything if the first chunk fails
+	 */
+	@Test
+	public void write_shouldFailWithoutWritingAnythingIfTheFirstChunkFails() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			failingAfter(0).write(response);
+			Assert.fail("the failure of the first chunk should have been thrown");
+		}
+		catch (APIException expected) {
+			Assert.assertFalse(response.isCommitted());
+			Assert.assertEquals(0, response.getContentAsByteArray().length);
+		}
+	}
+	
+	/**
+	 * @see StreamingPagedResult#write(javax.servlet.http.HttpServletResponse)
+	 * @verifies end the page with an error if a later chunk fails
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void write_shouldEndThePageWithAnErrorIfALaterChunkFails() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		failingAfter(1).write(response);
+		
+		SimpleObject page = new ObjectMapper().readValue(response.getContentAsString(), SimpleObject.class);
+		Assert.assertEquals(StreamingPagedResult.CHUNK_SIZE, ((List<Object>) page.get("results")).size());
+		Assert.assertNotNull(((Map<String, Object>) page.get("error")).get("message"));
+		Assert.assertNull(page.get("links"));
+	}
+	
+	/**
+	 * @return a result that fetches full chunks of the same location and fails after the given
+	 *         number of them
+	 */
+	private StreamingPagedResult<Location> failingAfter(final int chunks) {
+		final Location location = Context.getLocationService().getLocation(1);
+		return new StreamingPagedResult<Location>(RestUtil.getRequestContext(new MockHttpServletRequest())) {
+			
+			private int fetched;
+			
+			@Override
+			protected List<Location> fetch(int firstResult, int maxResults) {
+				if (fetched++ == chunks)
+					throw new APIException("the database went away");
+				List<Location> chunk = new ArrayList<Location>();
+				for (int i = 0; i < maxResults; i++) {
+					chunk.add(location);
+				}
+				return chunk;
+			}
+		};
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.RestUtil;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Tests {@link UuidsPagedResult}
+ */
+public class UuidsPagedResultTest extends BaseModuleWebContextSensitiveTest {
+	
+	/**
+	 * @see UuidsPagedResult#parse(String)
+	 * @verifies get the uuids in the order they are listed
+	 */
+	@Test
+	public void parse_shouldGetTheUuidsInTheOrderTheyAreListed() throws Exception {
+		Assert.assertEquals(Arrays.asList("c", "a", "b"), UuidsPagedResult.parse("c,a,b"));
+	}
+	
+	/**
+	 * @see UuidsPagedResult#parse(String)
+	 * @verifies leave out blanks and duplicates
+	 */
+	@Test
+	public void parse_shouldLeaveOutBlanksAndDuplicates() throws Exception {
+		Assert.assertEquals(Arrays.asList("a", "b"), UuidsPagedResult.parse(" a,,b, ,a"));
+	}
+	
+	/**
+	 * @see UuidsPagedResult#parse(String)
+	 * @verifies fail if more than the maximum number of uuids are listed
+	 */
+	@Test(expected = ConversionException.class)
+	public void parse_shouldFailIfMoreThanTheMaximumNumberOfUuidsAreListed() throws Exception {
+		String[] uuids = new String[UuidsPagedResult.MAX_UUIDS + 1];
+		for (int i = 0; i < uuids.length; i++) {
+			uuids[i] = String.valueOf(i);
+		}
+		UuidsPagedResult.parse(StringUtils.join(uuids, ","));
+	}
+	
+	/**
+	 * @see UuidsPagedResult#toSimpleObject()
+	 * @verifies write the objects in the order of the uuids
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void toSimpleObject_shouldWriteTheObjectsInTheOrderOfTheUuids() throws Exception {
+		Location first = Context.getLocationService().getLocation(1);
+		Location second = Context.getLocationService().getLocation(2);
+		List<String> uuids = Arrays.asList(second.getUuid(), first.getUuid());
+		SimpleObject result = new UuidsPagedResult<Location>(RestUtil.getRequestContext(new MockHttpServletRequest()),
+		        uuids, Arrays.asList(first, second)).toSimpleObject();
+		List<Map<String, Object>> results = (List<Map<String, Object>>) result.get("results");
+		Assert.assertEquals(second.getUuid(), results.get(0).get("uuid"));
+		Assert.assertEquals(first.getUuid(), results.get(1).get("uuid"));
+		Assert.assertTrue(((List<String>) result.get("missing")).isEmpty());
+	}
+	
+	/**
+	 * @see UuidsPagedResult#toSimpleObject()
+	 * @verifies list the uuids no object was found for
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void toSimpleObject_shouldListTheUuidsNoObjectWasFoundFor() throws Exception {
+		Location location = Context.getLocationService().getLocation(1);
+		List<String> uuids = Arrays.asList("no-such-location", location.getUuid());
+		SimpleObject result = new UuidsPagedResult<Location>(RestUtil.getRequestContext(new MockHttpServletRequest()),
+		        uuids, Arrays.asList(location)).toSimpleObject();
+		Assert.assertEquals(1, ((List<Object>) result.get("results")).size());
+		Assert.assertEquals(Arrays.asList("no-such-location"), result.get("missing"));
+	}
+}
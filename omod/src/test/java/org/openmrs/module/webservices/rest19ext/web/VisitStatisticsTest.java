@@ -0,0 +1,159 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.Patient;
+import org.openmrs.Visit;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+
+/**
+ * Tests {@link VisitStatistics}
+ */
+public class VisitStatisticsTest extends BaseModuleWebContextSensitiveTest {
+	
+	private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+	
+	private VisitStatistics statistics = new VisitStatistics();
+	
+	private Location ward;
+	
+	private Date from;
+	
+	private Date to;
+	
+	@Before
+	public void before() throws Exception {
+		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
+		ward = new Location();
+		ward.setName("Ward A");
+		Context.getLocationService().saveLocation(ward);
+		from = DATE_FORMAT.parse("2020-06-01 00:00");
+		to = DATE_FORMAT.parse("2020-06-15 00:00");
+		
+		//2020-06-01 is a monday
+		saveVisit("2020-06-01 09:00");
+		saveVisit("2020-06-01 10:30");
+		saveVisit("2020-06-03 09:00");
+		saveVisit("2020-06-08 09:00");
+		saveVisit("2020-06-15 09:00");
+	}
+	
+	private void saveVisit(String startDatetime) throws Exception {
+		Patient patient = Context.getPatientService().getPatientByUuid("5946f880-b197-400b-9caa-a3c661d23041");
+		Visit visit = new Visit(patient, Context.getVisitService().getVisitTypeByUuid(
+		    Rest19ExtTestConstants.VISIT_TYPE_UUID), DATE_FORMAT.parse(startDatetime));
+		visit.setLocation(ward);
+		Context.getVisitService().saveVisit(visit);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<SimpleObject> getCounts(String interval) {
+		return (List<SimpleObject>) statistics.get(from, to, interval).get("counts");
+	}
+	
+	/**
+	 * @see VisitStatistics#get(Date,Date,String)
+	 * @verifies count the visits by visit type, location and interval
+	 */
+	@Test
+	public void get_shouldCountTheVisitsByVisitTypeLocationAndInterval() throws Exception {
+		List<SimpleObject> days = getCounts(VisitStatistics.INTERVAL_DAY);
+		Assert.assertEquals(3, days.size());
+		Assert.assertEquals(Rest19ExtTestConstants.VISIT_TYPE_UUID, days.get(0).get("visitType"));
+		Assert.assertEquals(ward.getUuid(), days.get(0).get("location"));
+		Assert.assertEquals(2L, days.get(0).get("count"));
+		Assert.assertEquals(1L, days.get(1).get("count"));
+		Assert.assertEquals(1L, days.get(2).get("count"));
+		
+		Assert.assertEquals(4, getCounts(VisitStatistics.INTERVAL_HOUR).size());
+	}
+	
+	/**
+	 * @see VisitStatistics#get(Date,Date,String)
+	 * @verifies add up the days of a week
+	 */
+	@Test
+	public void get_shouldAddUpTheDaysOfAWeek() throws Exception {
+		List<SimpleObject> weeks = getCounts(VisitStatistics.INTERVAL_WEEK);
+		Assert.assertEquals(2, weeks.size());
+		Assert.assertEquals(3L, weeks.get(0).get("count"));
+		Assert.assertEquals(1L, weeks.get(1).get("count"));
+	}
+	
+	/**
+	 * @see VisitStatistics#get(Date,Date,String)
+	 * @verifies count the visits only once while they are cached
+	 */
+	@Test
+	public void get_shouldCountTheVisitsOnlyOnceWhileTheyAreCached() throws Exception {
+		Assert.assertEquals(3, getCounts(VisitStatistics.INTERVAL_DAY).size());
+		saveVisit("2020-06-02 09:00");
+		Assert.assertEquals(3, getCounts(VisitStatistics.INTERVAL_DAY).size());
+		//the counts by hour are not cached yet
+		Assert.assertEquals(5, getCounts(VisitStatistics.INTERVAL_HOUR).size());
+	}
+	
+	/**
+	 * @see VisitStatistics#get(Date,Date,String)
+	 * @verifies fail for an unknown interval
+	 */
+	@Test(expected = ConversionException.class)
+	public void get_shouldFailForAnUnknownInterval() throws Exception {
+		statistics.get(from, to, "month");
+	}
+	
+	/**
+	 * @see VisitStatistics#get(Date,Date,String)
+	 * @verifies convert the cached counts for every call
+	 */
+	@Test
+	public void get_shouldConvertTheCachedCountsForEveryCall() throws Exception {
+		SimpleObject counts = statistics.get(from, to, VisitStatistics.INTERVAL_DAY);
+		SimpleObject cached = statistics.get(from, to, VisitStatistics.INTERVAL_DAY);
+		Assert.assertNotSame(counts, cached);
+		Assert.assertNotSame(counts.get("locations"), cached.get("locations"));
+		Assert.assertEquals(counts.get("counts"), cached.get("counts"));
+	}
+	
+	/**
+	 * @see VisitStatistics#get(Date,Date,String)
+	 * @verifies fail without a range
+	 */
+	@Test(expected = ConversionException.class)
+	public void get_shouldFailWithoutARange() throws Exception {
+		statistics.get(from, null, VisitStatistics.INTERVAL_DAY);
+	}
+	
+	/**
+	 * @see VisitStatistics#get(Date,Date,String)
+	 * @verifies fail for a range of more than the maximum number of intervals
+	 */
+	@Test(expected = ConversionException.class)
+	public void get_shouldFailForARangeOfMoreThanTheMaximumNumberOfIntervals() throws Exception {
+		Date lastHour = new Date(from.getTime() + VisitStatistics.MAX_INTERVALS * 3600000L);
+		Assert.assertNotNull(statistics.get(from, lastHour, VisitStatistics.INTERVAL_HOUR));
+		statistics.get(from, new Date(lastHour.getTime() + 1), VisitStatistics.INTERVAL_HOUR);
+	}
+}
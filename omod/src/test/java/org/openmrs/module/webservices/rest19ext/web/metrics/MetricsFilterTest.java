@@ -0,0 +1,132 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests {@link MetricsFilter}
+ */
+public class MetricsFilterTest {
+	
+	private MetricsFilter filter = new MetricsFilter();
+	
+	private FilterChain chain = new FilterChain() {
+		
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+			response.getWriter().write("{\"results\":[]}");
+		}
+	};
+	
+	@Before
+	public void before() {
+		RestMetrics.getInstance().reset();
+	}
+	
+	private MockHttpServletRequest newRequest(String method, String uri) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		request.setContextPath("/openmrs");
+		return request;
+	}
+	
+	/**
+	 * @see MetricsFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies record the latency queries and size of a request
+	 */
+	@Test
+	public void doFilter_shouldRecordTheLatencyQueriesAndSizeOfARequest() throws Exception {
+		MockHttpServletRequest request = newRequest("GET", "/openmrs/ws/rest/v1/visit");
+		request.addParameter("patient", "da7f524f-27ce-4bb2-86d6-6d1d05312bd5");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		
+		Assert.assertEquals("{\"results\":[]}", response.getContentAsString());
+		OperationStatistics statistics = RestMetrics.getInstance().getOperations().get("v1/visit search");
+		Assert.assertEquals(1, statistics.getCount());
+		Assert.assertEquals(0, statistics.getQueries());
+		Assert.assertEquals(response.getContentAsByteArray().length, statistics.getBytes());
+	}
+	
+	/**
+	 * @see MetricsFilter#doFilter(javax.servlet.ServletRequest,javax.servlet.ServletResponse,javax.servlet.FilterChain)
+	 * @verifies pass on requests that are not for a resource without recording them
+	 */
+	@Test
+	public void doFilter_shouldPassOnRequestsThatAreNotForAResourceWithoutRecordingThem() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(newRequest("GET", "/openmrs/ws/rest"), response, chain);
+		Assert.assertEquals("{\"results\":[]}", response.getContentAsString());
+		Assert.assertTrue(RestMetrics.getInstance().getOperations().isEmpty());
+	}
+	
+	/**
+	 * @see MetricsFilter#getOperation(javax.servlet.http.HttpServletRequest)
+	 * @verifies leave out the uuids of the path
+	 */
+	@Test
+	public void getOperation_shouldLeaveOutTheUuidsOfThePath() throws Exception {
+		Assert.assertEquals("v1/visit/attribute retrieve", MetricsFilter.getOperation(newRequest("GET",
+		    "/openmrs/ws/rest/v1/visit/abc/attribute/def")));
+		Assert.assertEquals("v1/visit/attribute getAll", MetricsFilter.getOperation(newRequest("GET",
+		    "/openmrs/ws/rest/v1/visit/abc/attribute")));
+		Assert.assertEquals("v1/visit update", MetricsFilter.getOperation(newRequest("POST", "/openmrs/ws/rest/v1/visit/abc")));
+		Assert.assertEquals("v1/visit create", MetricsFilter.getOperation(newRequest("POST", "/openmrs/ws/rest/v1/visit")));
+	}
+	
+	/**
+	 * @see MetricsFilter#getOperation(javax.servlet.http.HttpServletRequest)
+	 * @verifies record the operations that are not on a resource by their path
+	 */
+	@Test
+	public void getOperation_shouldRecordTheOperationsThatAreNotOnAResourceByTheirPath() throws Exception {
+		Assert.assertEquals("v1/visit/stats GET", MetricsFilter.getOperation(newRequest("GET",
+		    "/openmrs/ws/rest/v1/visit/stats")));
+		Assert.assertEquals("v1/rest19ext/metrics GET", MetricsFilter.getOperation(newRequest("GET",
+		    "/openmrs/ws/rest/v1/rest19ext/metrics/")));
+		Assert.assertEquals("v1/rest19ext/metrics/cache GET", MetricsFilter.getOperation(newRequest("GET",
+		    "/openmrs/ws/rest/v1/rest19ext/metrics/cache")));
+	}
+	
+	/**
+	 * @see MetricsFilter.CountingResponse#getOutputStream()
+	 * @verifies fail if the writer has been used
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void getOutputStream_shouldFailIfTheWriterHasBeenUsed() throws Exception {
+		MetricsFilter.CountingResponse response = new MetricsFilter.CountingResponse(new MockHttpServletResponse());
+		response.getWriter();
+		response.getOutputStream();
+	}
+	
+	/**
+	 * @see MetricsFilter.CountingResponse#getWriter()
+	 * @verifies fail if the output stream has been used
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void getWriter_shouldFailIfTheOutputStreamHasBeenUsed() throws Exception {
+		MetricsFilter.CountingResponse response = new MetricsFilter.CountingResponse(new MockHttpServletResponse());
+		response.getOutputStream();
+		response.getWriter();
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.metrics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link RestMetrics}
+ */
+public class RestMetricsTest {
+	
+	private RestMetrics metrics = RestMetrics.getInstance();
+	
+	@Before
+	public void before() {
+		metrics.reset();
+	}
+	
+	/**
+	 * @see RestMetrics#record(String,long,long,long,long,long)
+	 * @verifies count the requests of an operation
+	 */
+	@Test
+	public void record_shouldCountTheRequestsOfAnOperation() throws Exception {
+		metrics.record("v1/visit search", 10, 4, 1, 3, 100);
+		metrics.record("v1/visit search", 30, 8, 3, 5, 300);
+		OperationStatistics statistics = metrics.getOperations().get("v1/visit search");
+		Assert.assertEquals(2, statistics.getCount());
+		Assert.assertEquals(20, statistics.getMeanLatencyMillis(), 0);
+		Assert.assertEquals(30, statistics.getMaxLatencyMillis());
+		Assert.assertEquals(8, statistics.getQueries());
+		Assert.assertEquals(400, statistics.getBytes());
+	}
+	
+	/**
+	 * @see RestMetrics#record(String,long,long,long,long,long)
+	 * @verifies put the latency in the first bucket whose bound it does not exceed
+	 */
+	@Test
+	public void record_shouldPutTheLatencyInTheFirstBucketWhoseBoundItDoesNotExceed() throws Exception {
+		long[] bounds = metrics.getLatencyBoundsMillis();
+		metrics.record("v1/visit retrieve", bounds[1], 0, 0, 0, 0);
+		metrics.record("v1/visit retrieve", bounds[bounds.length - 1] + 1, 0, 0, 0, 0);
+		long[] histogram = metrics.getOperations().get("v1/visit retrieve").getLatencyHistogram();
+		Assert.assertEquals(bounds.length + 1, histogram.length);
+		Assert.assertEquals(1, histogram[1]);
+		Assert.assertEquals(1, histogram[bounds.length]);
+	}
+	
+	/**
+	 * @see RestMetrics#record(String,long,long,long,long,long)
+	 * @verifies record the operations beyond the maximum as other
+	 */
+	@Test
+	public void record_shouldRecordTheOperationsBeyondTheMaximumAsOther() throws Exception {
+		for (int i = 0; i <= RestMetrics.MAX_OPERATIONS; i++) {
+			metrics.record("v1/resource" + i + " getAll", 1, 0, 0, 0, 0);
+		}
+		Assert.assertEquals(RestMetrics.MAX_OPERATIONS + 1, metrics.getOperations().size());
+		Assert.assertEquals(1, metrics.getOperations().get(RestMetrics.OTHER).getCount());
+	}
+	
+	/**
+	 * @see RestMetrics#record(String,long,long,long,long,long)
+	 * @verifies attribute the rest of the latency to conversion
+	 */
+	@Test
+	public void record_shouldAttributeTheRestOfTheLatencyToConversion() throws Exception {
+		metrics.record("v1/visit search", 10, 4, 1, 3, 100);
+		metrics.record("v1/visit search", 30, 8, 3, 5, 300);
+		OperationStatistics statistics = metrics.getOperations().get("v1/visit search");
+		Assert.assertEquals(6, statistics.getMeanPersistenceMillis(), 0);
+		Assert.assertEquals(2, statistics.getMeanWritingMillis(), 0);
+		Assert.assertEquals(12, statistics.getMeanConversionMillis(), 0);
+	}
+	
+	/**
+	 * @see RestMetrics#recordRejection(String)
+	 * @verifies count the rejected requests of an operation
+	 */
+	@Test
+	public void recordRejection_shouldCountTheRejectedRequestsOfAnOperation() throws Exception {
+		metrics.recordRejection("v1/visit search");
+		metrics.record("v1/visit search", 1, 0, 0, 0, 100);
+		metrics.record("v1/visit search", 30, 8, 3, 5, 300);
+		OperationStatistics statistics = metrics.getOperations().get("v1/visit search");
+		Assert.assertEquals(1, statistics.getRejected());
+		Assert.assertEquals(2, statistics.getCount());
+		Assert.assertEquals(1L, statistics.toSimpleObject().get("rejected"));
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestUtil;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests functionality of {@link LocationController}.
+ */
+public class LocationControllerTest extends BaseModuleWebContextSensitiveTest {
+	
+	private LocationController controller;
+	
+	private Location ward;
+	
+	private Location bed;
+	
+	@Before
+	public void before() throws Exception {
+		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
+		controller = new LocationController();
+		Location facility = Context.getLocationService().getLocationByUuid(Rest19ExtTestConstants.LOCATION_UUID);
+		ward = Rest19ExtTestUtil.saveLocation("Ward A", facility);
+		bed = Rest19ExtTestUtil.saveLocation("Bed 1", ward);
+	}
+	
+	/**
+	 * @see LocationController#searchByAncestor(String,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies get the locations below the given location at any level
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void searchByAncestor_shouldGetTheLocationsBelowTheGivenLocationAtAnyLevel() throws Exception {
+		List<Map<String, Object>> results = (List<Map<String, Object>>) controller.searchByAncestor(
+		    Rest19ExtTestConstants.LOCATION_UUID, new MockHttpServletRequest(), new MockHttpServletResponse()).get(
+		    "results");
+		Assert.assertEquals(2, results.size());
+		Assert.assertEquals(ward.getUuid(), results.get(0).get("uuid"));
+		Assert.assertEquals(bed.getUuid(), results.get(1).get("uuid"));
+	}
+	
+	/**
+	 * @see LocationController#searchByDescendant(String,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies get the locations above the given location
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void searchByDescendant_shouldGetTheLocationsAboveTheGivenLocation() throws Exception {
+		List<Map<String, Object>> results = (List<Map<String, Object>>) controller.searchByDescendant(bed.getUuid(),
+		    new MockHttpServletRequest(), new MockHttpServletResponse()).get("results");
+		Assert.assertEquals(2, results.size());
+		Assert.assertEquals(ward.getUuid(), results.get(0).get("uuid"));
+		Assert.assertEquals(Rest19ExtTestConstants.LOCATION_UUID, results.get(1).get("uuid"));
+	}
+	
+	/**
+	 * @see LocationController#retrieveSubtree(String,javax.servlet.http.HttpServletRequest)
+	 * @verifies get the location with the locations below it
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void retrieveSubtree_shouldGetTheLocationWithTheLocationsBelowIt() throws Exception {
+		SimpleObject subtree = controller.retrieveSubtree(Rest19ExtTestConstants.LOCATION_UUID,
+		    new MockHttpServletRequest());
+		Assert.assertEquals(Rest19ExtTestConstants.LOCATION_UUID, subtree.get("uuid"));
+		List<Map<String, Object>> children = (List<Map<String, Object>>) subtree.get("children");
+		Assert.assertEquals(1, children.size());
+		Assert.assertEquals(ward.getUuid(), children.get(0).get("uuid"));
+		List<Map<String, Object>> grandchildren = (List<Map<String, Object>>) children.get(0).get("children");
+		Assert.assertEquals(bed.getUuid(), grandchildren.get(0).get("uuid"));
+		Assert.assertTrue(((List<?>) grandchildren.get(0).get("children")).isEmpty());
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
+
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openmrs.LocationAttributeType;
+import org.openmrs.ProviderAttributeType;
+import org.openmrs.VisitAttributeType;
+import org.openmrs.VisitType;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest19ext.web.metrics.RestMetrics;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class MetricsControllerTest extends BaseModuleWebContextSensitiveTest {
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	/**
+	 * @see MetricsController#getMetrics(javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies get the statistics of each operation and of the conversion cache
+	 */
+	@Test
+	public void getMetrics_shouldGetTheStatisticsOfEachOperationAndOfTheConversionCache() throws Exception {
+		RestMetrics.getInstance().reset();
+		RestMetrics.getInstance().record("v1/visit retrieve", 12, 5, 1, 2, 512);
+		SimpleObject metrics = new MetricsController().getMetrics(new MockHttpServletRequest(),
+		    new MockHttpServletResponse());
+		Assert.assertNotNull(((Map<?, ?>) metrics.get("operations")).get("v1/visit retrieve"));
+		Assert.assertNotNull(((Map<?, ?>) metrics.get("conversionCache")).get("hits"));
+		Assert.assertNotNull(metrics.get("latencyBoundsMillis"));
+	}
+	
+	/**
+	 * @see MetricsController#getCacheStatistics(javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies get the statistics of each cache region
+	 */
+	@Test
+	public void getCacheStatistics_shouldGetTheStatisticsOfEachCacheRegion() throws Exception {
+		Statistics statistics = sessionFactory.getStatistics();
+		statistics.setStatisticsEnabled(true);
+		try {
+			Context.getVisitService().getAllVisitTypes();
+			SimpleObject statisticsByRegion = new MetricsController().getCacheStatistics(new MockHttpServletRequest(),
+			    new MockHttpServletResponse());
+			Assert.assertEquals(true, statisticsByRegion.get("statisticsEnabled"));
+			Map<?, ?> regions = (Map<?, ?>) statisticsByRegion.get("regions");
+			for (String metadataType : new String[] { VisitType.class.getName(), VisitAttributeType.class.getName(),
+			        LocationAttributeType.class.getName(), ProviderAttributeType.class.getName() }) {
+				Map<?, ?> region = (Map<?, ?>) regions.get(metadataType);
+				Assert.assertNotNull(metadataType, region);
+				Assert.assertNotNull(region.get("hits"));
+				Assert.assertNotNull(region.get("misses"));
+			}
+		}
+		finally {
+			statistics.setStatisticsEnabled(false);
+		}
+	}
+	
+	/**
+	 * @see MetricsController#getCacheStatistics(javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies tell if statistics are not gathered
+	 */
+	@Test
+	public void getCacheStatistics_shouldTellIfStatisticsAreNotGathered() throws Exception {
+		sessionFactory.getStatistics().setStatisticsEnabled(false);
+		SimpleObject statisticsByRegion = new MetricsController().getCacheStatistics(new MockHttpServletRequest(),
+		    new MockHttpServletResponse());
+		Assert.assertEquals(false, statisticsByRegion.get("statisticsEnabled"));
+		Assert.assertNull(statisticsByRegion.get("regions"));
+		Assert.assertFalse(sessionFactory.getStatistics().isStatisticsEnabled());
+	}
+}
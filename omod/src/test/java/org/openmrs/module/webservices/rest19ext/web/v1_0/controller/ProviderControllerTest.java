@@ -1,186 +1,287 @@
-package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
-
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
-import javax.servlet.http.HttpServletResponse;
-
-import org.apache.commons.beanutils.PropertyUtils;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.junit.Assert;
-import org.junit.Before;
-import org.junit.Test;
-import org.openmrs.Provider;
-import org.openmrs.api.context.Context;
-import org.openmrs.module.webservices.rest.SimpleObject;
-import org.openmrs.module.webservices.rest.test.Util;
-import org.openmrs.module.webservices.rest.web.RestConstants;
-import org.openmrs.module.webservices.rest.web.response.ConversionException;
-import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudControllerTest;
-import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
-import org.springframework.mock.web.MockHttpServletRequest;
-import org.springframework.mock.web.MockHttpServletResponse;
-import org.springframework.web.context.request.WebRequest;
-
-public class ProviderControllerTest extends BaseCrudControllerTest {
-	
-	@Before
-	public void before() throws Exception {
-		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
-	}
-	
-	/**
-	 * @see ProviderController#createProvider(SimpleObject,WebRequest)
-	 * @verifies create a new Provider
-	 */
-	@Test
-	public void createProvider_shouldCreateANewProvider() throws Exception {
-		int before = Context.getProviderService().getAllProviders().size();
-		String json = "{ \"person\": \"da7f524f-27ce-4bb2-86d6-6d1d05312bd5\", \"identifier\":\"abc123ez\" }";
-		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
-		Object newProvider = new ProviderController().create(post, new MockHttpServletRequest(),
-		    new MockHttpServletResponse());
-		Util.log("Created Provider", newProvider);
-		Assert.assertEquals(before + 1, Context.getProviderService().getAllProviders().size());
-	}
-	
-	/**
-	 * @verifies create a new Provider with Attributes
-	 */
-	@Test
-	public void createProvider_shouldCreateANewProviderWithAttributes() throws Exception {
-		int before = Context.getProviderService().getAllProviders().size();
-		String json = "{ \"person\": \"da7f524f-27ce-4bb2-86d6-6d1d05312bd5\"," + "\"identifier\":\"abc123ez\","
-		        + "\"attributes\":[{\"attributeType\":\"" + Rest19ExtTestConstants.PROVIDER_ATTRIBUTE_TYPE_UUID
-		        + "\",\"value\":\"2005-01-01\"}]}";
-		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
-		Object newProvider = new ProviderController().create(post, new MockHttpServletRequest(),
-		    new MockHttpServletResponse());
-		Util.log("Created Provider", newProvider);
-		Assert.assertEquals(before + 1, Context.getProviderService().getAllProviders().size());
-		Provider provider = (Provider) Context.getProviderService().getAllProviders().get(1);
-		Assert.assertEquals(1, provider.getAttributes().size());
-	}
-	
-	/**
-	 * @see ProviderController#getProvider(Provider,WebRequest)
-	 * @verifies get a default representation of a Provider
-	 */
-	@Test
-	public void getProvider_shouldGetADefaultRepresentationOfAProvider() throws Exception {
-		Object result = new ProviderController()
-		        .retrieve(Rest19ExtTestConstants.PROVIDER_UUID, new MockHttpServletRequest());
-		Assert.assertNotNull(result);
-		Util.log("Provider fetched (default)", result);
-		Assert.assertEquals(Rest19ExtTestConstants.PROVIDER_UUID, PropertyUtils.getProperty(result, "uuid"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "identifier"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "person"));
-		Assert.assertNull(PropertyUtils.getProperty(result, "auditInfo"));
-	}
-	
-	/**
-	 * @see ProviderController#getProvider(String,WebRequest)
-	 * @verifies get a full representation of a Provider
-	 */
-	@Test
-	public void getProvider_shouldGetAFullRepresentationOfAProvider() throws Exception {
-		MockHttpServletRequest req = new MockHttpServletRequest();
-		req.addParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, RestConstants.REPRESENTATION_FULL);
-		Object result = new ProviderController().retrieve(Rest19ExtTestConstants.PROVIDER_UUID, req);
-		Assert.assertNotNull(result);
-		Assert.assertEquals(Rest19ExtTestConstants.PROVIDER_UUID, PropertyUtils.getProperty(result, "uuid"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "identifier"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "person"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "auditInfo"));
-		Util.log("Provider fetched (full)", result);
-	}
-	
-	/**
-	 * @see ProviderController#updateProvider(Provider,SimpleObject,WebRequest)
-	 * @verifies should fail when changing a person property on a Provider
-	 */
-	@Test(expected = ConversionException.class)
-	public void updateProvider_shouldFailWhenChangingAPersonPropertyOnAProvider() throws Exception {
-		Date now = new Date();
-		DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-		SimpleObject post = new ObjectMapper().readValue("{\"birthdate\":\"" + df.format(now) + "\"}", SimpleObject.class);
-		new ProviderController().update(Rest19ExtTestConstants.PROVIDER_UUID, post, new MockHttpServletRequest(),
-		    new MockHttpServletResponse());
-	}
-	
-	/**
-	 * @see ProviderController#voidProvider(Provider,String,WebRequest)
-	 * @verifies void a Provider
-	 */
-	@Test
-	public void voidProvider_shouldRetireAProvider() throws Exception {
-		Provider pat = Context.getProviderService().getProvider(2);
-		Assert.assertFalse(pat.isRetired());
-		new ProviderController().delete(Rest19ExtTestConstants.PROVIDER_UUID, "unit test", new MockHttpServletRequest(),
-		    new MockHttpServletResponse());
-		pat = Context.getProviderService().getProvider(2);
-		Assert.assertTrue(pat.isRetired());
-		Assert.assertEquals("unit test", pat.getRetireReason());
-	}
-	
-	/**
-	 * @see ProviderController#findProviders(String,WebRequest,HttpServletResponse)
-	 * @verifies return no results if there are no matching Providers
-	 */
-	@Test
-	public void findProviders_shouldReturnNoResultsIfThereAreNoMatchingProviders() throws Exception {
-		List<?> results = (List<?>) new ProviderController().search("zzzznobody", new MockHttpServletRequest(),
-		    new MockHttpServletResponse()).get("results");
-		Assert.assertEquals(0, results.size());
-	}
-	
-	/**
-	 * @see ProviderController#findProviders(String,WebRequest,HttpServletResponse)
-	 * @verifies find matching Providers
-	 */
-	@Test
-	public void findProviders_shouldFindMatchingProviders() throws Exception {
-		List<?> results = (List<?>) new ProviderController().search("Hornblower", new MockHttpServletRequest(),
-		    new MockHttpServletResponse()).get("results");
-		Assert.assertEquals(1, results.size());
-		Util.log("Found " + results.size() + " Provider(s)", results);
-		Object result = results.get(0);
-		Assert.assertEquals(Rest19ExtTestConstants.PROVIDER_UUID, PropertyUtils.getProperty(result, "uuid"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "links"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "display"));
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudControllerTest#getURI()
-	 */
-	@Override
-	public String getURI() {
-		return "provider";
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudControllerTest#getUuid()
-	 */
-	@Override
-	public String getUuid() {
-		return Rest19ExtTestConstants.PROVIDER_UUID;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudControllerTest#getAllCount()
-	 */
-	@Override
-	public long getAllCount() {
-		return 2;
-	}
-	
-	/**
-	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudControllerTest#shouldGetAll()
-	 */
-	@Override
-	@Test
-	public void shouldGetAll() throws Exception {
-		super.shouldGetAll();
-	}
-}
+package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Provider;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.test.Util;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudControllerTest;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.WebRequest;
+
+public class ProviderControllerTest extends BaseCrudControllerTest {
+	
+	@Before
+	public void before() throws Exception {
+		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
+	}
+	
+	/**
+	 * @see ProviderController#createProvider(SimpleObject,WebRequest)
+	 * @verifies create a new Provider
+	 */
+	@Test
+	public void createProvider_shouldCreateANewProvider() throws Exception {
+		int before = Context.getProviderService().getAllProviders().size();
+		String json = "{ \"person\": \"da7f524f-27ce-4bb2-86d6-6d1d05312bd5\", \"identifier\":\"abc123ez\" }";
+		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
+		Object newProvider = new ProviderController().create(post, new MockHttpServletRequest(),
+		    new MockHttpServletResponse());
+		Util.log("Created Provider", newProvider);
+		Assert.assertEquals(before + 1, Context.getProviderService().getAllProviders().size());
+	}
+	
+	/**
+	 * @verifies create a new Provider with Attributes
+	 */
+	@Test
+	public void createProvider_shouldCreateANewProviderWithAttributes() throws Exception {
+		int before = Context.getProviderService().getAllProviders().size();
+		String json = "{ \"person\": \"da7f524f-27ce-4bb2-86d6-6d1d05312bd5\"," + "\"identifier\":\"abc123ez\","
+		        + "\"attributes\":[{\"attributeType\":\"" + Rest19ExtTestConstants.PROVIDER_ATTRIBUTE_TYPE_UUID
+		        + "\",\"value\":\"2005-01-01\"}]}";
+		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
+		Object newProvider = new ProviderController().create(post, new MockHttpServletRequest(),
+		    new MockHttpServletResponse());
+		Util.log("Created Provider", newProvider);
+		Assert.assertEquals(before + 1, Context.getProviderService().getAllProviders().size());
+		Provider provider = (Provider) Context.getProviderService().getAllProviders().get(1);
+		Assert.assertEquals(1, provider.getAttributes().size());
+	}
+	
+	/**
+	 * @see ProviderController#getProvider(Provider,WebRequest)
+	 * @verifies get a default representation of a Provider
+	 */
+	@Test
+	public void getProvider_shouldGetADefaultRepresentationOfAProvider() throws Exception {
+		Object result = new ProviderController()
+		        .retrieve(Rest19ExtTestConstants.PROVIDER_UUID, new MockHttpServletRequest());
+		Assert.assertNotNull(result);
+		Util.log("Provider fetched (default)", result);
+		Assert.assertEquals(Rest19ExtTestConstants.PROVIDER_UUID, PropertyUtils.getProperty(result, "uuid"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "identifier"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "person"));
+		Assert.assertNull(PropertyUtils.getProperty(result, "auditInfo"));
+	}
+	
+	/**
+	 * @see ProviderController#getProvider(String,WebRequest)
+	 * @verifies get a full representation of a Provider
+	 */
+	@Test
+	public void getProvider_shouldGetAFullRepresentationOfAProvider() throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest();
+		req.addParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, RestConstants.REPRESENTATION_FULL);
+		Object result = new ProviderController().retrieve(Rest19ExtTestConstants.PROVIDER_UUID, req);
+		Assert.assertNotNull(result);
+		Assert.assertEquals(Rest19ExtTestConstants.PROVIDER_UUID, PropertyUtils.getProperty(result, "uuid"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "identifier"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "person"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "auditInfo"));
+		Util.log("Provider fetched (full)", result);
+	}
+	
+	/**
+	 * @see ProviderController#updateProvider(Provider,SimpleObject,WebRequest)
+	 * @verifies should fail when changing a person property on a Provider
+	 */
+	@Test(expected = ConversionException.class)
+	public void updateProvider_shouldFailWhenChangingAPersonPropertyOnAProvider() throws Exception {
+		Date now = new Date();
+		DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		SimpleObject post = new ObjectMapper().readValue("{\"birthdate\":\"" + df.format(now) + "\"}", SimpleObject.class);
+		new ProviderController().update(Rest19ExtTestConstants.PROVIDER_UUID, post, new MockHttpServletRequest(),
+		    new MockHttpServletResponse());
+	}
+	
+	/**
+	 * @see ProviderController#voidProvider(Provider,String,WebRequest)
+	 * @verifies void a Provider
+	 */
+	@Test
+	public void voidProvider_shouldRetireAProvider() throws Exception {
+		Provider pat = Context.getProviderService().getProvider(2);
+		Assert.assertFalse(pat.isRetired());
+		new ProviderController().delete(Rest19ExtTestConstants.PROVIDER_UUID, "unit test", new MockHttpServletRequest(),
+		    new MockHttpServletResponse());
+		pat = Context.getProviderService().getProvider(2);
+		Assert.assertTrue(pat.isRetired());
+		Assert.assertEquals("unit test", pat.getRetireReason());
+	}
+	
+	/**
+	 * @see ProviderController#findProviders(String,WebRequest,HttpServletResponse)
+	 * @verifies return no results if there are no matching Providers
+	 */
+	@Test
+	public void findProviders_shouldReturnNoResultsIfThereAreNoMatchingProviders() throws Exception {
+		List<?> results = (List<?>) new ProviderController().search("zzzznobody", new MockHttpServletRequest(),
+		    new MockHttpServletResponse()).get("results");
+		Assert.assertEquals(0, results.size());
+	}
+	
+	/**
+	 * @see ProviderController#findProviders(String,WebRequest,HttpServletResponse)
+	 * @verifies find matching Providers
+	 */
+	@Test
+	public void findProviders_shouldFindMatchingProviders() throws Exception {
+		List<?> results = (List<?>) new ProviderController().search("Hornblower", new MockHttpServletRequest(),
+		    new MockHttpServletResponse()).get("results");
+		Assert.assertEquals(1, results.size());
+		Util.log("Found " + results.size() + " Provider(s)", results);
+		Object result = results.get(0);
+		Assert.assertEquals(Rest19ExtTestConstants.PROVIDER_UUID, PropertyUtils.getProperty(result, "uuid"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "links"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "display"));
+	}
+	
+	/**
+	 * @see ProviderController#findProviders(String,WebRequest,HttpServletResponse)
+	 * @verifies not return retired Providers
+	 */
+	@Test
+	public void findProviders_shouldNotReturnRetiredProviders() throws Exception {
+		Provider provider = Context.getProviderService().getProviderByUuid(Rest19ExtTestConstants.PROVIDER_UUID);
+		Context.getProviderService().retireProvider(provider, "unit test");
+		List<?> results = (List<?>) new ProviderController().search("Hornblower", new MockHttpServletRequest(),
+		    new MockHttpServletResponse()).get("results");
+		Assert.assertEquals(0, results.size());
+	}
+	
+	/**
+	 * Walks the providers one per page, with providers that share an identifier and one without an
+	 * identifier so that the cursor has to break ties on the id and handle a null identifier
+	 * 
+	 * @see ProviderController#getAll(javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies continue from the cursor of the next link
+	 */
+	@Test
+	public void getAll_shouldContinueFromTheCursorOfTheNextLink() throws Exception {
+		Provider existing = Context.getProviderService().getProviderByUuid(Rest19ExtTestConstants.PROVIDER_UUID);
+		Provider sameIdentifier = saveProvider(existing.getIdentifier());
+		Provider withoutIdentifier = saveProvider(null);
+		Provider alsoSameIdentifier = saveProvider(existing.getIdentifier());
+		
+		List<String> uuids = walkAllProviders();
+		Assert.assertEquals(getAllCount() + 3, uuids.size());
+		Assert.assertEquals(uuids.size(), new HashSet<String>(uuids).size());
+		int index = uuids.indexOf(existing.getUuid());
+		Assert.assertTrue(uuids.indexOf(withoutIdentifier.getUuid()) < index);
+		Assert.assertEquals(sameIdentifier.getUuid(), uuids.get(index + 1));
+		Assert.assertEquals(alsoSameIdentifier.getUuid(), uuids.get(index + 2));
+	}
+	
+	/**
+	 * @see ProviderController#getAll(javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies fail if a start index is given
+	 */
+	@Test(expected = ConversionException.class)
+	public void getAll_shouldFailIfAStartIndexIsGiven() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_START_INDEX, "1");
+		new ProviderController().getAll(request, new MockHttpServletResponse());
+	}
+	
+	private Provider saveProvider(String identifier) {
+		Provider provider = new Provider();
+		provider.setIdentifier(identifier);
+		provider.setName("Cursor Test");
+		return Context.getProviderService().saveProvider(provider);
+	}
+	
+	/**
+	 * Follows the next links with a limit of one until the last page
+	 * 
+	 * @return the uuids of the providers in the order of the pages
+	 */
+	@SuppressWarnings("unchecked")
+	private List<String> walkAllProviders() throws Exception {
+		List<String> uuids = new ArrayList<String>();
+		String cursor = null;
+		do {
+			MockHttpServletRequest request = new MockHttpServletRequest();
+			request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_LIMIT, "1");
+			if (cursor != null)
+				request.addParameter("cursor", cursor);
+			SimpleObject page = new ProviderController().getAll(request, new MockHttpServletResponse());
+			List<Map<String, Object>> results = (List<Map<String, Object>>) page.get("results");
+			Assert.assertEquals(1, results.size());
+			uuids.add((String) results.get(0).get("uuid"));
+			
+			cursor = null;
+			List<Map<String, Object>> links = (List<Map<String, Object>>) page.get("links");
+			if (links != null) {
+				String next = (String) links.get(0).get("uri");
+				cursor = next.substring(next.indexOf("cursor=") + "cursor=".length());
+			}
+		} while (cursor != null);
+		return uuids;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudControllerTest#getURI()
+	 */
+	@Override
+	public String getURI() {
+		return "provider";
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudControllerTest#getUuid()
+	 */
+	@Override
+	public String getUuid() {
+		return Rest19ExtTestConstants.PROVIDER_UUID;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudControllerTest#getAllCount()
+	 */
+	@Override
+	public long getAllCount() {
+		return 2;
+	}
+	
+	/**
+	 * @see org.openmrs.module.webservices.rest.web.v1_0.controller.BaseCrudControllerTest#shouldGetAll()
+	 */
+	@Override
+	@Test
+	public void shouldGetAll() throws Exception {
+		super.shouldGetAll();
+	}
+	
+	/**
+	 * @see ProviderController#getByUuids(String,javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)
+	 * @verifies get the providers with the given uuids and list the missing ones
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void getByUuids_shouldGetTheProvidersWithTheGivenUuidsAndListTheMissingOnes() throws Exception {
+		SimpleObject result = new ProviderController().getByUuids("no-such-provider," + Rest19ExtTestConstants.PROVIDER_UUID,
+		    new MockHttpServletRequest(), new MockHttpServletResponse());
+		List<Map<String, Object>> results = (List<Map<String, Object>>) result.get("results");
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(Rest19ExtTestConstants.PROVIDER_UUID, results.get(0).get("uuid"));
+		Assert.assertEquals("no-such-provider", ((List<String>) result.get("missing")).get(0));
+	}
+}
@@ -1,172 +1,276 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License Version
- * 1.0 (the "License"); you may not use this file except in compliance with the
- * License. You may obtain a copy of the License at http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS" basis,
- * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
- * the specific language governing rights and limitations under the License.
- *
- * Copyright (C) OpenMRS, LLC. All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
-
-import javax.servlet.http.HttpServletResponse;
-
-import org.apache.commons.beanutils.PropertyUtils;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.junit.Assert;
-import org.junit.Before;
-import org.junit.Test;
-import org.openmrs.VisitAttributeType;
-import org.openmrs.api.VisitService;
-import org.openmrs.api.context.Context;
-import org.openmrs.module.webservices.rest.SimpleObject;
-import org.openmrs.module.webservices.rest.test.Util;
-import org.openmrs.module.webservices.rest.web.RestConstants;
-import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
-import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
-import org.springframework.mock.web.MockHttpServletRequest;
-import org.springframework.mock.web.MockHttpServletResponse;
-
-/**
- * Contains tests for {@link VisitAttributeTypeController} CRUD operations
- */
-public class VisitAttributeTypeControllerTest extends BaseModuleWebContextSensitiveTest {
-	
-	private VisitService service;
-	
-	private VisitAttributeTypeController controller;
-	
-	private MockHttpServletRequest emptyRequest() {
-		return new MockHttpServletRequest();
-	}
-	
-	private MockHttpServletResponse emptyResponse() {
-		return new MockHttpServletResponse();
-	}
-	
-	@Before
-	public void before() throws Exception {
-		service = Context.getVisitService();
-		controller = new VisitAttributeTypeController();
-		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
-	}
-	
-	/**
-	 * @see VisitAttributeTypeController#create(SimpleObject, javax.servlet.http.HttpServletRequest,
-	 *      HttpServletResponse)
-	 */
-	@Test
-	public void create_shouldCreateANewVisitAttributeType() throws Exception {
-		int before = service.getAllVisitAttributeTypes().size();
-		String json = "{ \"name\":\"Some attributeType\",\"description\":\"Attribute Type for visit\",\"datatypeClassname\":\"org.openmrs.customdatatype.datatype.FreeTextDatatype\"}";
-		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
-		Object visitAttributeType = controller.create(post, emptyRequest(), emptyResponse());
-		Assert.assertNotNull(visitAttributeType);
-		Assert.assertEquals(before + 1, service.getAllVisitAttributeTypes().size());
-	}
-	
-	/**
-	 * @see VisitAttributeTypeController#retrieve(String, javax.servlet.http.HttpServletRequest)
-	 */
-	@Test
-	public void retrieve_shouldGetADefaultRepresentationOfAVisitAttributeType() throws Exception {
-		Object result = controller.retrieve(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, emptyRequest());
-		Assert.assertNotNull(result);
-		Assert.assertEquals(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, PropertyUtils.getProperty(result, "uuid"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "name"));
-		Assert.assertNull(PropertyUtils.getProperty(result, "auditInfo"));
-	}
-	
-	/**
-	 * @see VisitAttributeTypeController#retrieve(String, javax.servlet.http.HttpServletRequest)
-	 */
-	@Test
-	public void retrieve_shouldGetAFullRepresentationOfAVisitAttributeType() throws Exception {
-		MockHttpServletRequest req = new MockHttpServletRequest();
-		req.addParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, RestConstants.REPRESENTATION_FULL);
-		Object result = controller.retrieve(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, req);
-		Assert.assertNotNull(result);
-		Assert.assertEquals(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, PropertyUtils.getProperty(result, "uuid"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "auditInfo"));
-	}
-	
-	/**
-	 * @see VisitAttributeTypeController#update(String, SimpleObject,
-	 *      javax.servlet.http.HttpServletRequest, HttpServletResponse)
-	 */
-	@Test
-	public void update_shouldChangeAPropertyOnAVisitAttributeType() throws Exception {
-		SimpleObject post = new ObjectMapper().readValue("{\"description\":\"Updated description\"}", SimpleObject.class);
-		controller.update(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, post, emptyRequest(), emptyResponse());
-		Assert.assertEquals("Updated description", service.getVisitAttributeType(1).getDescription());
-	}
-	
-	/**
-	 * @see VisitAttributeTypeController#delete(String, String,
-	 *      javax.servlet.http.HttpServletRequest, HttpServletResponse)
-	 */
-	@Test
-	public void delete_shouldRetireAVisitAttributeType() throws Exception {
-		VisitAttributeType visitAttributeType = service.getVisitAttributeType(1);
-		Assert.assertFalse(visitAttributeType.isRetired());
-		controller.delete(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, "test", emptyRequest(), emptyResponse());
-		visitAttributeType = service.getVisitAttributeType(1);
-		Assert.assertTrue(visitAttributeType.isRetired());
-		Assert.assertEquals("test", visitAttributeType.getRetireReason());
-	}
-	
-	/**
-	 * @see VisitAttributeTypeController#getAll(javax.servlet.http.HttpServletRequest,
-	 *      HttpServletResponse)
-	 */
-	@Test
-	public void getAll_shouldGellVisitAttributeTypesExcludingRetiredOnes() throws Exception {
-		Assert.assertEquals(3, Util.getResultsSize(controller.getAll(emptyRequest(), emptyResponse())));
-	}
-	
-	/**
-	 * @see VisitAttributeTypeController#getAll(javax.servlet.http.HttpServletRequest,
-	 *      HttpServletResponse)
-	 */
-	@Test
-	public void getAll_shouldGellVisitAttributeTypesIfIncludeAllIsSetToTrue() throws Exception {
-		MockHttpServletRequest request = emptyRequest();
-		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_INCLUDE_ALL, "true");
-		Assert.assertEquals(4, Util.getResultsSize(controller.getAll(request, emptyResponse())));
-	}
-	
-	/**
-	 * @see VisitAttributeTypeController#search(String, javax.servlet.http.HttpServletRequest,
-	 *      HttpServletResponse)
-	 */
-	@Test
-	public void search_shouldFindMatchingVisitAttributeTypesExcludingRetiredOnes() throws Exception {
-		Assert.assertEquals(2, Util.getResultsSize(controller.search("date", emptyRequest(), emptyResponse())));
-	}
-	
-	/**
-	 * @see VisitAttributeTypeController#search(String, javax.servlet.http.HttpServletRequest,
-	 *      HttpServletResponse)
-	 */
-	@Test
-	public void search_shouldFindAllMatchingVisitAttributeTypesIfIncludeAllIsSetToTrue() throws Exception {
-		MockHttpServletRequest request = emptyRequest();
-		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_INCLUDE_ALL, "true");
-		Assert.assertEquals(3, Util.getResultsSize(controller.search("date", request, emptyResponse())));
-	}
-	
-	/**
-	 * @See {@link VisitAttributeTypeController#purge(String, javax.servlet.http.HttpServletRequest, HttpServletResponse)}
-	 */
-	@Test
-	public void purge_shouldPurgeAVisitAttributeType() throws Exception {
-		final String visitAttributeTypeUuid = "6770f6d6-7673-11e0-8f03-001e378eb67g";
-		Assert.assertNotNull(service.getVisitAttributeTypeByUuid(visitAttributeTypeUuid));
-		int originalCount = service.getAllVisitAttributeTypes().size();
-		controller.purge(visitAttributeTypeUuid, emptyRequest(), emptyResponse());
-		Assert.assertNull(service.getVisitAttributeTypeByUuid(visitAttributeTypeUuid));
-		Assert.assertEquals(originalCount - 1, service.getAllVisitAttributeTypes().size());
-	}
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.VisitAttributeType;
+import org.openmrs.api.VisitService;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.ContextAuthenticationException;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.test.Util;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Contains tests for {@link VisitAttributeTypeController} CRUD operations
+ */
+public class VisitAttributeTypeControllerTest extends BaseModuleWebContextSensitiveTest {
+	
+	private VisitService service;
+	
+	private VisitAttributeTypeController controller;
+	
+	private MockHttpServletRequest emptyRequest() {
+		return new MockHttpServletRequest();
+	}
+	
+	private MockHttpServletResponse emptyResponse() {
+		return new MockHttpServletResponse();
+	}
+	
+	@Before
+	public void before() throws Exception {
+		service = Context.getVisitService();
+		controller = new VisitAttributeTypeController();
+		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#create(SimpleObject, javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 */
+	@Test
+	public void create_shouldCreateANewVisitAttributeType() throws Exception {
+		int before = service.getAllVisitAttributeTypes().size();
+		String json = "{ \"name\":\"Some attributeType\",\"description\":\"Attribute Type for visit\",\"datatypeClassname\":\"org.openmrs.customdatatype.datatype.FreeTextDatatype\"}";
+		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
+		Object visitAttributeType = controller.create(post, emptyRequest(), emptyResponse());
+		Assert.assertNotNull(visitAttributeType);
+		Assert.assertEquals(before + 1, service.getAllVisitAttributeTypes().size());
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#retrieve(String, javax.servlet.http.HttpServletRequest)
+	 */
+	@Test
+	public void retrieve_shouldGetADefaultRepresentationOfAVisitAttributeType() throws Exception {
+		Object result = controller.retrieve(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, emptyRequest());
+		Assert.assertNotNull(result);
+		Assert.assertEquals(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, PropertyUtils.getProperty(result, "uuid"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "name"));
+		Assert.assertNull(PropertyUtils.getProperty(result, "auditInfo"));
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#retrieve(String, javax.servlet.http.HttpServletRequest)
+	 */
+	@Test
+	public void retrieve_shouldGetAFullRepresentationOfAVisitAttributeType() throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest();
+		req.addParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, RestConstants.REPRESENTATION_FULL);
+		Object result = controller.retrieve(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, req);
+		Assert.assertNotNull(result);
+		Assert.assertEquals(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, PropertyUtils.getProperty(result, "uuid"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "auditInfo"));
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#update(String, SimpleObject,
+	 *      javax.servlet.http.HttpServletRequest, HttpServletResponse)
+	 */
+	@Test
+	public void update_shouldChangeAPropertyOnAVisitAttributeType() throws Exception {
+		SimpleObject post = new ObjectMapper().readValue("{\"description\":\"Updated description\"}", SimpleObject.class);
+		controller.update(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, post, emptyRequest(), emptyResponse());
+		Assert.assertEquals("Updated description", service.getVisitAttributeType(1).getDescription());
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#delete(String, String,
+	 *      javax.servlet.http.HttpServletRequest, HttpServletResponse)
+	 */
+	@Test
+	public void delete_shouldRetireAVisitAttributeType() throws Exception {
+		VisitAttributeType visitAttributeType = service.getVisitAttributeType(1);
+		Assert.assertFalse(visitAttributeType.isRetired());
+		controller.delete(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, "test", emptyRequest(), emptyResponse());
+		visitAttributeType = service.getVisitAttributeType(1);
+		Assert.assertTrue(visitAttributeType.isRetired());
+		Assert.assertEquals("test", visitAttributeType.getRetireReason());
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#getAll(javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 */
+	@Test
+	public void getAll_shouldGellVisitAttributeTypesExcludingRetiredOnes() throws Exception {
+		Assert.assertEquals(3, Util.getResultsSize(controller.getAll(emptyRequest(), emptyResponse())));
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#getAll(javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 */
+	@Test
+	public void getAll_shouldGellVisitAttributeTypesIfIncludeAllIsSetToTrue() throws Exception {
+		MockHttpServletRequest request = emptyRequest();
+		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_INCLUDE_ALL, "true");
+		Assert.assertEquals(4, Util.getResultsSize(controller.getAll(request, emptyResponse())));
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#search(String, javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 */
+	@Test
+	public void search_shouldFindMatchingVisitAttributeTypesExcludingRetiredOnes() throws Exception {
+		Assert.assertEquals(2, Util.getResultsSize(controller.search("date", emptyRequest(), emptyResponse())));
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#search(String, javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 */
+	@Test
+	public void search_shouldFindAllMatchingVisitAttributeTypesIfIncludeAllIsSetToTrue() throws Exception {
+		MockHttpServletRequest request = emptyRequest();
+		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_INCLUDE_ALL, "true");
+		Assert.assertEquals(3, Util.getResultsSize(controller.search("date", request, emptyResponse())));
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#search(String, javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 */
+	@Test
+	public void search_shouldFindMatchingVisitAttributeTypesIgnoringCase() throws Exception {
+		Assert.assertEquals(2, Util.getResultsSize(controller.search("DaTe", emptyRequest(), emptyResponse())));
+		Assert.assertEquals(1, Util.getResultsSize(controller.search("RANDOM", emptyRequest(), emptyResponse())));
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#search(String, javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 */
+	@Test
+	public void search_shouldFindMatchingVisitAttributeTypesForQueriesShorterThanThreeCharacters() throws Exception {
+		MockHttpServletRequest request = emptyRequest();
+		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_INCLUDE_ALL, "true");
+		Assert.assertEquals(0, Util.getResultsSize(controller.search("of", emptyRequest(), emptyResponse())));
+		Assert.assertEquals(1, Util.getResultsSize(controller.search("of", request, emptyResponse())));
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#search(String, javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 */
+	@Test
+	public void search_shouldFindANewlyCreatedVisitAttributeType() throws Exception {
+		Assert.assertEquals(0, Util.getResultsSize(controller.search("referral", emptyRequest(), emptyResponse())));
+		String json = "{ \"name\":\"Referral Source\",\"datatypeClassname\":\"org.openmrs.customdatatype.datatype.FreeTextDatatype\"}";
+		controller.create(new ObjectMapper().readValue(json, SimpleObject.class), emptyRequest(), emptyResponse());
+		Assert.assertEquals(1, Util.getResultsSize(controller.search("referral", emptyRequest(), emptyResponse())));
+	}
+	
+	/**
+	 * @See {@link VisitAttributeTypeController#purge(String, javax.servlet.http.HttpServletRequest, HttpServletResponse)}
+	 */
+	@Test
+	public void purge_shouldPurgeAVisitAttributeType() throws Exception {
+		final String visitAttributeTypeUuid = "6770f6d6-7673-11e0-8f03-001e378eb67g";
+		Assert.assertNotNull(service.getVisitAttributeTypeByUuid(visitAttributeTypeUuid));
+		int originalCount = service.getAllVisitAttributeTypes().size();
+		controller.purge(visitAttributeTypeUuid, emptyRequest(), emptyResponse());
+		Assert.assertNull(service.getVisitAttributeTypeByUuid(visitAttributeTypeUuid));
+		Assert.assertEquals(originalCount - 1, service.getAllVisitAttributeTypes().size());
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#getByUuids(String, javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 * @verifies get the attribute types with the given uuids and list the missing ones
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void getByUuids_shouldGetTheAttributeTypesWithTheGivenUuidsAndListTheMissingOnes() throws Exception {
+		SimpleObject result = controller.getByUuids(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID + ",no-such-type",
+		    emptyRequest(), emptyResponse());
+		List<Map<String, Object>> results = (List<Map<String, Object>>) result.get("results");
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, results.get(0).get("uuid"));
+		Assert.assertEquals("no-such-type", ((List<String>) result.get("missing")).get(0));
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#getByUuids(String, javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 * @verifies write only the requested fields
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void getByUuids_shouldWriteOnlyTheRequestedFields() throws Exception {
+		MockHttpServletRequest request = emptyRequest();
+		request.addParameter("fields", "uuid,name");
+		SimpleObject result = controller.getByUuids(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, request,
+		    emptyResponse());
+		Map<String, Object> attributeType = ((List<Map<String, Object>>) result.get("results")).get(0);
+		Assert.assertEquals(2, attributeType.size());
+		Assert.assertEquals(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, attributeType.get("uuid"));
+		Assert.assertNotNull(attributeType.get("name"));
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#getByUuids(String, javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 * @verifies fail without the privilege to view the attribute types
+	 */
+	@Test(expected = ContextAuthenticationException.class)
+	public void getByUuids_shouldFailWithoutThePrivilegeToViewTheAttributeTypes() throws Exception {
+		Context.logout();
+		controller.getByUuids(Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID, emptyRequest(), emptyResponse());
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#getAll(javax.servlet.http.HttpServletRequest, HttpServletResponse)
+	 */
+	@Test(expected = ContextAuthenticationException.class)
+	public void getAll_shouldFailWithoutThePrivilegeToViewTheAttributeTypesOnceTheyAreIndexed() throws Exception {
+		controller.getAll(emptyRequest(), emptyResponse());
+		Context.logout();
+		controller.getAll(emptyRequest(), emptyResponse());
+	}
+	
+	/**
+	 * @see VisitAttributeTypeController#search(String, javax.servlet.http.HttpServletRequest,
+	 *      HttpServletResponse)
+	 */
+	@Test(expected = ContextAuthenticationException.class)
+	public void search_shouldFailWithoutThePrivilegeToViewTheAttributeTypesOnceTheyAreIndexed() throws Exception {
+		controller.search("date", emptyRequest(), emptyResponse());
+		Context.logout();
+		controller.search("date", emptyRequest(), emptyResponse());
+	}
+}
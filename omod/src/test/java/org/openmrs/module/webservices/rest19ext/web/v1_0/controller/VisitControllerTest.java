@@ -1,223 +1,660 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License
- * Version 1.0 (the "License"); you may not use this file except in
- * compliance with the License. You may obtain a copy of the License at
- * http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS"
- * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
- * License for the specific language governing rights and limitations
- * under the License.
- *
- * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
-
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
-
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-
-import org.apache.commons.beanutils.PropertyUtils;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.junit.Assert;
-import org.junit.Before;
-import org.junit.Test;
-import org.openmrs.Patient;
-import org.openmrs.Visit;
-import org.openmrs.api.VisitService;
-import org.openmrs.api.context.Context;
-import org.openmrs.module.webservices.rest.SimpleObject;
-import org.openmrs.module.webservices.rest.test.Util;
-import org.openmrs.module.webservices.rest.web.RestConstants;
-import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
-import org.openmrs.test.Verifies;
-import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
-import org.springframework.mock.web.MockHttpServletRequest;
-import org.springframework.mock.web.MockHttpServletResponse;
-
-public class VisitControllerTest extends BaseModuleWebContextSensitiveTest {
-	
-	private VisitService service;
-	
-	private VisitController controller;
-	
-	private MockHttpServletRequest request;
-	
-	private HttpServletResponse response;
-	
-	private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
-	
-	@Before
-	public void before() {
-		this.service = Context.getVisitService();
-		this.controller = new VisitController();
-		this.request = new MockHttpServletRequest();
-		this.response = new MockHttpServletResponse();
-	}
-	
-	@Test
-	public void shouldGetAVisitByUuid() throws Exception {
-		Object result = controller.retrieve(Rest19ExtTestConstants.VISIT_UUID, request);
-		Assert.assertNotNull(result);
-		Assert.assertEquals(Rest19ExtTestConstants.VISIT_UUID, PropertyUtils.getProperty(result, "uuid"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "visitType"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "patient"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "location"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "indication"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "startDatetime"));
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "attributes"));
-		Assert.assertNull(PropertyUtils.getProperty(result, "stopDatetime"));
-		Assert.assertNull(PropertyUtils.getProperty(result, "auditinfo"));
-		Util.log("VISIT:", result);
-	}
-	
-	@Test
-	public void shouldCreateAVisit() throws Exception {
-		int originalCount = service.getAllVisits().size();
-		String json = "{ \"patient\":\"5946f880-b197-400b-9caa-a3c661d23041\", \"visitType\":\""
-		        + Rest19ExtTestConstants.VISIT_TYPE_UUID + "\", \"location\":\"" + Rest19ExtTestConstants.LOCATION_UUID
-		        + "\", \"startDatetime\":\"" + DATE_FORMAT.format(new Date()) + "\"}";
-		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
-		Object newVisit = controller.create(post, request, response);
-		Assert.assertNotNull(PropertyUtils.getProperty(newVisit, "uuid"));
-		Assert.assertEquals(originalCount + 1, service.getAllVisits().size());
-	}
-	
-	@Test
-	public void shouldCreateAVisitWithEncounters() throws Exception {
-		int originalCount = service.getAllVisits().size();
-		final String patientUuid = "5946f880-b197-400b-9caa-a3c661d23041";
-		Patient patient = Context.getPatientService().getPatientByUuid(patientUuid);
-		Assert.assertEquals(0, service.getVisitsByPatient(patient).size());
-		String json = "{ \"patient\":\"5946f880-b197-400b-9caa-a3c661d23041\", \"visitType\":\""
-		        + Rest19ExtTestConstants.VISIT_TYPE_UUID
-		        + "\", \"location\":\""
-		        + Rest19ExtTestConstants.LOCATION_UUID
-		        + "\", \"startDatetime\":\""
-		        + DATE_FORMAT.format(new Date())
-		        + "\", \"encounters\": [\"6519d653-393b-4118-9c83-a3715b82d4ac\", \"eec646cb-c847-45a7-98bc-91c8c4f70add\"] }";
-		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
-		Object newVisit = controller.create(post, request, response);
-		Assert.assertNotNull(PropertyUtils.getProperty(newVisit, "uuid"));
-		Assert.assertEquals(originalCount + 1, service.getAllVisits().size());
-		Assert.assertEquals(2, service.getVisitsByPatient(patient).get(0).getEncounters().size());
-	}
-	
-	@Test
-	public void shouldCreateAVisitWithAttributes() throws Exception {
-		int originalCount = service.getAllVisits().size();
-		String json = "{ \"patient\":\"5946f880-b197-400b-9caa-a3c661d23041\", \"visitType\":\""
-		        + Rest19ExtTestConstants.VISIT_TYPE_UUID + "\", \"location\":\"" + Rest19ExtTestConstants.LOCATION_UUID
-		        + "\", \"startDatetime\":\"" + DATE_FORMAT.format(new Date()) + "\","
-		        + "\"attributes\":[{\"attributeType\":\"" + Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID
-		        + "\",\"value\":\"2012-12-01\"}]}";
-		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
-		Object newVisit = controller.create(post, request, response);
-		Assert.assertNotNull(PropertyUtils.getProperty(newVisit, "uuid"));
-		Assert.assertEquals(originalCount + 1, service.getAllVisits().size());
-	}
-	
-	@Test
-	public void shouldEditAVisit() throws Exception {
-		final String newVisitTypeUuid = Rest19ExtTestConstants.VISIT_TYPE_UUID;
-		final String newLocationUuid = "9356400c-a5a2-4532-8f2b-2361b3446eb8";
-		final String newIndicationConceptUuid = "c607c80f-1ea9-4da3-bb88-6276ce8868dd";
-		final Date newStartDatetime = new Date();
-		final Date newStopDatetime = new Date();
-		Visit visit = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
-		Assert.assertNotNull(visit);
-		//sanity checks
-		Assert.assertFalse(newVisitTypeUuid.equalsIgnoreCase(visit.getVisitType().getUuid()));
-		Assert.assertFalse(newLocationUuid.equalsIgnoreCase(visit.getLocation().getUuid()));
-		Assert.assertFalse(newIndicationConceptUuid.equalsIgnoreCase(visit.getIndication().getUuid()));
-		Assert.assertFalse(newStartDatetime.equals(visit.getStartDatetime()));
-		Assert.assertFalse(newStopDatetime.equals(visit.getStopDatetime()));
-		
-		String json = "{ \"visitType\":\"" + newVisitTypeUuid + "\", \"location\":\"" + newLocationUuid
-		        + "\", \"indication\":\"" + newIndicationConceptUuid + "\", \"startDatetime\":\""
-		        + DATE_FORMAT.format(newStartDatetime) + "\", \"stopDatetime\":\"" + DATE_FORMAT.format(newStopDatetime)
-		        + "\" }";
-		
-		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
-		controller.update(Rest19ExtTestConstants.VISIT_UUID, post, request, response);
-		
-		Visit updated = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
-		Assert.assertNotNull(updated);
-		Assert.assertEquals(newVisitTypeUuid, updated.getVisitType().getUuid());
-		Assert.assertEquals(newLocationUuid, updated.getLocation().getUuid());
-		Assert.assertEquals(newIndicationConceptUuid, updated.getIndication().getUuid());
-		Assert.assertEquals(newStartDatetime, updated.getStartDatetime());
-		Assert.assertEquals(newStopDatetime, updated.getStopDatetime());
-	}
-	
-	@Test
-	public void shouldAddEncountersToAnExistingVisitOnEdit() throws Exception {
-		Visit visit = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
-		Assert.assertEquals(0, visit.getEncounters().size());
-		
-		String json = "{\"encounters\": [\"6519d653-393b-4118-9c83-a3715b82d4ac\", \"eec646cb-c847-45a7-98bc-91c8c4f70add\"] }";
-		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
-		controller.update(Rest19ExtTestConstants.VISIT_UUID, post, request, response);
-		Visit updated = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
-		Assert.assertEquals(2, updated.getEncounters().size());
-	}
-	
-	@Test
-	public void shouldRemoveAnEncounterFromAnExistingVisitOnEdit() throws Exception {
-		final String encounterId = "6519d653-393b-4118-9c83-a3715b82d4ac";
-		Visit visit = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
-		//add an encounter to be removed for testing purposes
-		visit.getEncounters().add(Context.getEncounterService().getEncounterByUuid(encounterId));
-		service.saveVisit(visit);
-		Assert.assertEquals(1, visit.getEncounters().size());
-		
-		String json = "{\"encounters\": [] }";
-		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
-		controller.update(Rest19ExtTestConstants.VISIT_UUID, post, request, response);
-		Visit updated = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
-		Assert.assertEquals(0, updated.getEncounters().size());
-	}
-	
-	@Test
-	public void shouldVoidAVisit() throws Exception {
-		Visit visit = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
-		Assert.assertFalse(visit.isVoided());
-		
-		controller.delete(Rest19ExtTestConstants.VISIT_UUID, "test reason", request, response);
-		visit = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
-		Assert.assertTrue(visit.isVoided());
-		Assert.assertEquals("test reason", visit.getVoidReason());
-	}
-	
-	@Test
-	public void shouldPurgeAVisit() throws Exception {
-		Assert.assertNotNull(service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID));
-		int originalCount = service.getAllVisits().size();
-		controller.purge(Rest19ExtTestConstants.VISIT_UUID, request, response);
-		Assert.assertNull(service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID));
-		Assert.assertEquals(originalCount - 1, service.getAllVisits().size());
-	}
-	
-	@Test
-	public void shouldReturnTheAuditInfoForTheFullRepresentation() throws Exception {
-		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, RestConstants.REPRESENTATION_FULL);
-		Object result = controller.retrieve(Rest19ExtTestConstants.VISIT_UUID, request);
-		Assert.assertNotNull(result);
-		Assert.assertNotNull(PropertyUtils.getProperty(result, "auditInfo"));
-	}
-	
-	/**
-	 * @see {@link VisitController#searchByPatient(String,HttpServletRequest,HttpServletResponse)}
-	 */
-	@SuppressWarnings("unchecked")
-	@Test
-	@Verifies(value = "should get visits for the patient", method = "searchByPatient(String,HttpServletRequest,HttpServletResponse)")
-	public void searchByPatient_shouldGetUnretiredVisitsForThePatient() throws Exception {
-		Assert.assertEquals(3, ((List<Object>) controller.searchByPatient("da7f524f-27ce-4bb2-86d6-6d1d05312bd5", request,
-		    response).get("results")).size());
-	}
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.controller;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.Patient;
+import org.openmrs.Visit;
+import org.openmrs.VisitType;
+import org.openmrs.api.VisitService;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.ContextAuthenticationException;
+import org.openmrs.module.webservices.rest.SimpleObject;
+import org.openmrs.module.webservices.rest.test.Util;
+import org.openmrs.module.webservices.rest.web.RestConstants;
+import org.openmrs.module.webservices.rest.web.response.ConversionException;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestUtil;
+import org.openmrs.module.webservices.rest19ext.web.v1_0.resource.VisitResource;
+import org.openmrs.test.Verifies;
+import org.openmrs.web.test.BaseModuleWebContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class VisitControllerTest extends BaseModuleWebContextSensitiveTest {
+	
+	private VisitService service;
+	
+	private VisitController controller;
+	
+	private MockHttpServletRequest request;
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	private HttpServletResponse response;
+	
+	private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+	
+	@Before
+	public void before() {
+		this.service = Context.getVisitService();
+		this.controller = new VisitController();
+		this.request = new MockHttpServletRequest();
+		this.response = new MockHttpServletResponse();
+	}
+	
+	@Test
+	public void shouldGetAVisitByUuid() throws Exception {
+		Object result = controller.retrieve(Rest19ExtTestConstants.VISIT_UUID, request);
+		Assert.assertNotNull(result);
+		Assert.assertEquals(Rest19ExtTestConstants.VISIT_UUID, PropertyUtils.getProperty(result, "uuid"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "visitType"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "patient"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "location"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "indication"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "startDatetime"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "attributes"));
+		Assert.assertNull(PropertyUtils.getProperty(result, "stopDatetime"));
+		Assert.assertNull(PropertyUtils.getProperty(result, "auditinfo"));
+		Util.log("VISIT:", result);
+	}
+	
+	@Test
+	public void shouldCreateAVisit() throws Exception {
+		int originalCount = service.getAllVisits().size();
+		String json = "{ \"patient\":\"5946f880-b197-400b-9caa-a3c661d23041\", \"visitType\":\""
+		        + Rest19ExtTestConstants.VISIT_TYPE_UUID + "\", \"location\":\"" + Rest19ExtTestConstants.LOCATION_UUID
+		        + "\", \"startDatetime\":\"" + DATE_FORMAT.format(new Date()) + "\"}";
+		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
+		Object newVisit = controller.create(post, request, response);
+		Assert.assertNotNull(PropertyUtils.getProperty(newVisit, "uuid"));
+		Assert.assertEquals(originalCount + 1, service.getAllVisits().size());
+	}
+	
+	@Test
+	public void shouldCreateAVisitWithEncounters() throws Exception {
+		int originalCount = service.getAllVisits().size();
+		final String patientUuid = "5946f880-b197-400b-9caa-a3c661d23041";
+		Patient patient = Context.getPatientService().getPatientByUuid(patientUuid);
+		Assert.assertEquals(0, service.getVisitsByPatient(patient).size());
+		String json = "{ \"patient\":\"5946f880-b197-400b-9caa-a3c661d23041\", \"visitType\":\""
+		        + Rest19ExtTestConstants.VISIT_TYPE_UUID
+		        + "\", \"location\":\""
+		        + Rest19ExtTestConstants.LOCATION_UUID
+		        + "\", \"startDatetime\":\""
+		        + DATE_FORMAT.format(new Date())
+		        + "\", \"encounters\": [\"6519d653-393b-4118-9c83-a3715b82d4ac\", \"eec646cb-c847-45a7-98bc-91c8c4f70add\"] }";
+		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
+		Object newVisit = controller.create(post, request, response);
+		Assert.assertNotNull(PropertyUtils.getProperty(newVisit, "uuid"));
+		Assert.assertEquals(originalCount + 1, service.getAllVisits().size());
+		Assert.assertEquals(2, service.getVisitsByPatient(patient).get(0).getEncounters().size());
+	}
+	
+	@Test
+	public void shouldCreateAVisitWithAttributes() throws Exception {
+		int originalCount = service.getAllVisits().size();
+		String json = "{ \"patient\":\"5946f880-b197-400b-9caa-a3c661d23041\", \"visitType\":\""
+		        + Rest19ExtTestConstants.VISIT_TYPE_UUID + "\", \"location\":\"" + Rest19ExtTestConstants.LOCATION_UUID
+		        + "\", \"startDatetime\":\"" + DATE_FORMAT.format(new Date()) + "\","
+		        + "\"attributes\":[{\"attributeType\":\"" + Rest19ExtTestConstants.VISIT_ATTRIBUTE_TYPE_UUID
+		        + "\",\"value\":\"2012-12-01\"}]}";
+		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
+		Object newVisit = controller.create(post, request, response);
+		Assert.assertNotNull(PropertyUtils.getProperty(newVisit, "uuid"));
+		Assert.assertEquals(originalCount + 1, service.getAllVisits().size());
+	}
+	
+	@Test
+	public void shouldEditAVisit() throws Exception {
+		final String newVisitTypeUuid = Rest19ExtTestConstants.VISIT_TYPE_UUID;
+		final String newLocationUuid = "9356400c-a5a2-4532-8f2b-2361b3446eb8";
+		final String newIndicationConceptUuid = "c607c80f-1ea9-4da3-bb88-6276ce8868dd";
+		final Date newStartDatetime = new Date();
+		final Date newStopDatetime = new Date();
+		Visit visit = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
+		Assert.assertNotNull(visit);
+		//sanity checks
+		Assert.assertFalse(newVisitTypeUuid.equalsIgnoreCase(visit.getVisitType().getUuid()));
+		Assert.assertFalse(newLocationUuid.equalsIgnoreCase(visit.getLocation().getUuid()));
+		Assert.assertFalse(newIndicationConceptUuid.equalsIgnoreCase(visit.getIndication().getUuid()));
+		Assert.assertFalse(newStartDatetime.equals(visit.getStartDatetime()));
+		Assert.assertFalse(newStopDatetime.equals(visit.getStopDatetime()));
+		
+		String json = "{ \"visitType\":\"" + newVisitTypeUuid + "\", \"location\":\"" + newLocationUuid
+		        + "\", \"indication\":\"" + newIndicationConceptUuid + "\", \"startDatetime\":\""
+		        + DATE_FORMAT.format(newStartDatetime) + "\", \"stopDatetime\":\"" + DATE_FORMAT.format(newStopDatetime)
+		        + "\" }";
+		
+		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
+		controller.update(Rest19ExtTestConstants.VISIT_UUID, post, request, response);
+		
+		Visit updated = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
+		Assert.assertNotNull(updated);
+		Assert.assertEquals(newVisitTypeUuid, updated.getVisitType().getUuid());
+		Assert.assertEquals(newLocationUuid, updated.getLocation().getUuid());
+		Assert.assertEquals(newIndicationConceptUuid, updated.getIndication().getUuid());
+		Assert.assertEquals(newStartDatetime, updated.getStartDatetime());
+		Assert.assertEquals(newStopDatetime, updated.getStopDatetime());
+	}
+	
+	@Test
+	public void shouldAddEncountersToAnExistingVisitOnEdit() throws Exception {
+		Visit visit = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
+		Assert.assertEquals(0, visit.getEncounters().size());
+		
+		String json = "{\"encounters\": [\"6519d653-393b-4118-9c83-a3715b82d4ac\", \"eec646cb-c847-45a7-98bc-91c8c4f70add\"] }";
+		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
+		controller.update(Rest19ExtTestConstants.VISIT_UUID, post, request, response);
+		Visit updated = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
+		Assert.assertEquals(2, updated.getEncounters().size());
+	}
+	
+	@Test
+	public void shouldRemoveAnEncounterFromAnExistingVisitOnEdit() throws Exception {
+		final String encounterId = "6519d653-393b-4118-9c83-a3715b82d4ac";
+		Visit visit = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
+		//add an encounter to be removed for testing purposes
+		visit.getEncounters().add(Context.getEncounterService().getEncounterByUuid(encounterId));
+		service.saveVisit(visit);
+		Assert.assertEquals(1, visit.getEncounters().size());
+		
+		String json = "{\"encounters\": [] }";
+		SimpleObject post = new ObjectMapper().readValue(json, SimpleObject.class);
+		controller.update(Rest19ExtTestConstants.VISIT_UUID, post, request, response);
+		Visit updated = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
+		Assert.assertEquals(0, updated.getEncounters().size());
+	}
+	
+	@Test
+	public void shouldVoidAVisit() throws Exception {
+		Visit visit = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
+		Assert.assertFalse(visit.isVoided());
+		
+		controller.delete(Rest19ExtTestConstants.VISIT_UUID, "test reason", request, response);
+		visit = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
+		Assert.assertTrue(visit.isVoided());
+		Assert.assertEquals("test reason", visit.getVoidReason());
+	}
+	
+	@Test
+	public void shouldPurgeAVisit() throws Exception {
+		Assert.assertNotNull(service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID));
+		int originalCount = service.getAllVisits().size();
+		controller.purge(Rest19ExtTestConstants.VISIT_UUID, request, response);
+		Assert.assertNull(service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID));
+		Assert.assertEquals(originalCount - 1, service.getAllVisits().size());
+	}
+	
+	@Test
+	public void shouldReturnTheAuditInfoForTheFullRepresentation() throws Exception {
+		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, RestConstants.REPRESENTATION_FULL);
+		Object result = controller.retrieve(Rest19ExtTestConstants.VISIT_UUID, request);
+		Assert.assertNotNull(result);
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "auditInfo"));
+	}
+	
+	/**
+	 * @see {@link VisitController#searchByPatient(String,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should get visits for the patient", method = "searchByPatient(String,HttpServletRequest,HttpServletResponse)")
+	public void searchByPatient_shouldGetUnretiredVisitsForThePatient() throws Exception {
+		Assert.assertEquals(3, ((List<Object>) controller.searchByPatient("da7f524f-27ce-4bb2-86d6-6d1d05312bd5", request,
+		    response).get("results")).size());
+	}
+	
+	/**
+	 * @see {@link VisitController#searchByPatient(String,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should get only the requested page of visits for the patient", method = "searchByPatient(String,HttpServletRequest,HttpServletResponse)")
+	public void searchByPatient_shouldGetOnlyTheRequestedPageOfVisitsForThePatient() throws Exception {
+		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_LIMIT, "2");
+		SimpleObject firstPage = controller.searchByPatient("da7f524f-27ce-4bb2-86d6-6d1d05312bd5", request, response);
+		Assert.assertEquals(2, ((List<Object>) firstPage.get("results")).size());
+		Assert.assertNotNull(firstPage.get("links"));
+		
+		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_START_INDEX, "2");
+		SimpleObject lastPage = controller.searchByPatient("da7f524f-27ce-4bb2-86d6-6d1d05312bd5", request, response);
+		Assert.assertEquals(1, ((List<Object>) lastPage.get("results")).size());
+	}
+	
+	/**
+	 * @see {@link VisitController#searchByPatient(String,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should include the encounters and attributes in the full representation", method = "searchByPatient(String,HttpServletRequest,HttpServletResponse)")
+	public void searchByPatient_shouldIncludeTheEncountersAndAttributesInTheFullRepresentation() throws Exception {
+		final String patientUuid = "da7f524f-27ce-4bb2-86d6-6d1d05312bd5";
+		Statistics statistics = sessionFactory.getStatistics();
+		boolean enabled = statistics.isStatisticsEnabled();
+		statistics.setStatisticsEnabled(true);
+		try {
+			long queries = countQueriesOfFullSearchByPatient(patientUuid, 3);
+			
+			//the encounters and attributes of more visits must not take more queries
+			Patient patient = Context.getPatientService().getPatientByUuid(patientUuid);
+			VisitType visitType = service.getVisitTypeByUuid(Rest19ExtTestConstants.VISIT_TYPE_UUID);
+			for (int i = 0; i < 2; i++) {
+				service.saveVisit(new Visit(patient, visitType, new Date(System.currentTimeMillis() - 60000)));
+			}
+			Assert.assertEquals(queries, countQueriesOfFullSearchByPatient(patientUuid, 5));
+		}
+		finally {
+			statistics.setStatisticsEnabled(enabled);
+		}
+	}
+	
+	/**
+	 * Searches the visits of the patient at the full representation in a new session
+	 * 
+	 * @return the number of statements the search prepared
+	 */
+	@SuppressWarnings("unchecked")
+	private long countQueriesOfFullSearchByPatient(String patientUuid, int expectedVisits) throws Exception {
+		Context.flushSession();
+		Context.clearSession();
+		sessionFactory.getStatistics().clear();
+		MockHttpServletRequest fullRequest = new MockHttpServletRequest();
+		fullRequest.addParameter(RestConstants.REQUEST_PROPERTY_FOR_REPRESENTATION, RestConstants.REPRESENTATION_FULL);
+		List<Map<String, Object>> results = (List<Map<String, Object>>) controller.searchByPatient(patientUuid,
+		    fullRequest, response).get("results");
+		Assert.assertEquals(expectedVisits, results.size());
+		for (Map<String, Object> result : results) {
+			Assert.assertNotNull(result.get("encounters"));
+			Assert.assertNotNull(result.get("attributes"));
+		}
+		return sessionFactory.getStatistics().getPrepareStatementCount();
+	}
+	
+	/**
+	 * @see {@link VisitController#searchByPatient(String,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should write only the requested fields", method = "searchByPatient(String,HttpServletRequest,HttpServletResponse)")
+	public void searchByPatient_shouldWriteOnlyTheRequestedFields() throws Exception {
+		request.addParameter("fields", "uuid,startDatetime,visitType.name");
+		List<Map<String, Object>> results = (List<Map<String, Object>>) controller.searchByPatient(
+		    "da7f524f-27ce-4bb2-86d6-6d1d05312bd5", request, response).get("results");
+		Assert.assertEquals(3, results.size());
+		for (Map<String, Object> result : results) {
+			Assert.assertEquals(3, result.size());
+			Assert.assertNotNull(result.get("uuid"));
+			Assert.assertTrue(result.containsKey("startDatetime"));
+			Assert.assertNotNull(((Map<String, Object>) result.get("visitType")).get("name"));
+		}
+	}
+	
+	/**
+	 * @see {@link VisitController#retrieve(String,HttpServletRequest)}
+	 */
+	@Test
+	@Verifies(value = "should write only the requested fields of a visit", method = "retrieve(String,HttpServletRequest)")
+	public void retrieve_shouldWriteOnlyTheRequestedFieldsOfAVisit() throws Exception {
+		request.addParameter("fields", "uuid,links");
+		Object result = controller.retrieve(Rest19ExtTestConstants.VISIT_UUID, request);
+		Assert.assertEquals(Rest19ExtTestConstants.VISIT_UUID, PropertyUtils.getProperty(result, "uuid"));
+		Assert.assertNotNull(PropertyUtils.getProperty(result, "links"));
+		Assert.assertNull(PropertyUtils.getProperty(result, "display"));
+	}
+	
+	/**
+	 * @see {@link VisitController#streamByPatient(String,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should write the visits for the patient", method = "streamByPatient(String,HttpServletRequest,HttpServletResponse)")
+	public void streamByPatient_shouldWriteTheVisitsForThePatient() throws Exception {
+		request.addParameter(RestConstants.REQUEST_PROPERTY_FOR_LIMIT, "2");
+		MockHttpServletResponse streamed = new MockHttpServletResponse();
+		controller.streamByPatient("da7f524f-27ce-4bb2-86d6-6d1d05312bd5", request, streamed);
+		SimpleObject page = new ObjectMapper().readValue(streamed.getContentAsString(), SimpleObject.class);
+		Assert.assertEquals(2, ((List<Object>) page.get("results")).size());
+		Assert.assertNotNull(page.get("links"));
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should get the visits changed since the given date", method = "searchChangedSince(String,String,HttpServletRequest,HttpServletResponse)")
+	public void searchChangedSince_shouldGetTheVisitsChangedSinceTheGivenDate() throws Exception {
+		String since = DATE_FORMAT.format(new Date(System.currentTimeMillis() - 60000));
+		Visit changed = service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID);
+		changed.setStopDatetime(new Date());
+		service.saveVisit(changed);
+		Visit created = saveVisit(null, new Date(System.currentTimeMillis() - 30000));
+		
+		SimpleObject page = controller.searchChangedSince(since, null, request, response);
+		Set<Object> uuids = new HashSet<Object>();
+		for (Map<String, Object> visit : (List<Map<String, Object>>) page.get("results")) {
+			uuids.add(visit.get("uuid"));
+		}
+		Assert.assertEquals(new HashSet<Object>(Arrays.asList(changed.getUuid(), created.getUuid())), uuids);
+		Assert.assertNull(page.get("links"));
+		
+		page = controller.searchChangedSince(DATE_FORMAT.format(new Date(System.currentTimeMillis() + 60000)), null,
+		    request, response);
+		Assert.assertEquals(0, ((List<Object>) page.get("results")).size());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should include the visits voided since the given date", method = "searchChangedSince(String,String,HttpServletRequest,HttpServletResponse)")
+	public void searchChangedSince_shouldIncludeTheVisitsVoidedSinceTheGivenDate() throws Exception {
+		String since = DATE_FORMAT.format(new Date(System.currentTimeMillis() - 60000));
+		Visit voided = service.voidVisit(service.getVisitByUuid(Rest19ExtTestConstants.VISIT_UUID), "unit test");
+		
+		List<Map<String, Object>> results = (List<Map<String, Object>>) controller.searchChangedSince(since, null,
+		    request, response).get("results");
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(voided.getUuid(), results.get(0).get("uuid"));
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should continue from the cursor of the next link", method = "searchChangedSince(String,String,HttpServletRequest,HttpServletResponse)")
+	public void searchChangedSince_shouldContinueFromTheCursorOfTheNextLink() throws Exception {
+		Set<Object> uuids = new HashSet<Object>();
+		String cursor = null;
+		do {
+			MockHttpServletRequest pageRequest = new MockHttpServletRequest();
+			pageRequest.addParameter(RestConstants.REQUEST_PROPERTY_FOR_LIMIT, "2");
+			SimpleObject page = controller.searchChangedSince("2000-01-01", cursor, pageRequest, response);
+			for (Map<String, Object> visit : (List<Map<String, Object>>) page.get("results")) {
+				Assert.assertTrue(uuids.add(visit.get("uuid")));
+			}
+			
+			cursor = null;
+			List<Map<String, Object>> links = (List<Map<String, Object>>) page.get("links");
+			if (links != null) {
+				String next = (String) links.get(0).get("uri");
+				cursor = next.substring(next.indexOf("cursor=") + "cursor=".length());
+			}
+		} while (cursor != null);
+		Assert.assertEquals(service.getAllVisits().size(), uuids.size());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should import the valid lines and report the invalid ones", method = "importVisits(Integer,HttpServletRequest,HttpServletResponse)")
+	public void importVisits_shouldImportTheValidLinesAndReportTheInvalidOnes() throws Exception {
+		final String patientUuid = "5946f880-b197-400b-9caa-a3c661d23041";
+		String visit = "{\"patient\":\"" + patientUuid + "\", \"visitType\":\"" + Rest19ExtTestConstants.VISIT_TYPE_UUID
+		        + "\", \"startDatetime\":\"" + DATE_FORMAT.format(new Date()) + "\"";
+		String ndjson = visit + ", \"attributes\":[{\"attributeType\":\"7770f6d6-7673-11e0-8f03-001e378eb67f\", "
+		        + "\"value\":\"2012-09-25\"}]}\n" + visit.replace(patientUuid, "no-such-patient") + "}\n" + visit
+		        + "}\n" + "not json\n";
+		request.setContent(ndjson.getBytes("UTF-8"));
+		
+		SimpleObject result = controller.importVisits(2, request, response);
+		Assert.assertEquals(2, result.get("imported"));
+		List<Map<String, Object>> errors = (List<Map<String, Object>>) result.get("errors");
+		Assert.assertEquals(2, errors.size());
+		Assert.assertEquals(2, errors.get(0).get("line"));
+		Assert.assertEquals(4, errors.get(1).get("line"));
+		
+		Patient patient = Context.getPatientService().getPatientByUuid(patientUuid);
+		List<Visit> visits = service.getVisitsByPatient(patient);
+		Assert.assertEquals(2, visits.size());
+		Assert.assertEquals(1, visits.get(0).getAttributes().size() + visits.get(1).getAttributes().size());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should skip the lines whose visit already exists", method = "importVisits(Integer,HttpServletRequest,HttpServletResponse)")
+	public void importVisits_shouldSkipTheLinesWhoseVisitAlreadyExists() throws Exception {
+		final String patientUuid = "5946f880-b197-400b-9caa-a3c661d23041";
+		String visit = "{\"patient\":\"" + patientUuid + "\", \"visitType\":\"" + Rest19ExtTestConstants.VISIT_TYPE_UUID
+		        + "\", \"startDatetime\":\"" + DATE_FORMAT.format(new Date()) + "\"";
+		String ndjson = visit + ", \"uuid\":\"" + Rest19ExtTestConstants.VISIT_UUID + "\"}\n"
+		        + visit.replace(patientUuid, "no-such-patient") + "}\n" + "not json\n" + visit
+		        + ", \"uuid\":\"a1b2c3d4-0000-4000-8000-000000000001\"}\n";
+		request.setContent(ndjson.getBytes("UTF-8"));
+		
+		SimpleObject result = controller.importVisits(3, request, response);
+		Assert.assertEquals(1, result.get("imported"));
+		Assert.assertEquals(1, result.get("skipped"));
+		List<Map<String, Object>> errors = (List<Map<String, Object>>) result.get("errors");
+		Assert.assertEquals(2, errors.size());
+		Assert.assertEquals(2, errors.get(0).get("line"));
+		Assert.assertEquals(3, errors.get(1).get("line"));
+		
+		Patient patient = Context.getPatientService().getPatientByUuid(patientUuid);
+		Assert.assertEquals(1, service.getVisitsByPatient(patient).size());
+		Assert.assertNotNull(service.getVisitByUuid("a1b2c3d4-0000-4000-8000-000000000001"));
+	}
+	
+	@Test(expected = ContextAuthenticationException.class)
+	@Verifies(value = "should fail without the privilege to add visits before reading the lines", method = "importVisits(Integer,HttpServletRequest,HttpServletResponse)")
+	public void importVisits_shouldFailWithoutThePrivilegeToAddVisitsBeforeReadingTheLines() throws Exception {
+		request.setContent(("{\"patient\":\"no-such-patient\"}\n").getBytes("UTF-8"));
+		Context.logout();
+		controller.importVisits(null, request, response);
+	}
+	
+	@Test(expected = ConversionException.class)
+	@Verifies(value = "should fail for a chunk size above the maximum", method = "importVisits(Integer,HttpServletRequest,HttpServletResponse)")
+	public void importVisits_shouldFailForAChunkSizeAboveTheMaximum() throws Exception {
+		request.setContent(new byte[0]);
+		controller.importVisits(VisitResource.MAX_IMPORT_CHUNK_SIZE + 1, request, response);
+	}
+	
+	/**
+	 * @see {@link VisitController#searchActiveByPatient(String,String,String,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should get the active visits for the patient", method = "searchActiveByPatient(String,String,String,HttpServletRequest,HttpServletResponse)")
+	public void searchActiveByPatient_shouldGetTheActiveVisitsForThePatient() throws Exception {
+		final String patientUuid = "5946f880-b197-400b-9caa-a3c661d23041";
+		Visit active = saveActiveVisit(Rest19ExtTestConstants.VISIT_TYPE_UUID);
+		saveVisit(null, Rest19ExtTestConstants.VISIT_TYPE_UUID, new Date(System.currentTimeMillis() - 60000), new Date());
+		
+		List<Map<String, Object>> results = (List<Map<String, Object>>) controller.searchActiveByPatient(patientUuid,
+		    null, null, request, response).get("results");
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(active.getUuid(), results.get(0).get("uuid"));
+	}
+	
+	/**
+	 * @see {@link VisitController#searchActiveByPatient(String,String,String,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should get only the active visits at the given location and of the given type", method = "searchActiveByPatient(String,String,String,HttpServletRequest,HttpServletResponse)")
+	public void searchActiveByPatient_shouldGetOnlyTheActiveVisitsAtTheGivenLocationAndOfTheGivenType()
+	        throws Exception {
+		final String patientUuid = "5946f880-b197-400b-9caa-a3c661d23041";
+		Visit active = saveActiveVisit(Rest19ExtTestConstants.VISIT_TYPE_UUID);
+		for (VisitType visitType : service.getAllVisitTypes()) {
+			if (!visitType.getUuid().equals(Rest19ExtTestConstants.VISIT_TYPE_UUID))
+				saveActiveVisit(visitType.getUuid());
+		}
+		
+		List<Map<String, Object>> results = (List<Map<String, Object>>) controller.searchActiveByPatient(patientUuid,
+		    Rest19ExtTestConstants.LOCATION_UUID, Rest19ExtTestConstants.VISIT_TYPE_UUID, request, response).get(
+		    "results");
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(active.getUuid(), results.get(0).get("uuid"));
+	}
+	
+	/**
+	 * @see {@link VisitController#searchByLocation(String,String,String,String,Boolean,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should get the visits at the location that started in the given range", method = "searchByLocation(String,String,String,String,Boolean,HttpServletRequest,HttpServletResponse)")
+	public void searchByLocation_shouldGetTheVisitsAtTheLocationThatStartedInTheGivenRange() throws Exception {
+		Location ward = Rest19ExtTestUtil.saveLocation("Ward A", null);
+		long now = System.currentTimeMillis();
+		Visit visit = saveVisit(ward, new Date(now - 60000));
+		saveVisit(ward, DATE_FORMAT.parse("2000-01-01T00:00:00.000"));
+		
+		List<Map<String, Object>> results = (List<Map<String, Object>>) controller.searchByLocation(ward.getUuid(),
+		    null, DATE_FORMAT.format(new Date(now - 3600000)), DATE_FORMAT.format(new Date(now + 3600000)), null,
+		    request, response).get("results");
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(visit.getUuid(), results.get(0).get("uuid"));
+	}
+	
+	/**
+	 * @see {@link VisitController#searchByLocation(String,String,String,String,Boolean,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should include the visits at the locations below the location if asked to", method = "searchByLocation(String,String,String,String,Boolean,HttpServletRequest,HttpServletResponse)")
+	public void searchByLocation_shouldIncludeTheVisitsAtTheLocationsBelowTheLocationIfAskedTo() throws Exception {
+		Location ward = Rest19ExtTestUtil.saveLocation("Ward A", null);
+		Location bed = Rest19ExtTestUtil.saveLocation("Bed 1", ward);
+		long now = System.currentTimeMillis();
+		Visit wardVisit = saveVisit(ward, new Date(now - 60000));
+		Visit bedVisit = saveVisit(bed, new Date(now - 30000));
+		
+		List<Map<String, Object>> results = (List<Map<String, Object>>) controller.searchByLocation(ward.getUuid(),
+		    null, null, null, null, request, response).get("results");
+		Assert.assertEquals(1, results.size());
+		
+		results = (List<Map<String, Object>>) controller.searchByLocation(ward.getUuid(), null, null, null, true,
+		    request, response).get("results");
+		Assert.assertEquals(2, results.size());
+		Assert.assertEquals(wardVisit.getUuid(), results.get(0).get("uuid"));
+		Assert.assertEquals(bedVisit.getUuid(), results.get(1).get("uuid"));
+	}
+	
+	/**
+	 * @see {@link VisitController#searchByLocation(String,String,String,String,Boolean,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should continue from the cursor of the next link", method = "searchByLocation(String,String,String,String,Boolean,HttpServletRequest,HttpServletResponse)")
+	public void searchByLocation_shouldContinueFromTheCursorOfTheNextLink() throws Exception {
+		Location ward = Rest19ExtTestUtil.saveLocation("Ward A", null);
+		Date startDatetime = DATE_FORMAT.parse("2020-06-01T09:00:00.000");
+		//visits with the same start date are ordered by id
+		List<String> expected = Arrays.asList(saveVisit(ward, startDatetime).getUuid(), saveVisit(ward, startDatetime)
+		        .getUuid(), saveVisit(ward, new Date(startDatetime.getTime() + 1000)).getUuid());
+		
+		List<String> uuids = new ArrayList<String>();
+		String cursor = null;
+		do {
+			MockHttpServletRequest pageRequest = new MockHttpServletRequest();
+			pageRequest.addParameter(RestConstants.REQUEST_PROPERTY_FOR_LIMIT, "1");
+			if (cursor != null)
+				pageRequest.addParameter("cursor", cursor);
+			SimpleObject page = controller.searchByLocation(ward.getUuid(), null, null, null, null, pageRequest, response);
+			for (Map<String, Object> visit : (List<Map<String, Object>>) page.get("results")) {
+				uuids.add((String) visit.get("uuid"));
+			}
+			
+			cursor = null;
+			List<Map<String, Object>> links = (List<Map<String, Object>>) page.get("links");
+			if (links != null) {
+				String next = (String) links.get(0).get("uri");
+				cursor = next.substring(next.indexOf("cursor=") + "cursor=".length());
+			}
+		} while (cursor != null);
+		Assert.assertEquals(expected, uuids);
+	}
+	
+	/**
+	 * @see {@link VisitController#getStatistics(String,String,String,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should count the visits by visit type, location and day", method = "getStatistics(String,String,String,HttpServletRequest,HttpServletResponse)")
+	public void getStatistics_shouldCountTheVisitsByVisitTypeLocationAndDay() throws Exception {
+		Location ward = Rest19ExtTestUtil.saveLocation("Ward A", null);
+		Date startDatetime = DATE_FORMAT.parse("2020-06-01T09:00:00.000");
+		saveVisit(ward, startDatetime);
+		saveVisit(ward, new Date(startDatetime.getTime() + 3600000));
+		
+		SimpleObject result = controller.getStatistics("2020-06-01T00:00:00.000", "2020-06-02T00:00:00.000", null,
+		    request, response);
+		Assert.assertEquals("day", result.get("interval"));
+		List<Map<String, Object>> counts = (List<Map<String, Object>>) result.get("counts");
+		Assert.assertEquals(1, counts.size());
+		Assert.assertEquals(ward.getUuid(), counts.get(0).get("location"));
+		Assert.assertEquals(2L, counts.get(0).get("count"));
+		Assert.assertEquals(1, ((List<Object>) result.get("locations")).size());
+	}
+	
+	/**
+	 * @see {@link VisitController#getByUuids(String,HttpServletRequest,HttpServletResponse)}
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	@Verifies(value = "should get the visits with the given uuids and list the missing ones", method = "getByUuids(String,HttpServletRequest,HttpServletResponse)")
+	public void getByUuids_shouldGetTheVisitsWithTheGivenUuidsAndListTheMissingOnes() throws Exception {
+		SimpleObject result = controller.getByUuids(Rest19ExtTestConstants.VISIT_UUID + ",no-such-visit", request,
+		    response);
+		List<Map<String, Object>> results = (List<Map<String, Object>>) result.get("results");
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals(Rest19ExtTestConstants.VISIT_UUID, results.get(0).get("uuid"));
+		Assert.assertEquals("no-such-visit", ((List<String>) result.get("missing")).get(0));
+	}
+	
+	/**
+	 * Saves a visit of the patient without visits of the test dataset
+	 * 
+	 * @param location the location of the visit, null for the one of the test dataset
+	 * @param visitTypeUuid the uuid of the type of the visit
+	 * @param startDatetime the start date of the visit
+	 * @param stopDatetime the stop date of the visit, null for an active visit
+	 * @return the saved visit
+	 */
+	private Visit saveVisit(Location location, String visitTypeUuid, Date startDatetime, Date stopDatetime) {
+		Patient patient = Context.getPatientService().getPatientByUuid("5946f880-b197-400b-9caa-a3c661d23041");
+		Visit visit = new Visit(patient, service.getVisitTypeByUuid(visitTypeUuid), startDatetime);
+		if (location == null)
+			location = Context.getLocationService().getLocationByUuid(Rest19ExtTestConstants.LOCATION_UUID);
+		visit.setLocation(location);
+		visit.setStopDatetime(stopDatetime);
+		return service.saveVisit(visit);
+	}
+	
+	private Visit saveVisit(Location location, Date startDatetime) {
+		return saveVisit(location, Rest19ExtTestConstants.VISIT_TYPE_UUID, startDatetime, new Date(
+		        startDatetime.getTime() + 1000));
+	}
+	
+	private Visit saveActiveVisit(String visitTypeUuid) {
+		return saveVisit(null, visitTypeUuid, new Date(System.currentTimeMillis() - 60000), null);
+	}
+}
@@ -1,61 +1,85 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License Version
- * 1.0 (the "License"); you may not use this file except in compliance with the
- * License. You may obtain a copy of the License at http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS" basis,
- * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
- * the specific language governing rights and limitations under the License.
- *
- * Copyright (C) OpenMRS, LLC. All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
-
-import org.junit.Before;
-import org.openmrs.Provider;
-import org.openmrs.api.ProviderService;
-import org.openmrs.api.context.Context;
-import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResourceTest;
-import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
-
-public class ProviderResourceTest extends BaseDelegatingResourceTest<ProviderResource, Provider> {
-	
-	@Before
-	public void before() throws Exception {
-		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
-	}
-	
-	@Override
-	public Provider newObject() {
-		return Context.getService(ProviderService.class).getProviderByUuid(getUuidProperty());
-	}
-	
-	@Override
-	public void validateDefaultRepresentation() throws Exception {
-		super.validateDefaultRepresentation();
-		assertPropPresent("person");
-		assertPropEquals("identifier", getObject().getIdentifier());
-		assertPropPresent("attributes");
-		assertPropEquals("retired", getObject().getRetired());
-	}
-	
-	@Override
-	public void validateFullRepresentation() throws Exception {
-		super.validateFullRepresentation();
-		assertPropPresent("person");
-		assertPropEquals("identifier", getObject().getIdentifier());
-		assertPropPresent("attributes");
-		assertPropEquals("retired", getObject().getRetired());
-		assertPropPresent("auditInfo");
-	}
-	
-	@Override
-	public String getDisplayProperty() {
-		return "Test2 - Mr. Horatio Test Hornblower Esq.";
-	}
-	
-	@Override
-	public String getUuidProperty() {
-		return Rest19ExtTestConstants.PROVIDER_UUID;
-	}
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
+
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.PersonName;
+import org.openmrs.Provider;
+import org.openmrs.api.ProviderService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.api.RestService;
+import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResourceTest;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
+
+public class ProviderResourceTest extends BaseDelegatingResourceTest<ProviderResource, Provider> {
+	
+	@Before
+	public void before() throws Exception {
+		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
+	}
+	
+	@Override
+	public Provider newObject() {
+		return Context.getService(ProviderService.class).getProviderByUuid(getUuidProperty());
+	}
+	
+	@Override
+	public void validateDefaultRepresentation() throws Exception {
+		super.validateDefaultRepresentation();
+		assertPropPresent("person");
+		assertPropEquals("identifier", getObject().getIdentifier());
+		assertPropPresent("attributes");
+		assertPropEquals("retired", getObject().getRetired());
+	}
+	
+	@Override
+	public void validateFullRepresentation() throws Exception {
+		super.validateFullRepresentation();
+		assertPropPresent("person");
+		assertPropEquals("identifier", getObject().getIdentifier());
+		assertPropPresent("attributes");
+		assertPropEquals("retired", getObject().getRetired());
+		assertPropPresent("auditInfo");
+	}
+	
+	/**
+	 * @see ProviderResource#getDisplayString(Provider)
+	 * @verifies build the display again once the name of the person has changed
+	 */
+	@Test
+	public void getDisplayString_shouldBuildTheDisplayAgainOnceTheNameOfThePersonHasChanged() throws Exception {
+		Provider provider = newObject();
+		ProviderResource resource = Context.getService(RestService.class).getResource(ProviderResource.class);
+		Assert.assertEquals(provider.getIdentifier() + " - " + provider.getName(), resource.getDisplayString(provider));
+		
+		//only the name changes, the person and the provider keep their dates
+		PersonName name = provider.getPerson().getPersonName();
+		name.setGivenName("Renamed");
+		name.setDateChanged(new Date(System.currentTimeMillis() - 60000));
+		Assert.assertEquals(provider.getIdentifier() + " - " + provider.getName(), resource.getDisplayString(provider));
+		Assert.assertTrue(resource.getDisplayString(provider).contains("Renamed"));
+	}
+	
+	@Override
+	public String getDisplayProperty() {
+		return "Test2 - Mr. Horatio Test Hornblower Esq.";
+	}
+	
+	@Override
+	public String getUuidProperty() {
+		return Rest19ExtTestConstants.PROVIDER_UUID;
+	}
+}
@@ -1,72 +1,72 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License Version
- * 1.0 (the "License"); you may not use this file except in compliance with the
- * License. You may obtain a copy of the License at http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS" basis,
- * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
- * the specific language governing rights and limitations under the License.
- *
- * Copyright (C) OpenMRS, LLC. All Rights Reserved.
- */
-package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
-
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-
-import junit.framework.Assert;
-
-import org.junit.Before;
-import org.openmrs.VisitAttribute;
-import org.openmrs.api.context.Context;
-import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResourceTest;
-import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
-
-/**
- * Contains tests for the {@link VisitAttributeResource}
- */
-public class VisitAttributeResourceTest extends BaseDelegatingResourceTest<VisitAttributeResource, VisitAttribute> {
-	
-	@Before
-	public void before() throws Exception {
-		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
-	}
-	
-	@Override
-	public VisitAttribute newObject() {
-		return Context.getVisitService().getVisitAttributeByUuid(getUuidProperty());
-	}
-	
-	@Override
-	public void validateDefaultRepresentation() throws Exception {
-		super.validateDefaultRepresentation();
-		assertPropEquals("value", getObject().getValue());
-		assertPropPresent("attributeType");
-		assertPropEquals("voided", getObject().getVoided());
-	}
-	
-	@Override
-	public void validateFullRepresentation() throws Exception {
-		super.validateFullRepresentation();
-		assertPropEquals("value", getObject().getValue());
-		assertPropPresent("attributeType");
-		assertPropEquals("voided", getObject().getVoided());
-		assertPropPresent("auditInfo");
-	}
-	
-	@Override
-	public String getDisplayProperty() {
-		try {
-			return "Audit Date - " + new SimpleDateFormat("yyyy-MM-dd").parse("2011-04-25");
-		}
-		catch (ParseException ex) {
-			Assert.fail(ex.getMessage());
-		}
-		return null;
-	}
-	
-	@Override
-	public String getUuidProperty() {
-		return Rest19ExtTestConstants.VISIT_ATTRIBUTE_UUID;
-	}
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License Version
+ * 1.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ * the specific language governing rights and limitations under the License.
+ *
+ * Copyright (C) OpenMRS, LLC. All Rights Reserved.
+ */
+package org.openmrs.module.webservices.rest19ext.web.v1_0.resource;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.openmrs.VisitAttribute;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.webservices.rest.web.resource.impl.BaseDelegatingResourceTest;
+import org.openmrs.module.webservices.rest19ext.test.Rest19ExtTestConstants;
+
+/**
+ * Contains tests for the {@link VisitAttributeResource}
+ */
+public class VisitAttributeResourceTest extends BaseDelegatingResourceTest<VisitAttributeResource, VisitAttribute> {
+	
+	@Before
+	public void before() throws Exception {
+		executeDataSet(Rest19ExtTestConstants.TEST_DATASET);
+	}
+	
+	@Override
+	public VisitAttribute newObject() {
+		return Context.getVisitService().getVisitAttributeByUuid(getUuidProperty());
+	}
+	
+	@Override
+	public void validateDefaultRepresentation() throws Exception {
+		super.validateDefaultRepresentation();
+		assertPropEquals("value", getObject().getValue());
+		assertPropPresent("attributeType");
+		assertPropEquals("voided", getObject().getVoided());
+	}
+	
+	@Override
+	public void validateFullRepresentation() throws Exception {
+		super.validateFullRepresentation();
+		assertPropEquals("value", getObject().getValue());
+		assertPropPresent("attributeType");
+		assertPropEquals("voided", getObject().getVoided());
+		assertPropPresent("auditInfo");
+	}
+	
+	@Override
+	public String getDisplayProperty() {
+		try {
+			return "Audit Date - " + new SimpleDateFormat("yyyy-MM-dd").parse("2011-04-25");
+		}
+		catch (ParseException ex) {
+			Assert.fail(ex.getMessage());
+		}
+		return null;
+	}
+	
+	@Override
+	public String getUuidProperty() {
+		return Rest19ExtTestConstants.VISIT_ATTRIBUTE_UUID;
+	}
+}